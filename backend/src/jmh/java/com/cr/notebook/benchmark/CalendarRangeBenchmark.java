@@ -0,0 +1,81 @@
+package com.cr.notebook.benchmark;
+
+import com.cr.notebook.entity.CalendarEvent;
+import com.cr.notebook.service.CalendarEventCache;
+import com.cr.notebook.tenant.TenantType;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个租户 5 万条日程时的月视图范围查询：经 CalendarEventCache 命中区间树 vs 逐条扫描（相当于无缓存时的内存过滤下限），
+ * 另测一次失效后重新建树并查询的成本，即缓存失效后首个请求的额外开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarRangeBenchmark {
+
+    /** 与日历接口的返回顺序一致 */
+    private static final Comparator<CalendarEvent> ORDER = Comparator
+            .comparing(CalendarEvent::getEventDate)
+            .thenComparing(CalendarEvent::getEventTime, Comparator.nullsFirst(Comparator.<LocalTime>naturalOrder()))
+            .thenComparing(CalendarEvent::getId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+
+    @Param({"50000"})
+    public int events;
+
+    private final LocalDate base = LocalDate.of(2020, 1, 1);
+    private List<CalendarEvent> source;
+    private CalendarEventCache cache;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        source = new ArrayList<>(events);
+        // 约 10 年跨度，四分之一为跨天日程
+        for (long i = 1; i <= events; i++) {
+            LocalDate start = base.plusDays(random.nextInt(3650));
+            CalendarEvent e = CalendarEvent.builder().title("event " + i).eventDate(start)
+                    .endDate(random.nextInt(4) == 0 ? start.plusDays(random.nextInt(14)) : null).build();
+            e.setId(i);
+            source.add(e);
+        }
+        cache = new CalendarEventCache(true, 500_000, 3600, 50_000);
+        from = base.plusDays(1800);
+        to = from.plusDays(41);
+    }
+
+    @Benchmark
+    public List<CalendarEvent> monthViewCached() {
+        return cache.overlapping(1L, TenantType.PERSONAL, from, to, () -> source);
+    }
+
+    @Benchmark
+    public List<CalendarEvent> monthViewScan() {
+        List<CalendarEvent> result = new ArrayList<>();
+        for (CalendarEvent e : source) {
+            LocalDate end = e.getEndDate() != null ? e.getEndDate() : e.getEventDate();
+            if (!e.getEventDate().isAfter(to) && !end.isBefore(from)) result.add(e);
+        }
+        result.sort(ORDER);
+        return result;
+    }
+
+    @Benchmark
+    public List<CalendarEvent> rebuildAfterEvict() {
+        cache.evict(1L, TenantType.PERSONAL);
+        return cache.overlapping(1L, TenantType.PERSONAL, from, to, () -> source);
+    }
+}
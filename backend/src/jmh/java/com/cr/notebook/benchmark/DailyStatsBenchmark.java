@@ -0,0 +1,68 @@
+package com.cr.notebook.benchmark;
+
+import com.cr.notebook.dto.StatsDTO;
+import com.cr.notebook.entity.TenantDailyStats;
+import com.cr.notebook.mapper.StatsMapper;
+import com.cr.notebook.mapper.TenantDailyStatsMapper;
+import com.cr.notebook.security.UserPrincipal;
+import com.cr.notebook.service.StatsRollupService;
+import com.cr.notebook.service.StatsService;
+import com.cr.notebook.tenant.TenantAwareExecutor;
+import com.cr.notebook.tenant.TenantType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 个人统计接口把汇总行展开为连续按天序列的成本，经由 StatsService.getPersonalStats 调用。
+ * 汇总行只覆盖约一半的日期，其余在内存中补零；mapper 为桩，子任务在调用线程上顺序执行。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DailyStatsBenchmark {
+
+    @Param({"7", "30", "90"})
+    public int days;
+
+    private StatsService statsService;
+
+    @Setup
+    public void setUp() {
+        LocalDate today = LocalDate.now();
+        List<TenantDailyStats> rows = new ArrayList<>();
+        for (int i = 0; i < days; i += 2) {
+            rows.add(new TenantDailyStats(1L, TenantType.PERSONAL, today.minusDays(i), i % 5, i % 3, i % 2));
+        }
+
+        StatsRollupService rollupService = new StatsRollupService(
+                MapperStubs.stub(TenantDailyStatsMapper.class, Map.of("selectRange", () -> rows)), null);
+        StatsMapper statsMapper = MapperStubs.stub(StatsMapper.class, Map.of("selectTotals", StatsDTO::new));
+        // 截止时间为 0 时子任务在调用线程上顺序执行，不计入线程切换
+        statsService = new StatsService(statsMapper, rollupService, null, null, null, null,
+                new TenantAwareExecutor(Runnable::run, 0));
+
+        UserPrincipal principal = new UserPrincipal(1L, "bench", "bench@example.com", null);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public StatsDTO personalStats() {
+        return statsService.getPersonalStats(days);
+    }
+}
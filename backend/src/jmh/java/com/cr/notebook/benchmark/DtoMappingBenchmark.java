@@ -0,0 +1,103 @@
+package com.cr.notebook.benchmark;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.TaskDTO;
+import com.cr.notebook.dto.TaskQuery;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.entity.Task;
+import com.cr.notebook.mapper.NoteMapper;
+import com.cr.notebook.mapper.TaskMapper;
+import com.cr.notebook.service.NoteService;
+import com.cr.notebook.service.TaskService;
+import com.cr.notebook.tenant.TenantContext;
+import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 列表接口把一页实体映射为 DTO 的成本，经由 NoteService.listNotes / TaskService.listTasks 调用。
+ * mapper 为返回固定结果的桩，测得的是拼装查询条件加逐条映射，不含数据库往返。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"20", "200"})
+    public int pageSize;
+
+    private NoteService noteService;
+    private TaskService taskService;
+    private final TaskQuery taskQuery = new TaskQuery();
+
+    @Setup
+    public void setUp() {
+        // 查询条件使用 lambda 列引用，需要实体的表元数据
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Note.class);
+        TableInfoHelper.initTableInfo(assistant, Task.class);
+        TenantContext.set(1L, TenantType.PERSONAL);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Note> notes = new ArrayList<>(pageSize);
+        List<Task> tasks = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Note note = Note.builder()
+                    .folderId((long) (i % 10))
+                    .title("笔记 " + i)
+                    .content("<p>" + "正文内容 ".repeat(50) + "</p>")
+                    .excerpt("正文内容 ".repeat(10))
+                    .isPinned(i % 7 == 0)
+                    .tags(List.of("工作", "tag-" + i % 5))
+                    .build();
+            note.setId((long) i);
+            note.setVersion(1);
+            note.setCreatedAt(now);
+            note.setUpdatedAt(now);
+            notes.add(note);
+
+            Task task = Task.builder()
+                    .content("任务 " + i)
+                    .completed(i % 3 == 0)
+                    .priority("MEDIUM")
+                    .dueDate(LocalDate.now().plusDays(i % 14))
+                    .build();
+            task.setId((long) i);
+            task.setVersion(1);
+            task.setCreatedAt(now);
+            task.setUpdatedAt(now);
+            tasks.add(task);
+        }
+
+        noteService = new NoteService(MapperStubs.stub(NoteMapper.class, Map.of("selectList", () -> notes)),
+                null, null, null, null, null);
+        taskService = new TaskService(MapperStubs.stub(TaskMapper.class, Map.of("selectList", () -> tasks)), null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Benchmark
+    public List<NoteDTO> notes() {
+        return noteService.listNotes(null, null);
+    }
+
+    @Benchmark
+    public List<TaskDTO> tasks() {
+        return taskService.listTasks(taskQuery);
+    }
+}
@@ -0,0 +1,67 @@
+package com.cr.notebook.benchmark;
+
+import com.cr.notebook.security.JwtTokenProvider;
+import com.cr.notebook.security.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求在 JwtAuthenticationFilter 中的令牌校验成本。
+ * legacy 复现改造前的写法：validateToken 与 getUserIdFromToken 各自新建解析器并完整验签一次；
+ * singleParse 为复用解析器、一次验签；cached 为命中已验证令牌缓存的稳态路径。
+ * sign 为登录 / 注册时签发令牌的成本。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "benchmark-jwt-secret-key-must-be-at-least-256-bits-long-for-hs256";
+
+    private SecretKey key;
+    private JwtTokenProvider uncached;
+    private JwtTokenProvider cached;
+    private String token;
+    private UserPrincipal principal;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        uncached = new JwtTokenProvider(SECRET, 3_600_000, 0);
+        cached = new JwtTokenProvider(SECRET, 3_600_000, 10_000);
+        principal = new UserPrincipal(42L, "bench", "bench@example.com", null);
+        token = cached.generateToken(principal);
+        cached.validateAndParse(token);
+    }
+
+    @Benchmark
+    public Long legacy() {
+        Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
+        Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        return Long.parseLong(claims.getSubject());
+    }
+
+    @Benchmark
+    public Long singleParse() {
+        return Long.parseLong(uncached.validateAndParse(token).getSubject());
+    }
+
+    @Benchmark
+    public Long cached() {
+        return Long.parseLong(cached.validateAndParse(token).getSubject());
+    }
+
+    @Benchmark
+    public String sign() {
+        return uncached.generateToken(principal);
+    }
+}
@@ -0,0 +1,23 @@
+package com.cr.notebook.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 基准用的 mapper 桩：按方法名返回预先准备的结果，其余方法返回 null。
+ * 用 JDK 动态代理实现，调用开销固定且很小，测得的是服务层拼装查询条件与映射结果的成本。
+ */
+final class MapperStubs {
+
+    private MapperStubs() {}
+
+    static <M> M stub(Class<M> mapperType, Map<String, Supplier<?>> results) {
+        Object proxy = Proxy.newProxyInstance(mapperType.getClassLoader(), new Class<?>[]{mapperType},
+                (self, method, args) -> {
+                    Supplier<?> result = results.get(method.getName());
+                    return result != null ? result.get() : null;
+                });
+        return mapperType.cast(proxy);
+    }
+}
@@ -0,0 +1,44 @@
+package com.cr.notebook.benchmark;
+
+import com.cr.notebook.service.NoteLinkService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 保存笔记时从正文解析双链 [[id|标题]] 的成本，随正文长度变化。
+ * 正文由普通段落与按比例穿插的链接组成，链接密度大致对应真实笔记。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteLinkParseBenchmark {
+
+    /** 正文字符数：短笔记、普通笔记、长文档 */
+    @Param({"1000", "20000", "200000"})
+    public int contentLength;
+
+    private String content;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder(contentLength + 64);
+        int i = 0;
+        while (sb.length() < contentLength) {
+            sb.append("<p>第 ").append(i).append(" 段：会议纪要与待办事项，参见 ");
+            if (i % 4 == 0) sb.append("[[").append(1000 + i % 50).append("|相关笔记 ").append(i).append("]]");
+            sb.append(" 以及一些 English text for mixed content.</p>\n");
+            i++;
+        }
+        content = sb.toString();
+    }
+
+    @Benchmark
+    public Set<Long> parseLinkTargets() {
+        return NoteLinkService.parseLinkTargets(content);
+    }
+}
@@ -0,0 +1,47 @@
+package com.cr.notebook.benchmark;
+
+import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
+import com.cr.notebook.entity.Note;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * note.tags 列的 JSON 读写成本：每读一行笔记都会反序列化一次，每次保存序列化一次。
+ * 类型处理器按实体字段构造，与 MyBatis-Plus 运行时的泛型解析方式一致。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagsTypeHandlerBenchmark {
+
+    @Param({"0", "5", "50"})
+    public int tagCount;
+
+    private JacksonTypeHandler handler;
+    private List<String> tags;
+    private String json;
+
+    @Setup
+    public void setUp() throws NoSuchFieldException {
+        handler = new JacksonTypeHandler(List.class, Note.class.getDeclaredField("tags"));
+        tags = new ArrayList<>(tagCount);
+        for (int i = 0; i < tagCount; i++) tags.add(i % 2 == 0 ? "标签" + i : "tag-" + i);
+        json = handler.toJson(tags);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return handler.toJson(tags);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return handler.parse(json);
+    }
+}
@@ -3,9 +3,11 @@ package com.cr.notebook;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.cr.notebook.mapper")
+@EnableScheduling
 public class CrNotebookApplication {
     public static void main(String[] args) {
         SpringApplication.run(CrNotebookApplication.class, args);
@@ -0,0 +1,77 @@
+package com.cr.notebook.config;
+
+import com.cr.notebook.datasource.*;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 读写分离：spring.datasource 为主库，app.datasource.routing.replica-urls 为逗号分隔的从库地址，
+ * 从库账号默认与主库相同。未开启时沿用 Spring Boot 自动配置的单数据源。
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public RecentWriteTracker recentWriteTracker(
+            @Value("${app.datasource.routing.sticky-ms:5000}") long stickyMs) {
+        return new RecentWriteTracker(stickyMs, 100_000);
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            RecentWriteTracker recentWriteTracker,
+            @Value("${app.datasource.routing.replica-urls}") String replicaUrls,
+            @Value("${app.datasource.routing.replica-username:${spring.datasource.username:}}") String replicaUsername,
+            @Value("${app.datasource.routing.replica-password:${spring.datasource.password:}}") String replicaPassword,
+            @Value("${app.datasource.routing.max-lag-ms:3000}") long maxLagMs) {
+        DataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        int i = 0;
+        for (String url : replicaUrls.split(",")) {
+            if (url.isBlank()) continue;
+            replicas.put("replica-" + i++, DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build());
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, maxLagMs, recentWriteTracker);
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return replicaRoutingDataSource.getHealthMonitor();
+    }
+
+    /** 延迟到第一条语句执行时才取真实连接，此时事务的 readOnly 标记已经就绪 */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public WriteRoutingInterceptor writeRoutingInterceptor(RecentWriteTracker recentWriteTracker) {
+        return new WriteRoutingInterceptor(recentWriteTracker);
+    }
+
+    @Bean
+    public ReadRoutingInterceptor readRoutingInterceptor() {
+        return new ReadRoutingInterceptor();
+    }
+}
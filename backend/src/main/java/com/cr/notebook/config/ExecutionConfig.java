@@ -0,0 +1,46 @@
+package com.cr.notebook.config;
+
+import com.cr.notebook.tenant.RequestContext;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 请求执行模型。
+ * spring.threads.virtual.enabled=true 时由 Spring Boot 把 Tomcat 请求线程和 applicationTaskExecutor
+ * 切换为虚拟线程，该开关仅在 JDK 21 及以上生效，低版本 JDK 上自动保留平台线程池。
+ * 无论哪种模式，投递到 Spring 管理的执行器中的任务都会经 TaskDecorator 携带提交方的租户、
+ * 安全主体和路由标记，不依赖线程复用或 InheritableThreadLocal。
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class ExecutionConfig {
+
+    private final Environment environment;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsRequested;
+
+    @PostConstruct
+    void logExecutionMode() {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Serving requests on virtual threads");
+        } else if (virtualThreadsRequested) {
+            log.warn("spring.threads.virtual.enabled is set but JDK {} has no virtual threads; using platform thread pool",
+                    Runtime.version().feature());
+        }
+    }
+
+    /** 被 Spring Boot 自动应用到 applicationTaskExecutor（平台线程池或虚拟线程执行器） */
+    @Bean
+    public TaskDecorator requestContextTaskDecorator() {
+        return task -> RequestContext.capture().wrap(task);
+    }
+}
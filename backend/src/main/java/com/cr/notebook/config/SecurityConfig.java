@@ -1,9 +1,11 @@
 package com.cr.notebook.config;
 
 import com.cr.notebook.security.JwtAuthenticationFilter;
+import com.cr.notebook.security.MetricsScrapeTokenFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -20,6 +22,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtFilter;
+    private final MetricsScrapeTokenFilter metricsScrapeTokenFilter;
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -29,10 +32,14 @@ public class SecurityConfig {
             .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/auth/**").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                // 指标包含按语句、接口和租户类型的流量数据，只对持有抓取令牌的 Prometheus 开放
+                .requestMatchers("/actuator/**").hasRole(MetricsScrapeTokenFilter.ROLE)
+                .requestMatchers(HttpMethod.GET, "/api/avatars/**").permitAll()
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(metricsScrapeTokenFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -1,7 +1,9 @@
 package com.cr.notebook.config;
 
+import com.cr.notebook.datasource.ReadRoutingInterceptor;
 import com.cr.notebook.tenant.TenantInterceptor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
@@ -13,6 +15,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 public class WebConfig implements WebMvcConfigurer {
 
     private final TenantInterceptor tenantInterceptor;
+    private final ObjectProvider<ReadRoutingInterceptor> readRoutingInterceptor;
 
     @Value("${app.cors.allowed-origins}")
     private String allowedOrigins;
@@ -23,6 +26,7 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedOrigins(allowedOrigins.split(","))
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("ETag")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -31,6 +35,10 @@ public class WebConfig implements WebMvcConfigurer {
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(tenantInterceptor)
                 .addPathPatterns("/api/**")
-                .excludePathPatterns("/api/auth/**");
+                // 组织管理接口按路径中的 orgId 自行校验成员身份，不依赖租户请求头；
+                // 这样已被移出组织的用户仍能拉取组织列表并切回个人空间。
+                .excludePathPatterns("/api/auth/**", "/api/organizations", "/api/organizations/**");
+        // 开启读写分离时，GET 请求中的非事务读可走从库
+        readRoutingInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor).addPathPatterns("/api/**"));
     }
 }
@@ -0,0 +1,38 @@
+package com.cr.notebook.controller;
+
+import com.cr.notebook.entity.AvatarImage;
+import com.cr.notebook.service.AvatarService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 头像图片下发。地址由内容哈希决定、内容永不改变，因此可长期缓存。
+ * 该接口允许匿名访问，供 &lt;img&gt; 标签直接引用。
+ */
+@RestController
+@RequestMapping("/api/avatars")
+@RequiredArgsConstructor
+public class AvatarController {
+
+    private final AvatarService avatarService;
+
+    /** 默认返回缩略图，size=full 返回原图 */
+    @GetMapping("/{hash}")
+    public ResponseEntity<byte[]> get(@PathVariable String hash,
+                                      @RequestParam(defaultValue = "thumb") String size) {
+        AvatarImage image = avatarService.get(hash);
+        if (image == null) return ResponseEntity.notFound().build();
+
+        boolean thumb = !"full".equals(size) && image.getThumbnail() != null;
+        return ResponseEntity.ok()
+                .contentType(thumb ? MediaType.IMAGE_PNG : MediaType.parseMediaType(image.getContentType()))
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .eTag("\"" + hash + (thumb ? "-t" : "") + "\"")
+                .body(thumb ? image.getThumbnail() : image.getData());
+    }
+}
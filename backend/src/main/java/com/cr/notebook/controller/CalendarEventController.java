@@ -4,6 +4,7 @@ import com.cr.notebook.dto.CalendarEventDTO;
 import com.cr.notebook.service.CalendarEventService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,8 +31,18 @@ public class CalendarEventController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<CalendarEventDTO> update(@PathVariable Long id, @RequestBody CalendarEventDTO dto) {
-        return ResponseEntity.ok(calendarEventService.updateEvent(id, dto));
+    public ResponseEntity<CalendarEventDTO> update(@PathVariable Long id, @RequestBody CalendarEventDTO dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        CalendarEventDTO event = calendarEventService.updateEvent(id, dto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(event, event.getVersion());
+    }
+
+    /** 跳过重复序列中的某一次发生 */
+    @DeleteMapping("/{id}/occurrences/{date}")
+    public ResponseEntity<CalendarEventDTO> skipOccurrence(@PathVariable Long id,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        CalendarEventDTO event = calendarEventService.skipOccurrence(id, date);
+        return ETags.ok(event, event.getVersion());
     }
 
     @DeleteMapping("/{id}")
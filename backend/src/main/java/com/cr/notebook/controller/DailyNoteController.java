@@ -1,8 +1,12 @@
 package com.cr.notebook.controller;
 
+import com.cr.notebook.dto.ContentPatchDTO;
 import com.cr.notebook.dto.DailyNoteDTO;
+import com.cr.notebook.dto.DailyNoteSummaryDTO;
 import com.cr.notebook.service.DailyNoteService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,13 +21,25 @@ public class DailyNoteController {
     private final DailyNoteService dailyNoteService;
 
     @GetMapping("/{date}")
-    public ResponseEntity<DailyNoteDTO> get(@PathVariable LocalDate date) {
-        return ResponseEntity.ok(dailyNoteService.getDailyNote(date));
+    public ResponseEntity<DailyNoteDTO> get(@PathVariable LocalDate date,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        DailyNoteDTO note = dailyNoteService.getDailyNote(date);
+        if (ETags.notModified(ifNoneMatch, note.getVersion())) return ETags.notModified(note.getVersion());
+        return ETags.ok(note, note.getVersion());
     }
 
     @PutMapping("/{date}")
-    public ResponseEntity<DailyNoteDTO> update(@PathVariable LocalDate date, @RequestBody DailyNoteDTO dto) {
-        return ResponseEntity.ok(dailyNoteService.updateDailyNote(date, dto));
+    public ResponseEntity<DailyNoteDTO> update(@PathVariable LocalDate date, @RequestBody DailyNoteDTO dto,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        DailyNoteDTO note = dailyNoteService.updateDailyNote(date, dto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(note, note.getVersion());
+    }
+
+    /** 增量保存：提交相对 baseVersion 的文本替换，版本冲突返回 409 */
+    @PatchMapping("/{date}")
+    public ResponseEntity<DailyNoteDTO> patch(@PathVariable LocalDate date, @Valid @RequestBody ContentPatchDTO patch) {
+        DailyNoteDTO note = dailyNoteService.patchDailyNote(date, patch);
+        return ETags.ok(note, note.getVersion());
     }
 
     @GetMapping("/dates")
@@ -32,4 +48,12 @@ public class DailyNoteController {
             @RequestParam LocalDate to) {
         return ResponseEntity.ok(dailyNoteService.listDatesWithContent(from, to));
     }
+
+    /** 月视图概要：有记录的日期及其天气、心情，不含正文 */
+    @GetMapping("/summary")
+    public ResponseEntity<List<DailyNoteSummaryDTO>> listSummaries(
+            @RequestParam LocalDate from,
+            @RequestParam LocalDate to) {
+        return ResponseEntity.ok(dailyNoteService.listSummaries(from, to));
+    }
 }
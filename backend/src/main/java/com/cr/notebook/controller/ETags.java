@@ -0,0 +1,65 @@
+package com.cr.notebook.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * 基于实体 version 的 ETag 工具。
+ * ETag 形如 "3"；If-Match 携带客户端看到的版本，用于写操作前置校验；
+ * If-None-Match 与当前版本一致时读接口返回 304，不再传输正文。
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Integer version) {
+        return "\"" + version + "\"";
+    }
+
+    /** 解析 If-Match 头；缺省或 * 表示不做校验，返回 null */
+    static Integer parseIfMatch(String header) {
+        if (header == null || header.isBlank() || header.trim().equals("*")) return null;
+        try {
+            return Integer.valueOf(strip(header));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + header);
+        }
+    }
+
+    /** If-None-Match 中任一标签与当前版本一致即视为未修改，弱比较 */
+    static boolean notModified(String ifNoneMatch, Integer version) {
+        if (ifNoneMatch == null || version == null) return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String value = tag.trim();
+            if (value.equals("*") || strip(value).equals(String.valueOf(version))) return true;
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> ok(T body, Integer version) {
+        if (version == null) return ResponseEntity.ok(body);
+        // 允许浏览器缓存但每次都要重新验证，配合 ETag 让未变化的读取只回 304
+        return ResponseEntity.ok()
+                .eTag(of(version))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
+    }
+
+    static <T> ResponseEntity<T> notModified(Integer version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(of(version))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+
+    private static String strip(String tag) {
+        String value = tag.trim();
+        if (value.startsWith("W/")) value = value.substring(2);
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+}
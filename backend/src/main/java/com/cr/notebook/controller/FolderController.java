@@ -4,6 +4,7 @@ import com.cr.notebook.dto.FolderDTO;
 import com.cr.notebook.service.FolderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -28,8 +29,10 @@ public class FolderController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<FolderDTO> update(@PathVariable Long id, @RequestBody FolderDTO dto) {
-        return ResponseEntity.ok(folderService.updateFolder(id, dto));
+    public ResponseEntity<FolderDTO> update(@PathVariable Long id, @RequestBody FolderDTO dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        FolderDTO folder = folderService.updateFolder(id, dto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(folder, folder.getVersion());
     }
 
     @PutMapping("/reorder")
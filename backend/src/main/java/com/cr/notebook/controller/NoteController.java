@@ -1,8 +1,15 @@
 package com.cr.notebook.controller;
 
+import com.cr.notebook.dto.ContentPatchDTO;
+import com.cr.notebook.dto.CursorPage;
 import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.NoteSummaryDTO;
+import com.cr.notebook.dto.TagCountDTO;
+import com.cr.notebook.dto.TagRenameDTO;
 import com.cr.notebook.service.NoteService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -11,7 +18,7 @@ import java.util.Map;
 
 /**
  * 笔记 REST 控制器。
- * 提供笔记 CRUD、全文搜索、反向链接查询和知识图谱数据接口。
+ * 提供笔记 CRUD、全文搜索、标签筛选与计数、反向链接查询和知识图谱数据接口。
  */
 @RestController
 @RequestMapping("/api/notes")
@@ -21,13 +28,33 @@ public class NoteController {
     private final NoteService noteService;
 
     @GetMapping
-    public ResponseEntity<List<NoteDTO>> list(@RequestParam(required = false) Long folderId) {
-        return ResponseEntity.ok(noteService.listNotes(folderId));
+    public ResponseEntity<List<NoteDTO>> list(@RequestParam(required = false) Long folderId,
+                                              @RequestParam(required = false) String tag) {
+        return ResponseEntity.ok(noteService.listNotes(folderId, tag));
     }
 
+    /**
+     * 带 limit 参数时走游标分页，只返回列表摘要字段；
+     * 翻页时将上一页的 nextCursor 原样传回。
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<NoteSummaryDTO>> page(@RequestParam(required = false) Long folderId,
+                                                           @RequestParam(required = false) String tag,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam int limit) {
+        return ResponseEntity.ok(noteService.listNoteSummaries(folderId, tag, cursor, limit));
+    }
+
+    /** 响应带 ETag；If-None-Match 与当前版本一致时只查版本号并返回 304 */
     @GetMapping("/{id}")
-    public ResponseEntity<NoteDTO> get(@PathVariable Long id) {
-        return ResponseEntity.ok(noteService.getNote(id));
+    public ResponseEntity<NoteDTO> get(@PathVariable Long id,
+                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Integer version = noteService.getNoteVersion(id);
+            if (ETags.notModified(ifNoneMatch, version)) return ETags.notModified(version);
+        }
+        NoteDTO note = noteService.getNote(id);
+        return ETags.ok(note, note.getVersion());
     }
 
     @PostMapping
@@ -35,9 +62,19 @@ public class NoteController {
         return ResponseEntity.ok(noteService.createNote(dto));
     }
 
+    /** 携带 If-Match 时仅当版本一致才写入，否则返回 409 */
     @PutMapping("/{id}")
-    public ResponseEntity<NoteDTO> update(@PathVariable Long id, @RequestBody NoteDTO dto) {
-        return ResponseEntity.ok(noteService.updateNote(id, dto));
+    public ResponseEntity<NoteDTO> update(@PathVariable Long id, @RequestBody NoteDTO dto,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        NoteDTO note = noteService.updateNote(id, dto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(note, note.getVersion());
+    }
+
+    /** 增量保存：提交相对 baseVersion 的文本替换，版本冲突返回 409 */
+    @PatchMapping("/{id}")
+    public ResponseEntity<NoteDTO> patch(@PathVariable Long id, @Valid @RequestBody ContentPatchDTO patch) {
+        NoteDTO note = noteService.patchNote(id, patch);
+        return ETags.ok(note, note.getVersion());
     }
 
     @DeleteMapping("/{id}")
@@ -51,6 +88,18 @@ public class NoteController {
         return ResponseEntity.ok(noteService.searchNotes(q));
     }
 
+    /** 当前空间内各标签及其笔记数 */
+    @GetMapping("/tags")
+    public ResponseEntity<List<TagCountDTO>> tags() {
+        return ResponseEntity.ok(noteService.getTagCounts());
+    }
+
+    /** 重命名标签（目标已存在时合并），返回更新后的标签计数 */
+    @PostMapping("/tags/rename")
+    public ResponseEntity<List<TagCountDTO>> renameTag(@Valid @RequestBody TagRenameDTO dto) {
+        return ResponseEntity.ok(noteService.renameTag(dto.getFrom(), dto.getTo()));
+    }
+
     /** 获取引用了指定笔记的所有反向链接（双链笔记） */
     @GetMapping("/{id}/backlinks")
     public ResponseEntity<List<NoteDTO>> backlinks(@PathVariable Long id) {
@@ -76,8 +76,7 @@ public class OrganizationController {
     @PutMapping("/{id}/avatar")
     public ResponseEntity<Map<String, String>> updateOrgAvatar(@PathVariable Long id,
                                                                 @RequestBody Map<String, String> body) {
-        String avatarUrl = body.get("avatarUrl");
-        organizationService.updateOrgAvatar(id, avatarUrl);
+        String avatarUrl = organizationService.updateOrgAvatar(id, body.get("avatarUrl"));
         return ResponseEntity.ok(Map.of("avatarUrl", avatarUrl != null ? avatarUrl : ""));
     }
 }
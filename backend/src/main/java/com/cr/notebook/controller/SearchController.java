@@ -0,0 +1,30 @@
+package com.cr.notebook.controller;
+
+import com.cr.notebook.dto.SearchResultDTO;
+import com.cr.notebook.search.SearchDocType;
+import com.cr.notebook.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 全文搜索 REST 控制器：跨笔记和日记检索，支持按类型过滤和分页。
+ */
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping
+    public ResponseEntity<SearchResultDTO> search(@RequestParam String q,
+                                                  @RequestParam(required = false) SearchDocType type,
+                                                  @RequestParam(defaultValue = "0") int offset,
+                                                  @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(searchService.search(q, type, offset, limit));
+    }
+}
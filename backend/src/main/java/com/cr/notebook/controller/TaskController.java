@@ -1,9 +1,13 @@
 package com.cr.notebook.controller;
 
+import com.cr.notebook.dto.CursorPage;
+import com.cr.notebook.dto.TaskCountsDTO;
 import com.cr.notebook.dto.TaskDTO;
+import com.cr.notebook.dto.TaskQuery;
 import com.cr.notebook.service.TaskService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,9 +20,23 @@ public class TaskController {
 
     private final TaskService taskService;
 
+    /** 查询参数见 TaskQuery：completed、priority、dueFrom、dueTo、noteId、sort */
     @GetMapping
-    public ResponseEntity<List<TaskDTO>> list() {
-        return ResponseEntity.ok(taskService.listTasks());
+    public ResponseEntity<List<TaskDTO>> list(TaskQuery query) {
+        return ResponseEntity.ok(taskService.listTasks(query));
+    }
+
+    /** 带 limit 参数时走游标分页，翻页时将上一页的 nextCursor 原样传回 */
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<TaskDTO>> page(TaskQuery query,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam int limit) {
+        return ResponseEntity.ok(taskService.listTaskPage(query, cursor, limit));
+    }
+
+    @GetMapping("/counts")
+    public ResponseEntity<TaskCountsDTO> counts() {
+        return ResponseEntity.ok(taskService.countTasks());
     }
 
     @PostMapping
@@ -27,8 +45,10 @@ public class TaskController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<TaskDTO> update(@PathVariable Long id, @RequestBody TaskDTO dto) {
-        return ResponseEntity.ok(taskService.updateTask(id, dto));
+    public ResponseEntity<TaskDTO> update(@PathVariable Long id, @RequestBody TaskDTO dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        TaskDTO task = taskService.updateTask(id, dto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(task, task.getVersion());
     }
 
     @DeleteMapping("/{id}")
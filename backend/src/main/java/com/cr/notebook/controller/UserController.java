@@ -5,7 +5,9 @@ import com.cr.notebook.dto.UserSearchDTO;
 import com.cr.notebook.dto.auth.ChangePasswordRequest;
 import com.cr.notebook.entity.User;
 import com.cr.notebook.mapper.UserMapper;
+import com.cr.notebook.security.PrincipalCache;
 import com.cr.notebook.security.UserPrincipal;
+import com.cr.notebook.service.AvatarService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +25,8 @@ public class UserController {
 
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    private final AvatarService avatarService;
 
     @GetMapping("/search")
     public ResponseEntity<List<UserSearchDTO>> searchUsers(@RequestParam String q) {
@@ -69,11 +73,13 @@ public class UserController {
     public ResponseEntity<Map<String, String>> updateAvatar(
             @AuthenticationPrincipal UserPrincipal principal,
             @RequestBody Map<String, String> body) {
-        String avatarUrl = body.get("avatarUrl");
         User user = userMapper.selectById(principal.getId());
         if (user == null) return ResponseEntity.notFound().build();
+        // data URL 存入头像库，行内只保留短地址
+        String avatarUrl = avatarService.resolve(body.get("avatarUrl"));
         user.setAvatarUrl(avatarUrl);
         userMapper.updateById(user);
+        principalCache.evict(user.getId());
         return ResponseEntity.ok(Map.of("avatarUrl", avatarUrl != null ? avatarUrl : ""));
     }
 
@@ -94,6 +100,7 @@ public class UserController {
 
         user.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
         userMapper.updateById(user);
+        principalCache.evict(user.getId());
         return ResponseEntity.ok(Map.of("message", "密码修改成功"));
     }
 }
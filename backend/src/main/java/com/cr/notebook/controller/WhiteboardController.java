@@ -1,8 +1,12 @@
 package com.cr.notebook.controller;
 
+import com.cr.notebook.dto.CursorPage;
 import com.cr.notebook.dto.WhiteboardDTO;
+import com.cr.notebook.dto.WhiteboardStrokeDTO;
 import com.cr.notebook.service.WhiteboardService;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,8 +30,10 @@ public class WhiteboardController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<WhiteboardDTO> update(@PathVariable Long id, @RequestBody WhiteboardDTO dto) {
-        return ResponseEntity.ok(whiteboardService.updateWhiteboard(id, dto));
+    public ResponseEntity<WhiteboardDTO> update(@PathVariable Long id, @RequestBody WhiteboardDTO dto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        WhiteboardDTO whiteboard = whiteboardService.updateWhiteboard(id, dto, ETags.parseIfMatch(ifMatch));
+        return ETags.ok(whiteboard, whiteboard.getVersion());
     }
 
     @DeleteMapping("/{id}")
@@ -35,4 +41,30 @@ public class WhiteboardController {
         whiteboardService.deleteWhiteboard(id);
         return ResponseEntity.noContent().build();
     }
+
+    /** 分页加载笔画，翻页时将上一页的 nextCursor 原样传回 */
+    @GetMapping("/{id}/strokes")
+    public ResponseEntity<CursorPage<WhiteboardStrokeDTO>> strokes(@PathVariable Long id,
+                                                                   @RequestParam(required = false) String cursor,
+                                                                   @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(whiteboardService.listStrokes(id, cursor, limit));
+    }
+
+    /** 追加一笔，请求体为笔画 JSON 对象 */
+    @PostMapping("/{id}/strokes")
+    public ResponseEntity<WhiteboardStrokeDTO> addStroke(@PathVariable Long id, @RequestBody JsonNode stroke) {
+        return ResponseEntity.ok(whiteboardService.addStroke(id, stroke));
+    }
+
+    @DeleteMapping("/{id}/strokes/{strokeId}")
+    public ResponseEntity<Void> removeStroke(@PathVariable Long id, @PathVariable Long strokeId) {
+        whiteboardService.removeStroke(id, strokeId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{id}/strokes")
+    public ResponseEntity<Void> clearStrokes(@PathVariable Long id) {
+        whiteboardService.clearStrokes(id);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,22 @@
+package com.cr.notebook.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/** GET / HEAD 请求期间允许非事务读走从库 */
+public class ReadRoutingInterceptor implements HandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if ("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod())) {
+            RoutingContext.markReadRequest();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RoutingContext.clearReadRequest();
+    }
+}
@@ -0,0 +1,62 @@
+package com.cr.notebook.datasource;
+
+import com.cr.notebook.security.UserPrincipal;
+import com.cr.notebook.tenant.TenantType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+
+/**
+ * 读己之写：记录最近发生过写入的租户和用户，粘滞窗口内该租户或该用户的读取一律走主库，
+ * 避免刚保存的内容因从库复制延迟而“消失”。
+ * 同时按用户记录是因为 /api/organizations/** 等接口不经过 TenantInterceptor、没有租户上下文，
+ * 例如创建组织后紧接着的组织列表读取。
+ */
+public class RecentWriteTracker {
+
+    private final Cache<String, Boolean> recent;
+
+    public RecentWriteTracker(long stickyMs, long maxTenants) {
+        this.recent = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(stickyMs))
+                .maximumSize(maxTenants)
+                .build();
+    }
+
+    public void markWrite(Long tenantId, TenantType tenantType) {
+        if (tenantId == null || tenantType == null) return;
+        recent.put(key(tenantId, tenantType), Boolean.TRUE);
+    }
+
+    public boolean isSticky(Long tenantId, TenantType tenantType) {
+        if (tenantId == null || tenantType == null) return false;
+        return recent.getIfPresent(key(tenantId, tenantType)) != null;
+    }
+
+    public void markUserWrite(Long userId) {
+        if (userId == null) return;
+        recent.put(userKey(userId), Boolean.TRUE);
+    }
+
+    public boolean isUserSticky(Long userId) {
+        if (userId == null) return false;
+        return recent.getIfPresent(userKey(userId)) != null;
+    }
+
+    /** 当前线程已认证用户的 id，匿名请求与后台任务返回 null */
+    static Long currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth != null && auth.getPrincipal() instanceof UserPrincipal principal ? principal.getId() : null;
+    }
+
+    private static String key(Long tenantId, TenantType tenantType) {
+        return tenantType.name() + "-" + tenantId;
+    }
+
+    private static String userKey(Long userId) {
+        return "USER-" + userId;
+    }
+}
@@ -0,0 +1,78 @@
+package com.cr.notebook.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 从库复制延迟探测。主库定期写入 replication_heartbeat 的时间戳，
+ * 各从库读到的时间戳与当前时间之差即为延迟；超过阈值或查询失败的从库暂停接收读流量，
+ * 全部不可用时读取回退到主库。启动后首次探测前所有从库视为不可用。
+ */
+@Slf4j
+public class ReplicaHealthMonitor {
+
+    private static final String BEAT = "UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1";
+    private static final String READ = "SELECT beat_millis FROM replication_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final Map<String, JdbcTemplate> replicas;
+    private final long maxLagMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> healthy = List.of();
+
+    public ReplicaHealthMonitor(DataSource primary, Map<String, DataSource> replicas, long maxLagMs) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = new LinkedHashMap<>();
+        replicas.forEach((name, ds) -> this.replicas.put(name, new JdbcTemplate(ds)));
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.routing.heartbeat-interval-ms:1000}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            primary.update(BEAT, now);
+        } catch (RuntimeException e) {
+            log.warn("Failed to write replication heartbeat: {}", e.getMessage());
+        }
+        List<String> ok = new ArrayList<>();
+        for (Map.Entry<String, JdbcTemplate> replica : replicas.entrySet()) {
+            long lag = lagMillis(replica.getValue(), now);
+            if (lag >= 0 && lag <= maxLagMs) {
+                ok.add(replica.getKey());
+            } else if (healthy.contains(replica.getKey())) {
+                log.warn("Replica {} removed from read pool, lag={}ms", replica.getKey(), lag);
+            }
+        }
+        healthy = List.copyOf(ok);
+    }
+
+    /** 轮询选择一个可用从库，全部不可用时返回 null */
+    public String pick() {
+        List<String> candidates = healthy;
+        if (candidates.isEmpty()) return null;
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+    }
+
+    public List<String> healthyReplicas() {
+        return healthy;
+    }
+
+    /** 返回延迟毫秒数，无法探测时返回 -1 */
+    private static long lagMillis(JdbcTemplate replica, long now) {
+        try {
+            Long beat = replica.queryForObject(READ, Long.class);
+            return beat == null ? -1 : Math.max(0, now - beat);
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.cr.notebook.datasource;
+
+import com.cr.notebook.tenant.TenantContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 读写分离路由。需包在 LazyConnectionDataSourceProxy 中使用，
+ * 使真正取连接的时机晚于事务 readOnly 标记的设置。
+ * <ul>
+ *   <li>写语句、读写事务：主库</li>
+ *   <li>readOnly 事务、GET 请求中的非事务读：从库</li>
+ *   <li>当前租户或当前用户处于读己之写粘滞窗口内，或没有延迟达标的从库：回退主库</li>
+ * </ul>
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaHealthMonitor healthMonitor;
+    private final RecentWriteTracker writeTracker;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    long maxLagMs, RecentWriteTracker writeTracker) {
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        this.healthMonitor = new ReplicaHealthMonitor(primary, replicas, maxLagMs);
+        this.writeTracker = writeTracker;
+    }
+
+    public ReplicaHealthMonitor getHealthMonitor() {
+        return healthMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!isReadEligible()) return PRIMARY;
+        if (writeTracker.isSticky(TenantContext.getTenantId(), TenantContext.getTenantType())) return PRIMARY;
+        if (writeTracker.isUserSticky(RecentWriteTracker.currentUserId())) return PRIMARY;
+        String replica = healthMonitor.pick();
+        return replica != null ? replica : PRIMARY;
+    }
+
+    /** 关闭各目标连接池 */
+    public void close() {
+        for (DataSource ds : getResolvedDataSources().values()) {
+            if (ds instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close datasource", e);
+                }
+            }
+        }
+    }
+
+    private static boolean isReadEligible() {
+        if (RoutingContext.isPrimaryForced()) return false;
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+        return RoutingContext.isReadRequest();
+    }
+}
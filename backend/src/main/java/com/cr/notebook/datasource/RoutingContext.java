@@ -0,0 +1,58 @@
+package com.cr.notebook.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的读写路由提示。
+ * readRequest 由 ReadRoutingInterceptor 在 GET / HEAD 请求期间置位，允许非事务读走从库；
+ * primary 由 WriteRoutingInterceptor 在执行 INSERT / UPDATE / DELETE 时置位，
+ * 或由调用方通过 onPrimary 为必须读到最新数据的操作置位，强制走主库。
+ * 未开启读写分离时这些标记不产生任何效果。
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<Boolean> READ_REQUEST = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private RoutingContext() {}
+
+    public static void markReadRequest() {
+        READ_REQUEST.set(Boolean.TRUE);
+    }
+
+    public static boolean isReadRequest() {
+        return Boolean.TRUE.equals(READ_REQUEST.get());
+    }
+
+    public static void clearReadRequest() {
+        READ_REQUEST.remove();
+    }
+
+    /**
+     * 在主库上执行，用于不能容忍复制延迟的读取（如从数据库重建索引）。
+     * 连接在事务内首次取得后即固定，已在只读事务中取得从库连接时此方法不再切换。
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean previous = beginPrimary();
+        try {
+            return action.get();
+        } finally {
+            endPrimary(previous);
+        }
+    }
+
+    /** 返回进入前的状态，供嵌套调用恢复 */
+    static boolean beginPrimary() {
+        boolean previous = Boolean.TRUE.equals(PRIMARY.get());
+        PRIMARY.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void endPrimary(boolean previous) {
+        if (!previous) PRIMARY.remove();
+    }
+
+    static boolean isPrimaryForced() {
+        return Boolean.TRUE.equals(PRIMARY.get());
+    }
+}
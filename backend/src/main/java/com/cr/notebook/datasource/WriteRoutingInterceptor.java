@@ -0,0 +1,36 @@
+package com.cr.notebook.datasource;
+
+import com.cr.notebook.tenant.TenantContext;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+/**
+ * 在执行 INSERT / UPDATE / DELETE 前强制走主库（非事务语句在此之后才取连接），
+ * 并把当前租户和当前用户记入读己之写粘滞窗口。
+ */
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class WriteRoutingInterceptor implements Interceptor {
+
+    private final RecentWriteTracker writeTracker;
+
+    public WriteRoutingInterceptor(RecentWriteTracker writeTracker) {
+        this.writeTracker = writeTracker;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        boolean previous = RoutingContext.beginPrimary();
+        try {
+            return invocation.proceed();
+        } finally {
+            RoutingContext.endPrimary(previous);
+            // 写入完成后再标记一次：粘滞窗口从写入结束开始计算
+            writeTracker.markWrite(TenantContext.getTenantId(), TenantContext.getTenantType());
+            writeTracker.markUserWrite(RecentWriteTracker.currentUserId());
+        }
+    }
+}
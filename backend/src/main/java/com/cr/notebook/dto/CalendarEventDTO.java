@@ -5,6 +5,7 @@ import lombok.Data;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
 public class CalendarEventDTO {
@@ -14,8 +15,15 @@ public class CalendarEventDTO {
     private LocalTime eventTime;
     private LocalDate endDate;
     private LocalTime endTime;
+    /** RRULE，如 FREQ=WEEKLY;BYDAY=MO,WE；为空表示不重复 */
+    private String recurrenceRule;
+    /** 被跳过的发生日期 */
+    private List<LocalDate> recurrenceExceptions;
+    /** 仅出现在展开后的发生项上：序列本身的起始日期，此时 eventDate / endDate 为该次发生的日期 */
+    private LocalDate seriesStartDate;
     private String description;
     private String color;
+    private Integer version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
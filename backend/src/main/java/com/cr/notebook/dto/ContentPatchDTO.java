@@ -0,0 +1,35 @@
+package com.cr.notebook.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 增量保存请求：基于 baseVersion 时的正文做文本替换，代替整篇 PUT。
+ * 各 edit 的位置均相对基线正文（UTF-16 下标，与前端字符串一致），区间不得重叠。
+ */
+@Data
+public class ContentPatchDTO {
+
+    /** 客户端编辑所基于的版本号，与服务端当前版本不一致时返回 409 */
+    @NotNull
+    private Integer baseVersion;
+
+    @Valid
+    private List<TextEdit> edits;
+
+    /** 仅笔记使用，为 null 表示不修改 */
+    private String title;
+    private String excerpt;
+
+    @Data
+    public static class TextEdit {
+        /** 被替换区间 [from, to) */
+        private int from;
+        private int to;
+        @NotNull
+        private String text;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cr.notebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 游标分页结果。nextCursor 为 null 表示已到末页。
+ * 游标对客户端不透明：内容为排序键各字段以 '|' 拼接后做 URL 安全的 Base64 编码。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public static String encodeCursor(Object... keys) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) sb.append('|');
+            sb.append(keys[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** 解码游标并校验字段个数，格式非法时抛出 IllegalArgumentException */
+    public static String[] decodeCursor(String cursor, int expectedKeys) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = raw.split("\\|", -1);
+            if (keys.length == expectedKeys) return keys;
+        } catch (IllegalArgumentException ignored) {
+            // 落到下方统一报错
+        }
+        throw new IllegalArgumentException("Invalid cursor");
+    }
+}
@@ -12,6 +12,7 @@ public class DailyNoteDTO {
     private String content;
     private String weather;
     private String mood;
+    private Integer version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
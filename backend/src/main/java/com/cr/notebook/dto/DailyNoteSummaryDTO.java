@@ -0,0 +1,18 @@
+package com.cr.notebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/** 月视图中某一天的日记概要，不含正文 */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyNoteSummaryDTO {
+    private LocalDate noteDate;
+    private boolean hasContent;
+    private String weather;
+    private String mood;
+}
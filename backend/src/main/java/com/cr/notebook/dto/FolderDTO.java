@@ -15,6 +15,7 @@ public class FolderDTO {
     private String icon = "📁";
     private Long parentId;
     private Integer sortOrder;
+    private Integer version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -14,6 +14,7 @@ public class NoteDTO {
     private String excerpt;
     private Boolean isPinned;
     private List<String> tags;
+    private Integer version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,19 @@
+package com.cr.notebook.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** 笔记列表项：侧边栏展示所需字段，不含正文 content */
+@Data
+public class NoteSummaryDTO {
+    private Long id;
+    private Long folderId;
+    private String title;
+    private String excerpt;
+    private Boolean isPinned;
+    private List<String> tags;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
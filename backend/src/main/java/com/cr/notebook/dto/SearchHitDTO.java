@@ -0,0 +1,18 @@
+package com.cr.notebook.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class SearchHitDTO {
+    /** NOTE 或 DAILY_NOTE */
+    private String type;
+    private Long id;
+    private String title;
+    /** 日记日期，仅 DAILY_NOTE 有值 */
+    private LocalDate noteDate;
+    /** 命中片段，已做 HTML 转义，关键词以 &lt;mark&gt; 包裹 */
+    private String highlight;
+    private float score;
+}
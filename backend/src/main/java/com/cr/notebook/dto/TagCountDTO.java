@@ -0,0 +1,10 @@
+package com.cr.notebook.dto;
+
+import lombok.Data;
+
+/** 标签及当前租户内带有该标签的笔记数 */
+@Data
+public class TagCountDTO {
+    private String name;
+    private Long noteCount;
+}
@@ -0,0 +1,17 @@
+package com.cr.notebook.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/** 标签重命名；目标标签已存在时两者合并 */
+@Data
+public class TagRenameDTO {
+    @NotBlank
+    @Size(max = 50)
+    private String from;
+
+    @NotBlank
+    @Size(max = 50)
+    private String to;
+}
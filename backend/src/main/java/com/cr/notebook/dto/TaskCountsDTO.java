@@ -0,0 +1,17 @@
+package com.cr.notebook.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** 侧边栏任务计数；dueToday 与 overdue 只统计未完成的任务 */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskCountsDTO {
+    private long total;
+    private long pending;
+    private long completed;
+    private long dueToday;
+    private long overdue;
+}
@@ -17,6 +17,7 @@ public class TaskDTO {
     private Boolean completed = false;
     private String priority = "MEDIUM";
     private LocalDate dueDate;
+    private Integer version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
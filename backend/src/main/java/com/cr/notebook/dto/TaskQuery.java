@@ -0,0 +1,21 @@
+package com.cr.notebook.dto;
+
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/** 任务列表筛选条件，均为可选；由 GET /api/tasks 的查询参数绑定 */
+@Data
+public class TaskQuery {
+    private Boolean completed;
+    /** HIGH / MEDIUM / LOW，不区分大小写 */
+    private String priority;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dueFrom;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate dueTo;
+    private Long noteId;
+    /** created：最新创建在前（默认）；due：截止日期最早在前，无截止日期的排在最后 */
+    private String sort;
+}
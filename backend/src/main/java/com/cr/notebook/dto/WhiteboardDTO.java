@@ -9,6 +9,7 @@ public class WhiteboardDTO {
     private Long id;
     private String title;
     private String data;
+    private Integer version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,19 @@
+package com.cr.notebook.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单个白板笔画。data 是客户端提交的笔画 JSON，原样输出，服务端不解析其结构。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WhiteboardStrokeDTO {
+    private Long id;
+
+    @JsonRawValue
+    private String data;
+}
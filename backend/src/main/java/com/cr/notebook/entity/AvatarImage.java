@@ -0,0 +1,31 @@
+package com.cr.notebook.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 头像图片，以原图字节的 SHA-256 为主键，写入后不再修改。
+ * thumbnail 为缩略图（PNG），原图已足够小或无法解码时为空。
+ */
+@TableName("avatar_image")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class AvatarImage {
+
+    @TableId(type = IdType.INPUT)
+    private String hash;
+
+    private String contentType;
+
+    private byte[] data;
+
+    private byte[] thumbnail;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
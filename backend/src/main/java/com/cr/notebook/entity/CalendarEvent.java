@@ -3,12 +3,14 @@ package com.cr.notebook.entity;
 import com.baomidou.mybatisplus.annotation.FieldStrategy;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
 import lombok.*;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
-@TableName("calendar_event")
+@TableName(value = "calendar_event", autoResultMap = true)
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class CalendarEvent extends TenantAwareEntity {
 
@@ -25,6 +27,18 @@ public class CalendarEvent extends TenantAwareEntity {
     @TableField(updateStrategy = FieldStrategy.ALWAYS)
     private LocalTime endTime;
 
+    /** 规范化的 RRULE，为空表示单次（或跨天）日程 */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private String recurrenceRule;
+
+    /** 序列覆盖的最后一天，无限序列为空；由 recurrenceRule 推算，只用于范围查询剪枝 */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private LocalDate recurrenceEnd;
+
+    /** 被单独删除的发生日期（yyyy-MM-dd） */
+    @TableField(typeHandler = JacksonTypeHandler.class)
+    private List<String> recurrenceExceptions;
+
     private String description;
 
     @Builder.Default
@@ -13,6 +13,10 @@ public class DailyNote extends TenantAwareEntity {
 
     private String content;
 
+    /** 正文是否非空，随正文写入维护，月视图据此标记有记录的日期而不读取正文 */
+    @Builder.Default
+    private Boolean hasContent = false;
+
     private String weather;
 
     private String mood;
@@ -0,0 +1,20 @@
+package com.cr.notebook.entity;
+
+import com.cr.notebook.tenant.TenantType;
+import lombok.*;
+
+/**
+ * note_link 边：source 笔记正文中存在指向 target 笔记的 [[id|title]] 双链。
+ * 主键为 (source_id, target_id)，租户取自 source 笔记，只通过 NoteLinkMapper 的自定义 SQL 读写。
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class NoteLink {
+
+    private Long sourceId;
+
+    private Long targetId;
+
+    private Long tenantId;
+
+    private TenantType tenantType;
+}
@@ -1,5 +1,7 @@
 package com.cr.notebook.entity;
 
+import com.baomidou.mybatisplus.annotation.FieldStrategy;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.*;
 
@@ -12,4 +14,11 @@ public class Organization extends BaseEntity {
     private Long ownerId;
 
     private String avatarUrl;
+
+    /**
+     * 冗余的成员数，只通过 OrganizationMapper#adjustMemberCount 原子增减，
+     * updateById 不写回，避免用读到的旧值覆盖并发修改。为 NULL 时表示尚未统计。
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Integer memberCount;
 }
@@ -1,5 +1,6 @@
 package com.cr.notebook.entity;
 
+import com.baomidou.mybatisplus.annotation.Version;
 import com.cr.notebook.tenant.TenantType;
 import lombok.Getter;
 import lombok.Setter;
@@ -11,4 +12,8 @@ public abstract class TenantAwareEntity extends BaseEntity {
     private Long tenantId;
 
     private TenantType tenantType;
+
+    /** 乐观锁版本号，每次写入加一；updateById 由 OptimisticLockerInnerInterceptor 校验 */
+    @Version
+    private Integer version = 0;
 }
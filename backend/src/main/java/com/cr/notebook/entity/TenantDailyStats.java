@@ -0,0 +1,26 @@
+package com.cr.notebook.entity;
+
+import com.cr.notebook.tenant.TenantType;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * tenant_daily_stats 汇总行：某租户某天新建的笔记 / 任务数量。
+ * 主键为 (tenant_id, tenant_type, stat_date)，只通过 TenantDailyStatsMapper 的自定义 SQL 读写。
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class TenantDailyStats {
+
+    private Long tenantId;
+
+    private TenantType tenantType;
+
+    private LocalDate statDate;
+
+    private long noteCount;
+
+    private long taskCount;
+
+    private long taskCompletedCount;
+}
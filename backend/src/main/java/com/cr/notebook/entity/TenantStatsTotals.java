@@ -0,0 +1,31 @@
+package com.cr.notebook.entity;
+
+import com.cr.notebook.tenant.TenantType;
+import lombok.*;
+
+/**
+ * tenant_stats_totals 汇总行：某租户各类实体的当前总数。
+ * 主键为 (tenant_id, tenant_type)，只通过 TenantStatsTotalsMapper 的自定义 SQL 读写；
+ * 作为增量参数时各计数字段表示变化量。
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class TenantStatsTotals {
+
+    private Long tenantId;
+
+    private TenantType tenantType;
+
+    private long noteCount;
+
+    private long folderCount;
+
+    private long taskCount;
+
+    private long taskCompletedCount;
+
+    private long dailyNoteCount;
+
+    private long calendarEventCount;
+
+    private long whiteboardCount;
+}
@@ -0,0 +1,29 @@
+package com.cr.notebook.entity;
+
+import com.baomidou.mybatisplus.annotation.FieldFill;
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 白板笔画日志中的一条记录，data 为单个笔画的 JSON。
+ * 只追加、不修改；压缩时被合并进 whiteboard.data 快照后删除。租户归属取自所属白板。
+ */
+@TableName("whiteboard_stroke")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class WhiteboardStroke {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long whiteboardId;
+
+    private String data;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createdAt;
+}
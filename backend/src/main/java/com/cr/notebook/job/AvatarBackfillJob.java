@@ -0,0 +1,106 @@
+package com.cr.notebook.job;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cr.notebook.entity.Organization;
+import com.cr.notebook.entity.User;
+import com.cr.notebook.mapper.OrganizationMapper;
+import com.cr.notebook.mapper.UserMapper;
+import com.cr.notebook.service.AvatarService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 一次性迁移存量头像：把 sys_user / sys_organization 中内联的 base64 data URL
+ * 存入头像库并替换为 /api/avatars/{hash} 短地址。
+ * 升级到 V15 后设置 app.avatars.backfill.enabled=true 启动一次即可；已迁移的行不会再被选中。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.avatars.backfill.enabled", havingValue = "true")
+public class AvatarBackfillJob implements ApplicationRunner {
+
+    private static final String BASE64_DATA_URL = "data:%;base64,%";
+
+    private final UserMapper userMapper;
+    private final OrganizationMapper organizationMapper;
+    private final AvatarService avatarService;
+
+    @Value("${app.avatars.backfill.batch-size:100}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        int users = backfillUsers();
+        int orgs = backfillOrganizations();
+        log.info("Moved {} user and {} organization avatars into avatar_image in {} ms",
+                users, orgs, System.currentTimeMillis() - start);
+    }
+
+    private int backfillUsers() {
+        long lastId = 0;
+        int processed = 0;
+        while (true) {
+            List<User> batch = userMapper.selectList(new LambdaQueryWrapper<User>()
+                    .select(User::getId, User::getAvatarUrl)
+                    .gt(User::getId, lastId)
+                    .apply("avatar_url LIKE {0}", BASE64_DATA_URL)
+                    .orderByAsc(User::getId)
+                    .last("LIMIT " + batchSize));
+            if (batch.isEmpty()) break;
+            for (User user : batch) {
+                String url = convert(user.getAvatarUrl());
+                if (url == null) continue;
+                userMapper.update(null, new LambdaUpdateWrapper<User>()
+                        .set(User::getAvatarUrl, url)
+                        .eq(User::getId, user.getId()));
+                processed++;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        return processed;
+    }
+
+    private int backfillOrganizations() {
+        long lastId = 0;
+        int processed = 0;
+        while (true) {
+            List<Organization> batch = organizationMapper.selectList(new LambdaQueryWrapper<Organization>()
+                    .select(Organization::getId, Organization::getAvatarUrl)
+                    .gt(Organization::getId, lastId)
+                    .apply("avatar_url LIKE {0}", BASE64_DATA_URL)
+                    .orderByAsc(Organization::getId)
+                    .last("LIMIT " + batchSize));
+            if (batch.isEmpty()) break;
+            for (Organization org : batch) {
+                String url = convert(org.getAvatarUrl());
+                if (url == null) continue;
+                organizationMapper.update(null, new LambdaUpdateWrapper<Organization>()
+                        .set(Organization::getAvatarUrl, url)
+                        .eq(Organization::getId, org.getId()));
+                processed++;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        return processed;
+    }
+
+    /** 无法识别的旧数据保留原样，只记录日志 */
+    private String convert(String dataUrl) {
+        try {
+            return AvatarService.URL_PREFIX + avatarService.store(dataUrl);
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping avatar that cannot be stored: {}", e.getMessage());
+            return null;
+        }
+    }
+}
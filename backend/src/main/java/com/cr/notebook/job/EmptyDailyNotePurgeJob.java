@@ -0,0 +1,54 @@
+package com.cr.notebook.job;
+
+import com.cr.notebook.entity.DailyNote;
+import com.cr.notebook.service.DailyNoteService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 一次性清理旧版本“打开即建行”留下的空日记：从未保存过（version = 0）且正文、天气、心情均为空的行。
+ * 按 id 分批扫描，每批按租户分组删除；删除与 tenant_stats_totals 的扣减在同一事务内，
+ * 扫描之后被首次保存的行不会被误删，见 {@link DailyNoteService#purgeNeverSavedEmpty}。
+ * 设置 app.daily-notes.empty-purge.enabled=true 启动一次即可，重复执行无副作用。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.daily-notes.empty-purge.enabled", havingValue = "true")
+public class EmptyDailyNotePurgeJob implements ApplicationRunner {
+
+    private final DailyNoteService dailyNoteService;
+
+    @Value("${app.daily-notes.empty-purge.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int purged = 0;
+        while (true) {
+            List<DailyNote> batch = dailyNoteService.findNeverSavedEmpty(lastId, batchSize);
+            if (batch.isEmpty()) break;
+            Map<String, List<DailyNote>> byTenant = batch.stream().collect(Collectors.groupingBy(
+                    n -> n.getTenantType() + ":" + n.getTenantId(), LinkedHashMap::new, Collectors.toList()));
+            for (List<DailyNote> rows : byTenant.values()) {
+                DailyNote first = rows.get(0);
+                purged += dailyNoteService.purgeNeverSavedEmpty(first.getTenantId(), first.getTenantType(),
+                        rows.stream().map(DailyNote::getId).toList());
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        log.info("Purged {} empty daily notes in {} ms", purged, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,37 @@
+package com.cr.notebook.job;
+
+import com.cr.notebook.mapper.SearchMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 选用 MySQL 搜索后端时，启动时补建 ngram FULLTEXT 索引。
+ * 默认的 Lucene 后端不读这两个索引，不建可以省掉每次保存笔记时的全文索引维护；
+ * 从 Lucene 切换到 mysql 后首次启动会在大表上建索引，耗时与数据量成正比。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "mysql")
+public class FulltextIndexInitializer implements ApplicationRunner {
+
+    private final SearchMapper searchMapper;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (searchMapper.countIndex("note", "ft_note_ngram") == 0) {
+            long start = System.currentTimeMillis();
+            searchMapper.createNoteFulltextIndex();
+            log.info("Created ft_note_ngram in {} ms", System.currentTimeMillis() - start);
+        }
+        if (searchMapper.countIndex("daily_note", "ft_daily_note_ngram") == 0) {
+            long start = System.currentTimeMillis();
+            searchMapper.createDailyNoteFulltextIndex();
+            log.info("Created ft_daily_note_ngram in {} ms", System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.cr.notebook.job;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.mapper.NoteMapper;
+import com.cr.notebook.service.NoteLinkService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 一次性回填 note_link：按 id 分批扫描已有笔记正文并同步出边。
+ * 升级到 V9 后设置 app.notes.link-backfill.enabled=true 启动一次即可；
+ * 同步是差量的，重复执行不会产生重复边。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.notes.link-backfill.enabled", havingValue = "true")
+public class NoteLinkBackfillJob implements ApplicationRunner {
+
+    private final NoteMapper noteMapper;
+    private final NoteLinkService noteLinkService;
+
+    @Value("${app.notes.link-backfill.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int processed = 0;
+        while (true) {
+            List<Note> batch = noteMapper.selectList(new LambdaQueryWrapper<Note>()
+                    .select(Note::getId, Note::getTenantId, Note::getTenantType, Note::getContent)
+                    .gt(Note::getId, lastId)
+                    .orderByAsc(Note::getId)
+                    .last("LIMIT " + batchSize));
+            if (batch.isEmpty()) break;
+            for (Note note : batch) {
+                noteLinkService.syncLinks(note);
+            }
+            processed += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        log.info("Backfilled note_link for {} notes in {} ms", processed, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,56 @@
+package com.cr.notebook.job;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.mapper.NoteMapper;
+import com.cr.notebook.service.NoteTagService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 一次性回填标签索引：按 id 分批扫描已有笔记的 tags 列并同步 note_tag / note_tag_relation。
+ * 升级到 V18 后设置 app.notes.tag-backfill.enabled=true 启动一次即可；
+ * 同步是差量的，重复执行不会产生重复关联。超长或空白的历史标签会被跳过。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.notes.tag-backfill.enabled", havingValue = "true")
+public class NoteTagBackfillJob implements ApplicationRunner {
+
+    private final NoteMapper noteMapper;
+    private final NoteTagService noteTagService;
+
+    @Value("${app.notes.tag-backfill.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int processed = 0;
+        while (true) {
+            List<Note> batch = noteMapper.selectList(new LambdaQueryWrapper<Note>()
+                    .select(Note::getId, Note::getTenantId, Note::getTenantType, Note::getTags)
+                    .gt(Note::getId, lastId)
+                    .orderByAsc(Note::getId)
+                    .last("LIMIT " + batchSize));
+            if (batch.isEmpty()) break;
+            for (Note note : batch) {
+                // 超长的旧标签由 syncTags 跳过
+                note.setTags(NoteTagService.normalize(note.getTags()));
+                noteTagService.syncTags(note);
+            }
+            processed += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        log.info("Backfilled note tag index for {} notes in {} ms", processed, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,30 @@
+package com.cr.notebook.job;
+
+import com.cr.notebook.service.OrganizationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定期按 sys_org_member 校正 sys_organization.member_count，
+ * 修复绕过服务层直接改库等原因造成的漂移，并补齐尚未统计的组织。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrgMemberCountReconciler {
+
+    private final OrganizationService organizationService;
+
+    @Scheduled(cron = "${app.organizations.member-count.reconcile-cron:0 45 3 * * *}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        int repaired = organizationService.reconcileMemberCounts();
+        if (repaired > 0) {
+            log.warn("Repaired member_count for {} organizations in {} ms", repaired, System.currentTimeMillis() - start);
+        } else {
+            log.info("Organization member counts consistent ({} ms)", System.currentTimeMillis() - start);
+        }
+    }
+}
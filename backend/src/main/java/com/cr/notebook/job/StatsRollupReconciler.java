@@ -0,0 +1,57 @@
+package com.cr.notebook.job;
+
+import com.cr.notebook.service.StatsRollupService;
+import com.cr.notebook.tenant.TenantType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 定期从实体表重算统计汇总，修复增量维护中可能出现的漂移
+ * （例如绕过服务层直接改库、事务外失败等）。
+ * 逐个租户在独立的短事务中重算，只锁住当前租户，不会长时间阻塞其他租户的写入。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StatsRollupReconciler {
+
+    private final StatsRollupService statsRollupService;
+
+    @Value("${app.stats.rollup.reconcile-days:90}")
+    private int reconcileDays;
+
+    @Value("${app.stats.rollup.reconcile-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(cron = "${app.stats.rollup.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        int tenants = 0;
+        int rows = 0;
+        for (TenantType tenantType : TenantType.values()) {
+            long lastId = 0;
+            while (true) {
+                List<Long> batch = statsRollupService.listTenantIds(tenantType, lastId, batchSize);
+                if (batch.isEmpty()) break;
+                for (Long tenantId : batch) {
+                    try {
+                        rows += statsRollupService.reconcileTenant(tenantId, tenantType, reconcileDays);
+                        tenants++;
+                    } catch (PessimisticLockingFailureException e) {
+                        // 租户写入繁忙、等锁超时或死锁回滚，下一轮再对账
+                        log.warn("Skipped stats reconcile of {} tenant {}: {}", tenantType, tenantId, e.getMessage());
+                    }
+                }
+                lastId = batch.get(batch.size() - 1);
+            }
+        }
+        log.info("Reconciled stats rollups of {} tenants for last {} days: {} rows in {} ms",
+                tenants, reconcileDays, rows, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,44 @@
+package com.cr.notebook.job;
+
+import com.cr.notebook.service.WhiteboardService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 定期把笔画日志较长的白板压缩进快照，使加载时需要合并的日志行数保持在阈值附近。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WhiteboardCompactionJob {
+
+    private final WhiteboardService whiteboardService;
+
+    @Value("${app.whiteboard.compaction.threshold:200}")
+    private int threshold;
+
+    @Scheduled(initialDelayString = "${app.whiteboard.compaction.interval-ms:60000}",
+            fixedDelayString = "${app.whiteboard.compaction.interval-ms:60000}")
+    public void compact() {
+        List<Long> candidates = whiteboardService.findCompactionCandidates(threshold);
+        if (candidates.isEmpty()) return;
+        long start = System.currentTimeMillis();
+        int strokes = 0;
+        for (Long id : candidates) {
+            try {
+                strokes += whiteboardService.compactStrokes(id);
+            } catch (OptimisticLockingFailureException e) {
+                // 白板正在被整体改写或有笔画被撤销，下一轮再压缩
+                log.debug("Skipped compaction of whiteboard {}: {}", id, e.getMessage());
+            }
+        }
+        log.info("Compacted {} strokes of {} whiteboards in {} ms",
+                strokes, candidates.size(), System.currentTimeMillis() - start);
+    }
+}
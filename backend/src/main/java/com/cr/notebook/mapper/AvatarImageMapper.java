@@ -0,0 +1,14 @@
+package com.cr.notebook.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cr.notebook.entity.AvatarImage;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface AvatarImageMapper extends BaseMapper<AvatarImage> {
+
+    @Select("SELECT COUNT(*) FROM avatar_image WHERE hash = #{hash}")
+    int countByHash(@Param("hash") String hash);
+}
@@ -2,8 +2,24 @@ package com.cr.notebook.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cr.notebook.entity.DailyNote;
+import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
 
 @Mapper
 public interface DailyNoteMapper extends BaseMapper<DailyNote> {
+
+    /**
+     * 确保某天的日记行存在：不存在时插入空行，已存在（含并发插入）时什么都不改。
+     * 依赖 uk_tenant_date，避免“先查后插”在并发首次保存时撞唯一键。
+     */
+    @Insert("INSERT INTO daily_note (tenant_id, tenant_type, note_date, content) " +
+            "VALUES (#{tenantId}, #{tenantType}, #{noteDate}, '') " +
+            "ON DUPLICATE KEY UPDATE id = id")
+    int upsertEmpty(@Param("tenantId") Long tenantId,
+                    @Param("tenantType") TenantType tenantType,
+                    @Param("noteDate") LocalDate noteDate);
 }
@@ -2,8 +2,34 @@ package com.cr.notebook.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cr.notebook.entity.Folder;
+import com.cr.notebook.tenant.TenantType;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Mapper
 public interface FolderMapper extends BaseMapper<Folder> {
+
+    /**
+     * 一条 CASE 语句批量写入排序号。folders 中每项需带 id、sortOrder 以及预读到的 version，
+     * 只有版本仍一致的行会被更新，调用方据影响行数判断是否发生并发修改。
+     */
+    @Update("<script>" +
+            "UPDATE note_folder SET " +
+            "sort_order = CASE id " +
+            "<foreach collection='folders' item='f'>WHEN #{f.id} THEN #{f.sortOrder} </foreach>" +
+            "END, version = version + 1, updated_at = #{updatedAt} " +
+            "WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} AND id IN " +
+            "<foreach collection='folders' item='f' open='(' separator=',' close=')'>#{f.id}</foreach> " +
+            "AND version = CASE id " +
+            "<foreach collection='folders' item='f'>WHEN #{f.id} THEN #{f.version} </foreach>" +
+            "END" +
+            "</script>")
+    int updateSortOrders(@Param("folders") Collection<Folder> folders,
+                         @Param("tenantId") Long tenantId,
+                         @Param("tenantType") TenantType tenantType,
+                         @Param("updatedAt") LocalDateTime updatedAt);
 }
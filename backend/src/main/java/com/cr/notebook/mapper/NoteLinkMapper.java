@@ -0,0 +1,48 @@
+package com.cr.notebook.mapper;
+
+import com.cr.notebook.entity.NoteLink;
+import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface NoteLinkMapper {
+
+    @Select("SELECT target_id FROM note_link WHERE source_id = #{sourceId}")
+    List<Long> selectTargetIds(@Param("sourceId") Long sourceId);
+
+    /** 反向链接：指定租户内所有引用了 targetId 的笔记 id，走 target_id 索引。 */
+    @Select("SELECT source_id FROM note_link " +
+            "WHERE target_id = #{targetId} AND tenant_id = #{tenantId} AND tenant_type = #{tenantType}")
+    List<Long> selectSourceIds(@Param("targetId") Long targetId,
+                               @Param("tenantId") Long tenantId,
+                               @Param("tenantType") TenantType tenantType);
+
+    @Select("SELECT source_id, target_id, tenant_id, tenant_type FROM note_link " +
+            "WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType}")
+    List<NoteLink> selectByTenant(@Param("tenantId") Long tenantId,
+                                  @Param("tenantType") TenantType tenantType);
+
+    @Insert("<script>" +
+            "INSERT INTO note_link (source_id, target_id, tenant_id, tenant_type) VALUES " +
+            "<foreach collection='targetIds' item='targetId' separator=','>" +
+            "(#{sourceId}, #{targetId}, #{tenantId}, #{tenantType})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("sourceId") Long sourceId,
+                    @Param("targetIds") Collection<Long> targetIds,
+                    @Param("tenantId") Long tenantId,
+                    @Param("tenantType") TenantType tenantType);
+
+    @Delete("<script>" +
+            "DELETE FROM note_link WHERE source_id = #{sourceId} AND target_id IN " +
+            "<foreach collection='targetIds' item='targetId' open='(' separator=',' close=')'>#{targetId}</foreach>" +
+            "</script>")
+    int deleteTargets(@Param("sourceId") Long sourceId, @Param("targetIds") Collection<Long> targetIds);
+
+    /** 删除笔记时同时清理出边和入边 */
+    @Delete("DELETE FROM note_link WHERE source_id = #{noteId} OR target_id = #{noteId}")
+    int deleteByNote(@Param("noteId") Long noteId);
+}
@@ -2,8 +2,31 @@ package com.cr.notebook.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cr.notebook.entity.Note;
+import com.cr.notebook.tenant.TenantType;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
 
 @Mapper
 public interface NoteMapper extends BaseMapper<Note> {
+
+    /**
+     * 一条 CASE 语句批量改写多篇笔记的 tags 并递增版本号（使缓存的 ETag 失效），不改动正文和 updated_at。
+     * 调用方负责控制每批的笔记数量。
+     */
+    @Update("<script>" +
+            "UPDATE note SET " +
+            "tags = CASE id " +
+            "<foreach collection='notes' item='n'>" +
+            "WHEN #{n.id} THEN #{n.tags,typeHandler=com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler} " +
+            "</foreach>" +
+            "END, version = version + 1 " +
+            "WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} AND id IN " +
+            "<foreach collection='notes' item='n' open='(' separator=',' close=')'>#{n.id}</foreach>" +
+            "</script>")
+    int updateTags(@Param("notes") Collection<Note> notes,
+                   @Param("tenantId") Long tenantId,
+                   @Param("tenantType") TenantType tenantType);
 }
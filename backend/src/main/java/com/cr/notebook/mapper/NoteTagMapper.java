@@ -0,0 +1,87 @@
+package com.cr.notebook.mapper;
+
+import com.cr.notebook.dto.TagCountDTO;
+import com.cr.notebook.tenant.TenantType;
+import lombok.Data;
+import org.apache.ibatis.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface NoteTagMapper {
+
+    /** 批量登记标签名，已存在的由唯一键 uk_tenant_tag 忽略 */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO note_tag (tenant_id, tenant_type, name) VALUES " +
+            "<foreach collection='names' item='name' separator=','>" +
+            "(#{tenantId}, #{tenantType}, #{name})" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnore(@Param("tenantId") Long tenantId,
+                     @Param("tenantType") TenantType tenantType,
+                     @Param("names") Collection<String> names);
+
+    @Select("<script>" +
+            "SELECT id, name FROM note_tag WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} AND name IN " +
+            "<foreach collection='names' item='name' open='(' separator=',' close=')'>#{name}</foreach>" +
+            "</script>")
+    List<TagRow> selectByNames(@Param("tenantId") Long tenantId,
+                               @Param("tenantType") TenantType tenantType,
+                               @Param("names") Collection<String> names);
+
+    @Select("SELECT id FROM note_tag WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} AND name = #{name}")
+    Long selectIdByName(@Param("tenantId") Long tenantId,
+                        @Param("tenantType") TenantType tenantType,
+                        @Param("name") String name);
+
+    @Select("SELECT tag_id FROM note_tag_relation WHERE note_id = #{noteId}")
+    List<Long> selectTagIds(@Param("noteId") Long noteId);
+
+    /** 带有指定标签的笔记 id，走 idx_note_tag_relation_tag 索引 */
+    @Select("SELECT note_id FROM note_tag_relation WHERE tag_id = #{tagId}")
+    List<Long> selectNoteIds(@Param("tagId") Long tagId);
+
+    @Insert("<script>" +
+            "INSERT INTO note_tag_relation (note_id, tag_id) VALUES " +
+            "<foreach collection='tagIds' item='tagId' separator=','>(#{noteId}, #{tagId})</foreach>" +
+            "</script>")
+    int insertRelations(@Param("noteId") Long noteId, @Param("tagIds") Collection<Long> tagIds);
+
+    @Delete("<script>" +
+            "DELETE FROM note_tag_relation WHERE note_id = #{noteId} AND tag_id IN " +
+            "<foreach collection='tagIds' item='tagId' open='(' separator=',' close=')'>#{tagId}</foreach>" +
+            "</script>")
+    int deleteRelations(@Param("noteId") Long noteId, @Param("tagIds") Collection<Long> tagIds);
+
+    @Delete("DELETE FROM note_tag_relation WHERE note_id = #{noteId}")
+    int deleteByNote(@Param("noteId") Long noteId);
+
+    /** 租户内各标签的笔记数，没有笔记引用的标签不返回 */
+    @Select("SELECT t.name, COUNT(*) AS note_count FROM note_tag t " +
+            "JOIN note_tag_relation r ON r.tag_id = t.id " +
+            "WHERE t.tenant_id = #{tenantId} AND t.tenant_type = #{tenantType} " +
+            "GROUP BY t.id, t.name ORDER BY note_count DESC, t.name")
+    List<TagCountDTO> countByTenant(@Param("tenantId") Long tenantId,
+                                    @Param("tenantType") TenantType tenantType);
+
+    @Update("UPDATE note_tag SET name = #{name} WHERE id = #{id}")
+    int rename(@Param("id") Long id, @Param("name") String name);
+
+    /** 合并：把 fromId 的关联并入 toId，两者都有的笔记由主键去重 */
+    @Insert("INSERT IGNORE INTO note_tag_relation (note_id, tag_id) " +
+            "SELECT note_id, #{toId} FROM note_tag_relation WHERE tag_id = #{fromId}")
+    int copyRelations(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Delete("DELETE FROM note_tag_relation WHERE tag_id = #{tagId}")
+    int deleteRelationsByTag(@Param("tagId") Long tagId);
+
+    @Delete("DELETE FROM note_tag WHERE id = #{id}")
+    int deleteById(@Param("id") Long id);
+
+    @Data
+    class TagRow {
+        private Long id;
+        private String name;
+    }
+}
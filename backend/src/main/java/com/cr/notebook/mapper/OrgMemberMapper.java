@@ -2,8 +2,29 @@ package com.cr.notebook.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cr.notebook.entity.OrgMember;
+import lombok.Data;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface OrgMemberMapper extends BaseMapper<OrgMember> {
+
+    /** 一条分组查询统计多个组织的成员数，用于 member_count 尚未统计时的回退 */
+    @Select("<script>" +
+            "SELECT organization_id, COUNT(*) AS member_count FROM sys_org_member " +
+            "WHERE organization_id IN " +
+            "<foreach collection='orgIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "GROUP BY organization_id" +
+            "</script>")
+    List<MemberCountRow> countByOrganizationIds(@Param("orgIds") Collection<Long> orgIds);
+
+    @Data
+    class MemberCountRow {
+        private Long organizationId;
+        private Integer memberCount;
+    }
 }
@@ -3,7 +3,20 @@ package com.cr.notebook.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cr.notebook.entity.Organization;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
 
 @Mapper
 public interface OrganizationMapper extends BaseMapper<Organization> {
+
+    /** 与成员增删在同一事务内原子调整成员数；未统计（NULL）的行保持 NULL，留给对账任务 */
+    @Update("UPDATE sys_organization SET member_count = member_count + #{delta} WHERE id = #{id}")
+    int adjustMemberCount(@Param("id") Long id, @Param("delta") int delta);
+
+    /** 按 sys_org_member 重算与实际不一致（含 NULL）的成员数，返回修复的行数 */
+    @Update("UPDATE sys_organization SET member_count = " +
+            "(SELECT COUNT(*) FROM sys_org_member m WHERE m.organization_id = sys_organization.id) " +
+            "WHERE member_count IS NULL OR member_count <> " +
+            "(SELECT COUNT(*) FROM sys_org_member m WHERE m.organization_id = sys_organization.id)")
+    int reconcileMemberCounts();
 }
@@ -0,0 +1,79 @@
+package com.cr.notebook.mapper;
+
+import com.cr.notebook.tenant.TenantType;
+import lombok.Data;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * MySQL ngram FULLTEXT 检索（ft_note_ngram / ft_daily_note_ngram 索引，由 FulltextIndexInitializer 按需建立），
+ * 仅在 app.search.engine=mysql 时使用。
+ */
+@Mapper
+public interface SearchMapper {
+
+    /** 当前库中是否已有该索引 */
+    @Select("SELECT COUNT(*) FROM information_schema.statistics " +
+            "WHERE table_schema = DATABASE() AND table_name = #{table} AND index_name = #{index}")
+    int countIndex(@Param("table") String table, @Param("index") String index);
+
+    @Update("ALTER TABLE note ADD FULLTEXT INDEX ft_note_ngram (title, content) WITH PARSER ngram")
+    void createNoteFulltextIndex();
+
+    @Update("ALTER TABLE daily_note ADD FULLTEXT INDEX ft_daily_note_ngram (content) WITH PARSER ngram")
+    void createDailyNoteFulltextIndex();
+
+    String NOTE_MATCH = "MATCH(title, content) AGAINST(#{q} IN NATURAL LANGUAGE MODE)";
+    String DAILY_MATCH = "MATCH(content) AGAINST(#{q} IN NATURAL LANGUAGE MODE)";
+
+    @Select("<script>" +
+            "SELECT type, id, title, note_date, body, score FROM (" +
+            "<if test='includeNotes'>" +
+            "SELECT 'NOTE' AS type, id, title, NULL AS note_date, LEFT(content, 2000) AS body, " + NOTE_MATCH + " AS score " +
+            "FROM note WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} AND " + NOTE_MATCH +
+            "</if>" +
+            "<if test='includeNotes and includeDaily'> UNION ALL </if>" +
+            "<if test='includeDaily'>" +
+            "SELECT 'DAILY_NOTE' AS type, id, '' AS title, note_date, LEFT(content, 2000) AS body, " + DAILY_MATCH + " AS score " +
+            "FROM daily_note WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} AND " + DAILY_MATCH +
+            "</if>" +
+            ") hits ORDER BY score DESC LIMIT #{limit} OFFSET #{offset}" +
+            "</script>")
+    List<FulltextRow> search(@Param("tenantId") Long tenantId,
+                             @Param("tenantType") TenantType tenantType,
+                             @Param("q") String query,
+                             @Param("includeNotes") boolean includeNotes,
+                             @Param("includeDaily") boolean includeDaily,
+                             @Param("offset") int offset,
+                             @Param("limit") int limit);
+
+    @Select("<script>" +
+            "SELECT " +
+            "<choose><when test='includeNotes'>" +
+            "(SELECT COUNT(*) FROM note WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} AND " + NOTE_MATCH + ")" +
+            "</when><otherwise>0</otherwise></choose> + " +
+            "<choose><when test='includeDaily'>" +
+            "(SELECT COUNT(*) FROM daily_note WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} AND " + DAILY_MATCH + ")" +
+            "</when><otherwise>0</otherwise></choose>" +
+            "</script>")
+    long count(@Param("tenantId") Long tenantId,
+               @Param("tenantType") TenantType tenantType,
+               @Param("q") String query,
+               @Param("includeNotes") boolean includeNotes,
+               @Param("includeDaily") boolean includeDaily);
+
+    @Data
+    class FulltextRow {
+        private String type;
+        private Long id;
+        private String title;
+        private LocalDate noteDate;
+        private String body;
+        private float score;
+    }
+}
@@ -0,0 +1,28 @@
+package com.cr.notebook.mapper;
+
+import com.cr.notebook.dto.StatsDTO;
+import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 统计专用查询，不对应具体实体表。
+ */
+@Mapper
+public interface StatsMapper {
+
+    /**
+     * 一次往返取回租户下所有实体的总数，结果列按驼峰映射到 StatsDTO 的计数字段。
+     * 读取 tenant_stats_totals 的单行汇总，与租户规模无关；租户尚无任何数据时聚合出全 0。
+     */
+    @Select("SELECT COALESCE(MAX(note_count), 0) AS note_count, " +
+            "COALESCE(MAX(folder_count), 0) AS folder_count, " +
+            "COALESCE(MAX(task_count), 0) AS task_count, " +
+            "COALESCE(MAX(task_completed_count), 0) AS task_completed_count, " +
+            "COALESCE(MAX(daily_note_count), 0) AS daily_note_count, " +
+            "COALESCE(MAX(calendar_event_count), 0) AS calendar_event_count, " +
+            "COALESCE(MAX(whiteboard_count), 0) AS whiteboard_count " +
+            "FROM tenant_stats_totals WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType}")
+    StatsDTO selectTotals(@Param("tenantId") Long tenantId, @Param("tenantType") TenantType tenantType);
+}
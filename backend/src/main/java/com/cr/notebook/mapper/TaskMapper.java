@@ -2,8 +2,33 @@ package com.cr.notebook.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cr.notebook.entity.Task;
+import com.cr.notebook.tenant.TenantType;
+import lombok.Data;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Mapper
 public interface TaskMapper extends BaseMapper<Task> {
+
+    /** 按完成状态分组计数，同时统计今天到期和已逾期的数量；只读 idx_task_status */
+    @Select("SELECT completed, COUNT(*) AS total, " +
+            "SUM(CASE WHEN due_date = #{today} THEN 1 ELSE 0 END) AS due_today, " +
+            "SUM(CASE WHEN due_date < #{today} THEN 1 ELSE 0 END) AS overdue " +
+            "FROM task WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} " +
+            "GROUP BY completed")
+    List<StatusCountRow> countByStatus(@Param("tenantId") Long tenantId,
+                                    @Param("tenantType") TenantType tenantType,
+                                    @Param("today") LocalDate today);
+
+    @Data
+    class StatusCountRow {
+        private Boolean completed;
+        private long total;
+        private long dueToday;
+        private long overdue;
+    }
 }
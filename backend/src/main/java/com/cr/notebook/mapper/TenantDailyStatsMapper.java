@@ -0,0 +1,60 @@
+package com.cr.notebook.mapper;
+
+import com.cr.notebook.entity.TenantDailyStats;
+import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface TenantDailyStatsMapper {
+
+    /** 增量累加某天的计数，行不存在时自动创建。 */
+    @Insert("INSERT INTO tenant_daily_stats (tenant_id, tenant_type, stat_date, note_count, task_count, task_completed_count) " +
+            "VALUES (#{tenantId}, #{tenantType}, #{statDate}, #{noteDelta}, #{taskDelta}, #{completedDelta}) " +
+            "ON DUPLICATE KEY UPDATE note_count = note_count + #{noteDelta}, " +
+            "task_count = task_count + #{taskDelta}, " +
+            "task_completed_count = task_completed_count + #{completedDelta}")
+    int increment(@Param("tenantId") Long tenantId,
+                  @Param("tenantType") TenantType tenantType,
+                  @Param("statDate") LocalDate statDate,
+                  @Param("noteDelta") int noteDelta,
+                  @Param("taskDelta") int taskDelta,
+                  @Param("completedDelta") int completedDelta);
+
+    @Select("SELECT tenant_id, tenant_type, stat_date, note_count, task_count, task_completed_count " +
+            "FROM tenant_daily_stats " +
+            "WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} " +
+            "AND stat_date >= #{from} AND stat_date <= #{to}")
+    List<TenantDailyStats> selectRange(@Param("tenantId") Long tenantId,
+                                       @Param("tenantType") TenantType tenantType,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to);
+
+    @Delete("DELETE FROM tenant_daily_stats WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} " +
+            "AND stat_date >= #{from} AND stat_date < #{to}")
+    int deleteRange(@Param("tenantId") Long tenantId,
+                    @Param("tenantType") TenantType tenantType,
+                    @Param("from") LocalDate from,
+                    @Param("to") LocalDate to);
+
+    /** 从实体表重新聚合某租户 [from, to) 区间内的汇总行，供对账任务修复漂移。 */
+    @Insert("INSERT INTO tenant_daily_stats (tenant_id, tenant_type, stat_date, note_count, task_count, task_completed_count) " +
+            "SELECT tenant_id, tenant_type, stat_date, SUM(note_count), SUM(task_count), SUM(task_completed_count) FROM (" +
+            "SELECT tenant_id, tenant_type, CAST(created_at AS DATE) AS stat_date, " +
+            "1 AS note_count, 0 AS task_count, 0 AS task_completed_count " +
+            "FROM note WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} " +
+            "AND created_at >= #{from} AND created_at < #{to} " +
+            "UNION ALL " +
+            "SELECT tenant_id, tenant_type, CAST(created_at AS DATE) AS stat_date, " +
+            "0 AS note_count, 1 AS task_count, CASE WHEN completed = 1 THEN 1 ELSE 0 END AS task_completed_count " +
+            "FROM task WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} " +
+            "AND created_at >= #{from} AND created_at < #{to}" +
+            ") activity GROUP BY tenant_id, tenant_type, stat_date")
+    int rebuildRange(@Param("tenantId") Long tenantId,
+                     @Param("tenantType") TenantType tenantType,
+                     @Param("from") LocalDateTime from,
+                     @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,54 @@
+package com.cr.notebook.mapper;
+
+import com.cr.notebook.entity.TenantStatsTotals;
+import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+@Mapper
+public interface TenantStatsTotalsMapper {
+
+    /**
+     * 按 delta 中的变化量累加租户总数，行不存在时自动创建。
+     * 该行同时充当租户级的对账锁：upsert 对行加排他锁并持有到事务提交，
+     * 对账与各写入事务因此按租户串行，见 StatsRollupService#reconcileTenant。
+     */
+    @Insert("INSERT INTO tenant_stats_totals (tenant_id, tenant_type, note_count, folder_count, task_count, " +
+            "task_completed_count, daily_note_count, calendar_event_count, whiteboard_count) " +
+            "VALUES (#{tenantId}, #{tenantType}, #{noteCount}, #{folderCount}, #{taskCount}, " +
+            "#{taskCompletedCount}, #{dailyNoteCount}, #{calendarEventCount}, #{whiteboardCount}) " +
+            "ON DUPLICATE KEY UPDATE note_count = note_count + #{noteCount}, " +
+            "folder_count = folder_count + #{folderCount}, " +
+            "task_count = task_count + #{taskCount}, " +
+            "task_completed_count = task_completed_count + #{taskCompletedCount}, " +
+            "daily_note_count = daily_note_count + #{dailyNoteCount}, " +
+            "calendar_event_count = calendar_event_count + #{calendarEventCount}, " +
+            "whiteboard_count = whiteboard_count + #{whiteboardCount}")
+    int increment(TenantStatsTotals delta);
+
+    /** 直接从实体表计数，只在对账时使用；每个子查询都走 idx_tenant 索引 */
+    @Select("SELECT #{tenantId} AS tenant_id, #{tenantType} AS tenant_type, " +
+            "(SELECT COUNT(*) FROM note WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType}) AS note_count, " +
+            "(SELECT COUNT(*) FROM note_folder WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType}) AS folder_count, " +
+            "(SELECT COUNT(*) FROM task WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType}) AS task_count, " +
+            "(SELECT COUNT(*) FROM task WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType} AND completed = 1) AS task_completed_count, " +
+            "(SELECT COUNT(*) FROM daily_note WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType}) AS daily_note_count, " +
+            "(SELECT COUNT(*) FROM calendar_event WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType}) AS calendar_event_count, " +
+            "(SELECT COUNT(*) FROM whiteboard WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType}) AS whiteboard_count")
+    TenantStatsTotals countFromEntities(@Param("tenantId") Long tenantId, @Param("tenantType") TenantType tenantType);
+
+    @Update("UPDATE tenant_stats_totals SET note_count = #{noteCount}, folder_count = #{folderCount}, " +
+            "task_count = #{taskCount}, task_completed_count = #{taskCompletedCount}, " +
+            "daily_note_count = #{dailyNoteCount}, calendar_event_count = #{calendarEventCount}, " +
+            "whiteboard_count = #{whiteboardCount} " +
+            "WHERE tenant_id = #{tenantId} AND tenant_type = #{tenantType}")
+    int overwrite(TenantStatsTotals totals);
+
+    /** 按 tenant_id 分批列出某类租户，供对账任务逐个租户处理 */
+    @Select("SELECT tenant_id FROM tenant_stats_totals WHERE tenant_type = #{tenantType} AND tenant_id > #{afterId} " +
+            "ORDER BY tenant_id LIMIT #{limit}")
+    List<Long> selectTenantIds(@Param("tenantType") TenantType tenantType,
+                               @Param("afterId") Long afterId,
+                               @Param("limit") int limit);
+}
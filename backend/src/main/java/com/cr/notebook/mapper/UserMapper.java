@@ -3,7 +3,24 @@ package com.cr.notebook.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cr.notebook.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
+
+    /**
+     * 组织全部成员的用户信息，只取展示所需的列。
+     * 通过子查询直接按组织过滤，不依赖先查出成员列表，可与成员查询并行执行。
+     */
+    @Select("SELECT id, username, display_name FROM sys_user " +
+            "WHERE id IN (SELECT user_id FROM sys_org_member WHERE organization_id = #{orgId})")
+    List<User> selectMembersOf(@Param("orgId") Long orgId);
+
+    /** 组织所有者的用户信息，同样通过子查询按组织 id 直接定位 */
+    @Select("SELECT id, username, display_name FROM sys_user " +
+            "WHERE id = (SELECT owner_id FROM sys_organization WHERE id = #{orgId})")
+    User selectOwnerOf(@Param("orgId") Long orgId);
 }
@@ -0,0 +1,17 @@
+package com.cr.notebook.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cr.notebook.entity.WhiteboardStroke;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface WhiteboardStrokeMapper extends BaseMapper<WhiteboardStroke> {
+
+    /** 日志条数超过阈值、需要压缩的白板 */
+    @Select("SELECT whiteboard_id FROM whiteboard_stroke GROUP BY whiteboard_id HAVING COUNT(*) > #{threshold}")
+    List<Long> selectWhiteboardsToCompact(@Param("threshold") int threshold);
+}
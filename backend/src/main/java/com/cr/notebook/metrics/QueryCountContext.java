@@ -0,0 +1,40 @@
+package com.cr.notebook.metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 当前请求已执行的 SQL 条数。
+ * RequestMetricsFilter 在请求开始时创建计数器，QueryMetricsInterceptor 每执行一条语句加一；
+ * 计数器随 RequestContext 传入并行子任务，子任务中的查询同样计入发起请求。
+ */
+public final class QueryCountContext {
+
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    private QueryCountContext() {}
+
+    public static AtomicInteger begin() {
+        AtomicInteger counter = new AtomicInteger();
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    /** 当前线程所属请求的计数器，不在请求中时为 null */
+    public static AtomicInteger current() {
+        return CURRENT.get();
+    }
+
+    public static void restore(AtomicInteger counter) {
+        if (counter == null) CURRENT.remove();
+        else CURRENT.set(counter);
+    }
+
+    static void increment() {
+        AtomicInteger counter = CURRENT.get();
+        if (counter != null) counter.incrementAndGet();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
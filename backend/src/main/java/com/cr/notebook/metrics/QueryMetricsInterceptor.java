@@ -0,0 +1,91 @@
+package com.cr.notebook.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录每条 mapper 语句的耗时（mybatis.query）和返回 / 影响行数（mybatis.query.rows），
+ * 按语句（Mapper.method）和命令类型打标签，并累加当前请求的查询条数。
+ * MyBatis-Plus 分页等插件会把 4 参数的 query 转调 6 参数版本，用线程内标记避免同一语句被记录两次。
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class QueryMetricsInterceptor implements Interceptor {
+
+    private static final ThreadLocal<Boolean> RECORDING = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+
+    public QueryMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (RECORDING.get() != null) return invocation.proceed();
+
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        String statement = statementName(ms.getId());
+        String command = ms.getSqlCommandType().name();
+        QueryCountContext.increment();
+
+        RECORDING.set(Boolean.TRUE);
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result = invocation.proceed();
+            outcome = "success";
+            DistributionSummary.builder("mybatis.query.rows")
+                    .description("Rows returned by a query or affected by an update")
+                    .tag("statement", statement)
+                    .tag("command", command)
+                    .register(registry)
+                    .record(rows(result));
+            return result;
+        } finally {
+            RECORDING.remove();
+            Timer.builder("mybatis.query")
+                    .description("Mapper statement execution time")
+                    .tag("statement", statement)
+                    .tag("command", command)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /** com.cr.notebook.mapper.NoteMapper.selectList -> NoteMapper.selectList */
+    static String statementName(String id) {
+        int method = id.lastIndexOf('.');
+        if (method < 0) return id;
+        int mapper = id.lastIndexOf('.', method - 1);
+        return id.substring(mapper + 1);
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection<?> c) return c.size();
+        if (result instanceof Number n) return n.longValue();
+        return result == null ? 0 : 1;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cr.notebook.metrics;
+
+import com.cr.notebook.tenant.TenantInterceptor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 统计每个 API 请求执行的 SQL 条数（http.server.requests.queries），按接口路径模板和租户类型打标签。
+ * 放在安全过滤器之前，JWT 过滤器加载用户主体的查询也计入；
+ * 直方图桶覆盖 1 到 100 条，N+1 接口会直接落在高位桶中。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry registry;
+
+    public RequestMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AtomicInteger counter = QueryCountContext.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryCountContext.clear();
+            DistributionSummary.builder("http.server.requests.queries")
+                    .description("SQL statements executed per request")
+                    .tag("method", request.getMethod())
+                    .tag("uri", uri(request))
+                    .tag("tenant.type", tenantType(request))
+                    .serviceLevelObjectives(1, 2, 3, 5, 10, 20, 50, 100)
+                    .register(registry)
+                    .record(counter.get());
+        }
+    }
+
+    /** 使用路径模板而不是实际路径，避免 id 造成标签基数膨胀 */
+    private static String uri(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+
+    static String tenantType(HttpServletRequest request) {
+        Object type = request.getAttribute(TenantInterceptor.TENANT_TYPE_ATTRIBUTE);
+        return type != null ? type.toString() : "NONE";
+    }
+}
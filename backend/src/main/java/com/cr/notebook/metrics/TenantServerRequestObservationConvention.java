@@ -0,0 +1,34 @@
+package com.cr.notebook.metrics;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 在 http.server.requests 计时器上追加控制器方法（handler）和租户类型（tenant.type）标签，
+ * 可以按具体接口方法和个人 / 组织空间分别查看耗时分布。两者取值都有限，不会造成标签基数膨胀。
+ */
+@Component
+public class TenantServerRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and(
+                KeyValue.of("handler", handler(context)),
+                KeyValue.of("tenant.type", context.getCarrier() != null
+                        ? RequestMetricsFilter.tenantType(context.getCarrier()) : "NONE"));
+    }
+
+    private static String handler(ServerRequestObservationContext context) {
+        if (context.getCarrier() == null) return "none";
+        Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod method) {
+            return method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+        }
+        return "none";
+    }
+}
@@ -0,0 +1,348 @@
+package com.cr.notebook.search;
+
+import com.cr.notebook.dto.SearchHitDTO;
+import com.cr.notebook.dto.SearchResultDTO;
+import com.cr.notebook.tenant.TenantType;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.cn.smart.SmartChineseAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * 基于 Lucene 的嵌入式搜索引擎，每个租户一个独立索引目录。
+ * 使用 SmartChineseAnalyzer 做中英文分词，标题权重高于正文，正文在倒排中保存偏移量，
+ * 命中片段由 UnifiedHighlighter 直接基于 postings 生成，无需对正文重新分词。
+ * app.search.lucene.path 为空时索引只保存在内存中（测试环境）。
+ * <p>
+ * 单篇文档的增删只做近实时刷新（不 fsync），由定时任务按 commit-interval-ms 批量提交有改动的索引，
+ * 索引被淘汰或应用关闭时 IndexWriter 也会提交。
+ * “已完整构建”标记只在索引正常关闭时写入提交元数据，打开期间磁盘上不带该标记：
+ * 进程崩溃后重新打开的索引可能缺少最后一个提交周期内的改动，会被视为未构建并整体重建。
+ * <p>
+ * 索引保存在本机磁盘，只能看到本实例处理的写入，因此仅支持单实例部署；
+ * 多实例部署须使用 app.search.engine=mysql。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "lucene", matchIfMissing = true)
+public class LuceneNoteSearchEngine implements NoteSearchEngine, DisposableBean {
+
+    private static final String F_KEY = "key";
+    private static final String F_TYPE = "type";
+    private static final String F_ID = "id";
+    private static final String F_TITLE = "title";
+    private static final String F_BODY = "body";
+    private static final String F_DATE = "date";
+
+    /** 正常关闭时写入提交元数据，标记该租户索引已从数据库完整构建且没有丢失改动 */
+    private static final String BUILT_MARKER = "cr.built";
+
+    private static final float TITLE_BOOST = 3f;
+    private static final int FRAGMENT_SIZE = 120;
+
+    /** 正文字段：分词、存储，并在倒排中记录偏移量供高亮使用 */
+    private static final FieldType BODY_TYPE = new FieldType(TextField.TYPE_STORED);
+    static {
+        BODY_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        BODY_TYPE.freeze();
+    }
+
+    private final Analyzer analyzer = new SmartChineseAnalyzer();
+    private final Path basePath;
+    private final LoadingCache<String, TenantIndex> indexes;
+
+    public LuceneNoteSearchEngine(
+            @Value("${app.search.lucene.path:}") String path,
+            @Value("${app.search.lucene.max-open-tenants:256}") long maxOpenTenants) {
+        this.basePath = path == null || path.isBlank() ? null : Path.of(path);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        // 内存索引一旦关闭即丢失，只有落盘时才按上限淘汰不活跃租户的 writer
+        if (basePath != null) builder.maximumSize(maxOpenTenants);
+        this.indexes = builder
+                // 在调用线程上同步关闭被移除的索引，保证 destroy() 返回时写锁已释放
+                .executor(Runnable::run)
+                .<String, TenantIndex>removalListener((key, index, cause) -> {
+                    if (index != null) index.close();
+                })
+                .build(this::open);
+    }
+
+    @Override
+    public SearchResultDTO search(Long tenantId, TenantType tenantType, String query,
+                                  SearchDocType type, int offset, int limit) {
+        Query parsed = buildQuery(query);
+        if (parsed == null) return new SearchResultDTO(0, List.of());
+        Query filtered = type == null ? parsed : new BooleanQuery.Builder()
+                .add(parsed, BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(F_TYPE, type.name())), BooleanClause.Occur.FILTER)
+                .build();
+
+        return withIndex(tenantId, tenantType, index -> {
+            IndexSearcher searcher = index.searchers.acquire();
+            try {
+                TopDocs top = searcher.search(filtered, offset + limit);
+                int from = Math.min(offset, top.scoreDocs.length);
+                ScoreDoc[] page = Arrays.copyOfRange(top.scoreDocs, from, top.scoreDocs.length);
+
+                UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                        .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", "…", true))
+                        .withMaxLength(10_000)
+                        .build();
+                String[] fragments = highlighter.highlight(F_BODY, parsed, new TopDocs(top.totalHits, page), 1);
+
+                StoredFields stored = searcher.storedFields();
+                List<SearchHitDTO> hits = new ArrayList<>(page.length);
+                for (int i = 0; i < page.length; i++) {
+                    hits.add(toHit(stored.document(page[i].doc), page[i].score, fragments[i]));
+                }
+                return new SearchResultDTO(top.totalHits.value, hits);
+            } finally {
+                index.searchers.release(searcher);
+            }
+        });
+    }
+
+    @Override
+    public void index(SearchDocument document) {
+        withIndex(document.getTenantId(), document.getTenantType(), index -> {
+            index.writer.updateDocument(new Term(F_KEY, document.key()), toLucene(document));
+            index.refresh();
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(SearchDocType type, Long id, Long tenantId, TenantType tenantType) {
+        withIndex(tenantId, tenantType, index -> {
+            index.writer.deleteDocuments(new Term(F_KEY, SearchDocument.key(type, id)));
+            index.refresh();
+            return null;
+        });
+    }
+
+    @Override
+    public boolean needsRebuild(Long tenantId, TenantType tenantType) {
+        return withIndex(tenantId, tenantType, index -> !index.built);
+    }
+
+    @Override
+    public void invalidate(Long tenantId, TenantType tenantType) {
+        withIndex(tenantId, tenantType, index -> {
+            index.built = false;
+            return null;
+        });
+    }
+
+    @Override
+    public void rebuild(Long tenantId, TenantType tenantType, Stream<SearchDocument> documents) {
+        withIndex(tenantId, tenantType, index -> {
+            index.writer.deleteAll();
+            Iterator<SearchDocument> it = documents.iterator();
+            while (it.hasNext()) {
+                SearchDocument doc = it.next();
+                // 按 key 覆盖：重建期间到达的单篇更新不会与重建写入的同一文档并存
+                index.writer.updateDocument(new Term(F_KEY, doc.key()), toLucene(doc));
+            }
+            index.built = true;
+            index.commit();
+            return null;
+        });
+    }
+
+    /** 提交自上次提交以来有改动的租户索引 */
+    @Scheduled(fixedDelayString = "${app.search.lucene.commit-interval-ms:5000}")
+    public void commitPending() {
+        indexes.asMap().forEach((key, index) -> {
+            if (!index.dirty) return;
+            try {
+                index.commit();
+            } catch (AlreadyClosedException e) {
+                // 已被淘汰，关闭时已经提交
+            } catch (IOException e) {
+                log.warn("Failed to commit search index {}", key, e);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        indexes.invalidateAll();
+        indexes.cleanUp();
+    }
+
+    /** 把查询文本按索引同样的分词器切分，每个词须在标题或正文中出现，末尾英文词允许前缀匹配 */
+    Query buildQuery(String text) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) return null;
+        BooleanQuery.Builder all = new BooleanQuery.Builder();
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            BooleanQuery.Builder any = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(F_TITLE, term)), TITLE_BOOST), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term(F_BODY, term)), BooleanClause.Occur.SHOULD);
+            if (i == terms.size() - 1 && term.length() >= 2 && term.chars().allMatch(c -> c < 128)) {
+                any.add(new BoostQuery(new PrefixQuery(new Term(F_TITLE, term)), TITLE_BOOST / 2), BooleanClause.Occur.SHOULD)
+                        .add(new BoostQuery(new PrefixQuery(new Term(F_BODY, term)), 0.5f), BooleanClause.Occur.SHOULD);
+            }
+            all.add(any.build(), BooleanClause.Occur.MUST);
+        }
+        return all.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) return terms;
+        try (TokenStream ts = analyzer.tokenStream(F_BODY, text)) {
+            CharTermAttribute attr = ts.addAttribute(CharTermAttribute.class);
+            ts.reset();
+            while (ts.incrementToken()) {
+                String term = attr.toString();
+                if (!term.isBlank() && !terms.contains(term)) terms.add(term);
+            }
+            ts.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private Document toLucene(SearchDocument doc) {
+        Document d = new Document();
+        d.add(new StringField(F_KEY, doc.key(), Field.Store.NO));
+        d.add(new StringField(F_TYPE, doc.getType().name(), Field.Store.YES));
+        d.add(new StoredField(F_ID, doc.getId()));
+        d.add(new TextField(F_TITLE, doc.getTitle() != null ? doc.getTitle() : "", Field.Store.YES));
+        d.add(new Field(F_BODY, doc.getBody() != null ? doc.getBody() : "", BODY_TYPE));
+        if (doc.getNoteDate() != null) d.add(new StoredField(F_DATE, doc.getNoteDate().toString()));
+        return d;
+    }
+
+    private SearchHitDTO toHit(Document d, float score, String fragment) {
+        SearchHitDTO hit = new SearchHitDTO();
+        hit.setType(d.get(F_TYPE));
+        hit.setId(d.getField(F_ID).numericValue().longValue());
+        hit.setTitle(d.get(F_TITLE));
+        if (d.get(F_DATE) != null) hit.setNoteDate(LocalDate.parse(d.get(F_DATE)));
+        hit.setScore(score);
+        if (fragment == null) {
+            // 只命中标题时正文没有可高亮的片段，取开头一段
+            String body = d.get(F_BODY);
+            fragment = SearchText.escapeHtml(body.length() > FRAGMENT_SIZE ? body.substring(0, FRAGMENT_SIZE) : body);
+        }
+        hit.setHighlight(fragment);
+        return hit;
+    }
+
+    /** 在租户索引上执行操作；若索引恰好被淘汰关闭则重新打开后重试一次 */
+    private <R> R withIndex(Long tenantId, TenantType tenantType, IndexAction<R> action) {
+        String key = tenantType.name() + "-" + tenantId;
+        try {
+            try {
+                return action.apply(indexes.get(key));
+            } catch (AlreadyClosedException e) {
+                indexes.invalidate(key);
+                return action.apply(indexes.get(key));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TenantIndex open(String key) {
+        try {
+            Directory dir = basePath == null ? new ByteBuffersDirectory() : FSDirectory.open(basePath.resolve(key));
+            IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(analyzer)
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+            boolean built = false;
+            Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+            if (commitData != null) {
+                for (Map.Entry<String, String> entry : commitData) {
+                    if (BUILT_MARKER.equals(entry.getKey())) built = true;
+                }
+            }
+            if (built) {
+                // 打开期间先从磁盘上撤掉标记，正常关闭时再写回；未正常关闭即视为可能丢失改动
+                writer.setLiveCommitData(List.of());
+                writer.commit();
+            }
+            return new TenantIndex(dir, writer, new SearcherManager(writer, null), built);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexAction<R> {
+        R apply(TenantIndex index) throws IOException;
+    }
+
+    private static class TenantIndex {
+        final Directory directory;
+        final IndexWriter writer;
+        final SearcherManager searchers;
+        volatile boolean built;
+        /** 有尚未提交（未落盘）的改动 */
+        volatile boolean dirty;
+
+        TenantIndex(Directory directory, IndexWriter writer, SearcherManager searchers, boolean built) {
+            this.directory = directory;
+            this.writer = writer;
+            this.searchers = searchers;
+            this.built = built;
+        }
+
+        /** 让改动对搜索可见，但不提交 */
+        void refresh() throws IOException {
+            dirty = true;
+            searchers.maybeRefreshBlocking();
+        }
+
+        void commit() throws IOException {
+            // 先清标记：提交过程中到达的改动会重新置位，留给下一轮
+            dirty = false;
+            try {
+                writer.commit();
+            } catch (IOException | RuntimeException e) {
+                dirty = true;
+                throw e;
+            }
+            searchers.maybeRefreshBlocking();
+        }
+
+        /** 正常关闭：仍完整的索引写回构建标记，随关闭时的最后一次提交落盘 */
+        void close() {
+            try {
+                searchers.close();
+                if (built) writer.setLiveCommitData(Map.of(BUILT_MARKER, "true").entrySet());
+                writer.close();
+                directory.close();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to close search index", e);
+            }
+        }
+    }
+}
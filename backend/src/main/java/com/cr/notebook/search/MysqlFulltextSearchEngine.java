@@ -0,0 +1,75 @@
+package com.cr.notebook.search;
+
+import com.cr.notebook.dto.SearchHitDTO;
+import com.cr.notebook.dto.SearchResultDTO;
+import com.cr.notebook.mapper.SearchMapper;
+import com.cr.notebook.tenant.TenantType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 兜底搜索实现：直接查询 MySQL ngram FULLTEXT 索引，无需额外维护索引，
+ * 适合不便在应用节点上保存 Lucene 索引目录的部署。高亮在应用侧按查询词做简单匹配。
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "mysql")
+public class MysqlFulltextSearchEngine implements NoteSearchEngine {
+
+    private static final int SNIPPET_WIDTH = 120;
+
+    private final SearchMapper searchMapper;
+
+    @Override
+    public SearchResultDTO search(Long tenantId, TenantType tenantType, String query,
+                                  SearchDocType type, int offset, int limit) {
+        boolean includeNotes = type == null || type == SearchDocType.NOTE;
+        boolean includeDaily = type == null || type == SearchDocType.DAILY_NOTE;
+        long total = searchMapper.count(tenantId, tenantType, query, includeNotes, includeDaily);
+        if (total == 0) return new SearchResultDTO(0, List.of());
+
+        List<String> terms = Arrays.stream(query.trim().split("\\s+")).filter(t -> !t.isEmpty()).toList();
+        List<SearchHitDTO> hits = searchMapper.search(tenantId, tenantType, query, includeNotes, includeDaily, offset, limit)
+                .stream()
+                .map(row -> {
+                    SearchHitDTO hit = new SearchHitDTO();
+                    hit.setType(row.getType());
+                    hit.setId(row.getId());
+                    hit.setNoteDate(row.getNoteDate());
+                    hit.setTitle(row.getNoteDate() != null ? row.getNoteDate().toString() : row.getTitle());
+                    hit.setScore(row.getScore());
+                    hit.setHighlight(SearchText.highlight(SearchText.stripHtml(row.getBody()), terms, SNIPPET_WIDTH));
+                    return hit;
+                })
+                .toList();
+        return new SearchResultDTO(total, hits);
+    }
+
+    @Override
+    public void index(SearchDocument document) {
+        // 由 InnoDB FULLTEXT 索引随行写入自动维护
+    }
+
+    @Override
+    public void delete(SearchDocType type, Long id, Long tenantId, TenantType tenantType) {
+    }
+
+    @Override
+    public boolean needsRebuild(Long tenantId, TenantType tenantType) {
+        return false;
+    }
+
+    @Override
+    public void rebuild(Long tenantId, TenantType tenantType, Stream<SearchDocument> documents) {
+    }
+
+    @Override
+    public boolean maintainsIndex() {
+        return false;
+    }
+}
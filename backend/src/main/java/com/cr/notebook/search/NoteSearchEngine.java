@@ -0,0 +1,41 @@
+package com.cr.notebook.search;
+
+import com.cr.notebook.dto.SearchResultDTO;
+import com.cr.notebook.tenant.TenantType;
+
+import java.util.stream.Stream;
+
+/**
+ * 全文搜索后端。所有操作都限定在单个租户内。
+ * 通过 app.search.engine 选择实现：lucene（默认，嵌入式按租户建索引）或 mysql（ngram FULLTEXT 兜底）。
+ */
+public interface NoteSearchEngine {
+
+    /**
+     * 按相关度排序检索。
+     *
+     * @param type 只检索某类文档，null 表示笔记和日记都检索
+     */
+    SearchResultDTO search(Long tenantId, TenantType tenantType, String query,
+                           SearchDocType type, int offset, int limit);
+
+    /** 新增或覆盖一条文档 */
+    void index(SearchDocument document);
+
+    void delete(SearchDocType type, Long id, Long tenantId, TenantType tenantType);
+
+    /** 租户索引尚未从数据库完整构建过时返回 true */
+    boolean needsRebuild(Long tenantId, TenantType tenantType);
+
+    /** 标记租户索引不再完整（例如单篇写入失败），下次使用前按 needsRebuild 整体重建 */
+    default void invalidate(Long tenantId, TenantType tenantType) {
+    }
+
+    /** 用给定文档整体替换租户索引 */
+    void rebuild(Long tenantId, TenantType tenantType, Stream<SearchDocument> documents);
+
+    /** 引擎是否自行维护索引；为 false 时写入事件无需处理（例如直接查询数据库的实现） */
+    default boolean maintainsIndex() {
+        return true;
+    }
+}
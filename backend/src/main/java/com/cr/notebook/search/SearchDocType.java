@@ -0,0 +1,7 @@
+package com.cr.notebook.search;
+
+/** 可被全文检索的文档类型 */
+public enum SearchDocType {
+    NOTE,
+    DAILY_NOTE
+}
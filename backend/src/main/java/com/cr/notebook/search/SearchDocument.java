@@ -0,0 +1,58 @@
+package com.cr.notebook.search;
+
+import com.cr.notebook.entity.DailyNote;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.tenant.TenantType;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * 送入搜索引擎的一条文档。body 为去除 HTML 标签后的纯文本。
+ */
+@Getter
+@Builder
+public class SearchDocument {
+
+    private final SearchDocType type;
+    private final Long id;
+    private final Long tenantId;
+    private final TenantType tenantType;
+    private final String title;
+    private final String body;
+    /** 仅日记有值 */
+    private final LocalDate noteDate;
+
+    public static SearchDocument of(Note note) {
+        return SearchDocument.builder()
+                .type(SearchDocType.NOTE)
+                .id(note.getId())
+                .tenantId(note.getTenantId())
+                .tenantType(note.getTenantType())
+                .title(note.getTitle() != null ? note.getTitle() : "")
+                .body(SearchText.stripHtml(note.getContent()))
+                .build();
+    }
+
+    public static SearchDocument of(DailyNote note) {
+        return SearchDocument.builder()
+                .type(SearchDocType.DAILY_NOTE)
+                .id(note.getId())
+                .tenantId(note.getTenantId())
+                .tenantType(note.getTenantType())
+                .title(note.getNoteDate() != null ? note.getNoteDate().toString() : "")
+                .body(SearchText.stripHtml(note.getContent()))
+                .noteDate(note.getNoteDate())
+                .build();
+    }
+
+    /** 文档在索引中的唯一键 */
+    public String key() {
+        return key(type, id);
+    }
+
+    public static String key(SearchDocType type, Long id) {
+        return type.name() + ":" + id;
+    }
+}
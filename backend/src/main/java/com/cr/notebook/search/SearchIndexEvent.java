@@ -0,0 +1,33 @@
+package com.cr.notebook.search;
+
+import com.cr.notebook.entity.DailyNote;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.tenant.TenantType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 笔记 / 日记写入后发布的索引事件，只携带定位信息，由 SearchIndexer 在事务提交后回查最新内容。
+ */
+@Getter
+@AllArgsConstructor
+public class SearchIndexEvent {
+
+    private final SearchDocType type;
+    private final Long id;
+    private final Long tenantId;
+    private final TenantType tenantType;
+    private final boolean deleted;
+
+    public static SearchIndexEvent saved(Note note) {
+        return new SearchIndexEvent(SearchDocType.NOTE, note.getId(), note.getTenantId(), note.getTenantType(), false);
+    }
+
+    public static SearchIndexEvent deleted(Note note) {
+        return new SearchIndexEvent(SearchDocType.NOTE, note.getId(), note.getTenantId(), note.getTenantType(), true);
+    }
+
+    public static SearchIndexEvent saved(DailyNote note) {
+        return new SearchIndexEvent(SearchDocType.DAILY_NOTE, note.getId(), note.getTenantId(), note.getTenantType(), false);
+    }
+}
@@ -0,0 +1,211 @@
+package com.cr.notebook.search;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cr.notebook.datasource.RoutingContext;
+import com.cr.notebook.entity.DailyNote;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.mapper.DailyNoteMapper;
+import com.cr.notebook.mapper.NoteMapper;
+import com.cr.notebook.tenant.TenantType;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 把笔记 / 日记的写入同步到搜索引擎。
+ * 在事务提交后处理 SearchIndexEvent，默认交给单线程后台队列按序执行，避免拖慢保存接口；
+ * 租户索引首次被查询时从数据库分批全量构建。
+ * 单篇写入失败、或关闭时队列中仍有未处理的事件，都会把对应租户的索引标记为不完整，由下一次重建修正。
+ */
+@Slf4j
+@Component
+public class SearchIndexer implements DisposableBean {
+
+    private final NoteSearchEngine engine;
+    private final NoteMapper noteMapper;
+    private final DailyNoteMapper dailyNoteMapper;
+    private final boolean async;
+    private final int batchSize;
+    private final ExecutorService executor;
+    /** 关闭时等待队列中剩余事件处理完的时间，超时未处理的事件所属租户会被标记为需要重建 */
+    private final long shutdownTimeoutMs;
+    /**
+     * 每个租户一把重建锁，大租户重建时不阻塞其他租户的搜索；弱引用持有，无人使用时自动回收。
+     * 单篇写入也持有该锁，重建期间到达的事件等重建完成后再读库写入，不会被重建覆盖成旧内容。
+     */
+    private final LoadingCache<String, Object> rebuildLocks = Caffeine.newBuilder().weakValues().build(k -> new Object());
+
+    public SearchIndexer(NoteSearchEngine engine,
+                         NoteMapper noteMapper,
+                         DailyNoteMapper dailyNoteMapper,
+                         @Value("${app.search.async:true}") boolean async,
+                         @Value("${app.search.rebuild-batch-size:500}") int batchSize,
+                         @Value("${app.search.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.engine = engine;
+        this.noteMapper = noteMapper;
+        this.dailyNoteMapper = dailyNoteMapper;
+        this.async = async;
+        this.batchSize = batchSize;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.executor = async ? Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "search-indexer");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIndexEvent(SearchIndexEvent event) {
+        if (!engine.maintainsIndex()) return;
+        if (async) {
+            executor.execute(new IndexTask(event));
+        } else {
+            apply(event);
+        }
+    }
+
+    /** 用数据库中的现有数据重建租户索引；同一租户并发的首次查询只会触发一次构建 */
+    public void rebuildTenant(Long tenantId, TenantType tenantType) {
+        if (!engine.needsRebuild(tenantId, tenantType)) return;
+        synchronized (lockOf(tenantId, tenantType)) {
+            if (!engine.needsRebuild(tenantId, tenantType)) return;
+            long start = System.currentTimeMillis();
+            // 从库可能滞后，而重建后索引即标记为完整，必须读主库
+            RoutingContext.onPrimary(() -> {
+                engine.rebuild(tenantId, tenantType, Stream.concat(
+                        noteDocuments(tenantId, tenantType), dailyNoteDocuments(tenantId, tenantType)));
+                return null;
+            });
+            log.info("Built search index for {}-{} in {} ms", tenantType, tenantId, System.currentTimeMillis() - start);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (executor == null) return;
+        executor.shutdown();
+        if (executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) return;
+        // 来不及处理的事件会丢失，标记其租户索引不完整，重启后首次搜索时重建
+        for (Runnable pending : executor.shutdownNow()) {
+            if (pending instanceof IndexTask task) invalidate(task.event);
+        }
+    }
+
+    void apply(SearchIndexEvent event) {
+        try {
+            synchronized (lockOf(event.getTenantId(), event.getTenantType())) {
+                SearchDocument doc = event.isDeleted() ? null : load(event);
+                if (doc == null) {
+                    engine.delete(event.getType(), event.getId(), event.getTenantId(), event.getTenantType());
+                } else {
+                    engine.index(doc);
+                }
+            }
+        } catch (RuntimeException e) {
+            // 索引失败不影响业务写入；标记租户索引不完整并重建，否则该文档会一直缺失或过期
+            log.warn("Failed to index {}:{}, scheduling rebuild of {}-{}",
+                    event.getType(), event.getId(), event.getTenantType(), event.getTenantId(), e);
+            invalidate(event);
+            scheduleRebuild(event.getTenantId(), event.getTenantType());
+        }
+    }
+
+    private void invalidate(SearchIndexEvent event) {
+        try {
+            engine.invalidate(event.getTenantId(), event.getTenantType());
+        } catch (RuntimeException e) {
+            log.warn("Failed to invalidate search index {}-{}", event.getTenantType(), event.getTenantId(), e);
+        }
+    }
+
+    /** 异步模式下在索引线程上立即重建；同步模式下留给下一次搜索，避免在请求线程上做全量重建 */
+    private void scheduleRebuild(Long tenantId, TenantType tenantType) {
+        if (!async) return;
+        try {
+            executor.execute(() -> {
+                try {
+                    rebuildTenant(tenantId, tenantType);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to rebuild search index {}-{}", tenantType, tenantId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 正在关闭，索引已标记为不完整，重启后首次搜索时重建
+        }
+    }
+
+    private Object lockOf(Long tenantId, TenantType tenantType) {
+        return rebuildLocks.get(tenantType.name() + "-" + tenantId);
+    }
+
+    private SearchDocument load(SearchIndexEvent event) {
+        if (event.getType() == SearchDocType.NOTE) {
+            Note note = noteMapper.selectById(event.getId());
+            return note != null ? SearchDocument.of(note) : null;
+        }
+        DailyNote note = dailyNoteMapper.selectById(event.getId());
+        return note != null ? SearchDocument.of(note) : null;
+    }
+
+    private Stream<SearchDocument> noteDocuments(Long tenantId, TenantType tenantType) {
+        return Stream.iterate(nextNotes(tenantId, tenantType, 0L), batch -> !batch.isEmpty(),
+                        batch -> nextNotes(tenantId, tenantType, batch.get(batch.size() - 1).getId()))
+                .flatMap(List::stream)
+                .map(SearchDocument::of);
+    }
+
+    private List<Note> nextNotes(Long tenantId, TenantType tenantType, Long afterId) {
+        return noteMapper.selectList(new LambdaQueryWrapper<Note>()
+                .select(Note::getId, Note::getTenantId, Note::getTenantType, Note::getTitle, Note::getContent)
+                .eq(Note::getTenantId, tenantId)
+                .eq(Note::getTenantType, tenantType)
+                .gt(Note::getId, afterId)
+                .orderByAsc(Note::getId)
+                .last("LIMIT " + batchSize));
+    }
+
+    private Stream<SearchDocument> dailyNoteDocuments(Long tenantId, TenantType tenantType) {
+        return Stream.iterate(nextDailyNotes(tenantId, tenantType, 0L), batch -> !batch.isEmpty(),
+                        batch -> nextDailyNotes(tenantId, tenantType, batch.get(batch.size() - 1).getId()))
+                .flatMap(List::stream)
+                .map(SearchDocument::of);
+    }
+
+    private List<DailyNote> nextDailyNotes(Long tenantId, TenantType tenantType, Long afterId) {
+        return dailyNoteMapper.selectList(new LambdaQueryWrapper<DailyNote>()
+                .select(DailyNote::getId, DailyNote::getTenantId, DailyNote::getTenantType,
+                        DailyNote::getNoteDate, DailyNote::getContent)
+                .eq(DailyNote::getTenantId, tenantId)
+                .eq(DailyNote::getTenantType, tenantType)
+                .gt(DailyNote::getId, afterId)
+                .isNotNull(DailyNote::getContent)
+                .ne(DailyNote::getContent, "")
+                .orderByAsc(DailyNote::getId)
+                .last("LIMIT " + batchSize));
+    }
+
+    /** 具名任务，关闭时可以从未执行的任务中取回事件 */
+    private final class IndexTask implements Runnable {
+        final SearchIndexEvent event;
+
+        IndexTask(SearchIndexEvent event) {
+            this.event = event;
+        }
+
+        @Override
+        public void run() {
+            apply(event);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cr.notebook.search;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/** 搜索相关的文本处理：HTML 转纯文本、摘要截取与关键词高亮。 */
+public final class SearchText {
+
+    private static final Pattern SCRIPT_STYLE = Pattern.compile("(?is)<(script|style)[^>]*>.*?</\\1>");
+    private static final Pattern TAG = Pattern.compile("<[^>]+>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private SearchText() {
+    }
+
+    /** 编辑器保存的是 HTML，索引前去掉标签并还原常见实体 */
+    public static String stripHtml(String html) {
+        if (html == null || html.isEmpty()) return "";
+        String text = SCRIPT_STYLE.matcher(html).replaceAll(" ");
+        text = TAG.matcher(text).replaceAll(" ");
+        text = text.replace("&nbsp;", " ")
+                .replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&#39;", "'")
+                .replace("&amp;", "&");
+        return WHITESPACE.matcher(text).replaceAll(" ").trim();
+    }
+
+    public static String escapeHtml(String text) {
+        return text.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;");
+    }
+
+    /**
+     * 以第一个命中的关键词为中心截取约 width 个字符，转义后用 &lt;mark&gt; 包裹关键词。
+     * 用于没有自带高亮能力的后端（MySQL FULLTEXT）。
+     */
+    public static String highlight(String text, List<String> terms, int width) {
+        if (text == null || text.isEmpty()) return "";
+        String lower = text.toLowerCase(Locale.ROOT);
+        int first = -1;
+        for (String term : terms) {
+            int idx = lower.indexOf(term.toLowerCase(Locale.ROOT));
+            if (idx >= 0 && (first < 0 || idx < first)) first = idx;
+        }
+        int start = Math.max(0, first < 0 ? 0 : first - width / 4);
+        int end = Math.min(text.length(), start + width);
+        String window = text.substring(start, end);
+
+        StringBuilder out = new StringBuilder();
+        String windowLower = window.toLowerCase(Locale.ROOT);
+        int pos = 0;
+        while (pos < window.length()) {
+            int matchAt = -1;
+            int matchLen = 0;
+            for (String term : terms) {
+                if (term.isEmpty()) continue;
+                int idx = windowLower.indexOf(term.toLowerCase(Locale.ROOT), pos);
+                if (idx >= 0 && (matchAt < 0 || idx < matchAt)) {
+                    matchAt = idx;
+                    matchLen = term.length();
+                }
+            }
+            if (matchAt < 0) {
+                out.append(escapeHtml(window.substring(pos)));
+                break;
+            }
+            out.append(escapeHtml(window.substring(pos, matchAt)))
+                    .append("<mark>")
+                    .append(escapeHtml(window.substring(matchAt, matchAt + matchLen)))
+                    .append("</mark>");
+            pos = matchAt + matchLen;
+        }
+        return out.toString();
+    }
+}
@@ -1,10 +1,11 @@
 package com.cr.notebook.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -15,11 +16,21 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsServiceImpl userDetailsService;
+    private final boolean stateless;
+
+    public JwtAuthenticationFilter(
+            JwtTokenProvider tokenProvider,
+            UserDetailsServiceImpl userDetailsService,
+            @Value("${app.security.principal-mode:cache}") String principalMode) {
+        this.tokenProvider = tokenProvider;
+        this.userDetailsService = userDetailsService;
+        // cache：按用户 id 查库并缓存主体；stateless：完全信任令牌声明，不访问数据库。
+        this.stateless = "stateless".equalsIgnoreCase(principalMode);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -27,9 +38,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = extractToken(request);
 
-        if (StringUtils.hasText(token) && tokenProvider.validateToken(token)) {
-            Long userId = tokenProvider.getUserIdFromToken(token);
-            UserPrincipal principal = (UserPrincipal) userDetailsService.loadUserById(userId);
+        // 验签与解析一次完成，之后只使用返回的声明
+        Claims claims = StringUtils.hasText(token) ? tokenProvider.validateAndParse(token) : null;
+        if (claims != null) {
+            UserPrincipal principal = stateless
+                    ? tokenProvider.toPrincipal(claims)
+                    : (UserPrincipal) userDetailsService.loadUserById(Long.parseLong(claims.getSubject()));
 
             var authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
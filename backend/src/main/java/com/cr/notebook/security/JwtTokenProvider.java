@@ -1,5 +1,8 @@
 package com.cr.notebook.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -7,19 +10,53 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
 
     private final SecretKey key;
     private final long expirationMs;
+    /** 解析器不可变且线程安全，构建一次复用，避免每次请求重新装配 */
+    private final JwtParser parser;
+    /**
+     * 最近验签通过的令牌：键为令牌的 SHA-256，条目在令牌 exp 时刻过期。
+     * 同一令牌在有效期内的后续请求无需再做 HMAC 验签和 JSON 解析。容量为 0 时不缓存。
+     */
+    private final Cache<String, Claims> verified;
 
     public JwtTokenProvider(
             @Value("${app.jwt.secret}") String secret,
-            @Value("${app.jwt.expiration-ms}") long expirationMs) {
+            @Value("${app.jwt.expiration-ms}") long expirationMs,
+            @Value("${app.jwt.verified-cache.max-size:10000}") long verifiedCacheSize) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verified = verifiedCacheSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String k, Claims claims, long currentTime) {
+                        Date exp = claims.getExpiration();
+                        long remainingMs = exp == null ? expirationMs : exp.getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String k, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String k, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generateToken(UserPrincipal principal) {
@@ -27,23 +64,71 @@ public class JwtTokenProvider {
         return Jwts.builder()
                 .subject(String.valueOf(principal.getId()))
                 .claim("username", principal.getUsername())
+                .claim("email", principal.getEmail())
                 .issuedAt(now)
                 .expiration(new Date(now.getTime() + expirationMs))
                 .signWith(key)
                 .compact();
     }
 
+    /**
+     * 一次完成验签与解析，返回令牌声明；令牌无效或已过期时返回 null。
+     * 命中已验证令牌缓存时不再重复验签。
+     */
+    public Claims validateAndParse(String token) {
+        if (token == null || token.isEmpty()) return null;
+        if (verified == null) return parse(token);
+
+        String cacheKey = sha256(token);
+        Claims claims = verified.getIfPresent(cacheKey);
+        if (claims != null) return claims;
+        claims = parse(token);
+        if (claims != null) verified.put(cacheKey, claims);
+        return claims;
+    }
+
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+        Claims claims = validateAndParse(token);
+        if (claims == null) throw new JwtException("Invalid token");
         return Long.parseLong(claims.getSubject());
     }
 
+    /**
+     * 无状态模式：仅凭令牌声明构建 UserPrincipal，不访问数据库。
+     * 令牌中不携带密码哈希，因此返回的主体 password 为 null。
+     */
+    public UserPrincipal getPrincipalFromToken(String token) {
+        Claims claims = validateAndParse(token);
+        if (claims == null) throw new JwtException("Invalid token");
+        return toPrincipal(claims);
+    }
+
+    public UserPrincipal toPrincipal(Claims claims) {
+        return new UserPrincipal(
+                Long.parseLong(claims.getSubject()),
+                claims.get("username", String.class),
+                claims.get("email", String.class),
+                null);
+    }
+
     public boolean validateToken(String token) {
+        return validateAndParse(token) != null;
+    }
+
+    private Claims parse(String token) {
         try {
-            Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        }
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
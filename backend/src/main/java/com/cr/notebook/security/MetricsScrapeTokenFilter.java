@@ -0,0 +1,49 @@
+package com.cr.notebook.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * /actuator 下的指标端点用独立的抓取令牌认证（Prometheus 的 bearer_token），
+ * 通过后授予 ROLE_METRICS；普通用户的 JWT 没有该角色。未配置令牌时指标端点对所有人关闭。
+ */
+@Component
+public class MetricsScrapeTokenFilter extends OncePerRequestFilter {
+
+    public static final String ROLE = "METRICS";
+
+    private final byte[] token;
+
+    public MetricsScrapeTokenFilter(@Value("${app.metrics.scrape-token:}") String token) {
+        this.token = token == null || token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return token == null || !request.getRequestURI().startsWith(request.getContextPath() + "/actuator/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")
+                && MessageDigest.isEqual(token, header.substring(7).getBytes(StandardCharsets.UTF_8))) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "metrics-scraper", null, AuthorityUtils.createAuthorityList("ROLE_" + ROLE)));
+        }
+        chain.doFilter(request, response);
+    }
+}
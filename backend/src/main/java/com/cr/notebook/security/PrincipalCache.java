@@ -0,0 +1,53 @@
+package com.cr.notebook.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 已认证用户主体缓存。
+ * JWT 过滤器每个请求都需要 UserPrincipal，按用户 id 缓存后无需每次查询 sys_user。
+ * 容量有上限并按写入时间过期；修改密码、头像时由调用方主动失效。
+ * 命中率、淘汰数等通过 cache.gets / cache.evictions 等指标（cache=principal）暴露。
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<Long, UserPrincipal> cache;
+
+    public PrincipalCache(
+            MeterRegistry registry,
+            @Value("${app.security.principal-cache.max-size:10000}") long maxSize,
+            @Value("${app.security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "principal");
+    }
+
+    public UserPrincipal get(Long userId, Function<Long, UserPrincipal> loader) {
+        return cache.get(userId, loader);
+    }
+
+    public void evict(Long userId) {
+        cache.invalidate(userId);
+    }
+
+    /** 命中 / 未命中等统计信息 */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
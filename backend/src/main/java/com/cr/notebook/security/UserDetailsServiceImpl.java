@@ -14,6 +14,7 @@ import org.springframework.stereotype.Service;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserMapper userMapper;
+    private final PrincipalCache principalCache;
 
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
@@ -29,7 +30,15 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     }
 
     public UserDetails loadUserById(Long id) {
-        User user = userMapper.selectById(id);
+        return principalCache.get(id, this::loadPrincipalById);
+    }
+
+    private UserPrincipal loadPrincipalById(Long id) {
+        // 只取鉴权需要的列，避免把 MEDIUMTEXT 的 avatar_url 读进来；密码哈希也不进缓存。
+        User user = userMapper.selectOne(
+                new LambdaQueryWrapper<User>()
+                        .select(User::getId, User::getUsername, User::getEmail)
+                        .eq(User::getId, id));
         if (user == null) {
             throw new UsernameNotFoundException("User not found with id: " + id);
         }
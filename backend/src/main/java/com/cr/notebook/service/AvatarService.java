@@ -0,0 +1,211 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.AvatarImage;
+import com.cr.notebook.mapper.AvatarImageMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 头像图片库。
+ * 前端提交的 base64 data URL 只解码、存储一次（按内容哈希去重），并生成缩略图；
+ * 用户 / 组织行里只保留 /api/avatars/{hash} 短地址。读取经按字节数限额的内存缓存。
+ */
+@Slf4j
+@Service
+public class AvatarService {
+
+    public static final String URL_PREFIX = "/api/avatars/";
+
+    static final int MAX_IMAGE_BYTES = 2 * 1024 * 1024;
+    static final int THUMBNAIL_SIZE = 128;
+    /** 像素数上限：压缩后很小的图片可以声明极大的尺寸，完整解码会占用数 GB 内存 */
+    static final long MAX_IMAGE_PIXELS = 4096L * 4096;
+    private static final int MAX_URL_LENGTH = 500;
+    private static final int MAX_INLINE_SVG_LENGTH = 4096;
+
+    private static final Pattern DATA_URL = Pattern.compile("^data:image/[a-zA-Z0-9.+-]+;base64,(.*)$", Pattern.DOTALL);
+    private static final Pattern HASH = Pattern.compile("^[0-9a-f]{64}$");
+
+    private final AvatarImageMapper avatarImageMapper;
+    private final Cache<String, AvatarImage> cache;
+
+    public AvatarService(AvatarImageMapper avatarImageMapper,
+                         @Value("${app.avatars.cache-max-bytes:33554432}") long cacheMaxBytes) {
+        this.avatarImageMapper = avatarImageMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .<String, AvatarImage>weigher((hash, image) -> image.getData().length
+                        + (image.getThumbnail() != null ? image.getThumbnail().length : 0))
+                .build();
+    }
+
+    /**
+     * 规范化客户端提交的头像地址：base64 data URL 存入图片库并返回短地址；
+     * 图片库短地址、http(s) 外链和预设的内联 SVG 原样保留；空值表示清除头像。
+     */
+    public String resolve(String avatarUrl) {
+        if (avatarUrl == null || avatarUrl.isBlank()) return null;
+        if (avatarUrl.startsWith("data:") && avatarUrl.contains(";base64,")) return URL_PREFIX + store(avatarUrl);
+        // 前端预设头像是很短的内联 SVG，只在 <img> 中渲染，保留原样
+        if (avatarUrl.startsWith("data:image/svg+xml,")) {
+            if (avatarUrl.length() > MAX_INLINE_SVG_LENGTH) throw new IllegalArgumentException("头像地址过长");
+            return avatarUrl;
+        }
+        if (avatarUrl.length() > MAX_URL_LENGTH) throw new IllegalArgumentException("头像地址过长");
+        if (avatarUrl.startsWith(URL_PREFIX) || avatarUrl.startsWith("https://") || avatarUrl.startsWith("http://")) {
+            return avatarUrl;
+        }
+        throw new IllegalArgumentException("不支持的头像地址");
+    }
+
+    /** 解码 data URL 并存储，返回内容哈希；相同图片只存一份 */
+    public String store(String dataUrl) {
+        Matcher m = DATA_URL.matcher(dataUrl);
+        if (!m.matches()) throw new IllegalArgumentException("头像必须是 base64 编码的图片");
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(m.group(1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("头像 base64 编码无效");
+        }
+        if (bytes.length == 0 || bytes.length > MAX_IMAGE_BYTES) {
+            throw new IllegalArgumentException("头像图片不能超过 2MB");
+        }
+        // 以文件头判定类型，不信任 data URL 中声明的类型，避免把 SVG / HTML 当图片下发
+        String contentType = sniffContentType(bytes);
+        if (contentType == null) throw new IllegalArgumentException("仅支持 PNG、JPEG、GIF、WebP 格式的头像");
+        Dimension size = dimensions(bytes);
+        if (size != null && (long) size.width * size.height > MAX_IMAGE_PIXELS) {
+            throw new IllegalArgumentException("头像图片尺寸不能超过 4096×4096 像素");
+        }
+
+        String hash = sha256(bytes);
+        if (cache.getIfPresent(hash) != null || avatarImageMapper.countByHash(hash) > 0) return hash;
+
+        AvatarImage image = AvatarImage.builder()
+                .hash(hash)
+                .contentType(contentType)
+                .data(bytes)
+                .thumbnail(thumbnail(bytes))
+                .build();
+        try {
+            avatarImageMapper.insert(image);
+        } catch (DuplicateKeyException e) {
+            // 并发上传了同一张图片
+        }
+        return hash;
+    }
+
+    /** 按哈希读取图片，不存在时返回 null */
+    public AvatarImage get(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) return null;
+        return cache.get(hash, avatarImageMapper::selectById);
+    }
+
+    static String sniffContentType(byte[] b) {
+        if (b.length >= 8 && (b[0] & 0xFF) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G') return "image/png";
+        if (b.length >= 3 && (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8 && (b[2] & 0xFF) == 0xFF) return "image/jpeg";
+        if (b.length >= 6 && b[0] == 'G' && b[1] == 'I' && b[2] == 'F' && b[3] == '8') return "image/gif";
+        if (b.length >= 12 && b[0] == 'R' && b[1] == 'I' && b[2] == 'F' && b[3] == 'F'
+                && b[8] == 'W' && b[9] == 'E' && b[10] == 'B' && b[11] == 'P') return "image/webp";
+        return null;
+    }
+
+    /** 只读取图片头中的宽高，不解码像素；ImageIO 不支持的格式（如 WebP）返回 null */
+    static Dimension dimensions(byte[] bytes) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            ImageReader reader = reader(in);
+            if (reader == null) return null;
+            try {
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("头像图片已损坏");
+        }
+    }
+
+    /**
+     * 生成不超过 THUMBNAIL_SIZE 的 PNG 缩略图；原图已足够小、超过像素上限或 ImageIO 无法解码（如 WebP）时返回 null。
+     * 解码时按整数步长隔行隔列取样到约两倍缩略图尺寸再平滑缩放，解码内存与缩略图同量级，而非与原图成正比。
+     */
+    static byte[] thumbnail(byte[] bytes) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            ImageReader reader = reader(in);
+            if (reader == null) return null;
+            BufferedImage source;
+            int w;
+            int h;
+            try {
+                w = reader.getWidth(0);
+                h = reader.getHeight(0);
+                if (Math.max(w, h) <= THUMBNAIL_SIZE || (long) w * h > MAX_IMAGE_PIXELS) return null;
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(w, h) / (THUMBNAIL_SIZE * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+            double scale = (double) THUMBNAIL_SIZE / Math.max(w, h);
+            int tw = Math.max(1, (int) Math.round(w * scale));
+            int th = Math.max(1, (int) Math.round(h * scale));
+
+            BufferedImage target = new BufferedImage(tw, th, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = target.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(source, 0, 0, tw, th, null);
+            } finally {
+                g.dispose();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(target, "png", out);
+            return out.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to generate avatar thumbnail: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /** 按文件内容选取 ImageReader 并绑定输入流，没有可用的解码器时返回 null */
+    private static ImageReader reader(ImageInputStream in) {
+        if (in == null) return null;
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+        if (!readers.hasNext()) return null;
+        ImageReader reader = readers.next();
+        reader.setInput(in, true, true);
+        return reader;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
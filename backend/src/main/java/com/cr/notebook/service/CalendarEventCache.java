@@ -0,0 +1,93 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.CalendarEvent;
+import com.cr.notebook.tenant.TenantType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 按租户缓存日程区间树，月 / 周视图的范围查询直接在内存中完成。
+ * 日程增删改时由 CalendarEventService 主动失效，但只失效本实例：多实例部署或直接改库时，
+ * 其他实例最多在 TTL 内返回旧数据，因此默认关闭，TTL 也保持较短，取舍见 application.yml。
+ * 容量按日程条数计重，超出后淘汰最久未用的租户。
+ * <p>
+ * 重复序列的展开结果另按 (序列, 版本, 月) 缓存，序列修改后版本号变化，旧条目自然不再命中。
+ */
+@Component
+public class CalendarEventCache {
+
+    private final boolean enabled;
+    private final Cache<String, CalendarIntervalTree> cache;
+    private final Cache<String, List<LocalDate>> occurrences;
+
+    public CalendarEventCache(
+            @Value("${app.calendar.range-cache.enabled:false}") boolean enabled,
+            @Value("${app.calendar.range-cache.max-events:500000}") long maxEvents,
+            @Value("${app.calendar.range-cache.ttl-seconds:30}") long ttlSeconds,
+            @Value("${app.calendar.occurrence-cache.max-size:50000}") long maxMonths) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxEvents)
+                .<String, CalendarIntervalTree>weigher((k, tree) -> tree.size() + 1)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.occurrences = Caffeine.newBuilder()
+                .maximumSize(maxMonths)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 返回租户内与 [from, to] 有重叠的日程；未命中时用 loader 加载该租户的全部日程并建树。
+     * loader 的结果会被缓存到失效为止，调用方应保证它读的是主库。
+     */
+    public List<CalendarEvent> overlapping(Long tenantId, TenantType tenantType, LocalDate from, LocalDate to,
+                                           Supplier<List<CalendarEvent>> loader) {
+        CalendarIntervalTree tree = cache.get(key(tenantId, tenantType), k -> new CalendarIntervalTree(loader.get()));
+        return tree.overlapping(from, to);
+    }
+
+    /** 序列在某个月内的发生日期（与该月有重叠的发生项的起始日期），未命中时由 expander 展开 */
+    public List<LocalDate> occurrences(CalendarEvent series, YearMonth month, Supplier<List<LocalDate>> expander) {
+        return occurrences.get(series.getId() + ":" + series.getVersion() + ":" + month, k -> expander.get());
+    }
+
+    public void evict(Long tenantId, TenantType tenantType) {
+        String key = key(tenantId, tenantType);
+        cache.invalidate(key);
+        // 事务提交前并发请求可能把旧数据重新装入缓存，提交后再失效一次
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(key);
+                }
+            });
+        }
+    }
+
+    /** 命中 / 未命中等统计信息 */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static String key(Long tenantId, TenantType tenantType) {
+        return tenantType + ":" + tenantId;
+    }
+}
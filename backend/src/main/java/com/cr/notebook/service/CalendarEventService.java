@@ -4,37 +4,128 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.cr.notebook.dto.CalendarEventDTO;
 import com.cr.notebook.entity.CalendarEvent;
 import com.cr.notebook.mapper.CalendarEventMapper;
+import com.cr.notebook.datasource.RoutingContext;
 import com.cr.notebook.tenant.TenantContext;
+import com.cr.notebook.tenant.TenantType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class CalendarEventService {
 
+    private static final Comparator<CalendarEventDTO> ORDER = Comparator
+            .comparing(CalendarEventDTO::getEventDate)
+            .thenComparing(CalendarEventDTO::getEventTime, Comparator.nullsFirst(Comparator.<LocalTime>naturalOrder()))
+            .thenComparing(CalendarEventDTO::getId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+
+    /** 单次查询窗口的最大天数；重复序列按窗口展开，窗口有界才能保证展开量有界 */
+    static final int MAX_WINDOW_DAYS = 366;
+
     private final CalendarEventMapper calendarEventMapper;
+    private final CalendarEventCache calendarEventCache;
+    private final StatsRollupService statsRollupService;
 
     public List<CalendarEventDTO> listEvents(LocalDate startDate, LocalDate endDate) {
-        List<CalendarEvent> events = calendarEventMapper.selectList(
+        if (endDate.isBefore(startDate)) throw new IllegalArgumentException("endDate must not be before startDate");
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Date range must not exceed " + MAX_WINDOW_DAYS + " days");
+        }
+        Long tenantId = TenantContext.getTenantId();
+        TenantType tenantType = TenantContext.getTenantType();
+        List<CalendarEvent> events = calendarEventCache.isEnabled()
+                // 区间树缓存到下次写入为止，必须从主库加载，不能缓存从库上的滞后数据
+                ? calendarEventCache.overlapping(tenantId, tenantType, startDate, endDate,
+                        () -> RoutingContext.onPrimary(() -> loadAll(tenantId, tenantType)))
+                : queryRange(tenantId, tenantType, startDate, endDate);
+
+        List<CalendarEventDTO> result = new ArrayList<>(events.size());
+        boolean expanded = false;
+        for (CalendarEvent event : events) {
+            if (event.getRecurrenceRule() == null) {
+                result.add(toDTO(event));
+            } else {
+                expandInWindow(event, startDate, endDate, result);
+                expanded = true;
+            }
+        }
+        // 展开出的发生项穿插在普通日程之间，需要重新排序；没有重复序列时保持查询顺序
+        if (expanded) result.sort(ORDER);
+        return result;
+    }
+
+    /**
+     * 把重复序列在 [from, to] 内的发生项追加到 out。按自然月取缓存的展开结果再按窗口裁剪，
+     * 跨月的多天发生项会同时出现在两个月里，用有序集合去重。
+     */
+    private void expandInWindow(CalendarEvent series, LocalDate from, LocalDate to, List<CalendarEventDTO> out) {
+        long span = span(series);
+        SortedSet<LocalDate> starts = new TreeSet<>();
+        for (YearMonth m = YearMonth.from(from); !m.isAfter(YearMonth.from(to)); m = m.plusMonths(1)) {
+            YearMonth month = m;
+            List<LocalDate> monthStarts = calendarEventCache.occurrences(series, month,
+                    () -> expand(series, month.atDay(1), month.atEndOfMonth()));
+            for (LocalDate start : monthStarts) {
+                if (!start.isAfter(to) && !start.plusDays(span).isBefore(from)) starts.add(start);
+            }
+        }
+        for (LocalDate start : starts) out.add(toOccurrenceDTO(series, start, span));
+    }
+
+    /**
+     * 与 [from, to] 有重叠的发生项的起始日期（已去掉被跳过的日期）。
+     * 迭代器从 from - 跨度 开始惰性生成，读到 to 之后即停止，无限序列也只展开窗口内的部分。
+     */
+    static List<LocalDate> expand(CalendarEvent series, LocalDate from, LocalDate to) {
+        RecurrenceRule rule = RecurrenceRule.parse(series.getRecurrenceRule());
+        Set<String> skipped = series.getRecurrenceExceptions() != null
+                ? new HashSet<>(series.getRecurrenceExceptions()) : Set.of();
+        List<LocalDate> result = new ArrayList<>();
+        Iterator<LocalDate> it = rule.occurrences(series.getEventDate(), from.minusDays(span(series)));
+        while (it.hasNext()) {
+            LocalDate start = it.next();
+            if (start.isAfter(to)) break;
+            if (!skipped.contains(start.toString())) result.add(start);
+        }
+        return result;
+    }
+
+    /**
+     * 命中条件：[eventDate, COALESCE(endDate, eventDate)] 与 [startDate, endDate] 有重叠，
+     * 即起始不晚于区间结束，且起始或结束不早于区间开始；重复序列按 recurrence_end 判断。
+     * 写成 event_date <= ? 的范围条件以走 (tenant_id, tenant_type, event_date, end_date) 索引。
+     */
+    private List<CalendarEvent> queryRange(Long tenantId, TenantType tenantType, LocalDate startDate, LocalDate endDate) {
+        return calendarEventMapper.selectList(
                 new LambdaQueryWrapper<CalendarEvent>()
-                        .eq(CalendarEvent::getTenantId, TenantContext.getTenantId())
-                        .eq(CalendarEvent::getTenantType, TenantContext.getTenantType())
-                        // 命中条件：
-                        // 1) 起始日期在查询区间内；或
-                        // 2) 跨天事件与查询区间有重叠（[eventDate, endDate] ∩ [startDate, endDate] 非空）。
+                        .eq(CalendarEvent::getTenantId, tenantId)
+                        .eq(CalendarEvent::getTenantType, tenantType)
+                        .le(CalendarEvent::getEventDate, endDate)
                         .and(w -> w
-                                .between(CalendarEvent::getEventDate, startDate, endDate)
-                                .or(o -> o
-                                        .isNotNull(CalendarEvent::getEndDate)
-                                        .le(CalendarEvent::getEventDate, endDate)
-                                        .ge(CalendarEvent::getEndDate, startDate)))
+                                .ge(CalendarEvent::getEventDate, startDate)
+                                .or()
+                                .ge(CalendarEvent::getEndDate, startDate)
+                                // 重复序列：尚未结束或无限重复
+                                .or()
+                                .ge(CalendarEvent::getRecurrenceEnd, startDate)
+                                .or(o -> o.isNotNull(CalendarEvent::getRecurrenceRule).isNull(CalendarEvent::getRecurrenceEnd)))
                         .orderByAsc(CalendarEvent::getEventDate)
                         .orderByAsc(CalendarEvent::getEventTime));
-        return events.stream().map(this::toDTO).toList();
+    }
+
+    private List<CalendarEvent> loadAll(Long tenantId, TenantType tenantType) {
+        return calendarEventMapper.selectList(
+                new LambdaQueryWrapper<CalendarEvent>()
+                        .eq(CalendarEvent::getTenantId, tenantId)
+                        .eq(CalendarEvent::getTenantType, tenantType));
     }
 
     @Transactional
@@ -48,27 +139,50 @@ public class CalendarEventService {
                 .description(dto.getDescription())
                 .color(dto.getColor() != null ? dto.getColor() : "#6366f1")
                 .build();
+        applyRecurrence(event, dto.getRecurrenceRule());
+        if (event.getRecurrenceRule() != null) event.setRecurrenceExceptions(toStrings(dto.getRecurrenceExceptions()));
         event.setTenantId(TenantContext.getTenantId());
         event.setTenantType(TenantContext.getTenantType());
         calendarEventMapper.insert(event);
+        statsRollupService.recordCalendarEventCreated(event);
+        calendarEventCache.evict(event.getTenantId(), event.getTenantType());
         return toDTO(event);
     }
 
     @Transactional
-    public CalendarEventDTO updateEvent(Long id, CalendarEventDTO dto) {
+    public CalendarEventDTO updateEvent(Long id, CalendarEventDTO dto, Integer expectedVersion) {
         CalendarEvent event = calendarEventMapper.selectById(id);
         if (event == null) throw new IllegalArgumentException("Calendar event not found");
         checkTenant(event);
+        if (expectedVersion != null && !expectedVersion.equals(event.getVersion())) {
+            throw new OptimisticLockingFailureException("Calendar event has been modified, current version " + event.getVersion());
+        }
 
+        LocalDate eventDate = dto.getEventDate();
+        LocalDate endDate = dto.getEndDate();
+        if (dto.getSeriesStartDate() != null && event.getRecurrenceRule() != null) {
+            // 从展开的发生项编辑：请求里是该次发生的日期，序列起点保持不变，只沿用请求中的跨度
+            if (eventDate != null && endDate != null) {
+                endDate = event.getEventDate().plusDays(ChronoUnit.DAYS.between(eventDate, endDate));
+            }
+            eventDate = event.getEventDate();
+        }
         if (dto.getTitle() != null) event.setTitle(dto.getTitle());
-        if (dto.getEventDate() != null) event.setEventDate(dto.getEventDate());
+        if (eventDate != null) event.setEventDate(eventDate);
         event.setEventTime(dto.getEventTime());
-        event.setEndDate(dto.getEndDate());
+        event.setEndDate(endDate);
         event.setEndTime(dto.getEndTime());
         if (dto.getDescription() != null) event.setDescription(dto.getDescription());
         if (dto.getColor() != null) event.setColor(dto.getColor());
+        // recurrenceRule 为 null 表示不修改，空字符串表示取消重复；日期可能变了，序列结束日总要重算
+        applyRecurrence(event, dto.getRecurrenceRule() != null ? dto.getRecurrenceRule() : event.getRecurrenceRule());
+        if (event.getRecurrenceRule() == null) event.setRecurrenceExceptions(null);
+        else if (dto.getRecurrenceExceptions() != null) event.setRecurrenceExceptions(toStrings(dto.getRecurrenceExceptions()));
 
-        calendarEventMapper.updateById(event);
+        if (calendarEventMapper.updateById(event) == 0) {
+            throw new OptimisticLockingFailureException("Calendar event has been modified concurrently");
+        }
+        calendarEventCache.evict(event.getTenantId(), event.getTenantType());
         return toDTO(event);
     }
 
@@ -78,6 +192,52 @@ public class CalendarEventService {
         if (event == null) throw new IllegalArgumentException("Calendar event not found");
         checkTenant(event);
         calendarEventMapper.deleteById(id);
+        statsRollupService.recordCalendarEventDeleted(event);
+        calendarEventCache.evict(event.getTenantId(), event.getTenantType());
+    }
+
+    /** 跳过重复序列中的某一次发生，其余发生项不受影响 */
+    @Transactional
+    public CalendarEventDTO skipOccurrence(Long id, LocalDate date) {
+        CalendarEvent event = calendarEventMapper.selectById(id);
+        if (event == null) throw new IllegalArgumentException("Calendar event not found");
+        checkTenant(event);
+        if (event.getRecurrenceRule() == null) throw new IllegalArgumentException("Calendar event is not recurring");
+        if (!expand(event, date, date).contains(date)) throw new IllegalArgumentException("No occurrence on " + date);
+
+        List<String> exceptions = event.getRecurrenceExceptions() != null
+                ? new ArrayList<>(event.getRecurrenceExceptions()) : new ArrayList<>();
+        exceptions.add(date.toString());
+        exceptions.sort(null);
+        event.setRecurrenceExceptions(exceptions);
+        if (calendarEventMapper.updateById(event) == 0) {
+            throw new OptimisticLockingFailureException("Calendar event has been modified concurrently");
+        }
+        calendarEventCache.evict(event.getTenantId(), event.getTenantType());
+        return toDTO(event);
+    }
+
+    /** 校验并规范化 RRULE，同时推算序列覆盖的最后一天；需在日期字段设置之后调用 */
+    private static void applyRecurrence(CalendarEvent event, String rule) {
+        if (rule == null || rule.isBlank()) {
+            event.setRecurrenceRule(null);
+            event.setRecurrenceEnd(null);
+            return;
+        }
+        RecurrenceRule parsed = RecurrenceRule.parse(rule);
+        LocalDate lastStart = parsed.lastStart(event.getEventDate());
+        event.setRecurrenceRule(parsed.toString());
+        event.setRecurrenceEnd(lastStart != null ? lastStart.plusDays(span(event)) : null);
+    }
+
+    /** 单次发生的跨度（天），单日日程为 0 */
+    private static long span(CalendarEvent event) {
+        if (event.getEndDate() == null || !event.getEndDate().isAfter(event.getEventDate())) return 0;
+        return ChronoUnit.DAYS.between(event.getEventDate(), event.getEndDate());
+    }
+
+    private static List<String> toStrings(List<LocalDate> dates) {
+        return dates == null || dates.isEmpty() ? null : dates.stream().distinct().sorted().map(LocalDate::toString).toList();
     }
 
     private void checkTenant(CalendarEvent event) {
@@ -95,10 +255,23 @@ public class CalendarEventService {
         dto.setEventTime(e.getEventTime());
         dto.setEndDate(e.getEndDate());
         dto.setEndTime(e.getEndTime());
+        dto.setRecurrenceRule(e.getRecurrenceRule());
+        if (e.getRecurrenceExceptions() != null) {
+            dto.setRecurrenceExceptions(e.getRecurrenceExceptions().stream().map(LocalDate::parse).toList());
+        }
         dto.setDescription(e.getDescription());
         dto.setColor(e.getColor());
+        dto.setVersion(e.getVersion());
         dto.setCreatedAt(e.getCreatedAt());
         dto.setUpdatedAt(e.getUpdatedAt());
         return dto;
     }
+
+    private CalendarEventDTO toOccurrenceDTO(CalendarEvent series, LocalDate start, long span) {
+        CalendarEventDTO dto = toDTO(series);
+        dto.setSeriesStartDate(series.getEventDate());
+        dto.setEventDate(start);
+        dto.setEndDate(series.getEndDate() != null ? start.plusDays(span) : null);
+        return dto;
+    }
 }
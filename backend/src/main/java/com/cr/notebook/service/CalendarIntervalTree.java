@@ -0,0 +1,85 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.CalendarEvent;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 一个租户全部日程的不可变区间树，回答“与 [from, to] 有重叠的日程”。
+ * <p>
+ * 日程按 (eventDate, eventTime, id) 排序后存入数组，数组的二分结构即为一棵平衡树：
+ * 区间 [lo, hi) 的根是 mid，每个节点额外记录其子树内最晚的结束日期。
+ * 查询时起始日期晚于 to 的右侧整体剪掉，子树最晚结束早于 from 的整体剪掉，复杂度 O(log n + k)；
+ * 中序遍历即数组顺序，结果天然与原 SQL 的 ORDER BY event_date, event_time 一致。
+ * 重复序列按整条序列的覆盖范围入树，命中的是序列本身而非某次发生。构建后只读，可被并发请求共享。
+ */
+final class CalendarIntervalTree {
+
+    static final Comparator<CalendarEvent> ORDER = Comparator
+            .comparing(CalendarEvent::getEventDate)
+            .thenComparing(CalendarEvent::getEventTime, Comparator.nullsFirst(Comparator.<LocalTime>naturalOrder()))
+            .thenComparing(CalendarEvent::getId, Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+
+    private final CalendarEvent[] events;
+    private final long[] starts;
+    /** maxEnd[mid] 为以 mid 为根、覆盖 [lo, hi) 的子树中最晚的结束日期（epochDay） */
+    private final long[] maxEnd;
+
+    CalendarIntervalTree(Collection<CalendarEvent> source) {
+        events = source.toArray(new CalendarEvent[0]);
+        Arrays.sort(events, ORDER);
+        starts = new long[events.length];
+        maxEnd = new long[events.length];
+        for (int i = 0; i < events.length; i++) starts[i] = events[i].getEventDate().toEpochDay();
+        build(0, events.length);
+    }
+
+    int size() {
+        return events.length;
+    }
+
+    /** 与闭区间 [from, to] 有重叠的日程，按 (eventDate, eventTime, id) 升序 */
+    List<CalendarEvent> overlapping(LocalDate from, LocalDate to) {
+        List<CalendarEvent> result = new ArrayList<>();
+        if (from.isAfter(to)) return result;
+        collect(0, events.length, from.toEpochDay(), to.toEpochDay(), result);
+        return result;
+    }
+
+    private long build(int lo, int hi) {
+        if (lo >= hi) return Long.MIN_VALUE;
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(end(events[mid]), Math.max(build(lo, mid), build(mid + 1, hi)));
+        maxEnd[mid] = max;
+        return max;
+    }
+
+    private void collect(int lo, int hi, long from, long to, List<CalendarEvent> out) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (maxEnd[mid] < from) return;
+        collect(lo, mid, from, to, out);
+        // 数组按起始日期有序：mid 起始已晚于 to 时，它和右子树都不可能命中
+        if (starts[mid] > to) return;
+        if (end(events[mid]) >= from) out.add(events[mid]);
+        collect(mid + 1, hi, from, to, out);
+    }
+
+    /**
+     * 单日日程 end_date 为空，结束日期即起始日期；结束早于起始的脏数据同样按单日处理。
+     * 重复序列取整条序列覆盖的最后一天，无限序列永不结束，命中后由调用方在窗口内展开。
+     */
+    private static long end(CalendarEvent e) {
+        if (e.getRecurrenceRule() != null) {
+            return e.getRecurrenceEnd() != null ? e.getRecurrenceEnd().toEpochDay() : Long.MAX_VALUE;
+        }
+        long start = e.getEventDate().toEpochDay();
+        return e.getEndDate() != null ? Math.max(start, e.getEndDate().toEpochDay()) : start;
+    }
+}
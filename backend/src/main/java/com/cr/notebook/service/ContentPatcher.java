@@ -0,0 +1,33 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.dto.ContentPatchDTO.TextEdit;
+
+import java.util.Comparator;
+import java.util.List;
+
+/** 把 ContentPatchDTO 中的文本替换应用到基线正文上。 */
+final class ContentPatcher {
+
+    private ContentPatcher() {
+    }
+
+    /**
+     * @throws IllegalArgumentException 区间越界或相互重叠
+     */
+    static String apply(String base, List<TextEdit> edits) {
+        if (edits == null || edits.isEmpty()) return base;
+        List<TextEdit> sorted = edits.stream().sorted(Comparator.comparingInt(TextEdit::getFrom)).toList();
+
+        int delta = sorted.stream().mapToInt(e -> e.getText().length() - (e.getTo() - e.getFrom())).sum();
+        StringBuilder out = new StringBuilder(Math.max(0, base.length() + delta));
+        int cursor = 0;
+        for (TextEdit edit : sorted) {
+            if (edit.getFrom() < cursor || edit.getFrom() > edit.getTo() || edit.getTo() > base.length()) {
+                throw new IllegalArgumentException("Invalid patch range");
+            }
+            out.append(base, cursor, edit.getFrom()).append(edit.getText());
+            cursor = edit.getTo();
+        }
+        return out.append(base, cursor, base.length()).toString();
+    }
+}
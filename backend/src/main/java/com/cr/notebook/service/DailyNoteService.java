@@ -1,15 +1,23 @@
 package com.cr.notebook.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cr.notebook.dto.ContentPatchDTO;
 import com.cr.notebook.dto.DailyNoteDTO;
+import com.cr.notebook.dto.DailyNoteSummaryDTO;
 import com.cr.notebook.entity.DailyNote;
 import com.cr.notebook.mapper.DailyNoteMapper;
+import com.cr.notebook.search.SearchIndexEvent;
 import com.cr.notebook.tenant.TenantContext;
+import com.cr.notebook.tenant.TenantType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,60 +26,216 @@ import java.util.stream.Collectors;
 public class DailyNoteService {
 
     private final DailyNoteMapper dailyNoteMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StatsRollupService statsRollupService;
 
-    @Transactional
+    /**
+     * 读取某天的日记。当天还没有写过时返回一篇未保存的空日记（id 为空、version 为 0），不写库；
+     * 行在第一次保存时才创建，见 {@link #createOnWrite}。
+     */
     public DailyNoteDTO getDailyNote(LocalDate date) {
-        DailyNote note = dailyNoteMapper.selectOne(
-                new LambdaQueryWrapper<DailyNote>()
-                        .eq(DailyNote::getTenantId, TenantContext.getTenantId())
-                        .eq(DailyNote::getTenantType, TenantContext.getTenantType())
-                        .eq(DailyNote::getNoteDate, date));
+        DailyNote note = findByDate(date);
+        return note != null ? toDTO(note) : virtualNote(date);
+    }
 
+    /**
+     * 整篇更新，expectedVersion 语义同 NoteService#updateNote。
+     * 当天尚无日记时按版本 0 的空日记处理：提交的内容全为空则直接返回空日记，否则先创建行再更新。
+     */
+    @Transactional
+    public DailyNoteDTO updateDailyNote(LocalDate date, DailyNoteDTO dto, Integer expectedVersion) {
+        DailyNote note = findByDate(date);
+        boolean created = false;
         if (note == null) {
-            note = DailyNote.builder()
-                    .noteDate(date)
-                    .content("")
-                    .build();
-            note.setTenantId(TenantContext.getTenantId());
-            note.setTenantType(TenantContext.getTenantType());
-            dailyNoteMapper.insert(note);
+            if (isBlank(dto.getContent()) && isBlank(dto.getWeather()) && isBlank(dto.getMood())) {
+                if (expectedVersion != null && expectedVersion != 0) {
+                    throw new OptimisticLockingFailureException("Daily note has been modified, current version 0");
+                }
+                return virtualNote(date);
+            }
+            note = createOnWrite(date);
+            created = isNew(note);
+        }
+        checkTenant(note);
+        if (expectedVersion != null && !expectedVersion.equals(note.getVersion())) {
+            throw new OptimisticLockingFailureException("Daily note has been modified, current version " + note.getVersion());
+        }
+
+        if (dto.getContent() != null) {
+            note.setContent(dto.getContent());
+            note.setHasContent(!isBlank(dto.getContent()));
+        }
+        if (dto.getWeather() != null) note.setWeather(dto.getWeather());
+        if (dto.getMood() != null) note.setMood(dto.getMood());
+
+        if (dailyNoteMapper.updateById(note) == 0) {
+            throw new OptimisticLockingFailureException("Daily note has been modified concurrently");
         }
+        if (created) statsRollupService.recordDailyNoteCreated(note);
+        if (dto.getContent() != null) eventPublisher.publishEvent(SearchIndexEvent.saved(note));
         return toDTO(note);
     }
 
+    /**
+     * 日记增量保存，语义同 NoteService#patchNote：内容未变化时不写库，版本不一致返回 409。
+     */
     @Transactional
-    public DailyNoteDTO updateDailyNote(LocalDate date, DailyNoteDTO dto) {
-        DailyNote note = dailyNoteMapper.selectOne(
-                new LambdaQueryWrapper<DailyNote>()
-                        .eq(DailyNote::getTenantId, TenantContext.getTenantId())
-                        .eq(DailyNote::getTenantType, TenantContext.getTenantType())
-                        .eq(DailyNote::getNoteDate, date));
-        if (note == null) throw new IllegalArgumentException("Daily note not found");
+    public DailyNoteDTO patchDailyNote(LocalDate date, ContentPatchDTO patch) {
+        DailyNote note = findByDate(date);
+        boolean created = false;
+        if (note == null) {
+            // 未保存的空日记版本为 0，增量基于空正文
+            if (!Integer.valueOf(0).equals(patch.getBaseVersion())) {
+                throw new OptimisticLockingFailureException("Daily note has been modified, current version 0");
+            }
+            if (ContentPatcher.apply("", patch.getEdits()).isEmpty()) return virtualNote(date);
+            note = createOnWrite(date);
+            created = isNew(note);
+        }
         checkTenant(note);
+        if (!note.getVersion().equals(patch.getBaseVersion())) {
+            throw new OptimisticLockingFailureException("Daily note has been modified, current version " + note.getVersion());
+        }
 
-        if (dto.getContent() != null) note.setContent(dto.getContent());
-        if (dto.getWeather() != null) note.setWeather(dto.getWeather());
-        if (dto.getMood() != null) note.setMood(dto.getMood());
+        String base = note.getContent() != null ? note.getContent() : "";
+        String content = ContentPatcher.apply(base, patch.getEdits());
+        if (content.equals(base)) return toDTO(note);
 
-        dailyNoteMapper.updateById(note);
+        LocalDateTime now = LocalDateTime.now();
+        int updated = dailyNoteMapper.update(new LambdaUpdateWrapper<DailyNote>()
+                .set(DailyNote::getContent, content)
+                .set(DailyNote::getHasContent, !content.isEmpty())
+                .set(DailyNote::getUpdatedAt, now)
+                .setSql("version = version + 1")
+                .eq(DailyNote::getId, note.getId())
+                .eq(DailyNote::getVersion, note.getVersion()));
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Daily note has been modified concurrently");
+        }
+
+        note.setContent(content);
+        note.setHasContent(!content.isEmpty());
+        note.setUpdatedAt(now);
+        note.setVersion(note.getVersion() + 1);
+        if (created) statsRollupService.recordDailyNoteCreated(note);
+        eventPublisher.publishEvent(SearchIndexEvent.saved(note));
         return toDTO(note);
     }
 
+    /** 区间内正文非空的日期；只读 has_content 标记，由 idx_daily_note_month 覆盖，不读取正文 */
     public List<String> listDatesWithContent(LocalDate from, LocalDate to) {
         List<DailyNote> notes = dailyNoteMapper.selectList(
                 new LambdaQueryWrapper<DailyNote>()
+                        .select(DailyNote::getNoteDate)
                         .eq(DailyNote::getTenantId, TenantContext.getTenantId())
                         .eq(DailyNote::getTenantType, TenantContext.getTenantType())
                         .ge(DailyNote::getNoteDate, from)
                         .le(DailyNote::getNoteDate, to)
-                        .isNotNull(DailyNote::getContent)
-                        .ne(DailyNote::getContent, "")
-                        .select(DailyNote::getNoteDate));
+                        .eq(DailyNote::getHasContent, true)
+                        .orderByAsc(DailyNote::getNoteDate));
         return notes.stream()
                 .map(n -> n.getNoteDate().toString())
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 月视图概要：区间内有正文、天气或心情的日期及其天气和心情，按日期升序。
+     * 查询列均在 idx_daily_note_month 中，只扫索引，日历一次请求即可渲染。
+     */
+    public List<DailyNoteSummaryDTO> listSummaries(LocalDate from, LocalDate to) {
+        List<DailyNote> notes = dailyNoteMapper.selectList(
+                new LambdaQueryWrapper<DailyNote>()
+                        .select(DailyNote::getNoteDate, DailyNote::getHasContent, DailyNote::getWeather, DailyNote::getMood)
+                        .eq(DailyNote::getTenantId, TenantContext.getTenantId())
+                        .eq(DailyNote::getTenantType, TenantContext.getTenantType())
+                        .ge(DailyNote::getNoteDate, from)
+                        .le(DailyNote::getNoteDate, to)
+                        .and(w -> w.eq(DailyNote::getHasContent, true)
+                                .or().ne(DailyNote::getWeather, "")
+                                .or().ne(DailyNote::getMood, ""))
+                        .orderByAsc(DailyNote::getNoteDate));
+        return notes.stream()
+                .map(n -> new DailyNoteSummaryDTO(n.getNoteDate(), Boolean.TRUE.equals(n.getHasContent()),
+                        n.getWeather(), n.getMood()))
+                .toList();
+    }
+
+    /**
+     * 旧版本“打开即建行”留下的空日记：从未保存过（version = 0）且正文、天气、心情均为空。
+     * 按 id 升序分批读取，只取 id 与租户列；由清理任务调用，不依赖租户上下文。
+     */
+    public List<DailyNote> findNeverSavedEmpty(long afterId, int limit) {
+        return dailyNoteMapper.selectList(neverSavedEmpty()
+                .select(DailyNote::getId, DailyNote::getTenantId, DailyNote::getTenantType)
+                .gt(DailyNote::getId, afterId)
+                .orderByAsc(DailyNote::getId)
+                .last("LIMIT " + limit));
+    }
+
+    /**
+     * 删除同一租户下的一批空日记，并在同一事务内按实际删除的行数扣减 tenant_stats_totals。
+     * 删除时再次带上全部空行条件，读取之后被首次保存的行不会被误删。
+     */
+    @Transactional
+    public int purgeNeverSavedEmpty(Long tenantId, TenantType tenantType, List<Long> ids) {
+        int deleted = dailyNoteMapper.delete(neverSavedEmpty()
+                .eq(DailyNote::getTenantId, tenantId)
+                .eq(DailyNote::getTenantType, tenantType)
+                .in(DailyNote::getId, ids));
+        statsRollupService.recordDailyNotesDeleted(tenantId, tenantType, deleted);
+        return deleted;
+    }
+
+    private static LambdaQueryWrapper<DailyNote> neverSavedEmpty() {
+        return new LambdaQueryWrapper<DailyNote>()
+                .eq(DailyNote::getVersion, 0)
+                .eq(DailyNote::getHasContent, false)
+                .and(w -> w.isNull(DailyNote::getWeather).or().eq(DailyNote::getWeather, ""))
+                .and(w -> w.isNull(DailyNote::getMood).or().eq(DailyNote::getMood, ""));
+    }
+
+    private DailyNote findByDate(LocalDate date) {
+        return dailyNoteMapper.selectOne(
+                new LambdaQueryWrapper<DailyNote>()
+                        .eq(DailyNote::getTenantId, TenantContext.getTenantId())
+                        .eq(DailyNote::getTenantType, TenantContext.getTenantType())
+                        .eq(DailyNote::getNoteDate, date));
+    }
+
+    /**
+     * 第一次保存时创建当天的日记行。用 upsert 代替先查后插，并发的首次保存不会撞唯一键；
+     * 随后加锁重读（当前读，能看到刚被其他事务提交的行），之后的版本校验决定谁的写入生效。
+     */
+    private DailyNote createOnWrite(LocalDate date) {
+        dailyNoteMapper.upsertEmpty(TenantContext.getTenantId(), TenantContext.getTenantType(), date);
+        return dailyNoteMapper.selectOne(
+                new LambdaQueryWrapper<DailyNote>()
+                        .eq(DailyNote::getTenantId, TenantContext.getTenantId())
+                        .eq(DailyNote::getTenantType, TenantContext.getTenantType())
+                        .eq(DailyNote::getNoteDate, date)
+                        .last("FOR UPDATE"));
+    }
+
+    /**
+     * createOnWrite 加锁读到的行版本仍为 0，说明是本事务刚插入、尚无人保存过的行；
+     * 并发的另一次首次保存会阻塞在 upsert 上，等本事务提交后读到版本 1，因此每行只计入总数一次。
+     */
+    private static boolean isNew(DailyNote note) {
+        return Integer.valueOf(0).equals(note.getVersion());
+    }
+
+    private static DailyNoteDTO virtualNote(LocalDate date) {
+        DailyNoteDTO dto = new DailyNoteDTO();
+        dto.setNoteDate(date);
+        dto.setContent("");
+        dto.setVersion(0);
+        return dto;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+
     private void checkTenant(DailyNote note) {
         if (!note.getTenantId().equals(TenantContext.getTenantId())
                 || note.getTenantType() != TenantContext.getTenantType()) {
@@ -86,6 +250,7 @@ public class DailyNoteService {
         dto.setContent(n.getContent());
         dto.setWeather(n.getWeather());
         dto.setMood(n.getMood());
+        dto.setVersion(n.getVersion());
         dto.setCreatedAt(n.getCreatedAt());
         dto.setUpdatedAt(n.getUpdatedAt());
         return dto;
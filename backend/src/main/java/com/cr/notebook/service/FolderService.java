@@ -6,17 +6,19 @@ import com.cr.notebook.entity.Folder;
 import com.cr.notebook.mapper.FolderMapper;
 import com.cr.notebook.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class FolderService {
 
     private final FolderMapper folderMapper;
+    private final StatsRollupService statsRollupService;
 
     public List<FolderDTO> listFolders() {
         List<Folder> folders = folderMapper.selectList(
@@ -39,49 +41,106 @@ public class FolderService {
         folder.setTenantId(TenantContext.getTenantId());
         folder.setTenantType(TenantContext.getTenantType());
         folderMapper.insert(folder);
+        statsRollupService.recordFolderCreated(folder);
         return toDTO(folder);
     }
 
     @Transactional
-    public FolderDTO updateFolder(Long id, FolderDTO dto) {
+    public FolderDTO updateFolder(Long id, FolderDTO dto, Integer expectedVersion) {
         Folder folder = folderMapper.selectById(id);
         if (folder == null) throw new IllegalArgumentException("Folder not found");
         checkTenant(folder);
+        checkVersion(folder, expectedVersion);
         if (dto.getName() != null) folder.setName(dto.getName());
         if (dto.getIcon() != null) folder.setIcon(dto.getIcon());
-        folderMapper.updateById(folder);
+        if (folderMapper.updateById(folder) == 0) {
+            throw new OptimisticLockingFailureException("Folder has been modified concurrently");
+        }
         return toDTO(folder);
     }
 
+    /**
+     * 删除文件夹及其全部子孙。一次读出租户的文件夹树（只取 id / parentId），
+     * 在内存中求出子树后用一条 IN 语句删除，往返次数与树的规模无关。
+     */
     @Transactional
     public void deleteFolder(Long id) {
-        Folder folder = folderMapper.selectById(id);
-        if (folder == null) throw new IllegalArgumentException("Folder not found");
-        checkTenant(folder);
-        deleteRecursive(id);
+        List<Folder> tree = folderMapper.selectList(
+                new LambdaQueryWrapper<Folder>()
+                        .select(Folder::getId, Folder::getParentId)
+                        .eq(Folder::getTenantId, TenantContext.getTenantId())
+                        .eq(Folder::getTenantType, TenantContext.getTenantType()));
+        if (tree.stream().noneMatch(f -> f.getId().equals(id))) {
+            // 不在当前租户的树里：区分不存在与越权
+            Folder folder = folderMapper.selectById(id);
+            if (folder == null) throw new IllegalArgumentException("Folder not found");
+            checkTenant(folder);
+        }
+
+        List<Long> subtree = collectSubtree(id, tree);
+        int deleted = folderMapper.delete(new LambdaQueryWrapper<Folder>()
+                .in(Folder::getId, subtree)
+                .eq(Folder::getTenantId, TenantContext.getTenantId())
+                .eq(Folder::getTenantType, TenantContext.getTenantType()));
+        statsRollupService.recordFoldersDeleted(TenantContext.getTenantId(), TenantContext.getTenantType(), deleted);
     }
 
-    private void deleteRecursive(Long parentId) {
-        // 深度优先删除子节点，避免父节点先删导致孤儿数据。
-        List<Folder> children = folderMapper.selectList(
-                new LambdaQueryWrapper<Folder>().eq(Folder::getParentId, parentId));
-        for (Folder child : children) {
-            deleteRecursive(child.getId());
+    /** 广度优先收集 rootId 及其所有子孙 id；visited 防止脏数据中的环导致死循环 */
+    private static List<Long> collectSubtree(Long rootId, List<Folder> tree) {
+        Map<Long, List<Long>> children = new HashMap<>();
+        for (Folder f : tree) {
+            if (f.getParentId() != null) {
+                children.computeIfAbsent(f.getParentId(), k -> new ArrayList<>()).add(f.getId());
+            }
+        }
+        Set<Long> visited = new LinkedHashSet<>();
+        Deque<Long> queue = new ArrayDeque<>();
+        queue.add(rootId);
+        while (!queue.isEmpty()) {
+            Long current = queue.poll();
+            if (!visited.add(current)) continue;
+            queue.addAll(children.getOrDefault(current, List.of()));
         }
-        folderMapper.deleteById(parentId);
+        return new ArrayList<>(visited);
     }
 
+    /**
+     * 批量调整排序：一次按 id 预读（只取租户与版本列）做权限与版本校验，
+     * 再用一条 CASE UPDATE 落库，不调整父子关系。
+     * 条目可携带 version，表示客户端排序时看到的版本；任一文件夹已被修改则整批回滚并返回 409。
+     */
     @Transactional
     public void reorderFolders(List<Map<String, Object>> items) {
-        // 前端已给出最终顺序：这里按 id 批量落库 sortOrder，不调整父子关系。
+        if (items == null || items.isEmpty()) return;
+        Map<Long, Map<String, Object>> byId = new LinkedHashMap<>();
         for (Map<String, Object> item : items) {
-            Long id = Long.valueOf(item.get("id").toString());
-            Integer sortOrder = Integer.valueOf(item.get("sortOrder").toString());
-            Folder folder = folderMapper.selectById(id);
-            if (folder == null) continue;
+            byId.put(Long.valueOf(item.get("id").toString()), item);
+        }
+
+        List<Folder> existing = folderMapper.selectList(
+                new LambdaQueryWrapper<Folder>()
+                        .select(Folder::getId, Folder::getTenantId, Folder::getTenantType, Folder::getVersion)
+                        .in(Folder::getId, byId.keySet()));
+        if (existing.isEmpty()) return;
+
+        for (Folder folder : existing) {
+            Map<String, Object> item = byId.get(folder.getId());
             checkTenant(folder);
-            folder.setSortOrder(sortOrder);
-            folderMapper.updateById(folder);
+            Integer version = item.get("version") != null ? Integer.valueOf(item.get("version").toString()) : null;
+            checkVersion(folder, version);
+            folder.setSortOrder(Integer.valueOf(item.get("sortOrder").toString()));
+        }
+
+        int updated = folderMapper.updateSortOrders(
+                existing, TenantContext.getTenantId(), TenantContext.getTenantType(), LocalDateTime.now());
+        if (updated != existing.size()) {
+            throw new OptimisticLockingFailureException("Folder has been modified concurrently");
+        }
+    }
+
+    private void checkVersion(Folder folder, Integer expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(folder.getVersion())) {
+            throw new OptimisticLockingFailureException("Folder has been modified, current version " + folder.getVersion());
         }
     }
 
@@ -99,6 +158,7 @@ public class FolderService {
         dto.setIcon(f.getIcon());
         dto.setParentId(f.getParentId());
         dto.setSortOrder(f.getSortOrder());
+        dto.setVersion(f.getVersion());
         dto.setCreatedAt(f.getCreatedAt());
         dto.setUpdatedAt(f.getUpdatedAt());
         return dto;
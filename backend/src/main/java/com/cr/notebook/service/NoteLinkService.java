@@ -0,0 +1,74 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.entity.NoteLink;
+import com.cr.notebook.mapper.NoteLinkMapper;
+import com.cr.notebook.tenant.TenantType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 笔记双链索引维护。
+ * 笔记保存时解析正文中的 [[id|title]] 链接，与 note_link 表中已有的出边做差量同步，
+ * 知识图谱和反向链接查询直接读取该表，不再扫描笔记正文。
+ */
+@Service
+@RequiredArgsConstructor
+public class NoteLinkService {
+
+    /** 匹配双链笔记格式 [[noteId|noteTitle]] */
+    static final Pattern LINK_PATTERN = Pattern.compile("\\[\\[(\\d+)\\|([^\\]]+)\\]\\]");
+
+    private final NoteLinkMapper noteLinkMapper;
+
+    /** 解析正文中引用的笔记 id，按出现顺序去重 */
+    public static Set<Long> parseLinkTargets(String content) {
+        Set<Long> targets = new LinkedHashSet<>();
+        if (content == null || content.isEmpty()) return targets;
+        Matcher matcher = LINK_PATTERN.matcher(content);
+        while (matcher.find()) {
+            try {
+                targets.add(Long.parseLong(matcher.group(1)));
+            } catch (NumberFormatException ignored) {
+                // 超出 Long 范围的数字不可能是合法笔记 id
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * 按笔记当前正文同步其出边：只插入新增的链接、删除已移除的链接，自引用不入库。
+     * 调用方需保证 note 已持久化（有 id）且 content 为最新值。
+     */
+    public void syncLinks(Note note) {
+        Set<Long> desired = parseLinkTargets(note.getContent());
+        desired.remove(note.getId());
+        Set<Long> existing = new HashSet<>(noteLinkMapper.selectTargetIds(note.getId()));
+
+        List<Long> toAdd = desired.stream().filter(id -> !existing.contains(id)).toList();
+        List<Long> toRemove = existing.stream().filter(id -> !desired.contains(id)).toList();
+
+        if (!toRemove.isEmpty()) {
+            noteLinkMapper.deleteTargets(note.getId(), toRemove);
+        }
+        if (!toAdd.isEmpty()) {
+            noteLinkMapper.insertBatch(note.getId(), toAdd, note.getTenantId(), note.getTenantType());
+        }
+    }
+
+    public void removeLinks(Long noteId) {
+        noteLinkMapper.deleteByNote(noteId);
+    }
+
+    public List<Long> listSourceIds(Long targetId, Long tenantId, TenantType tenantType) {
+        return noteLinkMapper.selectSourceIds(targetId, tenantId, tenantType);
+    }
+
+    public List<NoteLink> listTenantLinks(Long tenantId, TenantType tenantType) {
+        return noteLinkMapper.selectByTenant(tenantId, tenantType);
+    }
+}
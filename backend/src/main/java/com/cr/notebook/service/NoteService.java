@@ -1,22 +1,34 @@
 package com.cr.notebook.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cr.notebook.dto.ContentPatchDTO;
+import com.cr.notebook.dto.CursorPage;
 import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.NoteSummaryDTO;
 import com.cr.notebook.entity.Note;
+import com.cr.notebook.entity.NoteLink;
+import com.cr.notebook.dto.SearchHitDTO;
+import com.cr.notebook.dto.TagCountDTO;
 import com.cr.notebook.mapper.NoteMapper;
+import com.cr.notebook.search.SearchDocType;
+import com.cr.notebook.search.SearchIndexEvent;
 import com.cr.notebook.tenant.TenantContext;
+import com.cr.notebook.tenant.TenantType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * 笔记业务服务层。
- * 提供笔记的 CRUD、搜索、反向链接查询和知识图谱数据构建功能。
+ * 提供笔记的 CRUD、搜索、标签筛选、反向链接查询和知识图谱数据构建功能。
  * 所有查询均基于多租户隔离（tenant_id + tenant_type）。
  */
 @Service
@@ -24,15 +36,80 @@ import java.util.stream.Collectors;
 public class NoteService {
 
     private final NoteMapper noteMapper;
+    private final StatsRollupService statsRollupService;
+    private final NoteLinkService noteLinkService;
+    private final NoteTagService noteTagService;
+    private final SearchService searchService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public List<NoteDTO> listNotes(Long folderId) {
+    /** 单页条数上限 */
+    static final int MAX_PAGE_SIZE = 200;
+
+    /** 重命名标签时每条批量 UPDATE 改写的笔记数 */
+    static final int TAG_UPDATE_BATCH_SIZE = 500;
+
+    public List<NoteDTO> listNotes(Long folderId, String tag) {
         LambdaQueryWrapper<Note> wrapper = new LambdaQueryWrapper<Note>()
                 .eq(Note::getTenantId, TenantContext.getTenantId())
                 .eq(Note::getTenantType, TenantContext.getTenantType())
-                .eq(folderId != null, Note::getFolderId, folderId)
-                .orderByDesc(Note::getIsPinned)
-                .orderByDesc(Note::getUpdatedAt);
-        return noteMapper.selectList(wrapper).stream().map(this::toDTO).toList();
+                .eq(folderId != null, Note::getFolderId, folderId);
+        if (!applyTagFilter(wrapper, tag)) return List.of();
+        wrapper.orderByDesc(Note::getIsPinned)
+                .orderByDesc(Note::getUpdatedAt)
+                .orderByDesc(Note::getId);
+        return noteMapper.selectList(wrapper).stream().map(NoteService::toDTO).toList();
+    }
+
+    /**
+     * 笔记列表的游标分页：按 (is_pinned DESC, updated_at DESC, id DESC) 做 keyset 翻页，
+     * 只查询列表展示所需的列，不读取正文，由 idx_note_list 索引支撑排序。
+     * tag 非空时只返回带有该标签的笔记。
+     */
+    public CursorPage<NoteSummaryDTO> listNoteSummaries(Long folderId, String tag, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LambdaQueryWrapper<Note> wrapper = new LambdaQueryWrapper<Note>()
+                .select(Note::getId, Note::getFolderId, Note::getTitle, Note::getExcerpt,
+                        Note::getIsPinned, Note::getTags, Note::getCreatedAt, Note::getUpdatedAt)
+                .eq(Note::getTenantId, TenantContext.getTenantId())
+                .eq(Note::getTenantType, TenantContext.getTenantType())
+                .eq(folderId != null, Note::getFolderId, folderId);
+        if (!applyTagFilter(wrapper, tag)) return new CursorPage<>(List.of(), null);
+
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = CursorPage.decodeCursor(cursor, 3);
+            boolean pinned = Boolean.parseBoolean(keys[0]);
+            LocalDateTime updatedAt;
+            try {
+                updatedAt = LocalDateTime.parse(keys[1]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            long id = Long.parseLong(keys[2]);
+            // 位于游标之后：同置顶状态下更早更新（或同一时刻 id 更小），置顶页之后还有全部非置顶笔记
+            wrapper.and(w -> {
+                if (pinned) w.eq(Note::getIsPinned, false).or();
+                w.nested(x -> x.eq(Note::getIsPinned, pinned)
+                        .and(y -> y.lt(Note::getUpdatedAt, updatedAt)
+                                .or(z -> z.eq(Note::getUpdatedAt, updatedAt).lt(Note::getId, id))));
+            });
+        }
+
+        wrapper.orderByDesc(Note::getIsPinned)
+                .orderByDesc(Note::getUpdatedAt)
+                .orderByDesc(Note::getId)
+                .last("LIMIT " + (pageSize + 1));
+
+        List<Note> rows = noteMapper.selectList(wrapper);
+        boolean hasMore = rows.size() > pageSize;
+        List<Note> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Note last = page.get(page.size() - 1);
+            nextCursor = CursorPage.encodeCursor(
+                    Boolean.TRUE.equals(last.getIsPinned()), last.getUpdatedAt(), last.getId());
+        }
+        return new CursorPage<>(page.stream().map(this::toSummary).toList(), nextCursor);
     }
 
     public NoteDTO getNote(Long id) {
@@ -44,34 +121,111 @@ public class NoteService {
 
     @Transactional
     public NoteDTO createNote(NoteDTO dto) {
+        List<String> tags = NoteTagService.normalize(dto.getTags());
+        NoteTagService.checkLength(tags, List.of());
         Note note = Note.builder()
                 .folderId(dto.getFolderId())
                 .title(dto.getTitle() != null ? dto.getTitle() : "")
                 .content(dto.getContent())
                 .excerpt(dto.getExcerpt() != null ? dto.getExcerpt() : "")
                 .isPinned(dto.getIsPinned() != null && dto.getIsPinned())
-                .tags(dto.getTags() != null ? dto.getTags() : List.of())
+                .tags(tags)
                 .build();
         note.setTenantId(TenantContext.getTenantId());
         note.setTenantType(TenantContext.getTenantType());
         noteMapper.insert(note);
+        statsRollupService.recordNoteCreated(note);
+        if (note.getContent() != null) noteLinkService.syncLinks(note);
+        if (!note.getTags().isEmpty()) noteTagService.syncTags(note);
+        eventPublisher.publishEvent(SearchIndexEvent.saved(note));
         return toDTO(note);
     }
 
+    /** 只读取版本号，供条件 GET（If-None-Match）判断是否需要返回正文 */
+    public Integer getNoteVersion(Long id) {
+        Note note = noteMapper.selectOne(new LambdaQueryWrapper<Note>()
+                .select(Note::getId, Note::getTenantId, Note::getTenantType, Note::getVersion)
+                .eq(Note::getId, id));
+        if (note == null) throw new IllegalArgumentException("Note not found");
+        checkTenant(note);
+        return note.getVersion();
+    }
+
+    /**
+     * 整篇更新。expectedVersion 来自 If-Match，非空且与当前版本不一致时直接返回 409；
+     * 读取与写入之间被其他请求抢先修改时，乐观锁使 updateById 影响 0 行，同样返回 409。
+     */
     @Transactional
-    public NoteDTO updateNote(Long id, NoteDTO dto) {
+    public NoteDTO updateNote(Long id, NoteDTO dto, Integer expectedVersion) {
         Note note = noteMapper.selectById(id);
         if (note == null) throw new IllegalArgumentException("Note not found");
         checkTenant(note);
+        if (expectedVersion != null && !expectedVersion.equals(note.getVersion())) {
+            throw new OptimisticLockingFailureException("Note has been modified, current version " + note.getVersion());
+        }
 
         if (dto.getTitle() != null) note.setTitle(dto.getTitle());
         if (dto.getContent() != null) note.setContent(dto.getContent());
         if (dto.getExcerpt() != null) note.setExcerpt(dto.getExcerpt());
         if (dto.getIsPinned() != null) note.setIsPinned(dto.getIsPinned());
         if (dto.getFolderId() != null) note.setFolderId(dto.getFolderId());
-        if (dto.getTags() != null) note.setTags(dto.getTags());
+        if (dto.getTags() != null) {
+            List<String> tags = NoteTagService.normalize(dto.getTags());
+            NoteTagService.checkLength(tags, note.getTags());
+            note.setTags(tags);
+        }
 
-        noteMapper.updateById(note);
+        if (noteMapper.updateById(note) == 0) {
+            throw new OptimisticLockingFailureException("Note has been modified concurrently");
+        }
+        if (dto.getContent() != null) noteLinkService.syncLinks(note);
+        if (dto.getTags() != null) noteTagService.syncTags(note);
+        if (dto.getTitle() != null || dto.getContent() != null) {
+            eventPublisher.publishEvent(SearchIndexEvent.saved(note));
+        }
+        return toDTO(note);
+    }
+
+    /**
+     * 增量保存：把文本替换应用到 baseVersion 时的正文上，只在内容确有变化时写库，
+     * 且只更新变化的列。baseVersion 与当前版本不一致时抛出 OptimisticLockingFailureException（409）。
+     */
+    @Transactional
+    public NoteDTO patchNote(Long id, ContentPatchDTO patch) {
+        Note note = noteMapper.selectById(id);
+        if (note == null) throw new IllegalArgumentException("Note not found");
+        checkTenant(note);
+        if (!note.getVersion().equals(patch.getBaseVersion())) {
+            throw new OptimisticLockingFailureException("Note has been modified, current version " + note.getVersion());
+        }
+
+        String base = note.getContent() != null ? note.getContent() : "";
+        String content = ContentPatcher.apply(base, patch.getEdits());
+        boolean contentChanged = !content.equals(base);
+        boolean titleChanged = patch.getTitle() != null && !patch.getTitle().equals(note.getTitle());
+        boolean excerptChanged = patch.getExcerpt() != null && !patch.getExcerpt().equals(note.getExcerpt());
+        if (!contentChanged && !titleChanged && !excerptChanged) return toDTO(note);
+
+        LocalDateTime now = LocalDateTime.now();
+        int updated = noteMapper.update(new LambdaUpdateWrapper<Note>()
+                .set(contentChanged, Note::getContent, content)
+                .set(titleChanged, Note::getTitle, patch.getTitle())
+                .set(excerptChanged, Note::getExcerpt, patch.getExcerpt())
+                .set(Note::getUpdatedAt, now)
+                .setSql("version = version + 1")
+                .eq(Note::getId, id)
+                .eq(Note::getVersion, note.getVersion()));
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("Note has been modified concurrently");
+        }
+
+        note.setContent(content);
+        if (titleChanged) note.setTitle(patch.getTitle());
+        if (excerptChanged) note.setExcerpt(patch.getExcerpt());
+        note.setUpdatedAt(now);
+        note.setVersion(note.getVersion() + 1);
+        if (contentChanged) noteLinkService.syncLinks(note);
+        eventPublisher.publishEvent(SearchIndexEvent.saved(note));
         return toDTO(note);
     }
 
@@ -81,41 +235,102 @@ public class NoteService {
         if (note == null) throw new IllegalArgumentException("Note not found");
         checkTenant(note);
         noteMapper.deleteById(id);
+        noteLinkService.removeLinks(id);
+        noteTagService.removeTags(id);
+        statsRollupService.recordNoteDeleted(note);
+        eventPublisher.publishEvent(SearchIndexEvent.deleted(note));
+    }
+
+    /** 当前租户各标签的笔记数，由标签索引表 GROUP BY 得出 */
+    public List<TagCountDTO> getTagCounts() {
+        return noteTagService.countTags(TenantContext.getTenantId(), TenantContext.getTenantType());
+    }
+
+    /**
+     * 重命名标签，目标标签已存在时合并。
+     * 通过标签索引只定位带有原标签的笔记，仅更新这些笔记的 tags 列并递增版本号（使缓存的 ETag 失效），
+     * 不改动正文和 updated_at。
+     */
+    @Transactional
+    public List<TagCountDTO> renameTag(String from, String to) {
+        Long tenantId = TenantContext.getTenantId();
+        TenantType tenantType = TenantContext.getTenantType();
+        String source = from.trim();
+        String target = NoteTagService.normalize(List.of(to)).stream().findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("标签名不能为空"));
+        NoteTagService.checkLength(List.of(target), List.of());
+        Long tagId = noteTagService.findTagId(tenantId, tenantType, source);
+        if (tagId == null) throw new IllegalArgumentException("标签不存在");
+        if (source.equals(target)) return getTagCounts();
+
+        List<Long> noteIds = noteTagService.listNoteIds(tagId);
+        noteTagService.renameTag(tenantId, tenantType, tagId, target);
+        if (!noteIds.isEmpty()) {
+            List<Note> notes = noteMapper.selectList(new LambdaQueryWrapper<Note>()
+                    .select(Note::getId, Note::getTags)
+                    .eq(Note::getTenantId, tenantId)
+                    .eq(Note::getTenantType, tenantType)
+                    .in(Note::getId, noteIds));
+            for (Note note : notes) {
+                List<String> current = note.getTags() != null ? note.getTags() : List.of();
+                note.setTags(NoteTagService.normalize(current.stream()
+                        .map(t -> t != null && t.trim().equals(source) ? target : t).toList()));
+            }
+            // 新的 tags 逐篇不同，在内存中算好后按批用 CASE 语句写回，往返次数与笔记数无关
+            for (int i = 0; i < notes.size(); i += TAG_UPDATE_BATCH_SIZE) {
+                noteMapper.updateTags(notes.subList(i, Math.min(i + TAG_UPDATE_BATCH_SIZE, notes.size())),
+                        tenantId, tenantType);
+            }
+        }
+        return getTagCounts();
     }
 
+    /**
+     * 笔记搜索：由全文搜索引擎检索标题和正文，按相关度返回前 {@link SearchService#MAX_PAGE_SIZE} 条。
+     * 结果只包含列表展示字段，不含正文。
+     */
     public List<NoteDTO> searchNotes(String query) {
-        LambdaQueryWrapper<Note> wrapper = new LambdaQueryWrapper<Note>()
-                .eq(Note::getTenantId, TenantContext.getTenantId())
-                .eq(Note::getTenantType, TenantContext.getTenantType())
-                .and(w -> w.like(Note::getTitle, query).or().like(Note::getExcerpt, query));
-        return noteMapper.selectList(wrapper).stream().map(this::toDTO).toList();
+        List<Long> ids = searchService.search(query, SearchDocType.NOTE, 0, SearchService.MAX_PAGE_SIZE)
+                .getHits().stream().map(SearchHitDTO::getId).toList();
+        if (ids.isEmpty()) return List.of();
+        Map<Long, Note> byId = noteMapper.selectList(new LambdaQueryWrapper<Note>()
+                        .select(Note::getId, Note::getFolderId, Note::getTitle, Note::getExcerpt,
+                                Note::getIsPinned, Note::getTags, Note::getCreatedAt, Note::getUpdatedAt)
+                        .eq(Note::getTenantId, TenantContext.getTenantId())
+                        .eq(Note::getTenantType, TenantContext.getTenantType())
+                        .in(Note::getId, ids))
+                .stream().collect(Collectors.toMap(Note::getId, n -> n));
+        // 保持搜索引擎给出的相关度顺序，并丢弃索引中已过期的条目
+        return ids.stream().map(byId::get).filter(Objects::nonNull).map(NoteService::toDTO).toList();
     }
 
     /**
      * 查找所有引用了指定笔记的反向链接。
-     * 通过在 content 字段中搜索 [[noteId| 模式来定位双链引用。
+     * 通过 note_link 的 target_id 索引定位引用方，只读取列表展示所需的列，不加载正文。
      */
     public List<NoteDTO> getBacklinks(Long noteId) {
-        String pattern = "[[" + noteId + "|";
+        List<Long> sourceIds = noteLinkService.listSourceIds(
+                noteId, TenantContext.getTenantId(), TenantContext.getTenantType());
+        if (sourceIds.isEmpty()) return List.of();
         LambdaQueryWrapper<Note> wrapper = new LambdaQueryWrapper<Note>()
+                .select(Note::getId, Note::getFolderId, Note::getTitle, Note::getExcerpt,
+                        Note::getIsPinned, Note::getTags, Note::getCreatedAt, Note::getUpdatedAt)
                 .eq(Note::getTenantId, TenantContext.getTenantId())
                 .eq(Note::getTenantType, TenantContext.getTenantType())
-                .like(Note::getContent, pattern)
-                .ne(Note::getId, noteId)
+                .in(Note::getId, sourceIds)
                 .orderByDesc(Note::getUpdatedAt);
-        return noteMapper.selectList(wrapper).stream().map(this::toDTO).toList();
+        return noteMapper.selectList(wrapper).stream().map(NoteService::toDTO).toList();
     }
 
-    /** 匹配双链笔记格式 [[noteId|noteTitle]] */
-    private static final Pattern LINK_PATTERN = Pattern.compile("\\[\\[(\\d+)\\|([^\\]]+)\\]\\]");
-
     /**
-     * 构建知识图谱数据：遍历当前租户所有笔记，解析内容中的 [[id|title]] 链接，
+     * 构建知识图谱数据：节点为当前租户所有笔记（不含正文），边取自 note_link 索引，
      * 返回 {nodes: [...], edges: [...]} 结构供前端 D3.js 力导向图渲染。
-     * 自动过滤自引用和指向已删除笔记的边，同一方向的重复边会被去重。
+     * 自动过滤自引用和指向已删除或其他租户笔记的边。
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getGraphData() {
         LambdaQueryWrapper<Note> wrapper = new LambdaQueryWrapper<Note>()
+                .select(Note::getId, Note::getTitle, Note::getFolderId, Note::getTags, Note::getUpdatedAt)
                 .eq(Note::getTenantId, TenantContext.getTenantId())
                 .eq(Note::getTenantType, TenantContext.getTenantType());
         List<Note> allNotes = noteMapper.selectList(wrapper);
@@ -133,21 +348,14 @@ public class NoteService {
         }).toList();
 
         List<Map<String, Object>> edges = new ArrayList<>();
-        Set<String> seen = new HashSet<>();
-        for (Note note : allNotes) {
-            if (note.getContent() == null) continue;
-            Matcher matcher = LINK_PATTERN.matcher(note.getContent());
-            while (matcher.find()) {
-                Long targetId = Long.parseLong(matcher.group(1));
-                if (noteIds.contains(targetId) && !targetId.equals(note.getId())) {
-                    String edgeKey = note.getId() + "->" + targetId;
-                    if (seen.add(edgeKey)) {
-                        Map<String, Object> edge = new LinkedHashMap<>();
-                        edge.put("source", note.getId());
-                        edge.put("target", targetId);
-                        edges.add(edge);
-                    }
-                }
+        for (NoteLink link : noteLinkService.listTenantLinks(
+                TenantContext.getTenantId(), TenantContext.getTenantType())) {
+            if (noteIds.contains(link.getSourceId()) && noteIds.contains(link.getTargetId())
+                    && !link.getSourceId().equals(link.getTargetId())) {
+                Map<String, Object> edge = new LinkedHashMap<>();
+                edge.put("source", link.getSourceId());
+                edge.put("target", link.getTargetId());
+                edges.add(edge);
             }
         }
 
@@ -157,6 +365,16 @@ public class NoteService {
         return result;
     }
 
+    /** 按标签筛选：标签不存在时返回 false，调用方直接返回空结果 */
+    private boolean applyTagFilter(LambdaQueryWrapper<Note> wrapper, String tag) {
+        if (tag == null || tag.isBlank()) return true;
+        Long tagId = noteTagService.findTagId(TenantContext.getTenantId(), TenantContext.getTenantType(), tag);
+        if (tagId == null) return false;
+        // tagId 为服务端查得的数值，拼入子查询不存在注入风险
+        wrapper.inSql(Note::getId, "SELECT note_id FROM note_tag_relation WHERE tag_id = " + tagId);
+        return true;
+    }
+
     private void checkTenant(Note note) {
         if (!note.getTenantId().equals(TenantContext.getTenantId())
                 || note.getTenantType() != TenantContext.getTenantType()) {
@@ -164,7 +382,20 @@ public class NoteService {
         }
     }
 
-    private NoteDTO toDTO(Note n) {
+    private NoteSummaryDTO toSummary(Note n) {
+        NoteSummaryDTO dto = new NoteSummaryDTO();
+        dto.setId(n.getId());
+        dto.setFolderId(n.getFolderId());
+        dto.setTitle(n.getTitle());
+        dto.setExcerpt(n.getExcerpt());
+        dto.setIsPinned(n.getIsPinned());
+        dto.setTags(n.getTags() != null ? n.getTags() : List.of());
+        dto.setCreatedAt(n.getCreatedAt());
+        dto.setUpdatedAt(n.getUpdatedAt());
+        return dto;
+    }
+
+    private static NoteDTO toDTO(Note n) {
         NoteDTO dto = new NoteDTO();
         dto.setId(n.getId());
         dto.setFolderId(n.getFolderId());
@@ -173,6 +404,7 @@ public class NoteService {
         dto.setExcerpt(n.getExcerpt());
         dto.setIsPinned(n.getIsPinned());
         dto.setTags(n.getTags() != null ? n.getTags() : List.of());
+        dto.setVersion(n.getVersion());
         dto.setCreatedAt(n.getCreatedAt());
         dto.setUpdatedAt(n.getUpdatedAt());
         return dto;
@@ -0,0 +1,123 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.dto.TagCountDTO;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.mapper.NoteTagMapper;
+import com.cr.notebook.tenant.TenantType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 标签索引：把 note.tags（JSON 列）同步写入 note_tag / note_tag_relation，
+ * 按标签筛选和标签计数通过索引完成，不再需要加载全部笔记。
+ * note.tags 仍是笔记返回给前端的标签来源，两者由 NoteService 在同一事务内一起写入。
+ */
+@Service
+@RequiredArgsConstructor
+public class NoteTagService {
+
+    /** 与 note_tag.name 列宽一致 */
+    public static final int MAX_TAG_LENGTH = 50;
+
+    private final NoteTagMapper noteTagMapper;
+
+    /** 去掉首尾空白和空标签，按出现顺序去重 */
+    public static List<String> normalize(List<String> tags) {
+        if (tags == null || tags.isEmpty()) return List.of();
+        LinkedHashSet<String> result = new LinkedHashSet<>();
+        for (String tag : tags) {
+            if (tag == null) continue;
+            String name = tag.trim();
+            if (!name.isEmpty()) result.add(name);
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * 拒绝新增的超长标签。existing 中已有的超长标签（建立标签索引前写入的旧数据）原样保留在 note.tags 中，
+     * 保证客户端把整份标签列表原样提交回来时更新不会失败；它们只是不进入标签索引，见 {@link #syncTags}。
+     */
+    public static void checkLength(List<String> tags, Collection<String> existing) {
+        for (String tag : tags) {
+            if (!indexable(tag) && (existing == null || !existing.contains(tag))) {
+                throw new IllegalArgumentException("标签长度不能超过 " + MAX_TAG_LENGTH + " 个字符");
+            }
+        }
+    }
+
+    /** 能否写入 note_tag.name 列 */
+    public static boolean indexable(String tag) {
+        return tag.length() <= MAX_TAG_LENGTH;
+    }
+
+    /**
+     * 按笔记当前 tags 同步关联：只插入新增、删除移除的关联。
+     * 调用方需保证 note 已持久化（有 id）且 tags 已经过 normalize；超长的旧标签不建索引。
+     */
+    public void syncTags(Note note) {
+        List<String> names = note.getTags() == null ? List.of()
+                : note.getTags().stream().filter(NoteTagService::indexable).toList();
+        Set<Long> desired = new HashSet<>(resolveIds(note.getTenantId(), note.getTenantType(), names).values());
+        Set<Long> existing = new HashSet<>(noteTagMapper.selectTagIds(note.getId()));
+
+        List<Long> toAdd = desired.stream().filter(id -> !existing.contains(id)).toList();
+        List<Long> toRemove = existing.stream().filter(id -> !desired.contains(id)).toList();
+
+        if (!toRemove.isEmpty()) noteTagMapper.deleteRelations(note.getId(), toRemove);
+        if (!toAdd.isEmpty()) noteTagMapper.insertRelations(note.getId(), toAdd);
+    }
+
+    public void removeTags(Long noteId) {
+        noteTagMapper.deleteByNote(noteId);
+    }
+
+    /** 标签不存在时返回 null */
+    public Long findTagId(Long tenantId, TenantType tenantType, String name) {
+        if (name == null || name.isBlank()) return null;
+        return noteTagMapper.selectIdByName(tenantId, tenantType, name.trim());
+    }
+
+    public List<Long> listNoteIds(Long tagId) {
+        return noteTagMapper.selectNoteIds(tagId);
+    }
+
+    public List<TagCountDTO> countTags(Long tenantId, TenantType tenantType) {
+        return noteTagMapper.countByTenant(tenantId, tenantType);
+    }
+
+    /**
+     * 重命名标签：目标名不存在时直接改名，已存在时把关联并入目标标签并删除原标签。
+     * 只改索引表，note.tags 由调用方对受影响的笔记更新。
+     */
+    public void renameTag(Long tenantId, TenantType tenantType, Long fromId, String to) {
+        Long toId = noteTagMapper.selectIdByName(tenantId, tenantType, to);
+        if (toId == null) {
+            noteTagMapper.rename(fromId, to);
+            return;
+        }
+        if (toId.equals(fromId)) return;
+        noteTagMapper.copyRelations(fromId, toId);
+        noteTagMapper.deleteRelationsByTag(fromId);
+        noteTagMapper.deleteById(fromId);
+    }
+
+    /** 标签名 -> id，缺失的标签先登记再查询 */
+    private Map<String, Long> resolveIds(Long tenantId, TenantType tenantType, List<String> names) {
+        if (names.isEmpty()) return Map.of();
+        Map<String, Long> ids = byName(noteTagMapper.selectByNames(tenantId, tenantType, names));
+        List<String> missing = names.stream().filter(n -> !ids.containsKey(n)).toList();
+        if (!missing.isEmpty()) {
+            noteTagMapper.insertIgnore(tenantId, tenantType, missing);
+            ids.putAll(byName(noteTagMapper.selectByNames(tenantId, tenantType, missing)));
+        }
+        return ids;
+    }
+
+    private static Map<String, Long> byName(List<NoteTagMapper.TagRow> rows) {
+        return rows.stream().collect(Collectors.toMap(NoteTagMapper.TagRow::getName, NoteTagMapper.TagRow::getId,
+                (a, b) -> a, HashMap::new));
+    }
+}
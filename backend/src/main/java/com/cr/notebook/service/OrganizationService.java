@@ -10,6 +10,8 @@ import com.cr.notebook.mapper.OrgMemberMapper;
 import com.cr.notebook.mapper.OrganizationMapper;
 import com.cr.notebook.mapper.UserMapper;
 import com.cr.notebook.security.UserPrincipal;
+import com.cr.notebook.tenant.OrgMembershipResolver;
+import com.cr.notebook.tenant.TenantAwareExecutor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -25,6 +27,9 @@ public class OrganizationService {
     private final OrganizationMapper organizationMapper;
     private final OrgMemberMapper orgMemberMapper;
     private final UserMapper userMapper;
+    private final AvatarService avatarService;
+    private final OrgMembershipResolver membershipResolver;
+    private final TenantAwareExecutor tenantAwareExecutor;
 
     public List<OrganizationDTO> listMyOrganizations() {
         Long currentUserId = getCurrentUserId();
@@ -34,14 +39,15 @@ public class OrganizationService {
         List<Long> orgIds = memberships.stream().map(OrgMember::getOrganizationId).toList();
         if (orgIds.isEmpty()) return Collections.emptyList();
 
-        List<Organization> orgs = organizationMapper.selectBatchIds(orgIds);
+        List<Organization> orgs = organizationMapper.selectByIds(orgIds);
 
         Map<Long, String> roleMap = memberships.stream()
                 .collect(Collectors.toMap(OrgMember::getOrganizationId, OrgMember::getRole));
 
         Set<Long> ownerIds = orgs.stream().map(Organization::getOwnerId).collect(Collectors.toSet());
-        Map<Long, String> ownerNameMap = userMapper.selectBatchIds(ownerIds).stream()
+        Map<Long, String> ownerNameMap = userMapper.selectByIds(ownerIds).stream()
                 .collect(Collectors.toMap(User::getId, User::getDisplayName));
+        Map<Long, Integer> memberCounts = memberCounts(orgs);
 
         return orgs.stream().map(org -> {
             OrganizationDTO dto = new OrganizationDTO();
@@ -51,8 +57,7 @@ public class OrganizationService {
             dto.setOwnerName(ownerNameMap.getOrDefault(org.getOwnerId(), ""));
             dto.setRole(roleMap.getOrDefault(org.getId(), "MEMBER"));
             dto.setCreatedAt(org.getCreatedAt());
-            dto.setMemberCount(orgMemberMapper.selectCount(
-                    new LambdaQueryWrapper<OrgMember>().eq(OrgMember::getOrganizationId, org.getId())).intValue());
+            dto.setMemberCount(memberCounts.getOrDefault(org.getId(), 0));
             dto.setAvatarUrl(org.getAvatarUrl());
             return dto;
         }).toList();
@@ -65,6 +70,7 @@ public class OrganizationService {
         Organization org = Organization.builder()
                 .name(name)
                 .ownerId(currentUserId)
+                .memberCount(1)
                 .build();
         organizationMapper.insert(org);
 
@@ -74,6 +80,7 @@ public class OrganizationService {
                 .role("OWNER")
                 .build();
         orgMemberMapper.insert(ownerMember);
+        membershipResolver.evict(currentUserId, org.getId());
 
         User owner = userMapper.selectById(currentUserId);
 
@@ -92,26 +99,29 @@ public class OrganizationService {
     public OrganizationDTO getOrganization(Long id) {
         Long currentUserId = getCurrentUserId();
 
-        Organization org = organizationMapper.selectById(id);
-        if (org == null) throw new IllegalArgumentException("组织不存在");
-
-        OrgMember membership = orgMemberMapper.selectOne(
-                new LambdaQueryWrapper<OrgMember>()
-                        .eq(OrgMember::getOrganizationId, id)
-                        .eq(OrgMember::getUserId, currentUserId));
-        if (membership == null) throw new IllegalArgumentException("您不是该组织的成员");
+        // 先做有缓存的成员身份校验，通过后再并行查询组织与所有者
+        String role = membershipResolver.currentRole(currentUserId, id);
+        if (role == null) {
+            if (organizationMapper.selectById(id) == null) throw new IllegalArgumentException("组织不存在");
+            throw new IllegalArgumentException("您不是该组织的成员");
+        }
+        TenantAwareExecutor.Fork fork = tenantAwareExecutor.fork();
+        TenantAwareExecutor.Subtask<Organization> orgTask = fork.submit(() -> organizationMapper.selectById(id));
+        TenantAwareExecutor.Subtask<User> ownerTask = fork.submit(() -> userMapper.selectOwnerOf(id));
+        fork.join();
 
-        User owner = userMapper.selectById(org.getOwnerId());
+        Organization org = orgTask.get();
+        if (org == null) throw new IllegalArgumentException("组织不存在");
+        User owner = ownerTask.get();
 
         OrganizationDTO dto = new OrganizationDTO();
         dto.setId(org.getId());
         dto.setName(org.getName());
         dto.setOwnerId(org.getOwnerId());
         dto.setOwnerName(owner.getDisplayName());
-        dto.setRole(membership.getRole());
+        dto.setRole(role);
         dto.setCreatedAt(org.getCreatedAt());
-        dto.setMemberCount(orgMemberMapper.selectCount(
-                new LambdaQueryWrapper<OrgMember>().eq(OrgMember::getOrganizationId, id)).intValue());
+        dto.setMemberCount(memberCount(org));
         dto.setAvatarUrl(org.getAvatarUrl());
         return dto;
     }
@@ -138,8 +148,7 @@ public class OrganizationService {
         dto.setOwnerName(owner.getDisplayName());
         dto.setRole("OWNER");
         dto.setCreatedAt(org.getCreatedAt());
-        dto.setMemberCount(orgMemberMapper.selectCount(
-                new LambdaQueryWrapper<OrgMember>().eq(OrgMember::getOrganizationId, id)).intValue());
+        dto.setMemberCount(memberCount(org));
         dto.setAvatarUrl(org.getAvatarUrl());
         return dto;
     }
@@ -157,22 +166,25 @@ public class OrganizationService {
         orgMemberMapper.delete(
                 new LambdaQueryWrapper<OrgMember>().eq(OrgMember::getOrganizationId, id));
         organizationMapper.deleteById(id);
+        membershipResolver.evictOrganization(id);
     }
 
     public List<OrgMemberDTO> listMembers(Long orgId) {
         Long currentUserId = getCurrentUserId();
 
-        OrgMember self = orgMemberMapper.selectOne(
-                new LambdaQueryWrapper<OrgMember>()
-                        .eq(OrgMember::getOrganizationId, orgId)
-                        .eq(OrgMember::getUserId, currentUserId));
-        if (self == null) throw new IllegalArgumentException("您不是该组织的成员");
+        if (membershipResolver.currentRole(currentUserId, orgId) == null) {
+            throw new IllegalArgumentException("您不是该组织的成员");
+        }
 
-        List<OrgMember> members = orgMemberMapper.selectList(
-                new LambdaQueryWrapper<OrgMember>().eq(OrgMember::getOrganizationId, orgId));
+        // 成员与用户信息按组织分别查询，互不依赖，并行执行
+        TenantAwareExecutor.Fork fork = tenantAwareExecutor.fork();
+        TenantAwareExecutor.Subtask<List<OrgMember>> membersTask = fork.submit(() -> orgMemberMapper.selectList(
+                new LambdaQueryWrapper<OrgMember>().eq(OrgMember::getOrganizationId, orgId)));
+        TenantAwareExecutor.Subtask<List<User>> usersTask = fork.submit(() -> userMapper.selectMembersOf(orgId));
+        fork.join();
 
-        Set<Long> userIds = members.stream().map(OrgMember::getUserId).collect(Collectors.toSet());
-        Map<Long, User> userMap = userMapper.selectBatchIds(userIds).stream()
+        List<OrgMember> members = membersTask.get();
+        Map<Long, User> userMap = usersTask.get().stream()
                 .collect(Collectors.toMap(User::getId, u -> u));
 
         return members.stream().map(m -> {
@@ -195,20 +207,15 @@ public class OrganizationService {
         Organization org = organizationMapper.selectById(orgId);
         if (org == null) throw new IllegalArgumentException("组织不存在");
 
-        OrgMember currentMember = orgMemberMapper.selectOne(
-                new LambdaQueryWrapper<OrgMember>()
-                        .eq(OrgMember::getOrganizationId, orgId)
-                        .eq(OrgMember::getUserId, currentUserId));
-        if (currentMember == null) throw new IllegalArgumentException("您不是该组织的成员");
-        if (!"OWNER".equals(currentMember.getRole()) && !"ADMIN".equals(currentMember.getRole())) {
+        String currentRole = membershipResolver.currentRole(currentUserId, orgId);
+        if (currentRole == null) throw new IllegalArgumentException("您不是该组织的成员");
+        if (!"OWNER".equals(currentRole) && !"ADMIN".equals(currentRole)) {
             throw new IllegalArgumentException("只有组织所有者或管理员才能添加成员");
         }
 
-        Long existCount = orgMemberMapper.selectCount(
-                new LambdaQueryWrapper<OrgMember>()
-                        .eq(OrgMember::getOrganizationId, orgId)
-                        .eq(OrgMember::getUserId, userId));
-        if (existCount > 0) throw new IllegalArgumentException("该用户已是组织成员");
+        if (membershipResolver.resolveRole(userId, orgId) != null) {
+            throw new IllegalArgumentException("该用户已是组织成员");
+        }
 
         User user = userMapper.selectById(userId);
         if (user == null) throw new IllegalArgumentException("用户不存在");
@@ -219,6 +226,8 @@ public class OrganizationService {
                 .role(role != null ? role : "MEMBER")
                 .build();
         orgMemberMapper.insert(member);
+        organizationMapper.adjustMemberCount(orgId, 1);
+        membershipResolver.evict(userId, orgId);
 
         OrgMemberDTO dto = new OrgMemberDTO();
         dto.setId(member.getId());
@@ -251,6 +260,7 @@ public class OrganizationService {
 
         targetMember.setRole(newRole);
         orgMemberMapper.updateById(targetMember);
+        membershipResolver.evict(userId, orgId);
 
         User user = userMapper.selectById(userId);
         OrgMemberDTO dto = new OrgMemberDTO();
@@ -273,12 +283,9 @@ public class OrganizationService {
             throw new IllegalArgumentException("不能移除组织所有者");
         }
 
-        OrgMember currentMember = orgMemberMapper.selectOne(
-                new LambdaQueryWrapper<OrgMember>()
-                        .eq(OrgMember::getOrganizationId, orgId)
-                        .eq(OrgMember::getUserId, currentUserId));
-        if (currentMember == null) throw new IllegalArgumentException("您不是该组织的成员");
-        if (!"OWNER".equals(currentMember.getRole()) && !"ADMIN".equals(currentMember.getRole())) {
+        String currentRole = membershipResolver.currentRole(currentUserId, orgId);
+        if (currentRole == null) throw new IllegalArgumentException("您不是该组织的成员");
+        if (!"OWNER".equals(currentRole) && !"ADMIN".equals(currentRole)) {
             throw new IllegalArgumentException("只有组织所有者或管理员才能移除成员");
         }
 
@@ -288,25 +295,53 @@ public class OrganizationService {
                         .eq(OrgMember::getUserId, userId));
         if (targetMember == null) throw new IllegalArgumentException("该用户不是组织成员");
 
-        orgMemberMapper.deleteById(targetMember.getId());
+        if (orgMemberMapper.deleteById(targetMember.getId()) > 0) {
+            organizationMapper.adjustMemberCount(orgId, -1);
+        }
+        membershipResolver.evict(userId, orgId);
     }
 
+    /** 更新组织头像，返回规范化后的地址（data URL 会被存入头像库并替换为短地址） */
     @Transactional
-    public void updateOrgAvatar(Long orgId, String avatarUrl) {
+    public String updateOrgAvatar(Long orgId, String avatarUrl) {
         Long currentUserId = getCurrentUserId();
         Organization org = organizationMapper.selectById(orgId);
         if (org == null) throw new IllegalArgumentException("组织不存在");
 
-        OrgMember membership = orgMemberMapper.selectOne(
-                new LambdaQueryWrapper<OrgMember>()
-                        .eq(OrgMember::getOrganizationId, orgId)
-                        .eq(OrgMember::getUserId, currentUserId));
-        if (membership == null || (!"OWNER".equals(membership.getRole()) && !"ADMIN".equals(membership.getRole()))) {
+        String role = membershipResolver.currentRole(currentUserId, orgId);
+        if (!"OWNER".equals(role) && !"ADMIN".equals(role)) {
             throw new IllegalArgumentException("只有组织所有者或管理员才能修改组织头像");
         }
 
-        org.setAvatarUrl(avatarUrl);
+        org.setAvatarUrl(avatarService.resolve(avatarUrl));
         organizationMapper.updateById(org);
+        return org.getAvatarUrl();
+    }
+
+    /** 修复 member_count 与 sys_org_member 的不一致，返回修复的组织数 */
+    @Transactional
+    public int reconcileMemberCounts() {
+        return organizationMapper.reconcileMemberCounts();
+    }
+
+    /** 优先取冗余的 member_count；尚未统计的组织合并成一条分组查询 */
+    private Map<Long, Integer> memberCounts(Collection<Organization> orgs) {
+        Map<Long, Integer> counts = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Organization org : orgs) {
+            if (org.getMemberCount() != null) counts.put(org.getId(), org.getMemberCount());
+            else missing.add(org.getId());
+        }
+        if (!missing.isEmpty()) {
+            for (OrgMemberMapper.MemberCountRow row : orgMemberMapper.countByOrganizationIds(missing)) {
+                counts.put(row.getOrganizationId(), row.getMemberCount());
+            }
+        }
+        return counts;
+    }
+
+    private int memberCount(Organization org) {
+        return memberCounts(List.of(org)).getOrDefault(org.getId(), 0);
     }
 
     private Long getCurrentUserId() {
@@ -0,0 +1,204 @@
+package com.cr.notebook.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * RRULE（RFC 5545）的日期级子集：FREQ=DAILY|WEEKLY|MONTHLY|YEARLY，可选 INTERVAL、COUNT、UNTIL，
+ * WEEKLY 可带 BYDAY（MO,TU,...），周起始固定为周一。MONTHLY / YEARLY 按起始日的几号 / 月日重复，
+ * 当月没有这一天（31 号、2 月 29 日）时跳过该周期，与 RFC 一致。
+ * <p>
+ * 发生日期通过 {@link #occurrences} 惰性生成：没有 COUNT 时直接按算术跳到查询窗口附近的周期，
+ * 调用方读到窗口末尾即停止，不会展开整条无限序列。
+ */
+public final class RecurrenceRule {
+
+    /** COUNT 上限；带 COUNT 的序列需要从头计数，上限保证一次展开的成本有界 */
+    public static final int MAX_COUNT = 5000;
+    public static final int MAX_INTERVAL = 999;
+
+    private static final DateTimeFormatter UNTIL_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Map<String, DayOfWeek> DAYS = Map.of(
+            "MO", DayOfWeek.MONDAY, "TU", DayOfWeek.TUESDAY, "WE", DayOfWeek.WEDNESDAY, "TH", DayOfWeek.THURSDAY,
+            "FR", DayOfWeek.FRIDAY, "SA", DayOfWeek.SATURDAY, "SU", DayOfWeek.SUNDAY);
+
+    public enum Frequency { DAILY, WEEKLY, MONTHLY, YEARLY }
+
+    private final Frequency frequency;
+    private final int interval;
+    private final Integer count;
+    private final LocalDate until;
+    private final SortedSet<DayOfWeek> byDay;
+
+    private RecurrenceRule(Frequency frequency, int interval, Integer count, LocalDate until, SortedSet<DayOfWeek> byDay) {
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+        this.byDay = byDay;
+    }
+
+    /** 解析 RRULE 字符串（可带 "RRULE:" 前缀），不支持的部分抛出 IllegalArgumentException */
+    public static RecurrenceRule parse(String rule) {
+        if (rule == null || rule.isBlank()) throw new IllegalArgumentException("Recurrence rule is empty");
+        String body = rule.trim();
+        if (body.regionMatches(true, 0, "RRULE:", 0, 6)) body = body.substring(6);
+
+        Frequency frequency = null;
+        int interval = 1;
+        Integer count = null;
+        LocalDate until = null;
+        SortedSet<DayOfWeek> byDay = new TreeSet<>();
+        for (String part : body.split(";")) {
+            if (part.isBlank()) continue;
+            int eq = part.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Invalid recurrence rule part: " + part);
+            String key = part.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+            String value = part.substring(eq + 1).trim().toUpperCase(Locale.ROOT);
+            try {
+                switch (key) {
+                    case "FREQ" -> frequency = Frequency.valueOf(value);
+                    case "INTERVAL" -> interval = Integer.parseInt(value);
+                    case "COUNT" -> count = Integer.parseInt(value);
+                    // 只取日期部分，UNTIL=20261231T235959Z 与 UNTIL=20261231 等价
+                    case "UNTIL" -> until = LocalDate.parse(value.length() > 8 ? value.substring(0, 8) : value, UNTIL_FORMAT);
+                    case "BYDAY" -> {
+                        for (String day : value.split(",")) {
+                            DayOfWeek dow = DAYS.get(day.trim());
+                            if (dow == null) throw new IllegalArgumentException("Unsupported BYDAY value: " + day);
+                            byDay.add(dow);
+                        }
+                    }
+                    case "WKST" -> {
+                        if (!"MO".equals(value)) throw new IllegalArgumentException("Only WKST=MO is supported");
+                    }
+                    default -> throw new IllegalArgumentException("Unsupported recurrence rule part: " + key);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid recurrence rule part: " + part);
+            }
+        }
+        if (frequency == null) throw new IllegalArgumentException("Recurrence rule requires FREQ");
+        if (interval < 1 || interval > MAX_INTERVAL) throw new IllegalArgumentException("INTERVAL must be between 1 and " + MAX_INTERVAL);
+        if (count != null && (count < 1 || count > MAX_COUNT)) throw new IllegalArgumentException("COUNT must be between 1 and " + MAX_COUNT);
+        if (count != null && until != null) throw new IllegalArgumentException("COUNT and UNTIL cannot both be set");
+        if (!byDay.isEmpty() && frequency != Frequency.WEEKLY) throw new IllegalArgumentException("BYDAY is only supported with FREQ=WEEKLY");
+        return new RecurrenceRule(frequency, interval, count, until, byDay);
+    }
+
+    /**
+     * 最后一次发生的起始日期的上界，无 COUNT / UNTIL 的无限序列返回 null。
+     * UNTIL 直接返回 UNTIL；COUNT 需要数到最后一次，成本受 MAX_COUNT 约束。
+     */
+    public LocalDate lastStart(LocalDate start) {
+        if (until != null) return until;
+        if (count == null) return null;
+        LocalDate last = start;
+        for (Iterator<LocalDate> it = occurrences(start, start); it.hasNext(); ) last = it.next();
+        return last;
+    }
+
+    /**
+     * 从 start 开始的序列中，起始日期不早于 from 的发生日期，按时间升序惰性生成。
+     * 无限序列的迭代器永远有下一个，调用方必须自行在窗口末尾停止。
+     */
+    public Iterator<LocalDate> occurrences(LocalDate start, LocalDate from) {
+        return new OccurrenceIterator(start, from);
+    }
+
+    /** 规范化的 RRULE 字符串（不带前缀），用于存储 */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FREQ=").append(frequency);
+        if (interval != 1) sb.append(";INTERVAL=").append(interval);
+        if (count != null) sb.append(";COUNT=").append(count);
+        if (until != null) sb.append(";UNTIL=").append(until.format(UNTIL_FORMAT));
+        if (!byDay.isEmpty()) {
+            StringJoiner days = new StringJoiner(",", ";BYDAY=", "");
+            byDay.forEach(d -> days.add(d.name().substring(0, 2)));
+            sb.append(days);
+        }
+        return sb.toString();
+    }
+
+    private final class OccurrenceIterator implements Iterator<LocalDate> {
+
+        private final LocalDate start;
+        private final LocalDate from;
+        /** 当前周期序号，周期 k 覆盖 start 所在周期之后第 k * interval 个周期 */
+        private long period;
+        private int emitted;
+        private final Deque<LocalDate> buffer = new ArrayDeque<>();
+        private boolean exhausted;
+
+        OccurrenceIterator(LocalDate start, LocalDate from) {
+            this.start = start;
+            this.from = from;
+            // 带 COUNT 时必须从第一个周期开始计数；否则直接跳到 from 之前的那个周期
+            this.period = count == null && from.isAfter(start) ? Math.max(0, periodsBetween(start, from) / interval - 1) : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (buffer.isEmpty() && !exhausted) fill();
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public LocalDate next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return buffer.poll();
+        }
+
+        private void fill() {
+            for (LocalDate candidate : candidates(period++)) {
+                if (candidate.isBefore(start)) continue;
+                if ((until != null && candidate.isAfter(until)) || (count != null && emitted >= count)) {
+                    exhausted = true;
+                    return;
+                }
+                emitted++;
+                if (!candidate.isBefore(from)) buffer.add(candidate);
+            }
+        }
+
+        /** 周期 k 内的候选日期，升序；当月没有对应日期时为空 */
+        private List<LocalDate> candidates(long k) {
+            long step = k * interval;
+            return switch (frequency) {
+                case DAILY -> List.of(start.plusDays(step));
+                case WEEKLY -> {
+                    LocalDate monday = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).plusWeeks(step);
+                    if (byDay.isEmpty()) yield List.of(monday.plusDays(start.getDayOfWeek().ordinal()));
+                    List<LocalDate> days = new ArrayList<>(byDay.size());
+                    for (DayOfWeek d : byDay) days.add(monday.plusDays(d.ordinal()));
+                    yield days;
+                }
+                case MONTHLY -> {
+                    YearMonth month = YearMonth.from(start).plusMonths(step);
+                    yield month.isValidDay(start.getDayOfMonth()) ? List.of(month.atDay(start.getDayOfMonth())) : List.of();
+                }
+                case YEARLY -> {
+                    YearMonth month = YearMonth.from(start).plusYears(step);
+                    yield month.isValidDay(start.getDayOfMonth()) ? List.of(month.atDay(start.getDayOfMonth())) : List.of();
+                }
+            };
+        }
+
+        private long periodsBetween(LocalDate a, LocalDate b) {
+            return switch (frequency) {
+                case DAILY -> ChronoUnit.DAYS.between(a, b);
+                case WEEKLY -> ChronoUnit.WEEKS.between(a.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)),
+                        b.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)));
+                case MONTHLY -> ChronoUnit.MONTHS.between(YearMonth.from(a), YearMonth.from(b));
+                case YEARLY -> ChronoUnit.YEARS.between(YearMonth.from(a), YearMonth.from(b));
+            };
+        }
+    }
+}
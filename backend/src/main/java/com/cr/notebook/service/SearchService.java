@@ -0,0 +1,37 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.dto.SearchResultDTO;
+import com.cr.notebook.search.NoteSearchEngine;
+import com.cr.notebook.search.SearchDocType;
+import com.cr.notebook.search.SearchIndexer;
+import com.cr.notebook.tenant.TenantContext;
+import com.cr.notebook.tenant.TenantType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 全文搜索入口：在当前租户内检索笔记和日记，返回按相关度排序、带高亮片段的分页结果。
+ */
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    /** 单页条数上限 */
+    public static final int MAX_PAGE_SIZE = 50;
+
+    private final NoteSearchEngine searchEngine;
+    private final SearchIndexer searchIndexer;
+
+    public SearchResultDTO search(String query, SearchDocType type, int offset, int limit) {
+        if (query == null || query.isBlank()) return new SearchResultDTO(0, List.of());
+        Long tenantId = TenantContext.getTenantId();
+        TenantType tenantType = TenantContext.getTenantType();
+        if (searchEngine.needsRebuild(tenantId, tenantType)) {
+            searchIndexer.rebuildTenant(tenantId, tenantType);
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return searchEngine.search(tenantId, tenantType, query.trim(), type, Math.max(0, offset), pageSize);
+    }
+}
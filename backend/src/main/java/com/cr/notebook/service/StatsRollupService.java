@@ -0,0 +1,132 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.*;
+import com.cr.notebook.mapper.TenantDailyStatsMapper;
+import com.cr.notebook.mapper.TenantStatsTotalsMapper;
+import com.cr.notebook.tenant.TenantType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 维护 tenant_daily_stats（按天）与 tenant_stats_totals（总数）两张汇总表。
+ * 各实体的增删改在各自事务内调用 record* 方法增量更新计数，
+ * 统计接口只需读取 O(天数) 行加一行总数；计数漂移由 StatsRollupReconciler 按租户定期修复。
+ * 按天口径与统计页一致：按实体的创建日期归档。
+ */
+@Service
+@RequiredArgsConstructor
+public class StatsRollupService {
+
+    private final TenantDailyStatsMapper tenantDailyStatsMapper;
+    private final TenantStatsTotalsMapper tenantStatsTotalsMapper;
+
+    public void recordNoteCreated(Note note) {
+        apply(note, 1, 0, 0);
+    }
+
+    public void recordNoteDeleted(Note note) {
+        apply(note, -1, 0, 0);
+    }
+
+    public void recordTaskCreated(Task task) {
+        apply(task, 0, 1, Boolean.TRUE.equals(task.getCompleted()) ? 1 : 0);
+    }
+
+    public void recordTaskDeleted(Task task) {
+        apply(task, 0, -1, Boolean.TRUE.equals(task.getCompleted()) ? -1 : 0);
+    }
+
+    /** 任务完成状态切换时调整“当日创建且已完成”计数，未变化则不写库。 */
+    public void recordTaskCompletionChanged(Task task, boolean wasCompleted) {
+        boolean completed = Boolean.TRUE.equals(task.getCompleted());
+        if (completed == wasCompleted) return;
+        apply(task, 0, 0, completed ? 1 : -1);
+    }
+
+    public void recordFolderCreated(Folder folder) {
+        tenantStatsTotalsMapper.increment(delta(folder.getTenantId(), folder.getTenantType()).folderCount(1).build());
+    }
+
+    /** 删除文件夹子树时按实际删除的行数扣减 */
+    public void recordFoldersDeleted(Long tenantId, TenantType tenantType, int count) {
+        if (count == 0) return;
+        tenantStatsTotalsMapper.increment(delta(tenantId, tenantType).folderCount(-count).build());
+    }
+
+    /** 日记行在第一次保存时才创建，由 DailyNoteService 在创建它的那次写入成功后调用 */
+    public void recordDailyNoteCreated(DailyNote note) {
+        tenantStatsTotalsMapper.increment(delta(note.getTenantId(), note.getTenantType()).dailyNoteCount(1).build());
+    }
+
+    /** 清理空日记时按实际删除的行数扣减 */
+    public void recordDailyNotesDeleted(Long tenantId, TenantType tenantType, int count) {
+        if (count == 0) return;
+        tenantStatsTotalsMapper.increment(delta(tenantId, tenantType).dailyNoteCount(-count).build());
+    }
+
+    public void recordCalendarEventCreated(CalendarEvent event) {
+        tenantStatsTotalsMapper.increment(delta(event.getTenantId(), event.getTenantType()).calendarEventCount(1).build());
+    }
+
+    public void recordCalendarEventDeleted(CalendarEvent event) {
+        tenantStatsTotalsMapper.increment(delta(event.getTenantId(), event.getTenantType()).calendarEventCount(-1).build());
+    }
+
+    public void recordWhiteboardCreated(Whiteboard whiteboard) {
+        tenantStatsTotalsMapper.increment(delta(whiteboard.getTenantId(), whiteboard.getTenantType()).whiteboardCount(1).build());
+    }
+
+    public void recordWhiteboardDeleted(Whiteboard whiteboard) {
+        tenantStatsTotalsMapper.increment(delta(whiteboard.getTenantId(), whiteboard.getTenantType()).whiteboardCount(-1).build());
+    }
+
+    public List<TenantDailyStats> listRange(Long tenantId, TenantType tenantType, LocalDate from, LocalDate to) {
+        return tenantDailyStatsMapper.selectRange(tenantId, tenantType, from, to);
+    }
+
+    /**
+     * 用实体表重算一个租户最近 days 天（含今天）的按天汇总及全部总数，覆盖增量维护产生的偏差。
+     * 先对该租户的总数行做零增量 upsert：既保证行存在，又对其加排他锁直到提交。
+     * 所有 record* 都会更新同一行，因此在此之前已写入的事务会先提交、其结果能被重算看到；
+     * 之后的写入会等待对账提交再叠加增量，不会被删除重建覆盖，也不会被重复计数。
+     * READ_COMMITTED 保证加锁后的重算读到的是最新已提交数据，而不是事务开始时的快照。
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public int reconcileTenant(Long tenantId, TenantType tenantType, int days) {
+        tenantStatsTotalsMapper.increment(delta(tenantId, tenantType).build());
+
+        LocalDate from = LocalDate.now().minusDays(Math.max(1, days) - 1L);
+        LocalDate to = LocalDate.now().plusDays(1);
+        tenantDailyStatsMapper.deleteRange(tenantId, tenantType, from, to);
+        int rows = tenantDailyStatsMapper.rebuildRange(tenantId, tenantType, from.atStartOfDay(), to.atStartOfDay());
+
+        tenantStatsTotalsMapper.overwrite(tenantStatsTotalsMapper.countFromEntities(tenantId, tenantType));
+        return rows;
+    }
+
+    /** 列出 afterId 之后的一批租户，供对账任务按 tenant_id 分批遍历 */
+    public List<Long> listTenantIds(TenantType tenantType, Long afterId, int limit) {
+        return tenantStatsTotalsMapper.selectTenantIds(tenantType, afterId, limit);
+    }
+
+    private void apply(TenantAwareEntity entity, int noteDelta, int taskDelta, int completedDelta) {
+        // 先更新总数行：与 reconcileTenant 的加锁顺序一致（总数行在前、按天行在后），避免互相等待成死锁
+        tenantStatsTotalsMapper.increment(delta(entity.getTenantId(), entity.getTenantType())
+                .noteCount(noteDelta)
+                .taskCount(taskDelta)
+                .taskCompletedCount(completedDelta)
+                .build());
+        LocalDate statDate = entity.getCreatedAt() != null ? entity.getCreatedAt().toLocalDate() : LocalDate.now();
+        tenantDailyStatsMapper.increment(entity.getTenantId(), entity.getTenantType(), statDate,
+                noteDelta, taskDelta, completedDelta);
+    }
+
+    private static TenantStatsTotals.TenantStatsTotalsBuilder delta(Long tenantId, TenantType tenantType) {
+        return TenantStatsTotals.builder().tenantId(tenantId).tenantType(tenantType);
+    }
+}
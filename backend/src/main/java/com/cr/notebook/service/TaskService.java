@@ -1,29 +1,143 @@
 package com.cr.notebook.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cr.notebook.dto.CursorPage;
+import com.cr.notebook.dto.TaskCountsDTO;
 import com.cr.notebook.dto.TaskDTO;
+import com.cr.notebook.dto.TaskQuery;
 import com.cr.notebook.entity.Task;
 import com.cr.notebook.mapper.TaskMapper;
 import com.cr.notebook.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
 public class TaskService {
 
+    static final int MAX_PAGE_SIZE = 200;
+
+    private static final String SORT_CREATED = "created";
+    private static final String SORT_DUE = "due";
+    /** 按截止日期分页时游标所在的阶段：先翻有截止日期的任务，再翻没有截止日期的 */
+    private static final String PHASE_DATED = "d";
+    private static final String PHASE_UNDATED = "n";
+    private static final Set<String> PRIORITIES = Set.of("HIGH", "MEDIUM", "LOW");
+
     private final TaskMapper taskMapper;
+    private final StatsRollupService statsRollupService;
+
+    /** 按条件筛选的完整列表；不带条件时即租户的全部任务 */
+    public List<TaskDTO> listTasks(TaskQuery query) {
+        String sort = sortOf(query);
+        if (SORT_DUE.equals(sort)) {
+            List<Task> rows = new ArrayList<>(selectDated(query, null, null, null));
+            if (mayHaveUndated(query)) rows.addAll(selectUndated(query, null, null));
+            return rows.stream().map(TaskService::toDTO).toList();
+        }
+        LambdaQueryWrapper<Task> wrapper = filter(query);
+        orderByCreated(wrapper, null);
+        return taskMapper.selectList(wrapper).stream().map(TaskService::toDTO).toList();
+    }
+
+    /**
+     * 游标分页，语义同 NoteService#listNoteSummaries：多取一条判断是否还有下一页。
+     * 游标第一段记录排序方式，换了排序方式再传旧游标视为非法。
+     */
+    public CursorPage<TaskDTO> listTaskPage(TaskQuery query, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (SORT_DUE.equals(sortOf(query))) return listDuePage(query, cursor, pageSize);
+
+        LambdaQueryWrapper<Task> wrapper = filter(query);
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = CursorPage.decodeCursor(cursor, 3);
+            if (!SORT_CREATED.equals(keys[0])) throw new IllegalArgumentException("Invalid cursor");
+            try {
+                afterCreated(wrapper, LocalDateTime.parse(keys[1]), Long.parseLong(keys[2]));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        orderByCreated(wrapper, pageSize + 1);
+
+        List<Task> rows = taskMapper.selectList(wrapper);
+        boolean hasMore = rows.size() > pageSize;
+        List<Task> page = hasMore ? rows.subList(0, pageSize) : rows;
 
-    public List<TaskDTO> listTasks() {
-        List<Task> tasks = taskMapper.selectList(
-                new LambdaQueryWrapper<Task>()
-                        .eq(Task::getTenantId, TenantContext.getTenantId())
-                        .eq(Task::getTenantType, TenantContext.getTenantType())
-                        .orderByDesc(Task::getCreatedAt));
-        return tasks.stream().map(this::toDTO).toList();
+        String nextCursor = null;
+        if (hasMore) {
+            Task last = page.get(page.size() - 1);
+            nextCursor = CursorPage.encodeCursor(SORT_CREATED, last.getCreatedAt(), last.getId());
+        }
+        return new CursorPage<>(page.stream().map(TaskService::toDTO).toList(), nextCursor);
+    }
+
+    /**
+     * 按截止日期升序分页，无截止日期的排最后。两段分别查询：有截止日期的按 (due_date, id)、
+     * 没有的按 id，各自都是索引上的有序范围扫描，不需要 ORDER BY due_date IS NULL 这种只能 filesort 的排序键。
+     * 前一段不足一页时用后一段补齐；游标为 (due, 阶段, 截止日期, id)，阶段决定从哪一段继续。
+     */
+    private CursorPage<TaskDTO> listDuePage(TaskQuery query, String cursor, int pageSize) {
+        String phase = PHASE_DATED;
+        LocalDate dueDate = null;
+        Long id = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = CursorPage.decodeCursor(cursor, 4);
+            if (!SORT_DUE.equals(keys[0])) throw new IllegalArgumentException("Invalid cursor");
+            phase = keys[1];
+            try {
+                id = Long.parseLong(keys[3]);
+                if (PHASE_DATED.equals(phase)) dueDate = LocalDate.parse(keys[2]);
+                else if (!PHASE_UNDATED.equals(phase)) throw new IllegalArgumentException("Invalid cursor");
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        List<Task> rows = new ArrayList<>(pageSize + 1);
+        if (PHASE_DATED.equals(phase)) rows.addAll(selectDated(query, dueDate, id, pageSize + 1));
+        if (rows.size() <= pageSize && mayHaveUndated(query)) {
+            rows.addAll(selectUndated(query, PHASE_UNDATED.equals(phase) ? id : null, pageSize + 1 - rows.size()));
+        }
+        boolean hasMore = rows.size() > pageSize;
+        List<Task> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            Task last = page.get(page.size() - 1);
+            nextCursor = last.getDueDate() != null
+                    ? CursorPage.encodeCursor(SORT_DUE, PHASE_DATED, last.getDueDate(), last.getId())
+                    : CursorPage.encodeCursor(SORT_DUE, PHASE_UNDATED, "", last.getId());
+        }
+        return new CursorPage<>(page.stream().map(TaskService::toDTO).toList(), nextCursor);
+    }
+
+    /** 侧边栏计数：一次分组查询，只扫 (tenant_id, tenant_type, completed, due_date) 索引 */
+    public TaskCountsDTO countTasks() {
+        TaskCountsDTO counts = new TaskCountsDTO();
+        for (TaskMapper.StatusCountRow row : taskMapper.countByStatus(
+                TenantContext.getTenantId(), TenantContext.getTenantType(), LocalDate.now())) {
+            counts.setTotal(counts.getTotal() + row.getTotal());
+            if (Boolean.TRUE.equals(row.getCompleted())) {
+                counts.setCompleted(counts.getCompleted() + row.getTotal());
+            } else {
+                // completed 为 NULL 的旧数据按未完成计
+                counts.setPending(counts.getPending() + row.getTotal());
+                counts.setDueToday(counts.getDueToday() + row.getDueToday());
+                counts.setOverdue(counts.getOverdue() + row.getOverdue());
+            }
+        }
+        return counts;
     }
 
     @Transactional
@@ -38,27 +152,107 @@ public class TaskService {
         task.setTenantId(TenantContext.getTenantId());
         task.setTenantType(TenantContext.getTenantType());
         taskMapper.insert(task);
+        statsRollupService.recordTaskCreated(task);
         return toDTO(task);
     }
 
     @Transactional
-    public TaskDTO updateTask(Long id, TaskDTO dto) {
+    public TaskDTO updateTask(Long id, TaskDTO dto, Integer expectedVersion) {
         Task task = taskMapper.selectById(id);
         if (task == null) throw new IllegalArgumentException("Task not found");
+        if (expectedVersion != null && !expectedVersion.equals(task.getVersion())) {
+            throw new OptimisticLockingFailureException("Task has been modified, current version " + task.getVersion());
+        }
+        boolean wasCompleted = Boolean.TRUE.equals(task.getCompleted());
         if (dto.getContent() != null) task.setContent(dto.getContent());
         if (dto.getCompleted() != null) task.setCompleted(dto.getCompleted());
         if (dto.getPriority() != null) task.setPriority(dto.getPriority());
         if (dto.getDueDate() != null) task.setDueDate(dto.getDueDate());
-        taskMapper.updateById(task);
+        if (taskMapper.updateById(task) == 0) {
+            throw new OptimisticLockingFailureException("Task has been modified concurrently");
+        }
+        statsRollupService.recordTaskCompletionChanged(task, wasCompleted);
         return toDTO(task);
     }
 
     @Transactional
     public void deleteTask(Long id) {
+        // 需要原记录的创建日期和完成状态来回退统计汇总。
+        Task task = taskMapper.selectById(id);
+        if (task == null) return;
         taskMapper.deleteById(id);
+        statsRollupService.recordTaskDeleted(task);
+    }
+
+    private static LambdaQueryWrapper<Task> filter(TaskQuery query) {
+        String priority = query.getPriority() != null ? query.getPriority().trim().toUpperCase(Locale.ROOT) : null;
+        if (priority != null && !PRIORITIES.contains(priority)) {
+            throw new IllegalArgumentException("Unknown priority: " + query.getPriority());
+        }
+        if (query.getDueFrom() != null && query.getDueTo() != null && query.getDueFrom().isAfter(query.getDueTo())) {
+            throw new IllegalArgumentException("dueFrom must not be after dueTo");
+        }
+        LambdaQueryWrapper<Task> wrapper = new LambdaQueryWrapper<Task>()
+                .eq(Task::getTenantId, TenantContext.getTenantId())
+                .eq(Task::getTenantType, TenantContext.getTenantType())
+                .eq(query.getNoteId() != null, Task::getNoteId, query.getNoteId())
+                .eq(priority != null, Task::getPriority, priority)
+                .ge(query.getDueFrom() != null, Task::getDueDate, query.getDueFrom())
+                .le(query.getDueTo() != null, Task::getDueDate, query.getDueTo());
+        if (Boolean.TRUE.equals(query.getCompleted())) {
+            wrapper.eq(Task::getCompleted, true);
+        } else if (Boolean.FALSE.equals(query.getCompleted())) {
+            wrapper.and(w -> w.eq(Task::getCompleted, false).or().isNull(Task::getCompleted));
+        }
+        return wrapper;
+    }
+
+    private static String sortOf(TaskQuery query) {
+        String sort = query.getSort();
+        if (sort == null || sort.isEmpty() || SORT_CREATED.equals(sort)) return SORT_CREATED;
+        if (SORT_DUE.equals(sort)) return SORT_DUE;
+        throw new IllegalArgumentException("Unknown sort: " + sort);
+    }
+
+    /** created_at DESC, id DESC，走 idx_task_list */
+    private static void orderByCreated(LambdaQueryWrapper<Task> wrapper, Integer limit) {
+        wrapper.orderByDesc(Task::getCreatedAt).orderByDesc(Task::getId);
+        if (limit != null) wrapper.last("LIMIT " + limit);
+    }
+
+    /** 位于游标之后：更早创建，或同一时刻 id 更小 */
+    private static void afterCreated(LambdaQueryWrapper<Task> wrapper, LocalDateTime createdAt, long id) {
+        wrapper.and(w -> w.lt(Task::getCreatedAt, createdAt)
+                .or(x -> x.eq(Task::getCreatedAt, createdAt).lt(Task::getId, id)));
+    }
+
+    /** 有截止日期的任务，按 (due_date, id) 升序；dueDate 非空时只取游标之后的 */
+    private List<Task> selectDated(TaskQuery query, LocalDate dueDate, Long id, Integer limit) {
+        LambdaQueryWrapper<Task> wrapper = filter(query).isNotNull(Task::getDueDate);
+        if (dueDate != null) {
+            wrapper.and(w -> w.gt(Task::getDueDate, dueDate)
+                    .or(x -> x.eq(Task::getDueDate, dueDate).gt(Task::getId, id)));
+        }
+        wrapper.orderByAsc(Task::getDueDate).orderByAsc(Task::getId);
+        if (limit != null) wrapper.last("LIMIT " + limit);
+        return taskMapper.selectList(wrapper);
+    }
+
+    /** 没有截止日期的任务，按 id 升序；afterId 非空时只取游标之后的 */
+    private List<Task> selectUndated(TaskQuery query, Long afterId, Integer limit) {
+        LambdaQueryWrapper<Task> wrapper = filter(query).isNull(Task::getDueDate)
+                .gt(afterId != null, Task::getId, afterId)
+                .orderByAsc(Task::getId);
+        if (limit != null) wrapper.last("LIMIT " + limit);
+        return taskMapper.selectList(wrapper);
+    }
+
+    /** 带截止日期范围条件时不可能命中无截止日期的任务，省掉第二段查询 */
+    private static boolean mayHaveUndated(TaskQuery query) {
+        return query.getDueFrom() == null && query.getDueTo() == null;
     }
 
-    private TaskDTO toDTO(Task t) {
+    private static TaskDTO toDTO(Task t) {
         TaskDTO dto = new TaskDTO();
         dto.setId(t.getId());
         dto.setNoteId(t.getNoteId());
@@ -66,6 +260,7 @@ public class TaskService {
         dto.setCompleted(t.getCompleted());
         dto.setPriority(t.getPriority());
         dto.setDueDate(t.getDueDate());
+        dto.setVersion(t.getVersion());
         dto.setCreatedAt(t.getCreatedAt());
         dto.setUpdatedAt(t.getUpdatedAt());
         return dto;
@@ -1,25 +1,55 @@
 package com.cr.notebook.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cr.notebook.dto.CursorPage;
 import com.cr.notebook.dto.WhiteboardDTO;
+import com.cr.notebook.dto.WhiteboardStrokeDTO;
 import com.cr.notebook.entity.Whiteboard;
+import com.cr.notebook.entity.WhiteboardStroke;
 import com.cr.notebook.mapper.WhiteboardMapper;
+import com.cr.notebook.mapper.WhiteboardStrokeMapper;
 import com.cr.notebook.tenant.TenantContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 白板服务。
+ * 笔画以追加日志（whiteboard_stroke）的形式逐条写入，whiteboard.data 保存压缩后的快照，
+ * 格式为 [{"id":笔画id,"data":笔画JSON}, ...]。旧版本整体写入的笔画数组没有 id，
+ * 读取时按位置分配负数 id，快照下一次被重写时随新格式一起落库。
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class WhiteboardService {
 
+    static final int MAX_STROKE_PAGE_SIZE = 1000;
+
+    private static final String PHASE_SNAPSHOT = "s";
+    private static final String PHASE_LOG = "l";
+
     private final WhiteboardMapper whiteboardMapper;
+    private final WhiteboardStrokeMapper strokeMapper;
+    private final ObjectMapper objectMapper;
+    private final WhiteboardSnapshotCache snapshotCache;
+    private final StatsRollupService statsRollupService;
 
+    /** 列表不返回 data，笔画通过 listStrokes 分页加载 */
     public List<WhiteboardDTO> listWhiteboards() {
         List<Whiteboard> whiteboards = whiteboardMapper.selectList(
                 new LambdaQueryWrapper<Whiteboard>()
+                        .select(Whiteboard.class, f -> !"data".equals(f.getProperty()))
                         .eq(Whiteboard::getTenantId, TenantContext.getTenantId())
                         .eq(Whiteboard::getTenantType, TenantContext.getTenantType())
                         .orderByDesc(Whiteboard::getUpdatedAt));
@@ -35,19 +65,30 @@ public class WhiteboardService {
         whiteboard.setTenantId(TenantContext.getTenantId());
         whiteboard.setTenantType(TenantContext.getTenantType());
         whiteboardMapper.insert(whiteboard);
+        statsRollupService.recordWhiteboardCreated(whiteboard);
         return toDTO(whiteboard);
     }
 
+    /**
+     * expectedVersion 来自 If-Match，不一致或并发写入时返回 409。
+     * 提交 data 表示整体替换快照，同时清空尚未压缩的笔画日志。
+     */
     @Transactional
-    public WhiteboardDTO updateWhiteboard(Long id, WhiteboardDTO dto) {
+    public WhiteboardDTO updateWhiteboard(Long id, WhiteboardDTO dto, Integer expectedVersion) {
         Whiteboard whiteboard = whiteboardMapper.selectById(id);
         if (whiteboard == null) throw new IllegalArgumentException("Whiteboard not found");
         checkTenant(whiteboard);
+        if (expectedVersion != null && !expectedVersion.equals(whiteboard.getVersion())) {
+            throw new OptimisticLockingFailureException("Whiteboard has been modified, current version " + whiteboard.getVersion());
+        }
 
         if (dto.getTitle() != null) whiteboard.setTitle(dto.getTitle());
         if (dto.getData() != null) whiteboard.setData(dto.getData());
 
-        whiteboardMapper.updateById(whiteboard);
+        if (whiteboardMapper.updateById(whiteboard) == 0) {
+            throw new OptimisticLockingFailureException("Whiteboard has been modified concurrently");
+        }
+        if (dto.getData() != null) deleteLog(id);
         return toDTO(whiteboard);
     }
 
@@ -57,6 +98,216 @@ public class WhiteboardService {
         if (whiteboard == null) throw new IllegalArgumentException("Whiteboard not found");
         checkTenant(whiteboard);
         whiteboardMapper.deleteById(id);
+        statsRollupService.recordWhiteboardDeleted(whiteboard);
+        deleteLog(id);
+    }
+
+    /**
+     * 按顺序分页读取笔画：先快照、后日志。游标中带白板版本号，
+     * 翻页期间发生压缩或整体替换时返回 409，客户端应从头重新加载。
+     */
+    public CursorPage<WhiteboardStrokeDTO> listStrokes(Long id, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_STROKE_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_STROKE_PAGE_SIZE);
+        }
+        Integer version = null;
+        String phase = PHASE_SNAPSHOT;
+        long position = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] keys = CursorPage.decodeCursor(cursor, 3);
+            try {
+                version = Integer.valueOf(keys[0]);
+                position = Long.parseLong(keys[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            phase = keys[1];
+            if (!PHASE_SNAPSHOT.equals(phase) && !PHASE_LOG.equals(phase)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+
+        // 先只读权限和版本；快照正文按 (id, 版本) 缓存，翻页时不再重复加载和解析
+        Whiteboard whiteboard = selectHeader(id);
+        if (whiteboard == null) throw new IllegalArgumentException("Whiteboard not found");
+        checkTenant(whiteboard);
+        if (version != null && !version.equals(whiteboard.getVersion())) {
+            throw new OptimisticLockingFailureException("Whiteboard has been rewritten, reload strokes");
+        }
+
+        List<WhiteboardStrokeDTO> items = new ArrayList<>();
+        long afterId = position;
+        if (PHASE_SNAPSHOT.equals(phase)) {
+            Integer current = whiteboard.getVersion();
+            List<WhiteboardStrokeDTO> snapshot = snapshotCache.get(id, current, () -> loadSnapshot(id, current));
+            int from = (int) Math.min(position, snapshot.size());
+            int to = Math.min(snapshot.size(), from + limit);
+            items.addAll(snapshot.subList(from, to));
+            if (to < snapshot.size()) {
+                return new CursorPage<>(items, CursorPage.encodeCursor(whiteboard.getVersion(), PHASE_SNAPSHOT, to));
+            }
+            afterId = 0;
+        }
+
+        int remaining = limit - items.size();
+        if (remaining == 0) {
+            return new CursorPage<>(items, CursorPage.encodeCursor(whiteboard.getVersion(), PHASE_LOG, afterId));
+        }
+        List<WhiteboardStroke> rows = strokeMapper.selectList(
+                new LambdaQueryWrapper<WhiteboardStroke>()
+                        .eq(WhiteboardStroke::getWhiteboardId, id)
+                        .gt(WhiteboardStroke::getId, afterId)
+                        .orderByAsc(WhiteboardStroke::getId)
+                        .last("LIMIT " + (remaining + 1)));
+        boolean hasMore = rows.size() > remaining;
+        List<WhiteboardStroke> page = hasMore ? rows.subList(0, remaining) : rows;
+        page.forEach(r -> items.add(new WhiteboardStrokeDTO(r.getId(), r.getData())));
+        String nextCursor = hasMore
+                ? CursorPage.encodeCursor(whiteboard.getVersion(), PHASE_LOG, page.get(page.size() - 1).getId())
+                : null;
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    /** 追加一笔：只插入一行日志，不读写快照 */
+    @Transactional
+    public WhiteboardStrokeDTO addStroke(Long id, JsonNode stroke) {
+        if (stroke == null || !stroke.isObject()) throw new IllegalArgumentException("Stroke must be a JSON object");
+        Whiteboard whiteboard = selectHeader(id);
+        if (whiteboard == null) throw new IllegalArgumentException("Whiteboard not found");
+        checkTenant(whiteboard);
+
+        WhiteboardStroke row = WhiteboardStroke.builder().whiteboardId(id).data(stroke.toString()).build();
+        strokeMapper.insert(row);
+        return new WhiteboardStrokeDTO(row.getId(), row.getData());
+    }
+
+    /** 删除一笔（撤销）：仍在日志中时删一行；已压缩进快照时重写快照 */
+    @Transactional
+    public void removeStroke(Long id, Long strokeId) {
+        Whiteboard header = selectHeader(id);
+        if (header == null) throw new IllegalArgumentException("Whiteboard not found");
+        checkTenant(header);
+        int deleted = strokeMapper.delete(new LambdaQueryWrapper<WhiteboardStroke>()
+                .eq(WhiteboardStroke::getId, strokeId)
+                .eq(WhiteboardStroke::getWhiteboardId, id));
+        if (deleted > 0) return;
+
+        Whiteboard whiteboard = whiteboardMapper.selectById(id);
+        List<WhiteboardStrokeDTO> snapshot = readSnapshot(whiteboard.getData());
+        if (!snapshot.removeIf(s -> s.getId().equals(strokeId))) {
+            throw new IllegalArgumentException("Stroke not found");
+        }
+        whiteboard.setData(writeSnapshot(snapshot));
+        if (whiteboardMapper.updateById(whiteboard) == 0) {
+            throw new OptimisticLockingFailureException("Whiteboard has been modified concurrently");
+        }
+    }
+
+    /** 清空画布：删除日志并把快照置为空数组 */
+    @Transactional
+    public void clearStrokes(Long id) {
+        Whiteboard header = selectHeader(id);
+        if (header == null) throw new IllegalArgumentException("Whiteboard not found");
+        checkTenant(header);
+        deleteLog(id);
+        whiteboardMapper.update(new LambdaUpdateWrapper<Whiteboard>()
+                .set(Whiteboard::getData, "[]")
+                .set(Whiteboard::getUpdatedAt, LocalDateTime.now())
+                .setSql("version = version + 1")
+                .eq(Whiteboard::getId, id));
+    }
+
+    /** 日志条数超过阈值的白板，供压缩任务使用 */
+    public List<Long> findCompactionCandidates(int threshold) {
+        return strokeMapper.selectWhiteboardsToCompact(threshold);
+    }
+
+    /**
+     * 把白板的笔画日志按 id 顺序合并进快照并删除已合并的行，返回合并条数。
+     * 由后台任务调用，不依赖租户上下文；快照被并发改写或日志行被并发撤销时抛出 OptimisticLockingFailureException，整体回滚。
+     */
+    @Transactional
+    public int compactStrokes(Long id) {
+        Whiteboard whiteboard = whiteboardMapper.selectById(id);
+        if (whiteboard == null) {
+            // 白板已删除，清理遗留日志
+            deleteLog(id);
+            return 0;
+        }
+        List<WhiteboardStroke> rows = strokeMapper.selectList(
+                new LambdaQueryWrapper<WhiteboardStroke>()
+                        .eq(WhiteboardStroke::getWhiteboardId, id)
+                        .orderByAsc(WhiteboardStroke::getId));
+        if (rows.isEmpty()) return 0;
+
+        List<WhiteboardStrokeDTO> snapshot = readSnapshot(whiteboard.getData());
+        rows.forEach(r -> snapshot.add(new WhiteboardStrokeDTO(r.getId(), r.getData())));
+        whiteboard.setData(writeSnapshot(snapshot));
+        if (whiteboardMapper.updateById(whiteboard) == 0) {
+            throw new OptimisticLockingFailureException("Whiteboard has been modified concurrently");
+        }
+        // 只删除本次读到的行，压缩期间新追加的笔画留给下一轮；
+        // 读取后有行被撤销时删除条数会变少，此时整体回滚，避免把已撤销的笔画写回快照
+        int deleted = strokeMapper.delete(new LambdaQueryWrapper<WhiteboardStroke>()
+                .in(WhiteboardStroke::getId, rows.stream().map(WhiteboardStroke::getId).toList()));
+        if (deleted != rows.size()) {
+            throw new OptimisticLockingFailureException("Whiteboard strokes were removed during compaction");
+        }
+        return rows.size();
+    }
+
+    /** 读取并解析指定版本的快照；两次查询之间快照被改写时返回 409，避免把新内容缓存在旧版本下 */
+    private List<WhiteboardStrokeDTO> loadSnapshot(Long id, Integer version) {
+        Whiteboard whiteboard = whiteboardMapper.selectById(id);
+        if (whiteboard == null || !version.equals(whiteboard.getVersion())) {
+            throw new OptimisticLockingFailureException("Whiteboard has been rewritten, reload strokes");
+        }
+        return readSnapshot(whiteboard.getData());
+    }
+
+    List<WhiteboardStrokeDTO> readSnapshot(String data) {
+        List<WhiteboardStrokeDTO> strokes = new ArrayList<>();
+        if (data == null || data.isBlank()) return strokes;
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(data);
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring unreadable whiteboard snapshot: {}", e.getOriginalMessage());
+            return strokes;
+        }
+        if (!root.isArray()) return strokes;
+        for (int i = 0; i < root.size(); i++) {
+            JsonNode entry = root.get(i);
+            if (entry.has("id") && entry.has("data")) {
+                strokes.add(new WhiteboardStrokeDTO(entry.get("id").asLong(), entry.get("data").toString()));
+            } else {
+                // 旧格式：数组元素直接是笔画
+                strokes.add(new WhiteboardStrokeDTO(-(i + 1L), entry.toString()));
+            }
+        }
+        return strokes;
+    }
+
+    /** 笔画 data 均为合法 JSON，直接拼接，避免再次解析 */
+    static String writeSnapshot(List<WhiteboardStrokeDTO> strokes) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < strokes.size(); i++) {
+            if (i > 0) sb.append(',');
+            WhiteboardStrokeDTO s = strokes.get(i);
+            sb.append("{\"id\":").append(s.getId()).append(",\"data\":").append(s.getData()).append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    private Whiteboard selectHeader(Long id) {
+        return whiteboardMapper.selectOne(new LambdaQueryWrapper<Whiteboard>()
+                .select(Whiteboard::getId, Whiteboard::getTenantId, Whiteboard::getTenantType, Whiteboard::getVersion)
+                .eq(Whiteboard::getId, id));
+    }
+
+    private void deleteLog(Long whiteboardId) {
+        strokeMapper.delete(new LambdaQueryWrapper<WhiteboardStroke>()
+                .eq(WhiteboardStroke::getWhiteboardId, whiteboardId));
     }
 
     private void checkTenant(Whiteboard whiteboard) {
@@ -71,6 +322,7 @@ public class WhiteboardService {
         dto.setId(w.getId());
         dto.setTitle(w.getTitle());
         dto.setData(w.getData());
+        dto.setVersion(w.getVersion());
         dto.setCreatedAt(w.getCreatedAt());
         dto.setUpdatedAt(w.getUpdatedAt());
         return dto;
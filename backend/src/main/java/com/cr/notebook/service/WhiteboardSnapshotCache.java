@@ -0,0 +1,43 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.dto.WhiteboardStrokeDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 按 (白板, 版本) 缓存解析后的快照笔画，分页读取快照时每页只做一次缓存查找，
+ * 不再重复加载和解析整个 data 列。快照的每次改写都会递增版本号，旧条目自然不再命中，无需主动失效。
+ * 容量按笔画 JSON 的字符数计重。
+ */
+@Component
+public class WhiteboardSnapshotCache {
+
+    private final Cache<String, List<WhiteboardStrokeDTO>> cache;
+
+    public WhiteboardSnapshotCache(@Value("${app.whiteboard.snapshot-cache.max-chars:16777216}") long maxChars) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxChars)
+                .<String, List<WhiteboardStrokeDTO>>weigher((k, strokes) -> {
+                    long chars = strokes.size();
+                    for (WhiteboardStrokeDTO s : strokes) chars += s.getData().length();
+                    return (int) Math.min(Integer.MAX_VALUE, chars);
+                })
+                .recordStats()
+                .build();
+    }
+
+    /** 返回不可修改的快照笔画列表，未命中时由 loader 加载并解析 */
+    public List<WhiteboardStrokeDTO> get(Long whiteboardId, Integer version, Supplier<List<WhiteboardStrokeDTO>> loader) {
+        return cache.get(whiteboardId + ":" + version, k -> List.copyOf(loader.get()));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,96 @@
+package com.cr.notebook.tenant;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cr.notebook.datasource.RoutingContext;
+import com.cr.notebook.entity.OrgMember;
+import com.cr.notebook.mapper.OrgMemberMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * 组织成员身份 / 角色解析，按 (userId, orgId) 缓存，非成员同样缓存以挡住重复探测。
+ * 成员增删、角色变更时由 OrganizationService 主动失效；TTL 兜底绕过服务层的改动。
+ */
+@Component
+public class OrgMembershipResolver {
+
+    /** 缓存中表示“不是成员”的占位值 */
+    private static final String NONE = "";
+
+    private final OrgMemberMapper orgMemberMapper;
+    private final Cache<String, String> cache;
+
+    public OrgMembershipResolver(
+            OrgMemberMapper orgMemberMapper,
+            @Value("${app.tenant.membership-cache.max-size:10000}") long maxSize,
+            @Value("${app.tenant.membership-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.orgMemberMapper = orgMemberMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /** 返回用户在组织中的角色，非成员返回 null */
+    public String resolveRole(Long userId, Long orgId) {
+        // 结果会被缓存到 TTL 结束，必须读主库，不能缓存从库上的滞后数据
+        String role = cache.get(key(userId, orgId), k -> RoutingContext.onPrimary(() -> {
+            OrgMember member = orgMemberMapper.selectOne(new LambdaQueryWrapper<OrgMember>()
+                    .select(OrgMember::getRole)
+                    .eq(OrgMember::getOrganizationId, orgId)
+                    .eq(OrgMember::getUserId, userId));
+            return member != null ? member.getRole() : NONE;
+        }));
+        return NONE.equals(role) ? null : role;
+    }
+
+    /**
+     * 当前请求用户在组织中的角色：请求的租户就是该组织时直接取 TenantContext 中已校验的角色，
+     * 否则走缓存。userId 必须是当前请求的用户。
+     */
+    public String currentRole(Long userId, Long orgId) {
+        String role = TenantContext.getRoleIn(orgId);
+        return role != null ? role : resolveRole(userId, orgId);
+    }
+
+    public void evict(Long userId, Long orgId) {
+        String key = key(userId, orgId);
+        invalidateNowAndAfterCommit(() -> cache.invalidate(key));
+    }
+
+    /** 组织解散时失效该组织的全部条目 */
+    public void evictOrganization(Long orgId) {
+        String suffix = ":" + orgId;
+        invalidateNowAndAfterCommit(() -> cache.asMap().keySet().removeIf(k -> k.endsWith(suffix)));
+    }
+
+    /** 命中 / 未命中等统计信息 */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // 事务提交前并发请求可能把旧数据重新装入缓存，提交后再失效一次
+    private static void invalidateNowAndAfterCommit(Runnable invalidate) {
+        invalidate.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate.run();
+                }
+            });
+        }
+    }
+
+    private static String key(Long userId, Long orgId) {
+        return userId + ":" + orgId;
+    }
+}
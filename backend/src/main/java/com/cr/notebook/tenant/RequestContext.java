@@ -0,0 +1,113 @@
+package com.cr.notebook.tenant;
+
+import com.cr.notebook.datasource.RoutingContext;
+import com.cr.notebook.metrics.QueryCountContext;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 请求上下文载体：一次性捕获当前线程的租户、安全主体、读请求路由标记和请求查询计数器，
+ * 在其他线程（线程池、虚拟线程、并行子任务）中执行任务时原样恢复，任务结束后还原该线程原有的上下文。
+ * <p>
+ * 快照本身不可变，可以被多个子任务同时使用；恢复时写入的是目标线程自己的 ThreadLocal，
+ * 因此父子线程之间互不影响。典型用法：
+ * <pre>
+ * RequestContext ctx = RequestContext.capture();
+ * executor.submit(ctx.wrap(() -&gt; mapper.selectCount(...)));
+ * </pre>
+ */
+public final class RequestContext {
+
+    private final TenantContext.Tenant tenant;
+    private final SecurityContext security;
+    private final boolean readRequest;
+    private final AtomicInteger queryCount;
+
+    private RequestContext(TenantContext.Tenant tenant, SecurityContext security, boolean readRequest,
+                           AtomicInteger queryCount) {
+        this.tenant = tenant;
+        this.security = security;
+        this.readRequest = readRequest;
+        this.queryCount = queryCount;
+    }
+
+    /** 捕获当前线程的上下文 */
+    public static RequestContext capture() {
+        SecurityContext current = SecurityContextHolder.getContext();
+        // 复制一份，避免子任务与父线程共享同一个可变的 SecurityContext 实例
+        SecurityContext security = SecurityContextHolder.createEmptyContext();
+        security.setAuthentication(current.getAuthentication());
+        return new RequestContext(TenantContext.current(), security, RoutingContext.isReadRequest(),
+                QueryCountContext.current());
+    }
+
+    public Long getTenantId() {
+        return tenant != null ? tenant.tenantId : null;
+    }
+
+    public TenantType getTenantType() {
+        return tenant != null ? tenant.tenantType : null;
+    }
+
+    /** 把快照恢复到当前线程，关闭返回的 Scope 时还原该线程原有的上下文 */
+    public Scope attach() {
+        TenantContext.Tenant previousTenant = TenantContext.current();
+        SecurityContext previousSecurity = SecurityContextHolder.getContext();
+        boolean previousRead = RoutingContext.isReadRequest();
+        AtomicInteger previousCount = QueryCountContext.current();
+
+        TenantContext.restore(tenant);
+        SecurityContextHolder.setContext(security);
+        setReadRequest(readRequest);
+        QueryCountContext.restore(queryCount);
+        return () -> {
+            TenantContext.restore(previousTenant);
+            // 原线程没有认证信息时直接清空，避免在池化线程上残留空的 SecurityContext
+            if (previousSecurity.getAuthentication() == null) SecurityContextHolder.clearContext();
+            else SecurityContextHolder.setContext(previousSecurity);
+            setReadRequest(previousRead);
+            QueryCountContext.restore(previousCount);
+        };
+    }
+
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            try (Scope ignored = attach()) {
+                task.run();
+            }
+        };
+    }
+
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            try (Scope ignored = attach()) {
+                return task.call();
+            }
+        };
+    }
+
+    /** 供 CompletableFuture.supplyAsync 等使用；与 Callable 重载同名会产生 lambda 歧义 */
+    public <T> Supplier<T> wrapSupplier(Supplier<T> task) {
+        return () -> {
+            try (Scope ignored = attach()) {
+                return task.get();
+            }
+        };
+    }
+
+    private static void setReadRequest(boolean read) {
+        if (read) RoutingContext.markReadRequest();
+        else RoutingContext.clearReadRequest();
+    }
+
+    /** 上下文作用域，关闭时还原线程原有的上下文；不抛出受检异常 */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.cr.notebook.tenant;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 携带请求上下文的并行查询执行器，用于把一个请求内互不依赖的 mapper 调用并发执行。
+ * 子任务在 applicationTaskExecutor 上运行（开启虚拟线程时即为虚拟线程），通过 RequestContext
+ * 继承提交方的租户、安全主体和读路由标记；join 时统一等待并受截止时间约束，
+ * 请求耗时由各查询之和变为其中最慢的一条。
+ * <p>
+ * 子任务各自从连接池取连接、不加入调用方的事务，因此只应在非事务的只读路径上使用。
+ * 截止时间设为 0 时退化为在调用线程上顺序执行。
+ */
+@Component
+public class TenantAwareExecutor {
+
+    private final Executor executor;
+    private final long deadlineMs;
+
+    public TenantAwareExecutor(
+            @Qualifier("applicationTaskExecutor") Executor executor,
+            @Value("${app.fanout.deadline-ms:5000}") long deadlineMs) {
+        this.executor = executor;
+        this.deadlineMs = deadlineMs;
+    }
+
+    /** 开始一组并行子任务，捕获当前线程的请求上下文 */
+    public Fork fork() {
+        return new Fork(RequestContext.capture());
+    }
+
+    public final class Fork {
+
+        private final RequestContext context;
+        private final List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        private Fork(RequestContext context) {
+            this.context = context;
+        }
+
+        /** 提交一个子任务，结果在 join 之后通过 Subtask.get 读取 */
+        public <T> Subtask<T> submit(Supplier<T> task) {
+            CompletableFuture<T> future = deadlineMs > 0
+                    ? CompletableFuture.supplyAsync(context.wrapSupplier(task), executor)
+                    : completeInline(task);
+            futures.add(future);
+            return new Subtask<>(future);
+        }
+
+        /**
+         * 等待全部子任务完成。任一子任务失败时原样抛出其异常，超过截止时间抛出 QueryTimeoutException，
+         * 两种情况都不再等待其余子任务：尚未开始执行的子任务会被跳过，
+         * 但 CompletableFuture 的取消不会中断已在执行的 JDBC 调用，这些查询会在后台执行完毕后归还连接，结果被丢弃。
+         */
+        public void join() {
+            CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+            try {
+                all.get(Math.max(deadlineMs, 1), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                cancelAll();
+                throw new QueryTimeoutException("查询超时，请稍后重试");
+            } catch (ExecutionException e) {
+                cancelAll();
+                throw rethrow(e.getCause());
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new QueryTimeoutException("查询被中断");
+            }
+        }
+
+        /** 放弃其余子任务：只能阻止尚未开始的子任务运行 */
+        private void cancelAll() {
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /** 子任务结果句柄，只能在 Fork.join 成功返回后读取 */
+    public static final class Subtask<T> {
+
+        private final CompletableFuture<T> future;
+
+        private Subtask(CompletableFuture<T> future) {
+            this.future = future;
+        }
+
+        public T get() {
+            if (!future.isDone()) throw new IllegalStateException("子任务尚未完成，请先调用 join()");
+            return future.join();
+        }
+    }
+
+    private static <T> CompletableFuture<T> completeInline(Supplier<T> task) {
+        try {
+            return CompletableFuture.completedFuture(task.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) cause = cause.getCause();
+        if (cause instanceof RuntimeException re) return re;
+        if (cause instanceof Error err) throw err;
+        return new CompletionException(cause);
+    }
+}
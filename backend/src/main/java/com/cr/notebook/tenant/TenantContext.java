@@ -3,26 +3,66 @@ package com.cr.notebook.tenant;
 public final class TenantContext {
 
     // 每个请求线程独立保存租户信息，避免并发请求间相互污染。
-    private static final ThreadLocal<Long> TENANT_ID = new ThreadLocal<>();
-    private static final ThreadLocal<TenantType> TENANT_TYPE = new ThreadLocal<>();
+    // 租户 id、类型和角色合并为一个不可变快照存放，捕获 / 恢复时三者始终一致，
+    // 跨线程传递见 RequestContext。
+    private static final ThreadLocal<Tenant> CURRENT = new ThreadLocal<>();
 
     private TenantContext() {}
 
     public static void set(Long tenantId, TenantType tenantType) {
-        TENANT_ID.set(tenantId);
-        TENANT_TYPE.set(tenantType);
+        set(tenantId, tenantType, null);
+    }
+
+    /** role 为组织空间下当前用户在该组织中的角色，由 TenantInterceptor 校验成员身份后写入；个人空间为 null */
+    public static void set(Long tenantId, TenantType tenantType, String role) {
+        CURRENT.set(new Tenant(tenantId, tenantType, role));
     }
 
     public static Long getTenantId() {
-        return TENANT_ID.get();
+        Tenant tenant = CURRENT.get();
+        return tenant != null ? tenant.tenantId : null;
     }
 
     public static TenantType getTenantType() {
-        return TENANT_TYPE.get();
+        Tenant tenant = CURRENT.get();
+        return tenant != null ? tenant.tenantType : null;
+    }
+
+    public static String getRole() {
+        Tenant tenant = CURRENT.get();
+        return tenant != null ? tenant.role : null;
+    }
+
+    /** 当前租户恰好是该组织时返回已校验的角色，否则返回 null */
+    public static String getRoleIn(Long orgId) {
+        Tenant tenant = CURRENT.get();
+        return tenant != null && tenant.tenantType == TenantType.ORGANIZATION
+                && orgId != null && orgId.equals(tenant.tenantId) ? tenant.role : null;
     }
 
     public static void clear() {
-        TENANT_ID.remove();
-        TENANT_TYPE.remove();
+        CURRENT.remove();
+    }
+
+    static Tenant current() {
+        return CURRENT.get();
+    }
+
+    static void restore(Tenant tenant) {
+        if (tenant == null) CURRENT.remove();
+        else CURRENT.set(tenant);
+    }
+
+    /** 不可变的租户快照，可安全地在线程间共享 */
+    static final class Tenant {
+        final Long tenantId;
+        final TenantType tenantType;
+        final String role;
+
+        Tenant(Long tenantId, TenantType tenantType, String role) {
+            this.tenantId = tenantId;
+            this.tenantType = tenantType;
+            this.role = role;
+        }
     }
 }
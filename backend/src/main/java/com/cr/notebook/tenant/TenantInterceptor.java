@@ -1,15 +1,23 @@
 package com.cr.notebook.tenant;
 
+import com.cr.notebook.security.UserPrincipal;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 @Component
+@RequiredArgsConstructor
 public class TenantInterceptor implements HandlerInterceptor {
 
+    /** 请求属性：本次请求解析出的租户类型，请求结束后 TenantContext 已清理，指标按此打标签 */
+    public static final String TENANT_TYPE_ATTRIBUTE = TenantInterceptor.class.getName() + ".tenantType";
+
+    private final OrgMembershipResolver membershipResolver;
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
@@ -17,20 +25,36 @@ public class TenantInterceptor implements HandlerInterceptor {
         if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
             return true;
         }
+        Long userId = ((UserPrincipal) auth.getPrincipal()).getId();
 
         // Check for explicit tenant header override (for org spaces)
         String headerTenantId = request.getHeader("X-Tenant-Id");
         String headerTenantType = request.getHeader("X-Tenant-Type");
 
         if (headerTenantId != null && headerTenantType != null) {
-            // 前端显式传入组织上下文时，按请求头切换租户。
-            TenantContext.set(Long.parseLong(headerTenantId), TenantType.valueOf(headerTenantType));
+            Long tenantId;
+            TenantType tenantType;
+            try {
+                tenantId = Long.parseLong(headerTenantId);
+                tenantType = TenantType.valueOf(headerTenantType);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("无效的租户请求头");
+            }
+            if (tenantType == TenantType.ORGANIZATION) {
+                // 前端显式传入组织上下文时，校验成员身份后按请求头切换租户，角色随上下文下传。
+                String role = membershipResolver.resolveRole(userId, tenantId);
+                if (role == null) throw new SecurityException("您不是该组织的成员");
+                TenantContext.set(tenantId, TenantType.ORGANIZATION, role);
+            } else {
+                if (!tenantId.equals(userId)) throw new SecurityException("无权访问其他用户的个人空间");
+                TenantContext.set(userId, TenantType.PERSONAL);
+            }
         } else {
             // Default: personal space = user id
-            Long userId = ((com.cr.notebook.security.UserPrincipal) auth.getPrincipal()).getId();
             TenantContext.set(userId, TenantType.PERSONAL);
         }
 
+        request.setAttribute(TENANT_TYPE_ATTRIBUTE, TenantContext.getTenantType());
         return true;
     }
 
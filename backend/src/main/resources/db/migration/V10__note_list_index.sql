@@ -0,0 +1,2 @@
+-- Supports keyset pagination of the note list: ORDER BY is_pinned DESC, updated_at DESC, id DESC
+CREATE INDEX idx_note_list ON note (tenant_id, tenant_type, is_pinned, updated_at, id);
@@ -0,0 +1,3 @@
+-- Revision counter for notes and daily notes, checked by the PATCH (delta save) endpoints
+ALTER TABLE note ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE daily_note ADD COLUMN version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,5 @@
+-- Optimistic-lock version for the remaining tenant entities (note / daily_note got theirs in V12)
+ALTER TABLE note_folder ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE task ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE calendar_event ADD COLUMN version INT NOT NULL DEFAULT 0;
+ALTER TABLE whiteboard ADD COLUMN version INT NOT NULL DEFAULT 0;
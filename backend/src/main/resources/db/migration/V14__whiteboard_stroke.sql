@@ -0,0 +1,8 @@
+-- Append-only stroke log per whiteboard; rows are folded into whiteboard.data by periodic compaction
+CREATE TABLE whiteboard_stroke (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    whiteboard_id BIGINT NOT NULL,
+    data MEDIUMTEXT NOT NULL,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_whiteboard_stroke_board (whiteboard_id, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
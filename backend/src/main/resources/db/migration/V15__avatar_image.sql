@@ -0,0 +1,8 @@
+-- Content-addressed avatar store: user / org rows keep only a short /api/avatars/{hash} URL
+CREATE TABLE avatar_image (
+    hash CHAR(64) NOT NULL PRIMARY KEY,
+    content_type VARCHAR(50) NOT NULL,
+    data MEDIUMBLOB NOT NULL,
+    thumbnail BLOB,
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,6 @@
+-- Denormalize the organization member count onto sys_organization so the list page no longer runs one COUNT(sys_org_member) per organization.
+-- NULL means not yet counted: reads fall back to a grouped count and the reconcile job fills the value in.
+ALTER TABLE sys_organization ADD COLUMN member_count INT NULL;
+
+UPDATE sys_organization o
+SET member_count = (SELECT COUNT(*) FROM sys_org_member m WHERE m.organization_id = o.id);
@@ -0,0 +1,8 @@
+-- Replication lag probe for read/write splitting: the primary periodically writes the current time;
+-- the lag is the difference between now and the value a replica reads back
+CREATE TABLE replication_heartbeat (
+    id INT NOT NULL PRIMARY KEY,
+    beat_millis BIGINT NOT NULL
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, 0);
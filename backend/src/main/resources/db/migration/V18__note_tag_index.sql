@@ -0,0 +1,5 @@
+-- Tag names are matched exactly, like the JSON note.tags column they mirror ('Work' and 'work' are different tags)
+ALTER TABLE note_tag MODIFY name VARCHAR(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL;
+
+-- Tag filter: notes carrying a given tag, resolved through the relation table
+CREATE INDEX idx_note_tag_relation_tag ON note_tag_relation (tag_id, note_id);
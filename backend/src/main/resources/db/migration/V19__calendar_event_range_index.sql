@@ -0,0 +1,4 @@
+-- Month / week views filter by tenant and then by the [event_date, end_date] range;
+-- the old idx_date is not tenant-prefixed and forces a scan of the whole tenant slice
+CREATE INDEX idx_calendar_event_range ON calendar_event (tenant_id, tenant_type, event_date, end_date);
+DROP INDEX idx_date ON calendar_event;
@@ -0,0 +1,5 @@
+-- Recurring series are stored once; occurrences are expanded per requested window.
+-- recurrence_end is the last day covered by the series (NULL = unbounded) so range queries can prune ended series.
+ALTER TABLE calendar_event ADD COLUMN recurrence_rule VARCHAR(255) NULL AFTER end_time;
+ALTER TABLE calendar_event ADD COLUMN recurrence_end DATE NULL AFTER recurrence_rule;
+ALTER TABLE calendar_event ADD COLUMN recurrence_exceptions TEXT NULL AFTER recurrence_end;
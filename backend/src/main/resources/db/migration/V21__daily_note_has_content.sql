@@ -0,0 +1,5 @@
+-- Maintained on write so the month view never has to read the content LOB
+ALTER TABLE daily_note ADD COLUMN has_content TINYINT(1) NOT NULL DEFAULT 0 AFTER content;
+UPDATE daily_note SET has_content = 1 WHERE content IS NOT NULL AND content <> '';
+-- Covers the month view: range on note_date, returns marker, mood and weather without touching the row
+CREATE INDEX idx_daily_note_month ON daily_note (tenant_id, tenant_type, note_date, has_content, mood, weather);
@@ -0,0 +1,4 @@
+-- Status / due-date filters and the grouped sidebar counters scan only this index
+CREATE INDEX idx_task_status ON task (tenant_id, tenant_type, completed, due_date);
+-- Keyset pagination of the default list: ORDER BY created_at DESC, id DESC
+CREATE INDEX idx_task_list ON task (tenant_id, tenant_type, created_at, id);
@@ -0,0 +1,35 @@
+-- Per-tenant entity totals, maintained incrementally alongside tenant_daily_stats
+CREATE TABLE tenant_stats_totals (
+    tenant_id BIGINT NOT NULL,
+    tenant_type VARCHAR(20) NOT NULL,
+    note_count INT NOT NULL DEFAULT 0,
+    folder_count INT NOT NULL DEFAULT 0,
+    task_count INT NOT NULL DEFAULT 0,
+    task_completed_count INT NOT NULL DEFAULT 0,
+    daily_note_count INT NOT NULL DEFAULT 0,
+    calendar_event_count INT NOT NULL DEFAULT 0,
+    whiteboard_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (tenant_id, tenant_type)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Backfill from existing rows
+INSERT INTO tenant_stats_totals (tenant_id, tenant_type, note_count, folder_count, task_count, task_completed_count,
+                                 daily_note_count, calendar_event_count, whiteboard_count)
+SELECT tenant_id, tenant_type, SUM(note_count), SUM(folder_count), SUM(task_count), SUM(task_completed_count),
+       SUM(daily_note_count), SUM(calendar_event_count), SUM(whiteboard_count)
+FROM (
+    SELECT tenant_id, tenant_type, 1 AS note_count, 0 AS folder_count, 0 AS task_count, 0 AS task_completed_count,
+           0 AS daily_note_count, 0 AS calendar_event_count, 0 AS whiteboard_count
+    FROM note
+    UNION ALL
+    SELECT tenant_id, tenant_type, 0, 1, 0, 0, 0, 0, 0 FROM note_folder
+    UNION ALL
+    SELECT tenant_id, tenant_type, 0, 0, 1, CASE WHEN completed = 1 THEN 1 ELSE 0 END, 0, 0, 0 FROM task
+    UNION ALL
+    SELECT tenant_id, tenant_type, 0, 0, 0, 0, 1, 0, 0 FROM daily_note
+    UNION ALL
+    SELECT tenant_id, tenant_type, 0, 0, 0, 0, 0, 1, 0 FROM calendar_event
+    UNION ALL
+    SELECT tenant_id, tenant_type, 0, 0, 0, 0, 0, 0, 1 FROM whiteboard
+) totals
+GROUP BY tenant_id, tenant_type;
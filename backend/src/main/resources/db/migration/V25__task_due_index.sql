@@ -0,0 +1,2 @@
+-- Due-date paging without a status filter: ORDER BY due_date, id over the dated range, ORDER BY id over due_date IS NULL
+CREATE INDEX idx_task_due ON task (tenant_id, tenant_type, due_date);
@@ -0,0 +1,24 @@
+-- Per-tenant daily activity rollup, maintained incrementally by the services
+CREATE TABLE tenant_daily_stats (
+    tenant_id BIGINT NOT NULL,
+    tenant_type VARCHAR(20) NOT NULL,
+    stat_date DATE NOT NULL,
+    note_count INT NOT NULL DEFAULT 0,
+    task_count INT NOT NULL DEFAULT 0,
+    task_completed_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (tenant_id, tenant_type, stat_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Backfill from existing rows
+INSERT INTO tenant_daily_stats (tenant_id, tenant_type, stat_date, note_count, task_count, task_completed_count)
+SELECT tenant_id, tenant_type, stat_date, SUM(note_count), SUM(task_count), SUM(task_completed_count)
+FROM (
+    SELECT tenant_id, tenant_type, CAST(created_at AS DATE) AS stat_date,
+           1 AS note_count, 0 AS task_count, 0 AS task_completed_count
+    FROM note
+    UNION ALL
+    SELECT tenant_id, tenant_type, CAST(created_at AS DATE) AS stat_date,
+           0 AS note_count, 1 AS task_count, CASE WHEN completed = 1 THEN 1 ELSE 0 END AS task_completed_count
+    FROM task
+) activity
+GROUP BY tenant_id, tenant_type, stat_date;
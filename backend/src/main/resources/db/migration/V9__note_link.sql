@@ -0,0 +1,10 @@
+-- Persisted [[id|title]] link index between notes; rows are owned by the source note's tenant
+CREATE TABLE note_link (
+    source_id BIGINT NOT NULL,
+    target_id BIGINT NOT NULL,
+    tenant_id BIGINT NOT NULL,
+    tenant_type VARCHAR(20) NOT NULL,
+    PRIMARY KEY (source_id, target_id),
+    INDEX idx_note_link_target (target_id),
+    INDEX idx_note_link_tenant (tenant_id, tenant_type)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
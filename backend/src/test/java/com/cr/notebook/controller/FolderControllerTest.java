@@ -19,6 +19,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -76,7 +77,7 @@ class FolderControllerTest {
         FolderDTO result = new FolderDTO();
         result.setId(1L);
         result.setName("Renamed");
-        when(folderService.updateFolder(eq(1L), any(FolderDTO.class))).thenReturn(result);
+        when(folderService.updateFolder(eq(1L), any(FolderDTO.class), isNull())).thenReturn(result);
 
         FolderDTO input = new FolderDTO();
         input.setName("Renamed");
@@ -1,6 +1,8 @@
 package com.cr.notebook.controller;
 
+import com.cr.notebook.dto.CursorPage;
 import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.NoteSummaryDTO;
 import com.cr.notebook.service.NoteService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -20,6 +22,7 @@ import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -46,13 +49,28 @@ class NoteControllerTest {
         note.setId(1L);
         note.setTitle("Test Note");
         note.setCreatedAt(LocalDateTime.now());
-        when(noteService.listNotes(null)).thenReturn(List.of(note));
+        when(noteService.listNotes(null, null)).thenReturn(List.of(note));
 
         mockMvc.perform(get("/api/notes"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].title").value("Test Note"));
     }
 
+    @Test
+    void list_withLimit_shouldReturnCursorPage() throws Exception {
+        NoteSummaryDTO summary = new NoteSummaryDTO();
+        summary.setId(1L);
+        summary.setTitle("Paged");
+        when(noteService.listNoteSummaries(null, null, "abc", 20))
+                .thenReturn(new CursorPage<>(List.of(summary), "next"));
+
+        mockMvc.perform(get("/api/notes").param("limit", "20").param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Paged"))
+                .andExpect(jsonPath("$.items[0].content").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
     @Test
     void get_shouldReturnNote() throws Exception {
         NoteDTO note = new NoteDTO();
@@ -67,6 +85,38 @@ class NoteControllerTest {
                 .andExpect(jsonPath("$.content").value("Full content"));
     }
 
+    @Test
+    void get_shouldReturnETagAnd304WhenUnchanged() throws Exception {
+        NoteDTO note = new NoteDTO();
+        note.setId(1L);
+        note.setVersion(3);
+        when(noteService.getNote(1L)).thenReturn(note);
+        when(noteService.getNoteVersion(1L)).thenReturn(3);
+
+        mockMvc.perform(get("/api/notes/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+
+        mockMvc.perform(get("/api/notes/1").header("If-None-Match", "W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void update_withIfMatch_shouldPassExpectedVersion() throws Exception {
+        NoteDTO result = new NoteDTO();
+        result.setId(1L);
+        result.setVersion(4);
+        when(noteService.updateNote(eq(1L), any(NoteDTO.class), eq(3))).thenReturn(result);
+
+        mockMvc.perform(put("/api/notes/1")
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"x\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+
     @Test
     void create_shouldReturnCreatedNote() throws Exception {
         NoteDTO result = new NoteDTO();
@@ -91,7 +141,7 @@ class NoteControllerTest {
         NoteDTO result = new NoteDTO();
         result.setId(1L);
         result.setTitle("Updated");
-        when(noteService.updateNote(eq(1L), any(NoteDTO.class))).thenReturn(result);
+        when(noteService.updateNote(eq(1L), any(NoteDTO.class), isNull())).thenReturn(result);
 
         NoteDTO input = new NoteDTO();
         input.setTitle("Updated");
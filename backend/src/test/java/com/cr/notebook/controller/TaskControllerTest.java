@@ -19,6 +19,7 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -46,7 +47,7 @@ class TaskControllerTest {
         task.setContent("Buy milk");
         task.setCompleted(false);
         task.setCreatedAt(LocalDateTime.now());
-        when(taskService.listTasks()).thenReturn(List.of(task));
+        when(taskService.listTasks(any())).thenReturn(List.of(task));
 
         mockMvc.perform(get("/api/tasks"))
                 .andExpect(status().isOk())
@@ -78,7 +79,7 @@ class TaskControllerTest {
         result.setId(1L);
         result.setContent("Updated");
         result.setCompleted(true);
-        when(taskService.updateTask(eq(1L), any(TaskDTO.class))).thenReturn(result);
+        when(taskService.updateTask(eq(1L), any(TaskDTO.class), isNull())).thenReturn(result);
 
         TaskDTO input = new TaskDTO();
         input.setCompleted(true);
@@ -3,6 +3,8 @@ package com.cr.notebook.controller;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.cr.notebook.entity.User;
 import com.cr.notebook.mapper.UserMapper;
+import com.cr.notebook.security.PrincipalCache;
+import com.cr.notebook.service.AvatarService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -25,6 +27,8 @@ class UserControllerTest {
     private MockMvc mockMvc;
 
     @Mock private UserMapper userMapper;
+    @Mock private PrincipalCache principalCache;
+    @Mock private AvatarService avatarService;
     @InjectMocks private UserController userController;
 
     @BeforeEach
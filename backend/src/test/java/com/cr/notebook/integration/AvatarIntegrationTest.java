@@ -0,0 +1,119 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.cr.notebook.entity.User;
+import com.cr.notebook.mapper.UserMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 头像库端到端：上传 data URL 后用户行只保留短地址，图片接口匿名可读并带长期缓存头。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class AvatarIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private UserMapper userMapper;
+
+    private static String token;
+    private static Long userId;
+    private static String avatarUrl;
+
+    @Test
+    @Order(1)
+    void upload_shouldStoreImageAndKeepShortUrlInRow() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("avatar_user");
+        req.setEmail("avatar@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        AuthResponse auth = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class);
+        token = auth.getToken();
+        userId = auth.getUserId();
+
+        BufferedImage image = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        String dataUrl = "data:image/png;base64," + Base64.getEncoder().encodeToString(png.toByteArray());
+
+        result = mockMvc.perform(put("/api/users/me/avatar")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("avatarUrl", dataUrl))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.avatarUrl").value(startsWith("/api/avatars/")))
+                .andReturn();
+        avatarUrl = objectMapper.readTree(result.getResponse().getContentAsString()).get("avatarUrl").asText();
+
+        User user = userMapper.selectById(userId);
+        assertThat(user.getAvatarUrl()).isEqualTo(avatarUrl).hasSize("/api/avatars/".length() + 64);
+    }
+
+    @Test
+    @Order(2)
+    void get_shouldServeThumbnailAnonymouslyWithImmutableCaching() throws Exception {
+        MvcResult result = mockMvc.perform(get(avatarUrl))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.IMAGE_PNG))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andExpect(header().string("Cache-Control", containsString("max-age=31536000")))
+                .andReturn();
+        BufferedImage thumb = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertThat(thumb.getWidth()).isEqualTo(128);
+
+        result = mockMvc.perform(get(avatarUrl).param("size", "full"))
+                .andExpect(status().isOk())
+                .andReturn();
+        BufferedImage full = ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertThat(full.getWidth()).isEqualTo(400);
+    }
+
+    @Test
+    @Order(3)
+    void get_unknownOrMalformedHash_shouldReturn404() throws Exception {
+        mockMvc.perform(get("/api/avatars/" + "0".repeat(64))).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/avatars/not-a-hash")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Order(4)
+    void upload_nonImage_shouldReturn400() throws Exception {
+        String html = "data:image/png;base64," + Base64.getEncoder().encodeToString("<html></html>".getBytes());
+        mockMvc.perform(put("/api/users/me/avatar")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("avatarUrl", html))))
+                .andExpect(status().isBadRequest());
+    }
+}
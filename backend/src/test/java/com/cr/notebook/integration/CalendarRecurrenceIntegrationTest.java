@@ -0,0 +1,164 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.CalendarEventDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 重复日程端到端：序列只存一行，列表按窗口展开，跳过单次发生后该日期不再出现；
+ * 已结束的序列和普通日程混排时顺序正确。这里开启区间树缓存，子类关闭缓存覆盖 SQL 路径。
+ */
+@SpringBootTest(properties = "app.calendar.range-cache.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CalendarRecurrenceIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    private String token;
+
+    protected String username() {
+        return "recurrence_test_user";
+    }
+
+    @Test
+    void recurringSeries_shouldExpandPerWindowAndHonourSkips() throws Exception {
+        token = register(username());
+        Long seriesId = create("Standup", LocalDate.of(2026, 1, 5), "FREQ=WEEKLY;BYDAY=MO,WE").getId();
+        create("Ended", LocalDate.of(2025, 1, 1), "FREQ=DAILY;COUNT=3");
+        create("Review", LocalDate.of(2026, 3, 4), null);
+
+        mockMvc.perform(get("/api/calendar-events")
+                        .param("startDate", "2026-03-02").param("endDate", "2026-03-08")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].eventDate").value("2026-03-02"))
+                .andExpect(jsonPath("$[0].seriesStartDate").value("2026-01-05"))
+                .andExpect(jsonPath("$[1].title").value("Standup"))
+                .andExpect(jsonPath("$[2].title").value("Review"));
+
+        mockMvc.perform(delete("/api/calendar-events/" + seriesId + "/occurrences/2026-03-04")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recurrenceExceptions[0]").value("2026-03-04"));
+        mockMvc.perform(delete("/api/calendar-events/" + seriesId + "/occurrences/2026-03-05")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/calendar-events")
+                        .param("startDate", "2026-03-02").param("endDate", "2026-03-08")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].title").value("Review"));
+
+        // 远期窗口只展开窗口内的部分
+        mockMvc.perform(get("/api/calendar-events")
+                        .param("startDate", "2036-06-01").param("endDate", "2036-06-30")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.length()").value(9));
+    }
+
+    @Test
+    void editFromOccurrence_shouldKeepSeriesStartRuleExceptionsAndSpan() throws Exception {
+        token = register(username() + "_edit");
+        CalendarEventDTO input = new CalendarEventDTO();
+        input.setTitle("Offsite");
+        input.setEventDate(LocalDate.of(2026, 1, 5));
+        input.setEndDate(LocalDate.of(2026, 1, 6));
+        input.setRecurrenceRule("FREQ=WEEKLY");
+        input.setRecurrenceExceptions(List.of(LocalDate.of(2026, 1, 12)));
+        Long seriesId = objectMapper.readValue(mockMvc.perform(post("/api/calendar-events")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(input)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(), CalendarEventDTO.class).getId();
+
+        MvcResult listed = mockMvc.perform(get("/api/calendar-events")
+                        .param("startDate", "2026-03-09").param("endDate", "2026-03-15")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andReturn();
+        CalendarEventDTO occurrence = objectMapper.readValue(listed.getResponse().getContentAsString(),
+                CalendarEventDTO[].class)[0];
+        assertThat(occurrence.getEventDate()).isEqualTo(LocalDate.of(2026, 3, 9));
+
+        // 与编辑弹窗一致：带回发生项的日期和 seriesStartDate，不带规则和例外，跨度改为三天
+        occurrence.setTitle("Offsite (renamed)");
+        occurrence.setEndDate(LocalDate.of(2026, 3, 11));
+        occurrence.setRecurrenceRule(null);
+        occurrence.setRecurrenceExceptions(null);
+        mockMvc.perform(put("/api/calendar-events/" + seriesId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(occurrence)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Offsite (renamed)"))
+                .andExpect(jsonPath("$.eventDate").value("2026-01-05"))
+                .andExpect(jsonPath("$.endDate").value("2026-01-07"))
+                .andExpect(jsonPath("$.recurrenceRule").value("FREQ=WEEKLY"))
+                .andExpect(jsonPath("$.recurrenceExceptions[0]").value("2026-01-12"));
+
+        mockMvc.perform(get("/api/calendar-events")
+                        .param("startDate", "2026-01-12").param("endDate", "2026-01-18")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.length()").value(0));
+
+        // 空字符串才取消重复
+        CalendarEventDTO clear = new CalendarEventDTO();
+        clear.setEventDate(LocalDate.of(2026, 1, 5));
+        clear.setRecurrenceRule("");
+        mockMvc.perform(put("/api/calendar-events/" + seriesId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(clear)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recurrenceRule").doesNotExist())
+                .andExpect(jsonPath("$.recurrenceExceptions").doesNotExist());
+    }
+
+    private String register(String username) throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername(username);
+        req.setEmail(username + "@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+    }
+
+    private CalendarEventDTO create(String title, LocalDate date, String rule) throws Exception {
+        CalendarEventDTO dto = new CalendarEventDTO();
+        dto.setTitle(title);
+        dto.setEventDate(date);
+        dto.setRecurrenceRule(rule);
+        MvcResult result = mockMvc.perform(post("/api/calendar-events")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), CalendarEventDTO.class);
+    }
+}
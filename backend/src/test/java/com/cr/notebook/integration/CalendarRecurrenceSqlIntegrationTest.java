@@ -0,0 +1,13 @@
+package com.cr.notebook.integration;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/** 关闭区间树缓存，同一组用例覆盖 SQL 范围查询中对重复序列的筛选 */
+@SpringBootTest(properties = "app.calendar.range-cache.enabled=false")
+class CalendarRecurrenceSqlIntegrationTest extends CalendarRecurrenceIntegrationTest {
+
+    @Override
+    protected String username() {
+        return "recurrence_sql_user";
+    }
+}
@@ -0,0 +1,125 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 增量保存端到端：PATCH 应用文本替换、基线版本过期返回 409、无变化时版本不变。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ContentPatchIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    private static String token;
+    private static Long noteId;
+
+    @Test
+    @Order(1)
+    void setup_createNote() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("patch_test_user");
+        req.setEmail("patch@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        NoteDTO note = new NoteDTO();
+        note.setTitle("Draft");
+        note.setContent("<p>first line</p>");
+        result = mockMvc.perform(post("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(note)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(0))
+                .andReturn();
+        noteId = objectMapper.readValue(result.getResponse().getContentAsString(), NoteDTO.class).getId();
+    }
+
+    @Test
+    @Order(2)
+    void patch_shouldApplyEditAndIncrementVersion() throws Exception {
+        mockMvc.perform(patch("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":0,\"edits\":[{\"from\":13,\"to\":13,\"text\":\", edited\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.content").value("<p>first line, edited</p>"));
+
+        mockMvc.perform(get("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.content").value("<p>first line, edited</p>"))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    @Order(3)
+    void patch_staleBaseVersion_shouldReturn409() throws Exception {
+        mockMvc.perform(patch("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":0,\"edits\":[{\"from\":0,\"to\":0,\"text\":\"x\"}]}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @Order(4)
+    void patch_withoutChange_shouldKeepVersion() throws Exception {
+        mockMvc.perform(patch("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":1,\"edits\":[],\"title\":\"Draft\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    @Order(5)
+    void patch_invalidRange_shouldReturn400() throws Exception {
+        mockMvc.perform(patch("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":1,\"edits\":[{\"from\":0,\"to\":9999,\"text\":\"\"}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(6)
+    void patchDailyNote_shouldApplyEdit() throws Exception {
+        mockMvc.perform(get("/api/daily-notes/2026-04-01")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(0));
+
+        mockMvc.perform(patch("/api/daily-notes/2026-04-01")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":0,\"edits\":[{\"from\":0,\"to\":0,\"text\":\"<p>晴</p>\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("<p>晴</p>"))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+}
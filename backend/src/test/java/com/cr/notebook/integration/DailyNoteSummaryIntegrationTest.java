@@ -0,0 +1,80 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 月视图概要：has_content 随整篇保存和增量保存维护，
+ * /dates 与 /summary 都基于该标记，summary 同时返回天气和心情。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DailyNoteSummaryIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Test
+    void monthSummary_shouldTrackContentMarkerWeatherAndMood() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("daily_summary_user");
+        req.setEmail("daily_summary@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        String token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        save(token, "2026-06-03", "{\"content\":\"<p>hello</p>\",\"weather\":\"晴\"}");
+        save(token, "2026-06-10", "{\"mood\":\"😊\"}");
+        save(token, "2026-06-20", "{\"content\":\"bye\"}");
+        // 增量保存清空正文后不再算作有记录
+        mockMvc.perform(patch("/api/daily-notes/2026-06-20")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":1,\"edits\":[{\"from\":0,\"to\":3,\"text\":\"\"}]}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/daily-notes/dates")
+                        .param("from", "2026-06-01").param("to", "2026-06-30")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0]").value("2026-06-03"));
+
+        mockMvc.perform(get("/api/daily-notes/summary")
+                        .param("from", "2026-06-01").param("to", "2026-06-30")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].noteDate").value("2026-06-03"))
+                .andExpect(jsonPath("$[0].hasContent").value(true))
+                .andExpect(jsonPath("$[0].weather").value("晴"))
+                .andExpect(jsonPath("$[1].noteDate").value("2026-06-10"))
+                .andExpect(jsonPath("$[1].hasContent").value(false))
+                .andExpect(jsonPath("$[1].mood").value("😊"));
+    }
+
+    private void save(String token, String date, String body) throws Exception {
+        mockMvc.perform(put("/api/daily-notes/" + date)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+    }
+}
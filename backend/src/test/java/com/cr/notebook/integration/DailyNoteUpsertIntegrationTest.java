@@ -0,0 +1,168 @@
+package com.cr.notebook.integration;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cr.notebook.dto.DailyNoteDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.cr.notebook.entity.DailyNote;
+import com.cr.notebook.job.EmptyDailyNotePurgeJob;
+import com.cr.notebook.mapper.DailyNoteMapper;
+import com.cr.notebook.mapper.StatsMapper;
+import com.cr.notebook.service.DailyNoteService;
+import com.cr.notebook.tenant.TenantContext;
+import com.cr.notebook.tenant.TenantType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 日记读不写库：GET 返回未保存的空日记，首次保存时 upsert 建行；
+ * 并发的首次保存只有一个生效，其余 409；清理任务只删除从未保存过的空行，并扣减汇总总数。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DailyNoteUpsertIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private DailyNoteMapper dailyNoteMapper;
+    @Autowired private DailyNoteService dailyNoteService;
+    @Autowired private StatsMapper statsMapper;
+
+    private static String token;
+    private static Long userId;
+
+    @Test
+    @Order(1)
+    void get_shouldNotCreateRow() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("daily_upsert_user");
+        req.setEmail("daily_upsert@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        AuthResponse auth = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class);
+        token = auth.getToken();
+        userId = auth.getUserId();
+
+        mockMvc.perform(get("/api/daily-notes/2026-05-01")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""))
+                .andExpect(jsonPath("$.id").doesNotExist())
+                .andExpect(jsonPath("$.content").value(""));
+
+        assertThat(rows()).isZero();
+    }
+
+    @Test
+    @Order(2)
+    void firstSave_shouldCreateRowAndLaterStaleSaveConflicts() throws Exception {
+        mockMvc.perform(put("/api/daily-notes/2026-05-01")
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"first\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").isNumber())
+                .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(put("/api/daily-notes/2026-05-01")
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"stale\"}"))
+                .andExpect(status().isConflict());
+
+        assertThat(rows()).isEqualTo(1);
+    }
+
+    @Test
+    @Order(3)
+    void concurrentFirstSaves_shouldLetExactlyOneWin() throws Exception {
+        LocalDate date = LocalDate.of(2026, 5, 2);
+        int writers = 4;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            String content = "writer " + i;
+            results.add(pool.submit(() -> {
+                TenantContext.set(userId, TenantType.PERSONAL);
+                try {
+                    start.await();
+                    DailyNoteDTO dto = new DailyNoteDTO();
+                    dto.setContent(content);
+                    dailyNoteService.updateDailyNote(date, dto, 0);
+                    return true;
+                } catch (OptimisticLockingFailureException e) {
+                    return false;
+                } finally {
+                    TenantContext.clear();
+                }
+            }));
+        }
+        start.countDown();
+        int winners = 0;
+        for (Future<Boolean> f : results) if (f.get(30, TimeUnit.SECONDS)) winners++;
+        pool.shutdown();
+
+        assertThat(winners).isEqualTo(1);
+        assertThat(dailyNoteMapper.selectCount(forUser().eq(DailyNote::getNoteDate, date))).isEqualTo(1);
+    }
+
+    @Test
+    @Order(4)
+    void purgeJob_shouldDeleteOnlyNeverSavedEmptyRows() {
+        dailyNoteMapper.upsertEmpty(userId, TenantType.PERSONAL, LocalDate.of(2026, 4, 1));
+        dailyNoteMapper.upsertEmpty(userId, TenantType.PERSONAL, LocalDate.of(2026, 4, 2));
+        long before = rows();
+        long countedBefore = countedDailyNotes();
+
+        EmptyDailyNotePurgeJob job = new EmptyDailyNotePurgeJob(dailyNoteService);
+        ReflectionTestUtils.setField(job, "batchSize", 1);
+        job.run(new DefaultApplicationArguments());
+
+        assertThat(rows()).isEqualTo(before - 2);
+        // 汇总总数与删除同事务扣减
+        assertThat(countedDailyNotes()).isEqualTo(countedBefore - 2);
+        assertThat(dailyNoteMapper.selectCount(forUser().eq(DailyNote::getNoteDate, LocalDate.of(2026, 5, 1)))).isEqualTo(1);
+    }
+
+    private long countedDailyNotes() {
+        return statsMapper.selectTotals(userId, TenantType.PERSONAL).getDailyNoteCount();
+    }
+
+    private long rows() {
+        return dailyNoteMapper.selectCount(forUser());
+    }
+
+    private static LambdaQueryWrapper<DailyNote> forUser() {
+        return new LambdaQueryWrapper<DailyNote>()
+                .eq(DailyNote::getTenantId, userId)
+                .eq(DailyNote::getTenantType, TenantType.PERSONAL);
+    }
+}
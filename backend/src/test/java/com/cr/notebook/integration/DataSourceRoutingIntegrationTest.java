@@ -0,0 +1,187 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.datasource.RecentWriteTracker;
+import com.cr.notebook.datasource.ReplicaHealthMonitor;
+import com.cr.notebook.datasource.ReplicaRoutingDataSource;
+import com.cr.notebook.datasource.RoutingContext;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.mapper.NoteMapper;
+import com.cr.notebook.security.UserPrincipal;
+import com.cr.notebook.tenant.TenantContext;
+import com.cr.notebook.tenant.TenantType;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 读写分离路由：用两个内嵌 H2 库分别充当主库和从库，各放一行不同的标记，
+ * 通过“谁回答了查询”验证路由规则、读己之写粘滞和延迟回退。
+ */
+@SpringBootTest(properties = {
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.replica-urls=jdbc:h2:mem:replica_routing;DB_CLOSE_DELAY=-1;MODE=MYSQL",
+        "app.datasource.routing.heartbeat-interval-ms=3600000",
+        "app.datasource.routing.max-lag-ms=3000"
+})
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DataSourceRoutingIntegrationTest {
+
+    @Autowired private DataSource dataSource;
+    @Autowired private ReplicaRoutingDataSource routingDataSource;
+    @Autowired private ReplicaHealthMonitor healthMonitor;
+    @Autowired private RecentWriteTracker writeTracker;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Autowired private NoteMapper noteMapper;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeAll
+    static void seedMarkers(@Autowired ReplicaRoutingDataSource routingDataSource) {
+        DataSource replicaDataSource = routingDataSource.getResolvedDataSources().get("replica-0");
+        new ResourceDatabasePopulator(new ClassPathResource("schema-h2.sql")).execute(replicaDataSource);
+        JdbcTemplate primary = new JdbcTemplate(routingDataSource.getResolvedDataSources().get(ReplicaRoutingDataSource.PRIMARY));
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        for (JdbcTemplate db : new JdbcTemplate[]{primary, replica}) {
+            db.execute("CREATE TABLE IF NOT EXISTS routing_marker (name VARCHAR(20))");
+            db.update("DELETE FROM routing_marker");
+        }
+        primary.update("INSERT INTO routing_marker VALUES ('primary')");
+        replica.update("INSERT INTO routing_marker VALUES ('replica')");
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(routingDataSource.getResolvedDataSources().get(ReplicaRoutingDataSource.PRIMARY));
+        replica = new JdbcTemplate(routingDataSource.getResolvedDataSources().get("replica-0"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.clearReadRequest();
+        TenantContext.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @Order(1)
+    void laggingReplica_shouldFallBackToPrimary() {
+        // 从库心跳停留在初始值，延迟远超阈值
+        healthMonitor.check();
+
+        assertThat(healthMonitor.healthyReplicas()).isEmpty();
+        assertThat(inReadOnlyTransaction()).isEqualTo("primary");
+    }
+
+    @Test
+    @Order(2)
+    void caughtUpReplica_shouldServeReadOnlyTransactions() {
+        simulateReplication();
+
+        assertThat(healthMonitor.healthyReplicas()).containsExactly("replica-0");
+        assertThat(inReadOnlyTransaction()).isEqualTo("replica");
+        assertThat(inReadWriteTransaction()).isEqualTo("primary");
+    }
+
+    @Test
+    @Order(3)
+    void nonTransactionalReads_shouldUseReplicaOnlyDuringReadRequests() {
+        simulateReplication();
+
+        assertThat(whoAnswers()).isEqualTo("primary");
+        RoutingContext.markReadRequest();
+        assertThat(whoAnswers()).isEqualTo("replica");
+        assertThat(RoutingContext.onPrimary(this::whoAnswers)).isEqualTo("primary");
+    }
+
+    @Test
+    @Order(4)
+    void writeDuringReadRequest_shouldGoToPrimaryAndMakeTenantSticky() {
+        simulateReplication();
+        TenantContext.set(990_001L, TenantType.PERSONAL);
+        RoutingContext.markReadRequest();
+        assertThat(whoAnswers()).isEqualTo("replica");
+
+        Note note = Note.builder().title("routing-write").content("").build();
+        note.setTenantId(990_001L);
+        note.setTenantType(TenantType.PERSONAL);
+        noteMapper.insert(note);
+
+        assertThat(primary.queryForObject("SELECT COUNT(*) FROM note WHERE title = 'routing-write'", Integer.class)).isEqualTo(1);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM note WHERE title = 'routing-write'", Integer.class)).isZero();
+        assertThat(writeTracker.isSticky(990_001L, TenantType.PERSONAL)).isTrue();
+        // 读己之写：该租户随后的读取留在主库，其他租户不受影响
+        assertThat(whoAnswers()).isEqualTo("primary");
+        assertThat(inReadOnlyTransaction()).isEqualTo("primary");
+
+        TenantContext.set(990_002L, TenantType.PERSONAL);
+        assertThat(whoAnswers()).isEqualTo("replica");
+    }
+
+    @Test
+    @Order(5)
+    void writeWithoutTenantContext_shouldMakeUserSticky() {
+        simulateReplication();
+        // /api/organizations/** 不经过 TenantInterceptor：只有认证用户，没有租户上下文
+        authenticate(990_101L);
+        RoutingContext.markReadRequest();
+        assertThat(whoAnswers()).isEqualTo("replica");
+
+        Note note = Note.builder().title("routing-user-write").content("").build();
+        note.setTenantId(990_003L);
+        note.setTenantType(TenantType.ORGANIZATION);
+        noteMapper.insert(note);
+
+        assertThat(writeTracker.isUserSticky(990_101L)).isTrue();
+        assertThat(whoAnswers()).isEqualTo("primary");
+        assertThat(inReadOnlyTransaction()).isEqualTo("primary");
+
+        authenticate(990_102L);
+        assertThat(whoAnswers()).isEqualTo("replica");
+    }
+
+    private void authenticate(Long userId) {
+        UserPrincipal principal = new UserPrincipal(userId, "routing-" + userId, userId + "@example.com", "");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    /** 模拟复制追上：把主库刚写入的心跳同步到从库 */
+    private void simulateReplication() {
+        healthMonitor.check();
+        Long beat = primary.queryForObject("SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class);
+        replica.update("UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1", beat);
+        healthMonitor.check();
+        // check() 每次都会写入新的心跳，只要在阈值内追上即可
+        replica.update("UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1", System.currentTimeMillis());
+        healthMonitor.check();
+    }
+
+    private String whoAnswers() {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT name FROM routing_marker", String.class);
+    }
+
+    private String inReadOnlyTransaction() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx.execute(status -> whoAnswers());
+    }
+
+    private String inReadWriteTransaction() {
+        return new TransactionTemplate(transactionManager).execute(status -> whoAnswers());
+    }
+}
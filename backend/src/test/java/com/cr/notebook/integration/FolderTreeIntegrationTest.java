@@ -0,0 +1,136 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.FolderDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.cr.notebook.entity.Folder;
+import com.cr.notebook.mapper.FolderMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 文件夹批量排序与子树删除的 SQL 条数基准：
+ * 500 个节点的子树删除、多条目排序都应是常数条语句，而不是每个节点一次往返。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCounter.Config.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class FolderTreeIntegrationTest {
+
+    private static final int TREE_SIZE = 500;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private FolderMapper folderMapper;
+    @Autowired private QueryCounter queryCounter;
+
+    private static String token;
+    private static Long rootId;
+    private static Long siblingId;
+
+    @Test
+    @Order(1)
+    void setup_createTree() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("folder_tree_user");
+        req.setEmail("folder_tree@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        rootId = createFolder("root");
+        siblingId = createFolder("sibling");
+        Folder root = folderMapper.selectById(rootId);
+
+        // 根下 10 个分支，每个分支是一条深链，共 TREE_SIZE 个节点
+        List<Long> parents = new ArrayList<>();
+        for (int i = 0; i < 10; i++) parents.add(rootId);
+        for (int i = 1; i < TREE_SIZE; i++) {
+            int branch = i % parents.size();
+            Folder child = Folder.builder().name("node " + i).parentId(parents.get(branch)).build();
+            child.setTenantId(root.getTenantId());
+            child.setTenantType(root.getTenantType());
+            folderMapper.insert(child);
+            parents.set(branch, child.getId());
+        }
+    }
+
+    @Test
+    @Order(2)
+    void reorder_shouldUseConstantStatements() throws Exception {
+        warmUp();
+        queryCounter.reset();
+        mockMvc.perform(put("/api/folders/reorder")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":" + siblingId + ",\"sortOrder\":0,\"version\":0},"
+                                + "{\"id\":" + rootId + ",\"sortOrder\":1,\"version\":0}]"))
+                .andExpect(status().isOk());
+        int queries = queryCounter.get();
+        // 一次预读 + 一条 CASE UPDATE
+        assertThat(queries).isEqualTo(2);
+
+        assertThat(folderMapper.selectById(siblingId).getSortOrder()).isEqualTo(0);
+        assertThat(folderMapper.selectById(rootId).getSortOrder()).isEqualTo(1);
+        assertThat(folderMapper.selectById(rootId).getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    @Order(3)
+    void deleteSubtree_shouldUseConstantStatements() throws Exception {
+        warmUp();
+        queryCounter.reset();
+        mockMvc.perform(delete("/api/folders/" + rootId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+        int queries = queryCounter.get();
+        // 改造前逐节点递归，至少 2 * TREE_SIZE + 1 条 SQL；现在是一次读树 + 一条 IN 删除 + 一次统计总数扣减
+        assertThat(queries).isEqualTo(3);
+
+        mockMvc.perform(get("/api/folders")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(siblingId));
+    }
+
+    private void warmUp() throws Exception {
+        // 确保用户主体已进入缓存，只统计目标接口本身的 SQL
+        mockMvc.perform(get("/api/folders")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+    }
+
+    private Long createFolder(String name) throws Exception {
+        FolderDTO folder = new FolderDTO();
+        folder.setName(name);
+        MvcResult result = mockMvc.perform(post("/api/folders")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(folder)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), FolderDTO.class).getId();
+    }
+}
@@ -0,0 +1,136 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 指标：接口计时带控制器方法和租户类型标签，每条 mapper 语句有耗时和行数，
+ * 每个请求的 SQL 条数进入直方图，并通过 /actuator/prometheus 暴露。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class MetricsIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private MeterRegistry registry;
+
+    private static String token;
+
+    @Test
+    @Order(1)
+    void setup_registerAndCreateNote() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("metrics_user");
+        req.setEmail("metrics@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        NoteDTO note = new NoteDTO();
+        note.setTitle("metrics note");
+        mockMvc.perform(post("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(note)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @Order(2)
+    void requestTimer_shouldBeTaggedWithHandlerAndTenantType() throws Exception {
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        Timer timer = registry.find("http.server.requests")
+                .tag("uri", "/api/notes")
+                .tag("method", "GET")
+                .tag("handler", "NoteController.list")
+                .tag("tenant.type", "PERSONAL")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @Order(3)
+    void mapperStatements_shouldRecordLatencyAndRows() throws Exception {
+        mockMvc.perform(get("/api/notes").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        Timer select = registry.find("mybatis.query")
+                .tag("statement", "NoteMapper.selectList")
+                .tag("command", "SELECT")
+                .tag("outcome", "success")
+                .timer();
+        assertThat(select).isNotNull();
+        assertThat(select.count()).isGreaterThanOrEqualTo(1);
+
+        DistributionSummary rows = registry.find("mybatis.query.rows")
+                .tag("statement", "NoteMapper.selectList")
+                .summary();
+        assertThat(rows).isNotNull();
+        assertThat(rows.max()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @Order(4)
+    void queriesPerRequest_shouldBeRecordedPerEndpoint() throws Exception {
+        mockMvc.perform(get("/api/organizations").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        DistributionSummary queries = registry.find("http.server.requests.queries")
+                .tag("uri", "/api/organizations")
+                .tag("method", "GET")
+                .summary();
+        assertThat(queries).isNotNull();
+        assertThat(queries.count()).isEqualTo(1);
+        assertThat(queries.totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @Order(5)
+    void prometheusEndpoint_shouldRequireScrapeTokenAndExposeAllMetrics() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+
+        String body = mockMvc.perform(get("/actuator/prometheus").header("Authorization", "Bearer test-scrape-token"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body)
+                .contains("http_server_requests_seconds_bucket")
+                .contains("tenant_type=\"PERSONAL\"")
+                .contains("mybatis_query_seconds_count")
+                .contains("mybatis_query_rows_count")
+                .contains("http_server_requests_queries_bucket");
+    }
+}
@@ -0,0 +1,123 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 双链索引端到端：创建 / 修改 / 删除笔记后 note_link 与反向链接、知识图谱保持一致。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class NoteLinkIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    private static String token;
+    private static Long targetId;
+    private static Long sourceId;
+
+    @Test
+    @Order(1)
+    void setup_createLinkedNotes() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("link_test_user");
+        req.setEmail("link@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        targetId = create("Target", "plain body");
+        sourceId = create("Source", "see [[" + targetId + "|Target]] and [[" + targetId + "|Target]]");
+    }
+
+    @Test
+    @Order(2)
+    void backlinksAndGraph_shouldUseIndexedLinks() throws Exception {
+        mockMvc.perform(get("/api/notes/" + targetId + "/backlinks")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(sourceId))
+                .andExpect(jsonPath("$[0].title").value("Source"));
+
+        mockMvc.perform(get("/api/notes/graph")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodes.length()").value(2))
+                .andExpect(jsonPath("$.edges.length()").value(1))
+                .andExpect(jsonPath("$.edges[0].source").value(sourceId))
+                .andExpect(jsonPath("$.edges[0].target").value(targetId));
+    }
+
+    @Test
+    @Order(3)
+    void updateWithoutLink_shouldRemoveEdge() throws Exception {
+        NoteDTO update = new NoteDTO();
+        update.setContent("link removed");
+        mockMvc.perform(put("/api/notes/" + sourceId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes/" + targetId + "/backlinks")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    @Order(4)
+    void deleteTarget_shouldDropIncomingEdges() throws Exception {
+        NoteDTO update = new NoteDTO();
+        update.setContent("back to [[" + targetId + "|Target]]");
+        mockMvc.perform(put("/api/notes/" + sourceId)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/notes/" + targetId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/notes/graph")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nodes.length()").value(1))
+                .andExpect(jsonPath("$.edges.length()").value(0));
+    }
+
+    private Long create(String title, String content) throws Exception {
+        NoteDTO note = new NoteDTO();
+        note.setTitle(title);
+        note.setContent(content);
+        MvcResult result = mockMvc.perform(post("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(note)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), NoteDTO.class).getId();
+    }
+}
@@ -0,0 +1,219 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.TagRenameDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 标签索引端到端：创建 / 修改 / 删除笔记时同步 note_tag_relation，
+ * 按标签筛选、标签计数、重命名与合并都基于索引表完成。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class NoteTagIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private static String token;
+    private static Long workNote;
+    private static Long ideaNote;
+    private static Long bothNote;
+
+    @Test
+    @Order(1)
+    void setup_createTaggedNotes() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("tag_test_user");
+        req.setEmail("tag@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        workNote = create("Work", List.of("work"));
+        ideaNote = create("Idea", List.of("idea", " idea "));
+        bothNote = create("Both", List.of("work", "idea"));
+        create("Untagged", List.of());
+    }
+
+    @Test
+    @Order(2)
+    void filterAndCounts_shouldUseTagIndex() throws Exception {
+        mockMvc.perform(get("/api/notes").param("tag", "work")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[*].id").value(containsInAnyOrder(workNote.intValue(), bothNote.intValue())));
+
+        mockMvc.perform(get("/api/notes").param("tag", "idea").param("limit", "1")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty());
+
+        mockMvc.perform(get("/api/notes").param("tag", "nope")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(get("/api/notes/tags")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].noteCount").value(2))
+                .andExpect(jsonPath("$[1].noteCount").value(2));
+    }
+
+    @Test
+    @Order(3)
+    void updateTags_shouldResyncIndex() throws Exception {
+        NoteDTO update = new NoteDTO();
+        update.setTags(List.of("idea"));
+        mockMvc.perform(put("/api/notes/" + workNote)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes/tags")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$[0].name").value("idea"))
+                .andExpect(jsonPath("$[0].noteCount").value(3))
+                .andExpect(jsonPath("$[1].name").value("work"))
+                .andExpect(jsonPath("$[1].noteCount").value(1));
+    }
+
+    @Test
+    @Order(4)
+    void rename_shouldRewriteOnlyTagsOfAffectedNotes() throws Exception {
+        int versionBefore = version(bothNote);
+        int untouchedBefore = version(ideaNote);
+
+        rename("work", "job")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].name").value("job"))
+                .andExpect(jsonPath("$[1].noteCount").value(1));
+
+        mockMvc.perform(get("/api/notes/" + bothNote)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.tags").value(containsInAnyOrder("job", "idea")))
+                .andExpect(jsonPath("$.version").value(versionBefore + 1));
+        mockMvc.perform(get("/api/notes/" + ideaNote)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.version").value(untouchedBefore));
+    }
+
+    @Test
+    @Order(5)
+    void renameOntoExistingTag_shouldMerge() throws Exception {
+        rename("job", "idea")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("idea"))
+                .andExpect(jsonPath("$[0].noteCount").value(3));
+
+        mockMvc.perform(get("/api/notes/" + bothNote)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.tags.length()").value(1))
+                .andExpect(jsonPath("$.tags[0]").value("idea"));
+
+        rename("missing", "x").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(6)
+    void delete_shouldDropRelations() throws Exception {
+        mockMvc.perform(delete("/api/notes/" + bothNote)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/notes/tags")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$[0].noteCount").value(2));
+    }
+
+    @Test
+    @Order(7)
+    void legacyLongTag_shouldSurviveUpdateButStayOutOfIndex() throws Exception {
+        // 标签索引上线前写入的超长标签
+        String legacy = "l".repeat(60);
+        jdbcTemplate.update("UPDATE note SET tags = ? WHERE id = ?",
+                objectMapper.writeValueAsString(List.of("idea", legacy)), ideaNote);
+
+        NoteDTO update = new NoteDTO();
+        update.setTags(List.of("idea", legacy, "fresh"));
+        mockMvc.perform(put("/api/notes/" + ideaNote)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags").value(containsInAnyOrder("idea", legacy, "fresh")));
+
+        mockMvc.perform(get("/api/notes/tags")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[*].name").value(containsInAnyOrder("idea", "fresh")));
+
+        update.setTags(List.of("idea", "n".repeat(60)));
+        mockMvc.perform(put("/api/notes/" + ideaNote)
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private Long create(String title, List<String> tags) throws Exception {
+        NoteDTO dto = new NoteDTO();
+        dto.setTitle(title);
+        dto.setTags(tags);
+        MvcResult result = mockMvc.perform(post("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), NoteDTO.class).getId();
+    }
+
+    private int version(Long noteId) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token))
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), NoteDTO.class).getVersion();
+    }
+
+    private ResultActions rename(String from, String to) throws Exception {
+        TagRenameDTO dto = new TagRenameDTO();
+        dto.setFrom(from);
+        dto.setTo(to);
+        return mockMvc.perform(post("/api/notes/tags/rename")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(dto)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 笔记列表游标分页：逐页翻完应与旧的全量列表顺序一致、不重不漏，且不返回正文。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class NotesPagingIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    private static String token;
+
+    @Test
+    @Order(1)
+    void setup_createNotes() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("paging_test_user");
+        req.setEmail("paging@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        for (int i = 0; i < 7; i++) {
+            NoteDTO note = new NoteDTO();
+            note.setTitle("page note " + i);
+            note.setContent("large body " + i);
+            note.setIsPinned(i % 3 == 0);
+            mockMvc.perform(post("/api/notes")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(note)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    @Order(2)
+    void pages_shouldMatchFullListOrder() throws Exception {
+        MvcResult full = mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<Long> expected = new ArrayList<>();
+        for (JsonNode n : objectMapper.readTree(full.getResponse().getContentAsString())) {
+            expected.add(n.get("id").asLong());
+        }
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/api/notes")
+                    .header("Authorization", "Bearer " + token)
+                    .param("limit", "3");
+            if (cursor != null) request.param("cursor", cursor);
+            MvcResult result = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].content").doesNotExist())
+                    .andReturn();
+            JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+            for (JsonNode n : page.get("items")) paged.add(n.get("id").asLong());
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(paged).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    @Order(3)
+    void invalidCursor_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .param("limit", "3")
+                        .param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,155 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.FolderDTO;
+import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 乐观锁端到端：updateById 由拦截器递增 version，ETag / If-None-Match 返回 304，
+ * If-Match 版本过期返回 409，文件夹排序携带过期版本时整批回滚。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class OptimisticLockIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    private static String token;
+    private static Long noteId;
+    private static Long folderId;
+
+    @Test
+    @Order(1)
+    void setup_createNoteAndFolder() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("lock_test_user");
+        req.setEmail("lock@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        NoteDTO note = new NoteDTO();
+        note.setTitle("Locked");
+        note.setContent("<p>v0</p>");
+        result = mockMvc.perform(post("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(note)))
+                .andExpect(status().isOk())
+                .andReturn();
+        noteId = objectMapper.readValue(result.getResponse().getContentAsString(), NoteDTO.class).getId();
+
+        FolderDTO folder = new FolderDTO();
+        folder.setName("Ordered");
+        result = mockMvc.perform(post("/api/folders")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(folder)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(0))
+                .andReturn();
+        folderId = objectMapper.readValue(result.getResponse().getContentAsString(), FolderDTO.class).getId();
+    }
+
+    @Test
+    @Order(2)
+    void get_shouldReturnETagAndNotModified() throws Exception {
+        mockMvc.perform(get("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+
+        mockMvc.perform(get("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @Order(3)
+    void put_withCurrentIfMatch_shouldIncrementVersion() throws Exception {
+        mockMvc.perform(put("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"<p>v1</p>\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.version").value(1));
+
+        // 旧 ETag 不再匹配，返回完整正文
+        mockMvc.perform(get("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-None-Match", "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("<p>v1</p>"));
+    }
+
+    @Test
+    @Order(4)
+    void put_withStaleIfMatch_shouldReturn409() throws Exception {
+        mockMvc.perform(put("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"<p>lost update</p>\"}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.content").value("<p>v1</p>"))
+                .andExpect(jsonPath("$.version").value(1));
+    }
+
+    @Test
+    @Order(5)
+    void put_withMalformedIfMatch_shouldReturn400() throws Exception {
+        mockMvc.perform(put("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token)
+                        .header("If-Match", "\"abc\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"x\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(6)
+    void reorder_withStaleVersion_shouldReturn409() throws Exception {
+        mockMvc.perform(put("/api/folders/reorder")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":" + folderId + ",\"sortOrder\":3,\"version\":0}]"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/folders/reorder")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":" + folderId + ",\"sortOrder\":7,\"version\":0}]"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/folders")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$[0].sortOrder").value(3))
+                .andExpect(jsonPath("$[0].version").value(1));
+    }
+}
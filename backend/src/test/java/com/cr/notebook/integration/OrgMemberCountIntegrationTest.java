@@ -0,0 +1,153 @@
+package com.cr.notebook.integration;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cr.notebook.dto.OrganizationDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.cr.notebook.entity.Organization;
+import com.cr.notebook.mapper.OrganizationMapper;
+import com.cr.notebook.service.OrganizationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 组织成员数冗余列：增删成员时同步维护，列表接口的 SQL 条数与组织数量无关，
+ * 对账可修复漂移和未统计的行。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCounter.Config.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class OrgMemberCountIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private QueryCounter queryCounter;
+    @Autowired private OrganizationMapper organizationMapper;
+    @Autowired private OrganizationService organizationService;
+
+    private static String ownerToken;
+    private static Long memberUserId;
+    private static Long orgId;
+
+    @Test
+    @Order(1)
+    void setup_registerUsersAndCreateOrg() throws Exception {
+        ownerToken = register("count_owner", "count_owner@example.com").getToken();
+        memberUserId = register("count_member", "count_member@example.com").getUserId();
+        orgId = createOrg("Counted Org").getId();
+    }
+
+    @Test
+    @Order(2)
+    void addAndRemoveMember_shouldMaintainCount() throws Exception {
+        mockMvc.perform(post("/api/organizations/" + orgId + "/members")
+                        .header("Authorization", "Bearer " + ownerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("userId", memberUserId))))
+                .andExpect(status().isOk());
+        assertThat(organizationMapper.selectById(orgId).getMemberCount()).isEqualTo(2);
+
+        // 修改名称走 updateById，不能覆盖冗余列
+        mockMvc.perform(put("/api/organizations/" + orgId)
+                        .header("Authorization", "Bearer " + ownerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Renamed"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.memberCount").value(2));
+
+        mockMvc.perform(delete("/api/organizations/" + orgId + "/members/" + memberUserId)
+                        .header("Authorization", "Bearer " + ownerToken))
+                .andExpect(status().isNoContent());
+        assertThat(organizationMapper.selectById(orgId).getMemberCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Order(3)
+    void listOrganizations_queryCountShouldNotGrowWithOrgCount() throws Exception {
+        for (int i = 0; i < 4; i++) createOrg("Small " + i);
+        int five = measureList(5);
+
+        for (int i = 0; i < 45; i++) createOrg("Large " + i);
+        int fifty = measureList(50);
+
+        // 改造前每个组织一条 COUNT，50 个组织至少 53 条 SQL
+        assertThat(fifty).isEqualTo(five);
+        assertThat(fifty).isLessThan(3 + 50);
+    }
+
+    @Test
+    @Order(4)
+    void uncountedAndDriftedRows_shouldFallBackAndReconcile() throws Exception {
+        organizationMapper.update(null, new LambdaUpdateWrapper<Organization>()
+                .setSql("member_count = NULL").eq(Organization::getId, orgId));
+        mockMvc.perform(get("/api/organizations/" + orgId)
+                        .header("Authorization", "Bearer " + ownerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.memberCount").value(1));
+
+        organizationMapper.update(null, new LambdaUpdateWrapper<Organization>()
+                .setSql("member_count = 42").ne(Organization::getId, orgId));
+
+        int repaired = organizationService.reconcileMemberCounts();
+
+        assertThat(repaired).isGreaterThanOrEqualTo(50);
+        assertThat(organizationMapper.selectById(orgId).getMemberCount()).isEqualTo(1);
+        assertThat(organizationService.reconcileMemberCounts()).isZero();
+    }
+
+    private int measureList(int expectedOrgs) throws Exception {
+        // 预热一次，确保用户主体已进入缓存
+        list(expectedOrgs);
+        queryCounter.reset();
+        list(expectedOrgs);
+        return queryCounter.get();
+    }
+
+    private void list(int expectedOrgs) throws Exception {
+        mockMvc.perform(get("/api/organizations")
+                        .header("Authorization", "Bearer " + ownerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(expectedOrgs))
+                .andExpect(jsonPath("$[0].memberCount").value(1));
+    }
+
+    private OrganizationDTO createOrg(String name) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/organizations")
+                        .header("Authorization", "Bearer " + ownerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", name))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.memberCount").value(1))
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), OrganizationDTO.class);
+    }
+
+    private AuthResponse register(String username, String email) throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername(username);
+        req.setEmail(email);
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class);
+    }
+}
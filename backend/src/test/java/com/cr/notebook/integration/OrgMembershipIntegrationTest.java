@@ -0,0 +1,146 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.FolderDTO;
+import com.cr.notebook.dto.OrganizationDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.cr.notebook.tenant.OrgMembershipResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 租户请求头的成员身份校验：非成员切换到组织空间返回 403，成员变更后缓存立即失效。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class OrgMembershipIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private OrgMembershipResolver membershipResolver;
+
+    private static String ownerToken;
+    private static String outsiderToken;
+    private static Long ownerId;
+    private static Long outsiderId;
+    private static Long orgId;
+
+    @Test
+    @Order(1)
+    void setup_createOrg() throws Exception {
+        AuthResponse owner = register("membership_owner", "membership_owner@example.com");
+        AuthResponse outsider = register("membership_outsider", "membership_outsider@example.com");
+        ownerToken = owner.getToken();
+        ownerId = owner.getUserId();
+        outsiderToken = outsider.getToken();
+        outsiderId = outsider.getUserId();
+
+        MvcResult result = mockMvc.perform(post("/api/organizations")
+                        .header("Authorization", "Bearer " + ownerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "Verified Org"))))
+                .andExpect(status().isOk())
+                .andReturn();
+        orgId = objectMapper.readValue(result.getResponse().getContentAsString(), OrganizationDTO.class).getId();
+    }
+
+    @Test
+    @Order(2)
+    void member_shouldAccessOrgSpaceFromCache() throws Exception {
+        FolderDTO folder = new FolderDTO();
+        folder.setName("Org Folder");
+        mockMvc.perform(inOrg(post("/api/folders"), ownerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(folder)))
+                .andExpect(status().isOk());
+
+        long hitsBefore = membershipResolver.stats().hitCount();
+        mockMvc.perform(inOrg(get("/api/folders"), ownerToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+        assertThat(membershipResolver.stats().hitCount()).isGreaterThan(hitsBefore);
+    }
+
+    @Test
+    @Order(3)
+    void nonMember_shouldBeRejected() throws Exception {
+        mockMvc.perform(inOrg(get("/api/folders"), outsiderToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/stats/org/" + orgId)
+                        .header("Authorization", "Bearer " + outsiderToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(4)
+    void otherUsersPersonalSpace_shouldBeRejected() throws Exception {
+        mockMvc.perform(get("/api/folders")
+                        .header("Authorization", "Bearer " + outsiderToken)
+                        .header("X-Tenant-Id", String.valueOf(ownerId))
+                        .header("X-Tenant-Type", "PERSONAL"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/folders")
+                        .header("Authorization", "Bearer " + outsiderToken)
+                        .header("X-Tenant-Id", "abc")
+                        .header("X-Tenant-Type", "PERSONAL"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(5)
+    void addAndRemoveMember_shouldTakeEffectImmediately() throws Exception {
+        mockMvc.perform(post("/api/organizations/" + orgId + "/members")
+                        .header("Authorization", "Bearer " + ownerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("userId", outsiderId))))
+                .andExpect(status().isOk());
+        mockMvc.perform(inOrg(get("/api/folders"), outsiderToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/organizations/" + orgId + "/members/" + outsiderId)
+                        .header("Authorization", "Bearer " + ownerToken))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(inOrg(get("/api/folders"), outsiderToken))
+                .andExpect(status().isForbidden());
+
+        // 被移出后仍带着旧的组织请求头，也能拉取组织列表以切回个人空间
+        mockMvc.perform(inOrg(get("/api/organizations"), outsiderToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    private MockHttpServletRequestBuilder inOrg(MockHttpServletRequestBuilder request, String token) {
+        return request.header("Authorization", "Bearer " + token)
+                .header("X-Tenant-Id", String.valueOf(orgId))
+                .header("X-Tenant-Type", "ORGANIZATION");
+    }
+
+    private AuthResponse register(String username, String email) throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername(username);
+        req.setEmail(email);
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class);
+    }
+}
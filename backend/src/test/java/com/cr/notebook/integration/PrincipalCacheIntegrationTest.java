@@ -0,0 +1,105 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.cr.notebook.security.PrincipalCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 用户主体缓存：连续请求命中缓存，修改头像或密码后失效，下一个请求重新查库。
+ * 命中 / 未命中以缓存统计的增量判断，不受同一上下文中其他测试的影响。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class PrincipalCacheIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private PrincipalCache principalCache;
+
+    private static String token;
+
+    @Test
+    @Order(1)
+    void repeatedRequests_shouldBeServedFromCache() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("principal_cache_user");
+        req.setEmail("principal_cache@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        me();
+        long misses = principalCache.stats().missCount();
+        long hits = principalCache.stats().hitCount();
+        me();
+        me();
+
+        assertThat(principalCache.stats().missCount()).isEqualTo(misses);
+        assertThat(principalCache.stats().hitCount()).isEqualTo(hits + 2);
+    }
+
+    @Test
+    @Order(2)
+    void avatarChange_shouldEvictPrincipal() throws Exception {
+        me();
+        mockMvc.perform(put("/api/users/me/avatar")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("avatarUrl", "https://example.com/a.png"))))
+                .andExpect(status().isOk());
+
+        assertNextRequestMisses();
+    }
+
+    @Test
+    @Order(3)
+    void passwordChange_shouldEvictPrincipal() throws Exception {
+        me();
+        mockMvc.perform(put("/api/users/me/password")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "oldPassword", "password123", "newPassword", "password456"))))
+                .andExpect(status().isOk());
+
+        assertNextRequestMisses();
+    }
+
+    private void assertNextRequestMisses() throws Exception {
+        long misses = principalCache.stats().missCount();
+        me();
+        assertThat(principalCache.stats().missCount()).isEqualTo(misses + 1);
+        // 重新加载后再次命中
+        long hits = principalCache.stats().hitCount();
+        me();
+        assertThat(principalCache.stats().hitCount()).isEqualTo(hits + 1);
+    }
+
+    private void me() throws Exception {
+        mockMvc.perform(get("/api/users/me").header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("principal_cache_user"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.cr.notebook.integration;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 统计执行的 SQL 条数（查询与更新）的 MyBatis 拦截器。
+ * 拦截 StatementHandler#prepare 而不是 Executor，避免被 MybatisPlusInterceptor 改写调用链后漏计。
+ * 通过 @Import(QueryCounter.Config.class) 注册到测试上下文。
+ */
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare",
+        args = {Connection.class, Integer.class}))
+class QueryCounter implements Interceptor {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        count.incrementAndGet();
+        return invocation.proceed();
+    }
+
+    void reset() {
+        count.set(0);
+    }
+
+    int get() {
+        return count.get();
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        QueryCounter queryCounter() {
+            return new QueryCounter();
+        }
+    }
+}
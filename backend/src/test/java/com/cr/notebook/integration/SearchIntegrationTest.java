@@ -0,0 +1,122 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.DailyNoteDTO;
+import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 全文搜索端到端：笔记正文、日记都能被检索，写入后索引随之更新，租户之间互不可见。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SearchIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    private static String token;
+    private static String otherToken;
+    private static Long noteId;
+
+    @Test
+    @Order(1)
+    void setup_createContent() throws Exception {
+        token = register("search_test_user");
+        otherToken = register("search_other_user");
+
+        NoteDTO note = new NoteDTO();
+        note.setTitle("架构评审");
+        note.setContent("<p>本周重点：<strong>数据库连接池</strong>调优</p>");
+        MvcResult result = mockMvc.perform(post("/api/notes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(note)))
+                .andExpect(status().isOk())
+                .andReturn();
+        noteId = objectMapper.readValue(result.getResponse().getContentAsString(), NoteDTO.class).getId();
+
+        mockMvc.perform(get("/api/daily-notes/2026-03-02")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        DailyNoteDTO daily = new DailyNoteDTO();
+        daily.setContent("<p>排查数据库慢查询</p>");
+        mockMvc.perform(put("/api/daily-notes/2026-03-02")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(daily)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @Order(2)
+    void search_shouldFindBodyAndDailyNotes() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", "数据库"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.hits[0].highlight").value(containsString("<mark>")));
+
+        mockMvc.perform(get("/api/notes/search")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", "连接池"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(noteId));
+    }
+
+    @Test
+    @Order(3)
+    void search_shouldNotLeakAcrossTenants() throws Exception {
+        mockMvc.perform(get("/api/search")
+                        .header("Authorization", "Bearer " + otherToken)
+                        .param("q", "数据库"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0));
+    }
+
+    @Test
+    @Order(4)
+    void deletedNote_shouldDisappearFromResults() throws Exception {
+        mockMvc.perform(delete("/api/notes/" + noteId)
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/search")
+                        .header("Authorization", "Bearer " + token)
+                        .param("q", "数据库"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.hits[0].type").value("DAILY_NOTE"))
+                .andExpect(jsonPath("$.hits[0].noteDate").value("2026-03-02"));
+    }
+
+    private String register(String username) throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername(username);
+        req.setEmail(username + "@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+    }
+}
@@ -0,0 +1,145 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.TaskDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.cr.notebook.job.StatsRollupReconciler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 统计接口的查询次数 / 耗时基准。
+ * 通过 MyBatis 拦截器统计一次请求内执行的 SQL 条数，验证按天聚合后查询次数与时间窗口长度无关。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCounter.Config.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class StatsQueryCountIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private QueryCounter queryCounter;
+    @Autowired private StatsRollupReconciler statsRollupReconciler;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private static String token;
+
+    @Test
+    @Order(1)
+    void setup_registerUserAndCreateData() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("stats_bench_user");
+        req.setEmail("stats_bench@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        for (int i = 0; i < 3; i++) {
+            NoteDTO note = new NoteDTO();
+            note.setTitle("stats note " + i);
+            mockMvc.perform(post("/api/notes")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(note)))
+                    .andExpect(status().isOk());
+        }
+        TaskDTO task = new TaskDTO();
+        task.setContent("stats task");
+        task.setCompleted(true);
+        mockMvc.perform(post("/api/tasks")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(task)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @Order(2)
+    void personalStats_shouldReturnAggregatedCounts() throws Exception {
+        String today = LocalDate.now().toString();
+        mockMvc.perform(get("/api/stats/personal")
+                        .header("Authorization", "Bearer " + token)
+                        .param("days", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.noteCount").value(3))
+                .andExpect(jsonPath("$.taskCount").value(1))
+                .andExpect(jsonPath("$.taskCompletedCount").value(1))
+                .andExpect(jsonPath("$.dailyStats.length()").value(7))
+                .andExpect(jsonPath("$.dailyStats[6].date").value(today))
+                .andExpect(jsonPath("$.dailyStats[6].noteCount").value(3))
+                .andExpect(jsonPath("$.dailyStats[6].taskCount").value(1))
+                .andExpect(jsonPath("$.dailyStats[6].taskCompletedCount").value(1))
+                .andExpect(jsonPath("$.dailyStats[0].noteCount").value(0));
+    }
+
+    @Test
+    @Order(3)
+    void personalStats_queryCountShouldNotGrowWithWindow() throws Exception {
+        int week = measure(7);
+        int quarter = measure(90);
+
+        assertThat(quarter).isEqualTo(week);
+        // 改造前按天循环：每天 3 次 COUNT，另加 7 次总数查询，90 天共 277 条 SQL；
+        // 现在是一次总数查询加一次汇总表区间读取，与窗口大小无关。
+        assertThat(week).isEqualTo(2);
+    }
+
+    @Test
+    @Order(4)
+    void reconcile_shouldRepairDriftFromEntityTables() throws Exception {
+        // 模拟绕过服务层改库造成的漂移
+        String tenant = "tenant_id = (SELECT id FROM sys_user WHERE username = 'stats_bench_user') AND tenant_type = 'PERSONAL'";
+        jdbcTemplate.update("UPDATE tenant_stats_totals SET note_count = 99, task_completed_count = 0 WHERE " + tenant);
+        jdbcTemplate.update("DELETE FROM tenant_daily_stats WHERE " + tenant);
+
+        statsRollupReconciler.reconcile();
+
+        mockMvc.perform(get("/api/stats/personal")
+                        .header("Authorization", "Bearer " + token)
+                        .param("days", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.noteCount").value(3))
+                .andExpect(jsonPath("$.taskCompletedCount").value(1))
+                .andExpect(jsonPath("$.dailyStats[6].noteCount").value(3))
+                .andExpect(jsonPath("$.dailyStats[6].taskCount").value(1))
+                .andExpect(jsonPath("$.dailyStats[6].taskCompletedCount").value(1));
+    }
+
+    private int measure(int days) throws Exception {
+        // 预热一次，确保用户主体已进入缓存，只统计统计接口本身的 SQL。
+        perform(days);
+        queryCounter.reset();
+        perform(days);
+        return queryCounter.get();
+    }
+
+    private void perform(int days) throws Exception {
+        mockMvc.perform(get("/api/stats/personal")
+                        .header("Authorization", "Bearer " + token)
+                        .param("days", String.valueOf(days)))
+                .andExpect(status().isOk());
+    }
+}
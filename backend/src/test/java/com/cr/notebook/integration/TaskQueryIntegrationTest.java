@@ -0,0 +1,151 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.CursorPage;
+import com.cr.notebook.dto.TaskDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 任务服务端筛选 / 游标分页 / 侧边栏计数：两种排序翻完所有页应与完整列表一致，
+ * 计数与筛选结果一致。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class TaskQueryIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+
+    private static String token;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Test
+    @Order(1)
+    void setup_createTasks() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("task_query_user");
+        req.setEmail("task_query@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        create("overdue", "HIGH", TODAY.minusDays(2), false);
+        create("today 1", "MEDIUM", TODAY, false);
+        create("today 2", "LOW", TODAY, false);
+        create("next week", "HIGH", TODAY.plusDays(7), false);
+        create("someday", "LOW", null, false);
+        create("someday 2", "MEDIUM", null, false);
+        create("done today", "HIGH", TODAY, true);
+    }
+
+    @Test
+    @Order(2)
+    void filters_shouldNarrowServerSide() throws Exception {
+        mockMvc.perform(get("/api/tasks").param("completed", "false").param("priority", "high")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        mockMvc.perform(get("/api/tasks")
+                        .param("dueFrom", TODAY.toString()).param("dueTo", TODAY.toString())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$.length()").value(3));
+
+        mockMvc.perform(get("/api/tasks").param("priority", "urgent")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(3)
+    void paging_shouldWalkEveryTaskOnceInEitherSort() throws Exception {
+        List<String> byCreated = walk("created", 2);
+        assertThat(byCreated).hasSize(7).startsWith("done today").endsWith("overdue");
+
+        // 每页 2 条：第三页横跨有 / 无截止日期两段；每页 5 条：恰好在两段交界处翻页
+        for (int limit : new int[]{2, 5, 7}) {
+            List<String> byDue = walk("due", limit);
+            assertThat(byDue).hasSize(7);
+            assertThat(byDue.get(0)).isEqualTo("overdue");
+            assertThat(byDue.get(4)).isEqualTo("next week");
+            assertThat(byDue.subList(5, 7)).containsExactly("someday", "someday 2");
+        }
+    }
+
+    @Test
+    @Order(4)
+    void dueSortWithoutPaging_shouldListUndatedLast() throws Exception {
+        mockMvc.perform(get("/api/tasks").param("sort", "due").param("completed", "false")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6))
+                .andExpect(jsonPath("$[0].content").value("overdue"))
+                .andExpect(jsonPath("$[5].content").value("someday 2"));
+    }
+
+    @Test
+    @Order(5)
+    void counts_shouldComeFromOneGroupedQuery() throws Exception {
+        mockMvc.perform(get("/api/tasks/counts")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(7))
+                .andExpect(jsonPath("$.pending").value(6))
+                .andExpect(jsonPath("$.completed").value(1))
+                .andExpect(jsonPath("$.dueToday").value(2))
+                .andExpect(jsonPath("$.overdue").value(1));
+    }
+
+    private List<String> walk(String sort, int limit) throws Exception {
+        List<String> contents = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/tasks").param("sort", sort).param("limit", String.valueOf(limit))
+                    .header("Authorization", "Bearer " + token);
+            if (cursor != null) request.param("cursor", cursor);
+            MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+            CursorPage<TaskDTO> page = objectMapper.readValue(result.getResponse().getContentAsString(),
+                    new TypeReference<>() {});
+            page.getItems().forEach(t -> contents.add(t.getContent()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return contents;
+    }
+
+    private void create(String content, String priority, LocalDate due, boolean completed) throws Exception {
+        TaskDTO dto = new TaskDTO();
+        dto.setContent(content);
+        dto.setPriority(priority);
+        dto.setDueDate(due);
+        dto.setCompleted(completed);
+        mockMvc.perform(post("/api/tasks")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,139 @@
+package com.cr.notebook.integration;
+
+import com.cr.notebook.dto.WhiteboardDTO;
+import com.cr.notebook.dto.auth.AuthResponse;
+import com.cr.notebook.dto.auth.RegisterRequest;
+import com.cr.notebook.service.WhiteboardService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 白板笔画日志端到端：追加、撤销、分页加载、压缩进快照后继续追加，以及清空。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class WhiteboardStrokeIntegrationTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private WhiteboardService whiteboardService;
+
+    private static String token;
+    private static Long boardId;
+    private static final List<Long> strokeIds = new ArrayList<>();
+
+    @Test
+    @Order(1)
+    void setup_createBoard() throws Exception {
+        RegisterRequest req = new RegisterRequest();
+        req.setUsername("stroke_test_user");
+        req.setEmail("stroke@example.com");
+        req.setPassword("password123");
+        MvcResult result = mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(req)))
+                .andExpect(status().isOk())
+                .andReturn();
+        token = objectMapper.readValue(result.getResponse().getContentAsString(), AuthResponse.class).getToken();
+
+        result = mockMvc.perform(post("/api/whiteboards")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Sketch\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        boardId = objectMapper.readValue(result.getResponse().getContentAsString(), WhiteboardDTO.class).getId();
+    }
+
+    @Test
+    @Order(2)
+    void addStrokes_shouldAppendToLog() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MvcResult result = mockMvc.perform(post("/api/whiteboards/" + boardId + "/strokes")
+                            .header("Authorization", "Bearer " + token)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"color\":\"#000\",\"width\":3,\"points\":[{\"x\":" + i + ",\"y\":0}]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.width").value(3))
+                    .andReturn();
+            strokeIds.add(objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong());
+        }
+
+        // 撤销最后一笔
+        mockMvc.perform(delete("/api/whiteboards/" + boardId + "/strokes/" + strokeIds.remove(4))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        assertThat(loadAll(2)).containsExactlyElementsOf(strokeIds);
+    }
+
+    @Test
+    @Order(3)
+    void compact_shouldKeepOrderAndAllowFurtherAppends() throws Exception {
+        assertThat(whiteboardService.compactStrokes(boardId)).isEqualTo(4);
+
+        MvcResult result = mockMvc.perform(post("/api/whiteboards/" + boardId + "/strokes")
+                        .header("Authorization", "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"color\":\"#f00\",\"width\":2,\"points\":[]}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        strokeIds.add(objectMapper.readTree(result.getResponse().getContentAsString()).get("id").asLong());
+
+        // 撤销一笔已经压缩进快照的笔画
+        mockMvc.perform(delete("/api/whiteboards/" + boardId + "/strokes/" + strokeIds.remove(0))
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        assertThat(loadAll(2)).containsExactlyElementsOf(strokeIds);
+
+        // 列表不再返回整块数据
+        mockMvc.perform(get("/api/whiteboards")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(jsonPath("$[0].data").doesNotExist());
+    }
+
+    @Test
+    @Order(4)
+    void clear_shouldRemoveSnapshotAndLog() throws Exception {
+        mockMvc.perform(delete("/api/whiteboards/" + boardId + "/strokes")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        assertThat(loadAll(10)).isEmpty();
+    }
+
+    private List<Long> loadAll(int pageSize) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/whiteboards/" + boardId + "/strokes")
+                    .header("Authorization", "Bearer " + token)
+                    .param("limit", String.valueOf(pageSize));
+            if (cursor != null) request.param("cursor", cursor);
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("items").forEach(item -> ids.add(item.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+        return ids;
+    }
+}
@@ -0,0 +1,206 @@
+package com.cr.notebook.search;
+
+import com.cr.notebook.dto.SearchHitDTO;
+import com.cr.notebook.dto.SearchResultDTO;
+import com.cr.notebook.tenant.TenantType;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LuceneNoteSearchEngineTest {
+
+    private LuceneNoteSearchEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new LuceneNoteSearchEngine("", 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.destroy();
+    }
+
+    @Test
+    void search_shouldMatchChineseWordsInBody() {
+        engine.index(note(1L, 1L, "周会记录", "<p>讨论了<b>知识图谱</b>的性能优化方案</p>"));
+        engine.index(note(2L, 1L, "购物清单", "<p>牛奶、面包</p>"));
+
+        SearchResultDTO result = engine.search(1L, TenantType.PERSONAL, "性能优化", null, 0, 10);
+
+        assertThat(result.getTotal()).isEqualTo(1);
+        SearchHitDTO hit = result.getHits().get(0);
+        assertThat(hit.getId()).isEqualTo(1L);
+        assertThat(hit.getHighlight()).contains("<mark>").doesNotContain("<b>");
+    }
+
+    @Test
+    void search_shouldRankTitleMatchesFirst() {
+        engine.index(note(1L, 1L, "随手记", "今天学习了 Spring 框架"));
+        engine.index(note(2L, 1L, "Spring 学习笔记", "依赖注入"));
+
+        SearchResultDTO result = engine.search(1L, TenantType.PERSONAL, "spring", null, 0, 10);
+
+        assertThat(result.getHits()).extracting(SearchHitDTO::getId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void search_shouldSupportPrefixOfLastEnglishWord() {
+        engine.index(note(1L, 1L, "Kubernetes deployment", ""));
+
+        assertThat(engine.search(1L, TenantType.PERSONAL, "kuber", null, 0, 10).getTotal()).isEqualTo(1);
+    }
+
+    @Test
+    void search_shouldPageAndFilterByType() {
+        IntStream.rangeClosed(1, 5).forEach(i -> engine.index(note((long) i, 1L, "项目 " + i, "项目进度")));
+        engine.index(SearchDocument.builder().type(SearchDocType.DAILY_NOTE).id(100L)
+                .tenantId(1L).tenantType(TenantType.PERSONAL)
+                .title("2026-03-01").body("项目上线").noteDate(LocalDate.of(2026, 3, 1)).build());
+
+        SearchResultDTO page = engine.search(1L, TenantType.PERSONAL, "项目", SearchDocType.NOTE, 2, 2);
+        assertThat(page.getTotal()).isEqualTo(5);
+        assertThat(page.getHits()).hasSize(2);
+
+        SearchResultDTO daily = engine.search(1L, TenantType.PERSONAL, "项目", SearchDocType.DAILY_NOTE, 0, 10);
+        assertThat(daily.getHits()).singleElement()
+                .satisfies(h -> assertThat(h.getNoteDate()).isEqualTo(LocalDate.of(2026, 3, 1)));
+    }
+
+    @Test
+    void search_shouldIsolateTenants() {
+        engine.index(note(1L, 1L, "机密", "内容"));
+
+        assertThat(engine.search(2L, TenantType.PERSONAL, "机密", null, 0, 10).getTotal()).isZero();
+        assertThat(engine.search(1L, TenantType.ORGANIZATION, "机密", null, 0, 10).getTotal()).isZero();
+    }
+
+    @Test
+    void indexAndDelete_shouldReplaceDocuments() {
+        engine.index(note(1L, 1L, "旧标题", ""));
+        engine.index(note(1L, 1L, "新标题", ""));
+        assertThat(engine.search(1L, TenantType.PERSONAL, "标题", null, 0, 10).getTotal()).isEqualTo(1);
+
+        engine.delete(SearchDocType.NOTE, 1L, 1L, TenantType.PERSONAL);
+        assertThat(engine.search(1L, TenantType.PERSONAL, "标题", null, 0, 10).getTotal()).isZero();
+    }
+
+    @Test
+    void rebuild_shouldPersistBuiltMarkerOnDisk(@TempDir Path dir) {
+        LuceneNoteSearchEngine disk = new LuceneNoteSearchEngine(dir.toString(), 16);
+        assertThat(disk.needsRebuild(1L, TenantType.PERSONAL)).isTrue();
+        disk.rebuild(1L, TenantType.PERSONAL, Stream.of(note(1L, 1L, "持久化", "")));
+        disk.destroy();
+
+        LuceneNoteSearchEngine reopened = new LuceneNoteSearchEngine(dir.toString(), 16);
+        try {
+            assertThat(reopened.needsRebuild(1L, TenantType.PERSONAL)).isFalse();
+            assertThat(reopened.search(1L, TenantType.PERSONAL, "持久化", null, 0, 10).getTotal()).isEqualTo(1);
+        } finally {
+            reopened.destroy();
+        }
+    }
+
+    @Test
+    void index_shouldBeSearchableImmediatelyButCommittedOnlyBySchedule(@TempDir Path dir) throws Exception {
+        LuceneNoteSearchEngine disk = new LuceneNoteSearchEngine(dir.toString(), 16);
+        try {
+            disk.rebuild(1L, TenantType.PERSONAL, Stream.empty());
+            disk.index(note(1L, 1L, "自动保存", ""));
+            assertThat(disk.search(1L, TenantType.PERSONAL, "自动保存", null, 0, 10).getTotal()).isEqualTo(1);
+            assertThat(committedDocs(dir.resolve("PERSONAL-1"))).isZero();
+
+            disk.commitPending();
+            assertThat(committedDocs(dir.resolve("PERSONAL-1"))).isEqualTo(1);
+        } finally {
+            disk.destroy();
+        }
+    }
+
+    @Test
+    void reopenAfterCrash_shouldRequireRebuild(@TempDir Path dir, @TempDir Path crashed) throws Exception {
+        LuceneNoteSearchEngine disk = new LuceneNoteSearchEngine(dir.toString(), 16);
+        try {
+            disk.rebuild(1L, TenantType.PERSONAL, Stream.of(note(1L, 1L, "已提交", "")));
+            disk.index(note(2L, 1L, "未提交", ""));
+            disk.commitPending();
+            // 索引仍处于打开状态时的磁盘快照，相当于进程在此刻崩溃
+            copyDirectory(dir.resolve("PERSONAL-1"), crashed.resolve("PERSONAL-1"));
+        } finally {
+            disk.destroy();
+        }
+
+        LuceneNoteSearchEngine reopened = new LuceneNoteSearchEngine(crashed.toString(), 16);
+        try {
+            assertThat(reopened.needsRebuild(1L, TenantType.PERSONAL)).isTrue();
+        } finally {
+            reopened.destroy();
+        }
+    }
+
+    @Test
+    void invalidate_shouldRequireRebuildAfterReopen(@TempDir Path dir) {
+        LuceneNoteSearchEngine disk = new LuceneNoteSearchEngine(dir.toString(), 16);
+        disk.rebuild(1L, TenantType.PERSONAL, Stream.of(note(1L, 1L, "标记", "")));
+        disk.invalidate(1L, TenantType.PERSONAL);
+        assertThat(disk.needsRebuild(1L, TenantType.PERSONAL)).isTrue();
+        disk.destroy();
+
+        LuceneNoteSearchEngine reopened = new LuceneNoteSearchEngine(dir.toString(), 16);
+        try {
+            assertThat(reopened.needsRebuild(1L, TenantType.PERSONAL)).isTrue();
+        } finally {
+            reopened.destroy();
+        }
+    }
+
+    @Test
+    void rebuild_withConcurrentUpdateOfSameNote_shouldKeepOneDocument() {
+        // 重建读到笔记 1 之前，单篇更新已先写入了同一篇笔记
+        Stream<SearchDocument> documents = Stream.of(note(1L, 1L, "重建内容", ""))
+                .peek(doc -> engine.index(note(1L, 1L, "重建内容", "")));
+
+        engine.rebuild(1L, TenantType.PERSONAL, documents);
+
+        assertThat(engine.search(1L, TenantType.PERSONAL, "重建", null, 0, 10).getTotal()).isEqualTo(1);
+    }
+
+    private static void copyDirectory(Path from, Path to) throws Exception {
+        Files.createDirectories(to);
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.toList()) {
+                if (!file.getFileName().toString().equals("write.lock")) Files.copy(file, to.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static int committedDocs(Path indexDir) throws Exception {
+        try (Directory directory = FSDirectory.open(indexDir);
+             DirectoryReader reader = DirectoryReader.open(directory)) {
+            return reader.numDocs();
+        }
+    }
+
+    private SearchDocument note(Long id, Long tenantId, String title, String html) {
+        return SearchDocument.builder()
+                .type(SearchDocType.NOTE)
+                .id(id)
+                .tenantId(tenantId)
+                .tenantType(TenantType.PERSONAL)
+                .title(title)
+                .body(SearchText.stripHtml(html))
+                .build();
+    }
+}
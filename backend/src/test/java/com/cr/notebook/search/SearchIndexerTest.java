@@ -0,0 +1,128 @@
+package com.cr.notebook.search;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.cr.notebook.entity.DailyNote;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.mapper.DailyNoteMapper;
+import com.cr.notebook.mapper.NoteMapper;
+import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SearchIndexerTest {
+
+    private final NoteSearchEngine engine = mock(NoteSearchEngine.class);
+    private final NoteMapper noteMapper = mock(NoteMapper.class);
+    private final SearchIndexer indexer = new SearchIndexer(engine, noteMapper, mock(DailyNoteMapper.class), false, 500, 1000);
+
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Note.class);
+        TableInfoHelper.initTableInfo(assistant, DailyNote.class);
+    }
+
+    @Test
+    void rebuildTenant_shouldNotBlockOtherTenantsAndBuildOncePerTenant() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger bigBuilds = new AtomicInteger();
+        boolean[] bigBuilt = {false};
+        when(engine.needsRebuild(eq(1L), any())).thenAnswer(inv -> !bigBuilt[0]);
+        when(engine.needsRebuild(eq(2L), any())).thenReturn(true);
+        doAnswer(inv -> {
+            bigBuilds.incrementAndGet();
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            bigBuilt[0] = true;
+            return null;
+        }).when(engine).rebuild(eq(1L), any(), any());
+
+        CompletableFuture<Void> big1 = CompletableFuture.runAsync(() -> indexer.rebuildTenant(1L, TenantType.PERSONAL));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> big2 = CompletableFuture.runAsync(() -> indexer.rebuildTenant(1L, TenantType.PERSONAL));
+
+        // 租户 1 仍在重建，租户 2 不受影响
+        CompletableFuture.runAsync(() -> indexer.rebuildTenant(2L, TenantType.PERSONAL)).get(2, TimeUnit.SECONDS);
+        verify(engine).rebuild(eq(2L), eq(TenantType.PERSONAL), any());
+
+        release.countDown();
+        CompletableFuture.allOf(big1, big2).get(5, TimeUnit.SECONDS);
+        assertThat(bigBuilds).hasValue(1);
+    }
+
+    @Test
+    void apply_failure_shouldInvalidateTenantIndex() {
+        Note note = Note.builder().title("t").build();
+        note.setId(7L);
+        note.setTenantId(1L);
+        note.setTenantType(TenantType.PERSONAL);
+        when(noteMapper.selectById(7L)).thenReturn(note);
+        doThrow(new IllegalStateException("disk full")).when(engine).index(any());
+
+        indexer.apply(new SearchIndexEvent(SearchDocType.NOTE, 7L, 1L, TenantType.PERSONAL, false));
+
+        verify(engine).invalidate(1L, TenantType.PERSONAL);
+    }
+
+    @Test
+    void apply_shouldWaitForRunningRebuildOfSameTenant() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(engine.needsRebuild(eq(1L), any())).thenReturn(true);
+        doAnswer(inv -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(engine).rebuild(eq(1L), any(), any());
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(() -> indexer.rebuildTenant(1L, TenantType.PERSONAL));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() -> indexer.apply(
+                new SearchIndexEvent(SearchDocType.NOTE, 7L, 1L, TenantType.PERSONAL, true)));
+
+        // 重建期间单篇写入等待，避免重建写入的旧内容覆盖新内容
+        Thread.sleep(200);
+        assertThat(write).isNotDone();
+        verify(engine, never()).delete(any(), any(), any(), any());
+
+        release.countDown();
+        CompletableFuture.allOf(rebuild, write).get(5, TimeUnit.SECONDS);
+        verify(engine).delete(SearchDocType.NOTE, 7L, 1L, TenantType.PERSONAL);
+    }
+
+    @Test
+    void destroy_pendingEventsAfterTimeout_shouldInvalidateTheirTenants() throws Exception {
+        SearchIndexer async = new SearchIndexer(engine, noteMapper, mock(DailyNoteMapper.class), true, 500, 100);
+        when(engine.maintainsIndex()).thenReturn(true);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            // 关闭超时后 shutdownNow 会中断正在执行的任务
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+            return null;
+        }).when(engine).delete(any(), eq(1L), any(), any());
+
+        async.onIndexEvent(new SearchIndexEvent(SearchDocType.NOTE, 1L, 1L, TenantType.PERSONAL, true));
+        async.onIndexEvent(new SearchIndexEvent(SearchDocType.NOTE, 2L, 2L, TenantType.ORGANIZATION, true));
+        async.destroy();
+        release.countDown();
+
+        verify(engine).invalidate(2L, TenantType.ORGANIZATION);
+        verify(engine, never()).delete(any(), eq(2L), any(), any());
+    }
+}
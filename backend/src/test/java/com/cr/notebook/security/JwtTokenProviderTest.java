@@ -0,0 +1,79 @@
+package com.cr.notebook.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test-jwt-secret-key-must-be-at-least-256-bits-long-for-hs256-testing";
+
+    private final UserPrincipal principal = new UserPrincipal(42L, "alice", "alice@example.com", "hash");
+
+    @Test
+    void validateAndParse_validToken_shouldReturnClaims() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100);
+        String token = provider.generateToken(principal);
+
+        Claims claims = provider.validateAndParse(token);
+
+        assertThat(claims.getSubject()).isEqualTo("42");
+        UserPrincipal parsed = provider.toPrincipal(claims);
+        assertThat(parsed.getId()).isEqualTo(42L);
+        assertThat(parsed.getUsername()).isEqualTo("alice");
+        assertThat(parsed.getPassword()).isNull();
+    }
+
+    @Test
+    void validateAndParse_repeatedToken_shouldBeServedFromCache() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100);
+        String token = provider.generateToken(principal);
+
+        assertThat(provider.validateAndParse(token)).isSameAs(provider.validateAndParse(token));
+    }
+
+    @Test
+    void validateAndParse_cacheDisabled_shouldParseEveryTime() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 0);
+        String token = provider.generateToken(principal);
+
+        Claims first = provider.validateAndParse(token);
+        Claims second = provider.validateAndParse(token);
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(second.getSubject()).isEqualTo("42");
+    }
+
+    @Test
+    void validateAndParse_tamperedToken_shouldReturnNull() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100);
+        String token = provider.generateToken(principal);
+        // 先让正确令牌进入缓存，篡改后的令牌哈希不同，不能命中
+        provider.validateAndParse(token);
+        // 改签名中间的字符：末位 base64url 字符含填充位，改动可能不影响解码结果
+        int i = token.length() - 10;
+        String tampered = token.substring(0, i) + (token.charAt(i) == 'A' ? 'B' : 'A') + token.substring(i + 1);
+
+        assertThat(provider.validateAndParse(tampered)).isNull();
+        assertThat(provider.validateToken(tampered)).isFalse();
+        assertThat(provider.validateAndParse("not-a-jwt")).isNull();
+        assertThat(provider.validateAndParse(null)).isNull();
+    }
+
+    @Test
+    void validateAndParse_otherKey_shouldReturnNull() {
+        JwtTokenProvider other = new JwtTokenProvider(SECRET.replace("test", "fake"), 60_000, 100);
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100);
+
+        assertThat(provider.validateAndParse(other.generateToken(principal))).isNull();
+    }
+
+    @Test
+    void validateAndParse_expiredToken_shouldReturnNull() {
+        JwtTokenProvider provider = new JwtTokenProvider(SECRET, -1_000, 100);
+        String token = provider.generateToken(principal);
+
+        assertThat(provider.validateAndParse(token)).isNull();
+    }
+}
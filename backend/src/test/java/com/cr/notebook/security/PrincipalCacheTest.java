@@ -0,0 +1,117 @@
+package com.cr.notebook.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PrincipalCache cache = new PrincipalCache(registry, 100, 300);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void get_repeatedLookup_shouldLoadOnceAndHitAfterwards() {
+        UserPrincipal first = cache.get(1L, this::load);
+        UserPrincipal second = cache.get(1L, this::load);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void evict_shouldReloadOnNextLookup() {
+        UserPrincipal before = cache.get(1L, this::load);
+        cache.get(2L, this::load);
+
+        cache.evict(1L);
+
+        assertThat(cache.get(1L, this::load)).isNotSameAs(before);
+        // 只失效被修改的用户，其他用户仍命中
+        cache.get(2L, this::load);
+        assertThat(loads).hasValue(3);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void stats_shouldBeExposedAsCacheMetrics() {
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+
+        assertThat(registry.get("cache.gets").tag("cache", "principal").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.gets").tag("cache", "principal").tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.size").tag("cache", "principal").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void filter_cacheMode_shouldResolvePrincipalThroughUserDetailsService() throws Exception {
+        JwtTokenProvider tokenProvider = mockTokenProvider();
+        UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+        when(userDetailsService.loadUserById(42L)).thenReturn(load(42L));
+
+        new JwtAuthenticationFilter(tokenProvider, userDetailsService, "cache")
+                .doFilter(authorizedRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        verify(userDetailsService).loadUserById(42L);
+        verify(tokenProvider, never()).toPrincipal(any());
+        assertThat(authenticatedId()).isEqualTo(42L);
+    }
+
+    @Test
+    void filter_statelessMode_shouldBuildPrincipalFromClaimsWithoutLookup() throws Exception {
+        JwtTokenProvider tokenProvider = mockTokenProvider();
+        UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class);
+        when(tokenProvider.toPrincipal(any())).thenReturn(new UserPrincipal(42L, "alice", "alice@example.com", null));
+
+        new JwtAuthenticationFilter(tokenProvider, userDetailsService, "stateless")
+                .doFilter(authorizedRequest(), new MockHttpServletResponse(), new MockFilterChain());
+
+        verify(userDetailsService, never()).loadUserById(anyLong());
+        assertThat(authenticatedId()).isEqualTo(42L);
+    }
+
+    private UserPrincipal load(Long id) {
+        loads.incrementAndGet();
+        return new UserPrincipal(id, "user" + id, "user" + id + "@example.com", null);
+    }
+
+    private static JwtTokenProvider mockTokenProvider() {
+        JwtTokenProvider tokenProvider = mock(JwtTokenProvider.class);
+        Claims claims = mock(Claims.class);
+        when(claims.getSubject()).thenReturn("42");
+        when(tokenProvider.validateAndParse("token")).thenReturn(claims);
+        return tokenProvider;
+    }
+
+    private static MockHttpServletRequest authorizedRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        return request;
+    }
+
+    private static Long authenticatedId() {
+        return ((UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getId();
+    }
+}
@@ -0,0 +1,192 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.AvatarImage;
+import com.cr.notebook.mapper.AvatarImageMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvatarServiceTest {
+
+    @Mock private AvatarImageMapper avatarImageMapper;
+
+    private AvatarService avatarService;
+
+    @BeforeEach
+    void setUp() {
+        avatarService = new AvatarService(avatarImageMapper, 1024 * 1024);
+    }
+
+    @Test
+    void resolve_dataUrl_shouldStoreOnceAndReturnShortUrl() throws Exception {
+        String dataUrl = dataUrl(png(512, 256));
+        when(avatarImageMapper.countByHash(anyString())).thenReturn(0);
+
+        String url = avatarService.resolve(dataUrl);
+
+        assertThat(url).matches("/api/avatars/[0-9a-f]{64}");
+        ArgumentCaptor<AvatarImage> captor = ArgumentCaptor.forClass(AvatarImage.class);
+        verify(avatarImageMapper).insert(captor.capture());
+        AvatarImage stored = captor.getValue();
+        assertThat(url).endsWith(stored.getHash());
+        assertThat(stored.getContentType()).isEqualTo("image/png");
+
+        BufferedImage thumb = ImageIO.read(new ByteArrayInputStream(stored.getThumbnail()));
+        assertThat(thumb.getWidth()).isEqualTo(AvatarService.THUMBNAIL_SIZE);
+        assertThat(thumb.getHeight()).isEqualTo(AvatarService.THUMBNAIL_SIZE / 2);
+    }
+
+    @Test
+    void resolve_sameImageTwice_shouldReturnSameHashWithoutSecondInsert() throws Exception {
+        String dataUrl = dataUrl(png(64, 64));
+        when(avatarImageMapper.countByHash(anyString())).thenReturn(0, 1);
+
+        String first = avatarService.resolve(dataUrl);
+        String second = avatarService.resolve(dataUrl);
+
+        assertThat(second).isEqualTo(first);
+        verify(avatarImageMapper, times(1)).insert(any(AvatarImage.class));
+    }
+
+    @Test
+    void store_concurrentDuplicate_shouldBeIgnored() throws Exception {
+        when(avatarImageMapper.countByHash(anyString())).thenReturn(0);
+        when(avatarImageMapper.insert(any(AvatarImage.class))).thenThrow(new DuplicateKeyException("dup"));
+
+        assertThat(avatarService.store(dataUrl(png(32, 32)))).hasSize(64);
+    }
+
+    @Test
+    void store_smallImage_shouldSkipThumbnail() throws Exception {
+        when(avatarImageMapper.countByHash(anyString())).thenReturn(0);
+
+        avatarService.store(dataUrl(png(64, 64)));
+
+        ArgumentCaptor<AvatarImage> captor = ArgumentCaptor.forClass(AvatarImage.class);
+        verify(avatarImageMapper).insert(captor.capture());
+        assertThat(captor.getValue().getThumbnail()).isNull();
+    }
+
+    @Test
+    void store_svgDeclaredAsPng_shouldBeRejected() {
+        String svg = Base64.getEncoder().encodeToString("<svg onload=\"alert(1)\"/>".getBytes());
+
+        assertThatThrownBy(() -> avatarService.store("data:image/png;base64," + svg))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(avatarImageMapper, never()).insert(any(AvatarImage.class));
+    }
+
+    @Test
+    void store_tooLarge_shouldBeRejected() {
+        byte[] big = new byte[AvatarService.MAX_IMAGE_BYTES + 1];
+        big[0] = (byte) 0xFF; big[1] = (byte) 0xD8; big[2] = (byte) 0xFF;
+
+        assertThatThrownBy(() -> avatarService.store(dataUrl(big)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void store_hugeDeclaredDimensions_shouldBeRejectedBeforeDecoding() throws Exception {
+        // 几十字节的 PNG 头声明 30000×30000 像素，完整解码需要约 3.6GB
+        byte[] bomb = pngHeader(30000, 30000);
+        assertThat(AvatarService.dimensions(bomb)).isEqualTo(new Dimension(30000, 30000));
+
+        assertThatThrownBy(() -> avatarService.store(dataUrl(bomb)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(AvatarService.thumbnail(bomb)).isNull();
+        verifyNoInteractions(avatarImageMapper);
+    }
+
+    @Test
+    void thumbnail_largeImage_shouldSubsampleToThumbnailSize() throws Exception {
+        byte[] thumb = AvatarService.thumbnail(png(2000, 1000));
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumb));
+        assertThat(image.getWidth()).isEqualTo(AvatarService.THUMBNAIL_SIZE);
+        assertThat(image.getHeight()).isEqualTo(AvatarService.THUMBNAIL_SIZE / 2);
+    }
+
+    @Test
+    void resolve_passThroughAndClear() {
+        assertThat(avatarService.resolve(null)).isNull();
+        assertThat(avatarService.resolve("  ")).isNull();
+        assertThat(avatarService.resolve("https://example.com/a.png")).isEqualTo("https://example.com/a.png");
+        String preset = "data:image/svg+xml,%3Csvg%3E%3C%2Fsvg%3E";
+        assertThat(avatarService.resolve(preset)).isEqualTo(preset);
+        String stored = "/api/avatars/" + "a".repeat(64);
+        assertThat(avatarService.resolve(stored)).isEqualTo(stored);
+        verifyNoInteractions(avatarImageMapper);
+    }
+
+    @Test
+    void resolve_unsupportedScheme_shouldThrow() {
+        assertThatThrownBy(() -> avatarService.resolve("javascript:alert(1)"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void get_shouldCacheAndRejectMalformedHash() {
+        String hash = "b".repeat(64);
+        AvatarImage image = AvatarImage.builder().hash(hash).contentType("image/png").data(new byte[10]).build();
+        when(avatarImageMapper.selectById(hash)).thenReturn(image);
+
+        assertThat(avatarService.get(hash)).isSameAs(image);
+        assertThat(avatarService.get(hash)).isSameAs(image);
+        assertThat(avatarService.get("../etc/passwd")).isNull();
+        verify(avatarImageMapper, times(1)).selectById(hash);
+    }
+
+    private static byte[] png(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, 0xFF0000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /** 只有 IHDR / IEND 的 PNG：声明的尺寸任意，但没有像素数据 */
+    private static byte[] pngHeader(int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        java.nio.ByteBuffer ihdr = ByteBuffer.allocate(13).putInt(width).putInt(height)
+                .put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+        writeChunk(out, "IHDR", ihdr.array());
+        writeChunk(out, "IEND", new byte[0]);
+        return out.toByteArray();
+    }
+
+    private static void writeChunk(ByteArrayOutputStream out, String type, byte[] data) throws Exception {
+        CRC32 crc = new CRC32();
+        crc.update(type.getBytes(StandardCharsets.US_ASCII));
+        crc.update(data);
+        out.write(ByteBuffer.allocate(4).putInt(data.length).array());
+        out.write(type.getBytes(StandardCharsets.US_ASCII));
+        out.write(data);
+        out.write(ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+    private static String dataUrl(byte[] bytes) {
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(bytes);
+    }
+}
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
@@ -29,6 +30,12 @@ class CalendarEventServiceTest {
     @Mock
     private CalendarEventMapper calendarEventMapper;
 
+    @Mock
+    private StatsRollupService statsRollupService;
+
+    @Spy
+    private CalendarEventCache calendarEventCache = new CalendarEventCache(true, 1000, 600, 1000);
+
     @InjectMocks
     private CalendarEventService calendarEventService;
 
@@ -54,6 +61,122 @@ class CalendarEventServiceTest {
         assertThat(result.get(0).getTitle()).isEqualTo("Meeting");
     }
 
+    @Test
+    void listEvents_shouldServeRepeatedRangesFromCachedTree() {
+        CalendarEvent single = buildEvent(1L, "Single", LocalDate.of(2026, 3, 10));
+        CalendarEvent spanning = buildEvent(2L, "Trip", LocalDate.of(2026, 2, 25));
+        spanning.setEndDate(LocalDate.of(2026, 3, 2));
+        CalendarEvent later = buildEvent(3L, "Later", LocalDate.of(2026, 4, 5));
+        when(calendarEventMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(single, spanning, later));
+
+        List<CalendarEventDTO> march = calendarEventService.listEvents(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31));
+        List<CalendarEventDTO> april = calendarEventService.listEvents(LocalDate.of(2026, 4, 1), LocalDate.of(2026, 4, 30));
+
+        assertThat(march).extracting(CalendarEventDTO::getTitle).containsExactly("Trip", "Single");
+        assertThat(april).extracting(CalendarEventDTO::getTitle).containsExactly("Later");
+        verify(calendarEventMapper, times(1)).selectList(any(LambdaQueryWrapper.class));
+    }
+
+    @Test
+    void listEvents_afterCreate_shouldReloadTree() {
+        when(calendarEventMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of());
+        when(calendarEventMapper.insert(any(CalendarEvent.class))).thenReturn(1);
+        calendarEventService.listEvents(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31));
+
+        CalendarEventDTO input = new CalendarEventDTO();
+        input.setTitle("New");
+        input.setEventDate(LocalDate.of(2026, 3, 3));
+        calendarEventService.createEvent(input);
+        calendarEventService.listEvents(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 31));
+
+        verify(calendarEventMapper, times(2)).selectList(any(LambdaQueryWrapper.class));
+    }
+
+    @Test
+    void listEvents_shouldExpandRecurringSeriesWithinWindowOnly() {
+        CalendarEvent standup = buildEvent(1L, "Standup", LocalDate.of(2020, 1, 6));
+        standup.setRecurrenceRule("FREQ=WEEKLY;BYDAY=MO,TH");
+        standup.setRecurrenceExceptions(List.of("2026-03-05"));
+        CalendarEvent single = buildEvent(2L, "Review", LocalDate.of(2026, 3, 9));
+        single.setEventTime(LocalTime.of(15, 0));
+        when(calendarEventMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(standup, single));
+
+        List<CalendarEventDTO> result = calendarEventService.listEvents(LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 9));
+
+        assertThat(result).extracting(CalendarEventDTO::getEventDate).containsExactly(
+                LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 9));
+        assertThat(result).extracting(CalendarEventDTO::getTitle).containsExactly("Standup", "Standup", "Review");
+        assertThat(result.get(0).getSeriesStartDate()).isEqualTo(LocalDate.of(2020, 1, 6));
+        assertThat(result.get(2).getSeriesStartDate()).isNull();
+    }
+
+    @Test
+    void listEvents_multiDayOccurrence_shouldOverlapWindowStart() {
+        CalendarEvent trip = buildEvent(1L, "Trip", LocalDate.of(2026, 1, 30));
+        trip.setEndDate(LocalDate.of(2026, 2, 2));
+        trip.setRecurrenceRule("FREQ=MONTHLY;COUNT=2");
+        trip.setRecurrenceEnd(LocalDate.of(2026, 3, 2));
+        when(calendarEventMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(trip));
+
+        List<CalendarEventDTO> result = calendarEventService.listEvents(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28));
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getEventDate()).isEqualTo(LocalDate.of(2026, 1, 30));
+        assertThat(result.get(0).getEndDate()).isEqualTo(LocalDate.of(2026, 2, 2));
+    }
+
+    @Test
+    void listEvents_oversizedOrInvertedWindow_shouldThrowWithoutQuerying() {
+        assertThatThrownBy(() -> calendarEventService.listEvents(LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> calendarEventService.listEvents(LocalDate.of(2026, 3, 31), LocalDate.of(2026, 3, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(calendarEventService.listEvents(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31))).isEmpty();
+        verify(calendarEventMapper, times(1)).selectList(any(LambdaQueryWrapper.class));
+    }
+
+    @Test
+    void createEvent_recurring_shouldNormalizeRuleAndComputeSeriesEnd() {
+        when(calendarEventMapper.insert(any(CalendarEvent.class))).thenReturn(1);
+
+        CalendarEventDTO input = new CalendarEventDTO();
+        input.setTitle("Gym");
+        input.setEventDate(LocalDate.of(2026, 3, 2));
+        input.setEndDate(LocalDate.of(2026, 3, 3));
+        input.setRecurrenceRule("RRULE:FREQ=WEEKLY;COUNT=3");
+
+        CalendarEventDTO result = calendarEventService.createEvent(input);
+
+        assertThat(result.getRecurrenceRule()).isEqualTo("FREQ=WEEKLY;COUNT=3");
+        verify(calendarEventMapper).insert(argThat((CalendarEvent e) ->
+                LocalDate.of(2026, 3, 17).equals(e.getRecurrenceEnd())));
+    }
+
+    @Test
+    void createEvent_invalidRule_shouldThrow() {
+        CalendarEventDTO input = new CalendarEventDTO();
+        input.setTitle("Bad");
+        input.setEventDate(LocalDate.of(2026, 3, 2));
+        input.setRecurrenceRule("FREQ=SOMETIMES");
+
+        assertThatThrownBy(() -> calendarEventService.createEvent(input)).isInstanceOf(IllegalArgumentException.class);
+        verify(calendarEventMapper, never()).insert(any(CalendarEvent.class));
+    }
+
+    @Test
+    void skipOccurrence_shouldAddExceptionOnlyForRealOccurrences() {
+        CalendarEvent series = buildEvent(1L, "Daily", LocalDate.of(2026, 3, 1));
+        series.setRecurrenceRule("FREQ=DAILY;INTERVAL=2");
+        when(calendarEventMapper.selectById(1L)).thenReturn(series);
+        when(calendarEventMapper.updateById(any(CalendarEvent.class))).thenReturn(1);
+
+        CalendarEventDTO result = calendarEventService.skipOccurrence(1L, LocalDate.of(2026, 3, 5));
+
+        assertThat(result.getRecurrenceExceptions()).containsExactly(LocalDate.of(2026, 3, 5));
+        assertThatThrownBy(() -> calendarEventService.skipOccurrence(1L, LocalDate.of(2026, 3, 6)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void createEvent_shouldInsertAndReturn() {
         when(calendarEventMapper.insert(any(CalendarEvent.class))).thenAnswer(inv -> {
@@ -85,7 +208,7 @@ class CalendarEventServiceTest {
         update.setTitle("New Title");
         update.setColor("#ff0000");
 
-        CalendarEventDTO result = calendarEventService.updateEvent(1L, update);
+        CalendarEventDTO result = calendarEventService.updateEvent(1L, update, null);
 
         assertThat(result.getTitle()).isEqualTo("New Title");
         assertThat(result.getColor()).isEqualTo("#ff0000");
@@ -0,0 +1,65 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.CalendarEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CalendarIntervalTreeTest {
+
+    private static final LocalDate BASE = LocalDate.of(2026, 1, 1);
+
+    @Test
+    void overlapping_shouldMatchLinearScan() {
+        Random random = new Random(42);
+        List<CalendarEvent> events = new ArrayList<>();
+        for (long i = 1; i <= 2000; i++) {
+            LocalDate start = BASE.plusDays(random.nextInt(365));
+            LocalDate end = random.nextInt(4) == 0 ? start.plusDays(random.nextInt(40)) : null;
+            LocalTime time = random.nextBoolean() ? LocalTime.of(random.nextInt(24), 0) : null;
+            events.add(event(i, start, time, end));
+        }
+        CalendarIntervalTree tree = new CalendarIntervalTree(events);
+
+        for (int q = 0; q < 200; q++) {
+            LocalDate from = BASE.plusDays(random.nextInt(400) - 20);
+            LocalDate to = from.plusDays(random.nextInt(45));
+            List<CalendarEvent> expected = events.stream()
+                    .filter(e -> !e.getEventDate().isAfter(to)
+                            && !(e.getEndDate() != null ? e.getEndDate() : e.getEventDate()).isBefore(from))
+                    .sorted(CalendarIntervalTree.ORDER)
+                    .toList();
+            assertThat(tree.overlapping(from, to)).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void overlapping_shouldIncludeEventsSpanningTheWholeRange() {
+        CalendarIntervalTree tree = new CalendarIntervalTree(List.of(
+                event(1L, BASE, null, BASE.plusDays(60)),
+                event(2L, BASE.plusDays(40), LocalTime.NOON, null),
+                event(3L, BASE.plusDays(40), null, null)));
+
+        assertThat(tree.overlapping(BASE.plusDays(31), BASE.plusDays(59)))
+                .extracting(CalendarEvent::getId).containsExactly(1L, 3L, 2L);
+        assertThat(tree.overlapping(BASE.plusDays(61), BASE.plusDays(90))).isEmpty();
+        assertThat(tree.overlapping(BASE.plusDays(5), BASE)).isEmpty();
+    }
+
+    @Test
+    void overlapping_emptyTree_shouldReturnEmpty() {
+        assertThat(new CalendarIntervalTree(List.of()).overlapping(BASE, BASE.plusDays(30))).isEmpty();
+    }
+
+    private static CalendarEvent event(Long id, LocalDate start, LocalTime time, LocalDate end) {
+        CalendarEvent e = CalendarEvent.builder().title("e" + id).eventDate(start).eventTime(time).endDate(end).build();
+        e.setId(id);
+        return e;
+    }
+}
@@ -0,0 +1,50 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.dto.ContentPatchDTO.TextEdit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentPatcherTest {
+
+    @Test
+    void apply_shouldSpliceEditsRelativeToBase() {
+        String result = ContentPatcher.apply("<p>hello world</p>",
+                List.of(edit(9, 14, "there"), edit(3, 3, "oh, ")));
+
+        assertThat(result).isEqualTo("<p>oh, hello there</p>");
+    }
+
+    @Test
+    void apply_emptyEdits_shouldReturnBase() {
+        assertThat(ContentPatcher.apply("abc", List.of())).isEqualTo("abc");
+        assertThat(ContentPatcher.apply("abc", null)).isEqualTo("abc");
+    }
+
+    @Test
+    void apply_shouldHandleSurrogatePairsAsUtf16Indexes() {
+        // 与前端 JS 字符串下标一致：emoji 占两个 UTF-16 单元
+        assertThat(ContentPatcher.apply("a😀b", List.of(edit(3, 4, "c")))).isEqualTo("a😀c");
+    }
+
+    @Test
+    void apply_outOfRangeOrOverlapping_shouldThrow() {
+        assertThatThrownBy(() -> ContentPatcher.apply("abc", List.of(edit(2, 5, "x"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ContentPatcher.apply("abcdef", List.of(edit(0, 3, "x"), edit(2, 4, "y"))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ContentPatcher.apply("abc", List.of(edit(2, 1, "x"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private TextEdit edit(int from, int to, String text) {
+        TextEdit edit = new TextEdit();
+        edit.setFrom(from);
+        edit.setTo(to);
+        edit.setText(text);
+        return edit;
+    }
+}
@@ -1,21 +1,32 @@
 package com.cr.notebook.service;
 
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.cr.notebook.dto.ContentPatchDTO;
 import com.cr.notebook.dto.DailyNoteDTO;
 import com.cr.notebook.entity.DailyNote;
 import com.cr.notebook.mapper.DailyNoteMapper;
+import com.cr.notebook.search.SearchIndexEvent;
 import com.cr.notebook.tenant.TenantContext;
 import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,9 +38,21 @@ class DailyNoteServiceTest {
     @Mock
     private DailyNoteMapper dailyNoteMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StatsRollupService statsRollupService;
+
     @InjectMocks
     private DailyNoteService dailyNoteService;
 
+    @BeforeAll
+    static void initTableInfo() {
+        // 增量保存使用 lambda 条件更新，需要 DailyNote 的表元数据
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), DailyNote.class);
+    }
+
     @BeforeEach
     void setUp() {
         TenantContext.set(1L, TenantType.PERSONAL);
@@ -53,20 +76,18 @@ class DailyNoteServiceTest {
     }
 
     @Test
-    void getDailyNote_notExisting_shouldCreateNew() {
+    void getDailyNote_notExisting_shouldReturnUnsavedNoteWithoutWriting() {
         LocalDate date = LocalDate.of(2026, 2, 22);
         when(dailyNoteMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(null);
-        doAnswer(inv -> {
-            DailyNote n = inv.getArgument(0);
-            n.setId(2L);
-            n.setCreatedAt(LocalDateTime.now());
-            return 1;
-        }).when(dailyNoteMapper).insert(any(DailyNote.class));
 
         DailyNoteDTO result = dailyNoteService.getDailyNote(date);
 
-        assertThat(result.getId()).isEqualTo(2L);
+        assertThat(result.getId()).isNull();
+        assertThat(result.getNoteDate()).isEqualTo(date);
         assertThat(result.getContent()).isEmpty();
+        assertThat(result.getVersion()).isZero();
+        verify(dailyNoteMapper, never()).insert(any(DailyNote.class));
+        verify(dailyNoteMapper, never()).upsertEmpty(any(), any(), any());
     }
 
     @Test
@@ -79,20 +100,128 @@ class DailyNoteServiceTest {
         DailyNoteDTO update = new DailyNoteDTO();
         update.setContent("Updated content");
 
-        DailyNoteDTO result = dailyNoteService.updateDailyNote(date, update);
+        DailyNoteDTO result = dailyNoteService.updateDailyNote(date, update, null);
 
         assertThat(result.getContent()).isEqualTo("Updated content");
+        assertThat(note.getHasContent()).isTrue();
         verify(dailyNoteMapper).updateById(any(DailyNote.class));
+        verify(eventPublisher).publishEvent(any(SearchIndexEvent.class));
+    }
+
+    @Test
+    void patchDailyNote_shouldApplyEdits() {
+        LocalDate date = LocalDate.of(2026, 2, 21);
+        DailyNote existing = buildDailyNote(1L, date, "morning");
+        when(dailyNoteMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(existing);
+        when(dailyNoteMapper.update(any(LambdaUpdateWrapper.class))).thenReturn(1);
+
+        DailyNoteDTO result = dailyNoteService.patchDailyNote(date, patch(0, 7, 7, " run"));
+
+        assertThat(result.getContent()).isEqualTo("morning run");
+        assertThat(result.getVersion()).isEqualTo(1);
+        verify(eventPublisher).publishEvent(any(SearchIndexEvent.class));
+    }
+
+    @Test
+    void patchDailyNote_clearingContent_shouldResetHasContent() {
+        LocalDate date = LocalDate.of(2026, 2, 21);
+        DailyNote existing = buildDailyNote(1L, date, "gone");
+        existing.setHasContent(true);
+        when(dailyNoteMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(existing);
+        ArgumentCaptor<LambdaUpdateWrapper<DailyNote>> wrapper = ArgumentCaptor.forClass(LambdaUpdateWrapper.class);
+        when(dailyNoteMapper.update(wrapper.capture())).thenReturn(1);
+
+        dailyNoteService.patchDailyNote(date, patch(0, 0, 4, ""));
+
+        assertThat(wrapper.getValue().getSqlSet()).contains("has_content");
+        assertThat(wrapper.getValue().getParamNameValuePairs()).containsValue(false);
+        assertThat(existing.getHasContent()).isFalse();
+    }
+
+    @Test
+    void patchDailyNote_staleVersion_shouldConflict() {
+        LocalDate date = LocalDate.of(2026, 2, 21);
+        DailyNote existing = buildDailyNote(1L, date, "morning");
+        existing.setVersion(3);
+        when(dailyNoteMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(existing);
+
+        assertThatThrownBy(() -> dailyNoteService.patchDailyNote(date, patch(2, 0, 0, "x")))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(dailyNoteMapper, never()).update(any(LambdaUpdateWrapper.class));
+    }
+
+    @Test
+    void updateDailyNote_firstSave_shouldUpsertRowThenUpdate() {
+        LocalDate date = LocalDate.of(2026, 12, 31);
+        DailyNote created = buildDailyNote(5L, date, "");
+        when(dailyNoteMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(null, created);
+        when(dailyNoteMapper.updateById(any(DailyNote.class))).thenReturn(1);
+
+        DailyNoteDTO update = new DailyNoteDTO();
+        update.setContent("First entry");
+        DailyNoteDTO result = dailyNoteService.updateDailyNote(date, update, 0);
+
+        assertThat(result.getId()).isEqualTo(5L);
+        assertThat(result.getContent()).isEqualTo("First entry");
+        verify(dailyNoteMapper).upsertEmpty(1L, TenantType.PERSONAL, date);
+        verify(dailyNoteMapper, never()).insert(any(DailyNote.class));
+        verify(statsRollupService).recordDailyNoteCreated(created);
     }
 
     @Test
-    void updateDailyNote_notFound_shouldThrow() {
+    void updateDailyNote_firstSaveRacedByOtherWriter_shouldConflict() {
+        LocalDate date = LocalDate.of(2026, 12, 31);
+        DailyNote concurrent = buildDailyNote(5L, date, "theirs");
+        concurrent.setVersion(1);
+        when(dailyNoteMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(null, concurrent);
+
+        DailyNoteDTO update = new DailyNoteDTO();
+        update.setContent("mine");
+
+        assertThatThrownBy(() -> dailyNoteService.updateDailyNote(date, update, 0))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(dailyNoteMapper, never()).updateById(any(DailyNote.class));
+        verifyNoInteractions(statsRollupService);
+    }
+
+    @Test
+    void updateDailyNote_emptyOnMissing_shouldNotWrite() {
         LocalDate date = LocalDate.of(2026, 12, 31);
         when(dailyNoteMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(null);
 
-        assertThatThrownBy(() -> dailyNoteService.updateDailyNote(date, new DailyNoteDTO()))
-                .isInstanceOf(IllegalArgumentException.class)
-                .hasMessage("Daily note not found");
+        DailyNoteDTO update = new DailyNoteDTO();
+        update.setContent("");
+        DailyNoteDTO result = dailyNoteService.updateDailyNote(date, update, null);
+
+        assertThat(result.getId()).isNull();
+        verify(dailyNoteMapper, never()).upsertEmpty(any(), any(), any());
+        verify(dailyNoteMapper, never()).updateById(any(DailyNote.class));
+    }
+
+    @Test
+    void patchDailyNote_onUnsavedNote_shouldCreateRow() {
+        LocalDate date = LocalDate.of(2026, 12, 31);
+        DailyNote created = buildDailyNote(5L, date, "");
+        when(dailyNoteMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(null, created);
+        when(dailyNoteMapper.update(any(LambdaUpdateWrapper.class))).thenReturn(1);
+
+        DailyNoteDTO result = dailyNoteService.patchDailyNote(date, patch(0, 0, 0, "hello"));
+
+        assertThat(result.getContent()).isEqualTo("hello");
+        assertThat(result.getVersion()).isEqualTo(1);
+        verify(dailyNoteMapper).upsertEmpty(1L, TenantType.PERSONAL, date);
+        verify(statsRollupService).recordDailyNoteCreated(created);
+    }
+
+    @Test
+    void purgeNeverSavedEmpty_shouldDecrementTotalsByDeletedRows() {
+        // 读取之后有一行被首次保存，只删掉另外两行
+        when(dailyNoteMapper.delete(any(LambdaQueryWrapper.class))).thenReturn(2);
+
+        int deleted = dailyNoteService.purgeNeverSavedEmpty(7L, TenantType.ORGANIZATION, List.of(1L, 2L, 3L));
+
+        assertThat(deleted).isEqualTo(2);
+        verify(statsRollupService).recordDailyNotesDeleted(7L, TenantType.ORGANIZATION, 2);
     }
 
     private DailyNote buildDailyNote(Long id, LocalDate date, String content) {
@@ -104,4 +233,15 @@ class DailyNoteServiceTest {
         note.setUpdatedAt(LocalDateTime.now());
         return note;
     }
+
+    private ContentPatchDTO patch(int baseVersion, int from, int to, String text) {
+        ContentPatchDTO.TextEdit edit = new ContentPatchDTO.TextEdit();
+        edit.setFrom(from);
+        edit.setTo(to);
+        edit.setText(text);
+        ContentPatchDTO patch = new ContentPatchDTO();
+        patch.setBaseVersion(baseVersion);
+        patch.setEdits(List.of(edit));
+        return patch;
+    }
 }
@@ -1,24 +1,33 @@
 package com.cr.notebook.service;
 
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.cr.notebook.dto.FolderDTO;
 import com.cr.notebook.entity.Folder;
 import com.cr.notebook.mapper.FolderMapper;
 import com.cr.notebook.tenant.TenantContext;
 import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,9 +36,18 @@ class FolderServiceTest {
     @Mock
     private FolderMapper folderMapper;
 
+    @Mock
+    private StatsRollupService statsRollupService;
+
     @InjectMocks
     private FolderService folderService;
 
+    @BeforeAll
+    static void initTableInfo() {
+        // 排序预读与子树加载使用 lambda 列投影，需要 Folder 的表元数据
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Folder.class);
+    }
+
     @BeforeEach
     void setUp() {
         TenantContext.set(1L, TenantType.PERSONAL);
@@ -70,6 +88,7 @@ class FolderServiceTest {
         assertThat(result.getName()).isEqualTo("New Folder");
         assertThat(result.getIcon()).isEqualTo("📁");
         verify(folderMapper).insert(any(Folder.class));
+        verify(statsRollupService).recordFolderCreated(any(Folder.class));
     }
 
     @Test
@@ -81,7 +100,7 @@ class FolderServiceTest {
         FolderDTO update = new FolderDTO();
         update.setName("Updated");
 
-        FolderDTO result = folderService.updateFolder(1L, update);
+        FolderDTO result = folderService.updateFolder(1L, update, null);
 
         assertThat(result.getName()).isEqualTo("Updated");
         verify(folderMapper).updateById(any(Folder.class));
@@ -94,7 +113,7 @@ class FolderServiceTest {
         FolderDTO update = new FolderDTO();
         update.setName("X");
 
-        assertThatThrownBy(() -> folderService.updateFolder(999L, update))
+        assertThatThrownBy(() -> folderService.updateFolder(999L, update, null))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Folder not found");
     }
@@ -108,19 +127,110 @@ class FolderServiceTest {
         FolderDTO update = new FolderDTO();
         update.setName("X");
 
-        assertThatThrownBy(() -> folderService.updateFolder(1L, update))
+        assertThatThrownBy(() -> folderService.updateFolder(1L, update, null))
                 .isInstanceOf(SecurityException.class);
     }
 
     @Test
-    void deleteFolder_shouldCallMapper() {
-        Folder existing = buildFolder(1L, "To Delete");
-        when(folderMapper.selectById(1L)).thenReturn(existing);
-        when(folderMapper.deleteById(1L)).thenReturn(1);
+    void reorderFolders_shouldPrefetchOnceAndUpdateInOneStatement() {
+        Folder a = buildFolder(1L, "A");
+        Folder b = buildFolder(2L, "B");
+        when(folderMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(a, b));
+        when(folderMapper.updateSortOrders(anyCollection(), eq(1L), eq(TenantType.PERSONAL), any())).thenReturn(2);
+
+        folderService.reorderFolders(List.of(
+                Map.of("id", 1, "sortOrder", 1, "version", 0),
+                Map.of("id", 2, "sortOrder", 0)));
+
+        assertThat(a.getSortOrder()).isEqualTo(1);
+        assertThat(b.getSortOrder()).isEqualTo(0);
+        verify(folderMapper).selectList(any(LambdaQueryWrapper.class));
+        verify(folderMapper).updateSortOrders(anyCollection(), eq(1L), eq(TenantType.PERSONAL), any());
+        verify(folderMapper, never()).selectById(any());
+        verify(folderMapper, never()).updateById(any(Folder.class));
+    }
+
+    @Test
+    void reorderFolders_staleVersion_shouldConflict() {
+        Folder existing = buildFolder(1L, "Folder");
+        existing.setVersion(2);
+        when(folderMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(existing));
+
+        assertThatThrownBy(() -> folderService.reorderFolders(
+                List.of(Map.of("id", 1, "sortOrder", 5, "version", 1))))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(folderMapper, never()).updateSortOrders(anyCollection(), any(), any(), any());
+    }
+
+    @Test
+    void reorderFolders_concurrentWrite_shouldConflict() {
+        when(folderMapper.selectList(any(LambdaQueryWrapper.class)))
+                .thenReturn(List.of(buildFolder(1L, "A"), buildFolder(2L, "B")));
+        when(folderMapper.updateSortOrders(anyCollection(), any(), any(), any())).thenReturn(1);
+
+        assertThatThrownBy(() -> folderService.reorderFolders(List.of(
+                Map.of("id", 1, "sortOrder", 1), Map.of("id", 2, "sortOrder", 0))))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void reorderFolders_otherTenant_shouldThrow() {
+        Folder foreign = buildFolder(1L, "Foreign");
+        foreign.setTenantId(999L);
+        when(folderMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(foreign));
+
+        assertThatThrownBy(() -> folderService.reorderFolders(List.of(Map.of("id", 1, "sortOrder", 0))))
+                .isInstanceOf(SecurityException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteFolder_shouldDeleteSubtreeWithOneStatement() {
+        // 1 -> 2 -> 3，4 是兄弟节点，不应被删除
+        when(folderMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(
+                buildChild(1L, null), buildChild(2L, 1L), buildChild(3L, 2L), buildChild(4L, null)));
+        when(folderMapper.delete(any(LambdaQueryWrapper.class))).thenReturn(3);
 
         folderService.deleteFolder(1L);
 
-        verify(folderMapper).deleteById(1L);
+        ArgumentCaptor<LambdaQueryWrapper<Folder>> captor = ArgumentCaptor.forClass(LambdaQueryWrapper.class);
+        verify(folderMapper).delete(captor.capture());
+        captor.getValue().getSqlSegment(); // 参数在生成 SQL 片段时才填充
+        assertThat(captor.getValue().getParamNameValuePairs().values())
+                .contains(1L, 2L, 3L)
+                .doesNotContain(4L);
+        verify(folderMapper, never()).selectById(any());
+        verify(folderMapper, never()).deleteById(any(Long.class));
+        verify(statsRollupService).recordFoldersDeleted(1L, TenantType.PERSONAL, 3);
+    }
+
+    @Test
+    void deleteFolder_notFound_shouldThrow() {
+        when(folderMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of());
+        when(folderMapper.selectById(9L)).thenReturn(null);
+
+        assertThatThrownBy(() -> folderService.deleteFolder(9L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Folder not found");
+    }
+
+    @Test
+    void deleteFolder_otherTenant_shouldThrow() {
+        Folder foreign = buildFolder(9L, "Foreign");
+        foreign.setTenantId(999L);
+        when(folderMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of());
+        when(folderMapper.selectById(9L)).thenReturn(foreign);
+
+        assertThatThrownBy(() -> folderService.deleteFolder(9L))
+                .isInstanceOf(SecurityException.class);
+        verify(folderMapper, never()).delete(any(LambdaQueryWrapper.class));
+    }
+
+    private Folder buildChild(Long id, Long parentId) {
+        Folder folder = new Folder();
+        folder.setId(id);
+        folder.setParentId(parentId);
+        return folder;
     }
 
     private Folder buildFolder(Long id, String name) {
@@ -0,0 +1,75 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.mapper.NoteLinkMapper;
+import com.cr.notebook.tenant.TenantType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoteLinkServiceTest {
+
+    @Mock
+    private NoteLinkMapper noteLinkMapper;
+
+    @InjectMocks
+    private NoteLinkService noteLinkService;
+
+    @Test
+    void parseLinkTargets_shouldDeduplicateInOrder() {
+        assertThat(NoteLinkService.parseLinkTargets("[[3|C]] then [[2|B]] and again [[3|C]]"))
+                .containsExactly(3L, 2L);
+    }
+
+    @Test
+    void parseLinkTargets_shouldIgnoreMalformedLinks() {
+        assertThat(NoteLinkService.parseLinkTargets("[[abc|X]] [[5|]] [[99999999999999999999|Big]]")).isEmpty();
+        assertThat(NoteLinkService.parseLinkTargets(null)).isEmpty();
+    }
+
+    @Test
+    void syncLinks_shouldOnlyWriteDifference() {
+        when(noteLinkMapper.selectTargetIds(1L)).thenReturn(List.of(2L, 3L));
+
+        noteLinkService.syncLinks(note(1L, "[[3|C]] [[4|D]]"));
+
+        verify(noteLinkMapper).deleteTargets(1L, List.of(2L));
+        verify(noteLinkMapper).insertBatch(1L, List.of(4L), 1L, TenantType.PERSONAL);
+    }
+
+    @Test
+    void syncLinks_unchanged_shouldNotWrite() {
+        when(noteLinkMapper.selectTargetIds(1L)).thenReturn(List.of(2L));
+
+        noteLinkService.syncLinks(note(1L, "[[2|B]]"));
+
+        verify(noteLinkMapper, never()).deleteTargets(anyLong(), anyCollection());
+        verify(noteLinkMapper, never()).insertBatch(anyLong(), anyCollection(), anyLong(), any());
+    }
+
+    @Test
+    void syncLinks_shouldSkipSelfLinks() {
+        when(noteLinkMapper.selectTargetIds(1L)).thenReturn(List.of());
+
+        noteLinkService.syncLinks(note(1L, "[[1|Self]]"));
+
+        verify(noteLinkMapper, never()).insertBatch(anyLong(), anyCollection(), anyLong(), any());
+    }
+
+    private Note note(Long id, String content) {
+        Note note = Note.builder().title("t").content(content).build();
+        note.setId(id);
+        note.setTenantId(1L);
+        note.setTenantType(TenantType.PERSONAL);
+        return note;
+    }
+}
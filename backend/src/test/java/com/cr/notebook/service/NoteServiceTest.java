@@ -1,24 +1,43 @@
 package com.cr.notebook.service;
 
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.cr.notebook.dto.ContentPatchDTO;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.cr.notebook.dto.CursorPage;
 import com.cr.notebook.dto.NoteDTO;
+import com.cr.notebook.dto.NoteSummaryDTO;
+import com.cr.notebook.dto.SearchHitDTO;
+import com.cr.notebook.dto.SearchResultDTO;
 import com.cr.notebook.entity.Note;
+import com.cr.notebook.entity.NoteLink;
 import com.cr.notebook.mapper.NoteMapper;
+import com.cr.notebook.search.SearchDocType;
+import com.cr.notebook.search.SearchIndexEvent;
 import com.cr.notebook.tenant.TenantContext;
 import com.cr.notebook.tenant.TenantType;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,9 +46,30 @@ class NoteServiceTest {
     @Mock
     private NoteMapper noteMapper;
 
+    @Mock
+    private StatsRollupService statsRollupService;
+
+    @Mock
+    private NoteLinkService noteLinkService;
+
+    @Mock
+    private NoteTagService noteTagService;
+
+    @Mock
+    private SearchService searchService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private NoteService noteService;
 
+    @BeforeAll
+    static void initTableInfo() {
+        // 图谱 / 反向链接查询使用 lambda 列投影，需要 Note 的表元数据
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Note.class);
+    }
+
     @BeforeEach
     void setUp() {
         TenantContext.set(1L, TenantType.PERSONAL);
@@ -45,7 +85,7 @@ class NoteServiceTest {
         Note note = buildNote(1L, "Test Note", "content");
         when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(note));
 
-        List<NoteDTO> result = noteService.listNotes(null);
+        List<NoteDTO> result = noteService.listNotes(null, null);
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getTitle()).isEqualTo("Test Note");
@@ -58,12 +98,47 @@ class NoteServiceTest {
         note.setFolderId(10L);
         when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(note));
 
-        List<NoteDTO> result = noteService.listNotes(10L);
+        List<NoteDTO> result = noteService.listNotes(10L, null);
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getFolderId()).isEqualTo(10L);
     }
 
+    @Test
+    void listNoteSummaries_shouldReturnCursorWhenMoreRows() {
+        Note a = buildNote(3L, "A", "body");
+        Note b = buildNote(2L, "B", "body");
+        Note c = buildNote(1L, "C", "body");
+        when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(a, b, c));
+
+        CursorPage<NoteSummaryDTO> page = noteService.listNoteSummaries(null, null, null, 2);
+
+        assertThat(page.getItems()).extracting(NoteSummaryDTO::getId).containsExactly(3L, 2L);
+        String[] keys = CursorPage.decodeCursor(page.getNextCursor(), 3);
+        assertThat(keys[0]).isEqualTo("false");
+        assertThat(keys[2]).isEqualTo("2");
+    }
+
+    @Test
+    void listNoteSummaries_lastPage_shouldHaveNoCursor() {
+        when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(buildNote(1L, "A", "body")));
+
+        CursorPage<NoteSummaryDTO> page = noteService.listNoteSummaries(null, null,
+                CursorPage.encodeCursor(true, LocalDateTime.of(2026, 1, 1, 8, 0), 9L), 20);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void listNoteSummaries_invalidCursor_shouldThrow() {
+        assertThatThrownBy(() -> noteService.listNoteSummaries(null, null, "not-a-cursor", 20))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> noteService.listNoteSummaries(null, null,
+                CursorPage.encodeCursor(false, "yesterday", 1L), 20))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     void getNote_shouldReturnNote() {
         Note note = buildNote(1L, "Test", "content");
@@ -115,6 +190,9 @@ class NoteServiceTest {
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.getTitle()).isEqualTo("New Note");
         verify(noteMapper).insert(any(Note.class));
+        verify(statsRollupService).recordNoteCreated(any(Note.class));
+        verify(noteLinkService).syncLinks(any(Note.class));
+        verify(eventPublisher).publishEvent(any(SearchIndexEvent.class));
     }
 
     @Test
@@ -126,10 +204,124 @@ class NoteServiceTest {
         NoteDTO update = new NoteDTO();
         update.setTitle("New Title");
 
-        NoteDTO result = noteService.updateNote(1L, update);
+        NoteDTO result = noteService.updateNote(1L, update, null);
 
         assertThat(result.getTitle()).isEqualTo("New Title");
         verify(noteMapper).updateById(any(Note.class));
+        verify(noteLinkService, never()).syncLinks(any());
+    }
+
+    @Test
+    void updateNote_withContent_shouldSyncLinks() {
+        Note existing = buildNote(1L, "Title", "old content");
+        when(noteMapper.selectById(1L)).thenReturn(existing);
+        when(noteMapper.updateById(any(Note.class))).thenReturn(1);
+
+        NoteDTO update = new NoteDTO();
+        update.setContent("See [[2|B]]");
+        noteService.updateNote(1L, update, null);
+
+        verify(noteLinkService).syncLinks(existing);
+    }
+
+    @Test
+    void updateNote_withTags_shouldNormalizeAndSyncTagIndex() {
+        Note existing = buildNote(1L, "Title", "content");
+        when(noteMapper.selectById(1L)).thenReturn(existing);
+        when(noteMapper.updateById(any(Note.class))).thenReturn(1);
+
+        NoteDTO update = new NoteDTO();
+        update.setTags(List.of(" work ", "work", "", "idea"));
+        NoteDTO result = noteService.updateNote(1L, update, null);
+
+        assertThat(result.getTags()).containsExactly("work", "idea");
+        verify(noteTagService).syncTags(existing);
+    }
+
+    @Test
+    void listNotes_unknownTag_shouldReturnEmptyWithoutQueryingNotes() {
+        when(noteTagService.findTagId(1L, TenantType.PERSONAL, "missing")).thenReturn(null);
+
+        assertThat(noteService.listNotes(null, "missing")).isEmpty();
+        verify(noteMapper, never()).selectList(any());
+    }
+
+    @Test
+    void updateNote_staleExpectedVersion_shouldConflictWithoutWriting() {
+        Note existing = buildNote(1L, "Title", "content");
+        existing.setVersion(4);
+        when(noteMapper.selectById(1L)).thenReturn(existing);
+
+        NoteDTO update = new NoteDTO();
+        update.setTitle("New Title");
+
+        assertThatThrownBy(() -> noteService.updateNote(1L, update, 3))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(noteMapper, never()).updateById(any(Note.class));
+    }
+
+    @Test
+    void updateNote_concurrentWrite_shouldConflict() {
+        Note existing = buildNote(1L, "Title", "content");
+        when(noteMapper.selectById(1L)).thenReturn(existing);
+        // 乐观锁条件 version = ? 未命中，影响 0 行
+        when(noteMapper.updateById(any(Note.class))).thenReturn(0);
+
+        NoteDTO update = new NoteDTO();
+        update.setContent("mine");
+
+        assertThatThrownBy(() -> noteService.updateNote(1L, update, null))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(noteLinkService, never()).syncLinks(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void patchNote_shouldApplyEditsAndBumpVersion() {
+        Note existing = buildNote(1L, "Title", "<p>hello</p>");
+        existing.setVersion(4);
+        when(noteMapper.selectById(1L)).thenReturn(existing);
+        when(noteMapper.update(any(LambdaUpdateWrapper.class))).thenReturn(1);
+
+        NoteDTO result = noteService.patchNote(1L, patch(4, 8, 8, " world"));
+
+        assertThat(result.getContent()).isEqualTo("<p>hello world</p>");
+        assertThat(result.getVersion()).isEqualTo(5);
+        verify(noteLinkService).syncLinks(existing);
+        verify(eventPublisher).publishEvent(any(SearchIndexEvent.class));
+    }
+
+    @Test
+    void patchNote_staleBaseVersion_shouldConflict() {
+        Note existing = buildNote(1L, "Title", "body");
+        existing.setVersion(5);
+        when(noteMapper.selectById(1L)).thenReturn(existing);
+
+        assertThatThrownBy(() -> noteService.patchNote(1L, patch(4, 0, 0, "x")))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(noteMapper, never()).update(any(LambdaUpdateWrapper.class));
+    }
+
+    @Test
+    void patchNote_noEffectiveChange_shouldNotWrite() {
+        Note existing = buildNote(1L, "Title", "body");
+        when(noteMapper.selectById(1L)).thenReturn(existing);
+
+        NoteDTO result = noteService.patchNote(1L, patch(0, 0, 4, "body"));
+
+        assertThat(result.getVersion()).isZero();
+        verify(noteMapper, never()).update(any(LambdaUpdateWrapper.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void patchNote_concurrentWrite_shouldConflict() {
+        Note existing = buildNote(1L, "Title", "body");
+        when(noteMapper.selectById(1L)).thenReturn(existing);
+        when(noteMapper.update(any(LambdaUpdateWrapper.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> noteService.patchNote(1L, patch(0, 4, 4, "!")))
+                .isInstanceOf(OptimisticLockingFailureException.class);
     }
 
     @Test
@@ -141,22 +333,37 @@ class NoteServiceTest {
         noteService.deleteNote(1L);
 
         verify(noteMapper).deleteById(1L);
+        verify(noteLinkService).removeLinks(1L);
+        verify(eventPublisher).publishEvent(argThat((Object e) -> e instanceof SearchIndexEvent ev && ev.isDeleted()));
+        verify(statsRollupService).recordNoteDeleted(existing);
     }
 
     @Test
-    void searchNotes_shouldReturnMatchingNotes() {
-        Note note = buildNote(1L, "Spring Boot Guide", "intro");
-        when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(note));
+    void searchNotes_shouldKeepEngineRankingAndDropStaleHits() {
+        when(searchService.search("Spring", SearchDocType.NOTE, 0, SearchService.MAX_PAGE_SIZE))
+                .thenReturn(new SearchResultDTO(3, List.of(hit(2L), hit(9L), hit(1L))));
+        Note first = buildNote(1L, "Spring Boot Guide", null);
+        Note second = buildNote(2L, "Spring in Action", null);
+        when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(first, second));
 
         List<NoteDTO> result = noteService.searchNotes("Spring");
 
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getTitle()).isEqualTo("Spring Boot Guide");
+        assertThat(result).extracting(NoteDTO::getId).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void searchNotes_noHits_shouldNotQueryNotes() {
+        when(searchService.search("none", SearchDocType.NOTE, 0, SearchService.MAX_PAGE_SIZE))
+                .thenReturn(new SearchResultDTO(0, List.of()));
+
+        assertThat(noteService.searchNotes("none")).isEmpty();
+        verify(noteMapper, never()).selectList(any());
     }
 
     @Test
     void getBacklinks_shouldReturnNotesLinkingToTarget() {
-        Note linking = buildNote(2L, "Linking Note", "See [[1|Test Note]] for details");
+        Note linking = buildNote(2L, "Linking Note", null);
+        when(noteLinkService.listSourceIds(1L, 1L, TenantType.PERSONAL)).thenReturn(List.of(2L));
         when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(linking));
 
         List<NoteDTO> result = noteService.getBacklinks(1L);
@@ -165,12 +372,22 @@ class NoteServiceTest {
         assertThat(result.get(0).getId()).isEqualTo(2L);
     }
 
+    @Test
+    void getBacklinks_noLinks_shouldNotQueryNotes() {
+        when(noteLinkService.listSourceIds(1L, 1L, TenantType.PERSONAL)).thenReturn(List.of());
+
+        assertThat(noteService.getBacklinks(1L)).isEmpty();
+        verify(noteMapper, never()).selectList(any());
+    }
+
     @Test
     void getGraphData_shouldReturnNodesAndEdges() {
-        Note noteA = buildNote(1L, "Note A", "Link to [[2|Note B]]");
-        Note noteB = buildNote(2L, "Note B", "No links");
-        Note noteC = buildNote(3L, "Note C", "References [[1|Note A]] and [[2|Note B]]");
+        Note noteA = buildNote(1L, "Note A", null);
+        Note noteB = buildNote(2L, "Note B", null);
+        Note noteC = buildNote(3L, "Note C", null);
         when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(noteA, noteB, noteC));
+        when(noteLinkService.listTenantLinks(1L, TenantType.PERSONAL))
+                .thenReturn(List.of(link(1L, 2L), link(3L, 1L), link(3L, 2L)));
 
         var result = noteService.getGraphData();
 
@@ -183,24 +400,11 @@ class NoteServiceTest {
         assertThat(edges).hasSize(3); // A->B, C->A, C->B
     }
 
-    @Test
-    void getGraphData_shouldDeduplicateEdges() {
-        Note note = buildNote(1L, "Repeat", "Link [[2|B]] and again [[2|B]]");
-        Note noteB = buildNote(2L, "B", "content");
-        when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(note, noteB));
-
-        var result = noteService.getGraphData();
-
-        @SuppressWarnings("unchecked")
-        var edges = (List<java.util.Map<String, Object>>) result.get("edges");
-
-        assertThat(edges).hasSize(1);
-    }
-
     @Test
     void getGraphData_shouldIgnoreSelfLinks() {
-        Note note = buildNote(1L, "Self", "Link to [[1|Self]]");
+        Note note = buildNote(1L, "Self", null);
         when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(note));
+        when(noteLinkService.listTenantLinks(1L, TenantType.PERSONAL)).thenReturn(List.of(link(1L, 1L)));
 
         var result = noteService.getGraphData();
 
@@ -212,8 +416,9 @@ class NoteServiceTest {
 
     @Test
     void getGraphData_shouldIgnoreLinksToDeletedNotes() {
-        Note note = buildNote(1L, "Orphan", "Link to [[999|Deleted]]");
+        Note note = buildNote(1L, "Orphan", null);
         when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(note));
+        when(noteLinkService.listTenantLinks(1L, TenantType.PERSONAL)).thenReturn(List.of(link(1L, 999L)));
 
         var result = noteService.getGraphData();
 
@@ -238,6 +443,35 @@ class NoteServiceTest {
         assertThat(edges).isEmpty();
     }
 
+    @Test
+    void renameTag_shouldRewriteAffectedNotesInBatches() {
+        int count = NoteService.TAG_UPDATE_BATCH_SIZE + 1;
+        List<Long> ids = new ArrayList<>();
+        List<Note> notes = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            ids.add(i);
+            Note note = buildNote(i, "n" + i, "");
+            note.setTags(List.of("old", "keep"));
+            notes.add(note);
+        }
+        when(noteTagService.findTagId(1L, TenantType.PERSONAL, "old")).thenReturn(10L);
+        when(noteTagService.listNoteIds(10L)).thenReturn(ids);
+        when(noteMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(notes);
+
+        noteService.renameTag("old", "new");
+
+        verify(noteMapper, times(2)).updateTags(anyList(), eq(1L), eq(TenantType.PERSONAL));
+        verify(noteMapper, never()).update(any(LambdaUpdateWrapper.class));
+        assertThat(notes.get(0).getTags()).containsExactly("new", "keep");
+    }
+
+    @Test
+    void renameTag_tooLongTarget_shouldThrow() {
+        assertThatThrownBy(() -> noteService.renameTag("old", "x".repeat(51)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(noteMapper);
+    }
+
     private Note buildNote(Long id, String title, String content) {
         Note note = Note.builder()
                 .title(title)
@@ -252,4 +486,27 @@ class NoteServiceTest {
         note.setUpdatedAt(LocalDateTime.now());
         return note;
     }
+
+    private ContentPatchDTO patch(int baseVersion, int from, int to, String text) {
+        ContentPatchDTO.TextEdit edit = new ContentPatchDTO.TextEdit();
+        edit.setFrom(from);
+        edit.setTo(to);
+        edit.setText(text);
+        ContentPatchDTO patch = new ContentPatchDTO();
+        patch.setBaseVersion(baseVersion);
+        patch.setEdits(List.of(edit));
+        return patch;
+    }
+
+    private SearchHitDTO hit(Long id) {
+        SearchHitDTO hit = new SearchHitDTO();
+        hit.setType(SearchDocType.NOTE.name());
+        hit.setId(id);
+        return hit;
+    }
+
+    private NoteLink link(Long source, Long target) {
+        return NoteLink.builder().sourceId(source).targetId(target)
+                .tenantId(1L).tenantType(TenantType.PERSONAL).build();
+    }
 }
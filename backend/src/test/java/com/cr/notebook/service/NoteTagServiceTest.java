@@ -0,0 +1,126 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.mapper.NoteTagMapper;
+import com.cr.notebook.tenant.TenantType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NoteTagServiceTest {
+
+    @Mock private NoteTagMapper noteTagMapper;
+
+    @InjectMocks
+    private NoteTagService noteTagService;
+
+    @Test
+    void normalize_shouldTrimDropBlankAndDeduplicateInOrder() {
+        assertThat(NoteTagService.normalize(Arrays.asList(" b ", "a", null, "", "b", "Work", "work")))
+                .containsExactly("b", "a", "Work", "work");
+        assertThat(NoteTagService.normalize(null)).isEmpty();
+    }
+
+    @Test
+    void checkLength_newLongTag_shouldThrow() {
+        assertThatThrownBy(() -> NoteTagService.checkLength(List.of("ok", "x".repeat(51)), List.of("ok")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void checkLength_existingLongTag_shouldBeKept() {
+        String legacy = "x".repeat(51);
+        NoteTagService.checkLength(List.of("ok", legacy), List.of(legacy));
+    }
+
+    @Test
+    void syncTags_shouldSkipLegacyLongTags() {
+        Note note = note(7L, List.of("keep", "x".repeat(51)));
+        when(noteTagMapper.selectByNames(1L, TenantType.PERSONAL, List.of("keep")))
+                .thenReturn(List.of(row(10L, "keep")));
+        when(noteTagMapper.selectTagIds(7L)).thenReturn(List.of(10L));
+
+        noteTagService.syncTags(note);
+
+        verify(noteTagMapper, never()).insertIgnore(any(), any(), anyCollection());
+        verify(noteTagMapper, never()).insertRelations(any(), anyCollection());
+    }
+
+    @Test
+    void syncTags_shouldRegisterMissingTagsAndOnlyWriteDiff() {
+        Note note = note(7L, List.of("keep", "new"));
+        when(noteTagMapper.selectByNames(1L, TenantType.PERSONAL, List.of("keep", "new")))
+                .thenReturn(List.of(row(10L, "keep")));
+        when(noteTagMapper.selectByNames(1L, TenantType.PERSONAL, List.of("new")))
+                .thenReturn(List.of(row(11L, "new")));
+        when(noteTagMapper.selectTagIds(7L)).thenReturn(List.of(10L, 12L));
+
+        noteTagService.syncTags(note);
+
+        verify(noteTagMapper).insertIgnore(1L, TenantType.PERSONAL, List.of("new"));
+        verify(noteTagMapper).insertRelations(7L, List.of(11L));
+        verify(noteTagMapper).deleteRelations(7L, List.of(12L));
+    }
+
+    @Test
+    void syncTags_unchanged_shouldNotWrite() {
+        Note note = note(7L, List.of("keep"));
+        when(noteTagMapper.selectByNames(1L, TenantType.PERSONAL, List.of("keep")))
+                .thenReturn(List.of(row(10L, "keep")));
+        when(noteTagMapper.selectTagIds(7L)).thenReturn(List.of(10L));
+
+        noteTagService.syncTags(note);
+
+        verify(noteTagMapper, never()).insertIgnore(any(), any(), anyCollection());
+        verify(noteTagMapper, never()).insertRelations(any(), anyCollection());
+        verify(noteTagMapper, never()).deleteRelations(any(), anyCollection());
+    }
+
+    @Test
+    void renameTag_toExistingTag_shouldMergeRelations() {
+        when(noteTagMapper.selectIdByName(1L, TenantType.PERSONAL, "b")).thenReturn(20L);
+
+        noteTagService.renameTag(1L, TenantType.PERSONAL, 10L, "b");
+
+        verify(noteTagMapper).copyRelations(10L, 20L);
+        verify(noteTagMapper).deleteRelationsByTag(10L);
+        verify(noteTagMapper).deleteById(10L);
+        verify(noteTagMapper, never()).rename(any(), any());
+    }
+
+    @Test
+    void renameTag_toNewName_shouldRenameInPlace() {
+        when(noteTagMapper.selectIdByName(1L, TenantType.PERSONAL, "b")).thenReturn(null);
+
+        noteTagService.renameTag(1L, TenantType.PERSONAL, 10L, "b");
+
+        verify(noteTagMapper).rename(10L, "b");
+        verify(noteTagMapper, never()).copyRelations(any(), any());
+    }
+
+    private static Note note(Long id, List<String> tags) {
+        Note note = Note.builder().title("n").tags(tags).build();
+        note.setId(id);
+        note.setTenantId(1L);
+        note.setTenantType(TenantType.PERSONAL);
+        return note;
+    }
+
+    private static NoteTagMapper.TagRow row(Long id, String name) {
+        NoteTagMapper.TagRow row = new NoteTagMapper.TagRow();
+        row.setId(id);
+        row.setName(name);
+        return row;
+    }
+}
@@ -10,12 +10,15 @@ import com.cr.notebook.mapper.OrgMemberMapper;
 import com.cr.notebook.mapper.OrganizationMapper;
 import com.cr.notebook.mapper.UserMapper;
 import com.cr.notebook.security.UserPrincipal;
+import com.cr.notebook.tenant.OrgMembershipResolver;
+import com.cr.notebook.tenant.TenantAwareExecutor;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -35,6 +38,10 @@ class OrganizationServiceTest {
     @Mock private OrganizationMapper organizationMapper;
     @Mock private OrgMemberMapper orgMemberMapper;
     @Mock private UserMapper userMapper;
+    @Mock private AvatarService avatarService;
+    @Mock private OrgMembershipResolver membershipResolver;
+    // 测试中子任务在调用线程上直接执行
+    @Spy private TenantAwareExecutor tenantAwareExecutor = new TenantAwareExecutor(Runnable::run, 1000);
 
     @InjectMocks
     private OrganizationService organizationService;
@@ -66,12 +73,11 @@ class OrganizationServiceTest {
         when(orgMemberMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(membership));
 
         Organization org = buildOrg(10L, "My Team", 1L);
-        when(organizationMapper.selectBatchIds(anyCollection())).thenReturn(List.of(org));
+        org.setMemberCount(2);
+        when(organizationMapper.selectByIds(anyCollection())).thenReturn(List.of(org));
 
         User owner = buildUser(1L, "testuser", "Test User");
-        when(userMapper.selectBatchIds(anyCollection())).thenReturn(List.of(owner));
-
-        when(orgMemberMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(2L);
+        when(userMapper.selectByIds(anyCollection())).thenReturn(List.of(owner));
 
         List<OrganizationDTO> result = organizationService.listMyOrganizations();
 
@@ -79,6 +85,33 @@ class OrganizationServiceTest {
         assertThat(result.get(0).getName()).isEqualTo("My Team");
         assertThat(result.get(0).getRole()).isEqualTo("OWNER");
         assertThat(result.get(0).getMemberCount()).isEqualTo(2);
+        verify(orgMemberMapper, never()).selectCount(any());
+        verify(orgMemberMapper, never()).countByOrganizationIds(anyCollection());
+    }
+
+    @Test
+    void listMyOrganizations_uncountedOrgs_shouldFallBackToSingleGroupedCount() {
+        when(orgMemberMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(
+                buildOrgMember(1L, 10L, 1L, "OWNER"),
+                buildOrgMember(2L, 11L, 1L, "MEMBER"),
+                buildOrgMember(3L, 12L, 1L, "MEMBER")));
+
+        Organization counted = buildOrg(10L, "Counted", 1L);
+        counted.setMemberCount(4);
+        Organization uncounted = buildOrg(11L, "Uncounted", 1L);
+        Organization empty = buildOrg(12L, "Empty", 1L);
+        when(organizationMapper.selectByIds(anyCollection())).thenReturn(List.of(counted, uncounted, empty));
+        when(userMapper.selectByIds(anyCollection())).thenReturn(List.of(buildUser(1L, "testuser", "Test User")));
+
+        OrgMemberMapper.MemberCountRow row = new OrgMemberMapper.MemberCountRow();
+        row.setOrganizationId(11L);
+        row.setMemberCount(7);
+        when(orgMemberMapper.countByOrganizationIds(List.of(11L, 12L))).thenReturn(List.of(row));
+
+        List<OrganizationDTO> result = organizationService.listMyOrganizations();
+
+        assertThat(result).extracting(OrganizationDTO::getMemberCount).containsExactly(4, 7, 0);
+        verify(orgMemberMapper, times(1)).countByOrganizationIds(anyCollection());
     }
 
     @Test
@@ -105,22 +138,20 @@ class OrganizationServiceTest {
         assertThat(result.getName()).isEqualTo("New Org");
         assertThat(result.getRole()).isEqualTo("OWNER");
         assertThat(result.getMemberCount()).isEqualTo(1);
-        verify(organizationMapper).insert(any(Organization.class));
+        verify(organizationMapper).insert(argThat((Organization o) -> o.getMemberCount() == 1));
         verify(orgMemberMapper).insert(any(OrgMember.class));
     }
 
     @Test
     void getOrganization_asMember_shouldReturn() {
         Organization org = buildOrg(10L, "Team", 1L);
+        org.setMemberCount(3);
         when(organizationMapper.selectById(10L)).thenReturn(org);
 
-        OrgMember membership = buildOrgMember(1L, 10L, 1L, "OWNER");
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(membership);
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn("OWNER");
 
         User owner = buildUser(1L, "testuser", "Test User");
-        when(userMapper.selectById(1L)).thenReturn(owner);
-
-        when(orgMemberMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(3L);
+        when(userMapper.selectOwnerOf(10L)).thenReturn(owner);
 
         OrganizationDTO result = organizationService.getOrganization(10L);
 
@@ -141,7 +172,7 @@ class OrganizationServiceTest {
     void getOrganization_notMember_shouldThrow() {
         Organization org = buildOrg(10L, "Team", 2L);
         when(organizationMapper.selectById(10L)).thenReturn(org);
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(null);
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn(null);
 
         assertThatThrownBy(() -> organizationService.getOrganization(10L))
                 .isInstanceOf(IllegalArgumentException.class)
@@ -151,16 +182,17 @@ class OrganizationServiceTest {
     @Test
     void updateOrganization_asOwner_shouldUpdate() {
         Organization org = buildOrg(10L, "Old Name", 1L);
+        org.setMemberCount(2);
         when(organizationMapper.selectById(10L)).thenReturn(org);
         when(organizationMapper.updateById(any(Organization.class))).thenReturn(1);
 
         User owner = buildUser(1L, "testuser", "Test User");
         when(userMapper.selectById(1L)).thenReturn(owner);
-        when(orgMemberMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(2L);
 
         OrganizationDTO result = organizationService.updateOrganization(10L, "New Name");
 
         assertThat(result.getName()).isEqualTo("New Name");
+        assertThat(result.getMemberCount()).isEqualTo(2);
         verify(organizationMapper).updateById(any(Organization.class));
     }
 
@@ -185,6 +217,7 @@ class OrganizationServiceTest {
 
         verify(orgMemberMapper).delete(any(LambdaQueryWrapper.class));
         verify(organizationMapper).deleteById(10L);
+        verify(membershipResolver).evictOrganization(10L);
     }
 
     @Test
@@ -202,12 +235,12 @@ class OrganizationServiceTest {
         OrgMember self = buildOrgMember(1L, 10L, 1L, "OWNER");
         OrgMember other = buildOrgMember(2L, 10L, 2L, "MEMBER");
 
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(self);
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn("OWNER");
         when(orgMemberMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(self, other));
 
         User user1 = buildUser(1L, "user1", "User One");
         User user2 = buildUser(2L, "user2", "User Two");
-        when(userMapper.selectBatchIds(anyCollection())).thenReturn(List.of(user1, user2));
+        when(userMapper.selectMembersOf(10L)).thenReturn(List.of(user1, user2));
 
         List<OrgMemberDTO> result = organizationService.listMembers(10L);
 
@@ -218,7 +251,7 @@ class OrganizationServiceTest {
 
     @Test
     void listMembers_notMember_shouldThrow() {
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(null);
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn(null);
 
         assertThatThrownBy(() -> organizationService.listMembers(10L))
                 .isInstanceOf(IllegalArgumentException.class)
@@ -230,9 +263,8 @@ class OrganizationServiceTest {
         Organization org = buildOrg(10L, "Team", 1L);
         when(organizationMapper.selectById(10L)).thenReturn(org);
 
-        OrgMember currentMember = buildOrgMember(1L, 10L, 1L, "OWNER");
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(currentMember);
-        when(orgMemberMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(0L);
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn("OWNER");
+        when(membershipResolver.resolveRole(3L, 10L)).thenReturn(null);
 
         User newUser = buildUser(3L, "newuser", "New User");
         when(userMapper.selectById(3L)).thenReturn(newUser);
@@ -249,6 +281,8 @@ class OrganizationServiceTest {
         assertThat(result.getUserId()).isEqualTo(3L);
         assertThat(result.getRole()).isEqualTo("MEMBER");
         assertThat(result.getUsername()).isEqualTo("newuser");
+        verify(organizationMapper).adjustMemberCount(10L, 1);
+        verify(membershipResolver).evict(3L, 10L);
     }
 
     @Test
@@ -256,8 +290,7 @@ class OrganizationServiceTest {
         Organization org = buildOrg(10L, "Team", 2L);
         when(organizationMapper.selectById(10L)).thenReturn(org);
 
-        OrgMember currentMember = buildOrgMember(1L, 10L, 1L, "MEMBER");
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(currentMember);
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn("MEMBER");
 
         assertThatThrownBy(() -> organizationService.addMember(10L, 3L, null))
                 .isInstanceOf(IllegalArgumentException.class)
@@ -269,9 +302,8 @@ class OrganizationServiceTest {
         Organization org = buildOrg(10L, "Team", 1L);
         when(organizationMapper.selectById(10L)).thenReturn(org);
 
-        OrgMember currentMember = buildOrgMember(1L, 10L, 1L, "OWNER");
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(currentMember);
-        when(orgMemberMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(1L);
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn("OWNER");
+        when(membershipResolver.resolveRole(3L, 10L)).thenReturn("MEMBER");
 
         assertThatThrownBy(() -> organizationService.addMember(10L, 3L, null))
                 .isInstanceOf(IllegalArgumentException.class)
@@ -283,16 +315,16 @@ class OrganizationServiceTest {
         Organization org = buildOrg(10L, "Team", 1L);
         when(organizationMapper.selectById(10L)).thenReturn(org);
 
-        OrgMember currentMember = buildOrgMember(1L, 10L, 1L, "OWNER");
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn("OWNER");
         OrgMember targetMember = buildOrgMember(2L, 10L, 3L, "MEMBER");
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class)))
-                .thenReturn(currentMember)
-                .thenReturn(targetMember);
+        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(targetMember);
         when(orgMemberMapper.deleteById(2L)).thenReturn(1);
 
         organizationService.removeMember(10L, 3L);
 
         verify(orgMemberMapper).deleteById(2L);
+        verify(organizationMapper).adjustMemberCount(10L, -1);
+        verify(membershipResolver).evict(3L, 10L);
     }
 
     @Test
@@ -322,6 +354,7 @@ class OrganizationServiceTest {
         assertThat(result.getRole()).isEqualTo("ADMIN");
         assertThat(result.getUserId()).isEqualTo(3L);
         verify(orgMemberMapper).updateById(any(OrgMember.class));
+        verify(membershipResolver).evict(3L, 10L);
     }
 
     @Test
@@ -0,0 +1,75 @@
+package com.cr.notebook.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RecurrenceRuleTest {
+
+    @Test
+    void parse_shouldNormalizeRule() {
+        assertThat(RecurrenceRule.parse("RRULE:freq=weekly;byday=we,mo;interval=1").toString())
+                .isEqualTo("FREQ=WEEKLY;BYDAY=MO,WE");
+        assertThat(RecurrenceRule.parse("FREQ=DAILY;UNTIL=20261231T235959Z;INTERVAL=2").toString())
+                .isEqualTo("FREQ=DAILY;INTERVAL=2;UNTIL=20261231");
+    }
+
+    @Test
+    void parse_invalid_shouldThrow() {
+        assertThatThrownBy(() -> RecurrenceRule.parse("INTERVAL=2")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RecurrenceRule.parse("FREQ=HOURLY")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RecurrenceRule.parse("FREQ=DAILY;COUNT=3;UNTIL=20260101")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RecurrenceRule.parse("FREQ=MONTHLY;BYDAY=MO")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RecurrenceRule.parse("FREQ=DAILY;COUNT=0")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void weeklyByDay_shouldSkipDaysBeforeStart() {
+        // 2026-03-04 是周三
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;BYDAY=MO,WE;COUNT=4");
+        assertThat(take(rule.occurrences(LocalDate.of(2026, 3, 4), LocalDate.of(2026, 3, 1)), 10)).containsExactly(
+                LocalDate.of(2026, 3, 4), LocalDate.of(2026, 3, 9), LocalDate.of(2026, 3, 11), LocalDate.of(2026, 3, 16));
+        assertThat(rule.lastStart(LocalDate.of(2026, 3, 4))).isEqualTo(LocalDate.of(2026, 3, 16));
+    }
+
+    @Test
+    void monthlyOn31st_shouldSkipShortMonths() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY");
+        assertThat(take(rule.occurrences(LocalDate.of(2026, 1, 31), LocalDate.of(2026, 1, 1)), 3)).containsExactly(
+                LocalDate.of(2026, 1, 31), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 5, 31));
+    }
+
+    @Test
+    void unboundedSeries_shouldJumpToWindowLazily() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3");
+        LocalDate start = LocalDate.of(2000, 1, 1);
+        LocalDate from = LocalDate.of(2100, 1, 1);
+
+        List<LocalDate> dates = take(rule.occurrences(start, from), 2);
+
+        assertThat(dates.get(0)).isAfterOrEqualTo(from).isBefore(from.plusDays(3));
+        assertThat(dates.get(1)).isEqualTo(dates.get(0).plusDays(3));
+        assertThat(start.until(dates.get(0)).getDays() % 3).isZero();
+        assertThat(rule.lastStart(start)).isNull();
+    }
+
+    @Test
+    void countSeries_shouldCountFromStartEvenWhenWindowIsLater() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=YEARLY;COUNT=3");
+        LocalDate start = LocalDate.of(2024, 2, 29);
+
+        assertThat(take(rule.occurrences(start, LocalDate.of(2025, 1, 1)), 10)).containsExactly(
+                LocalDate.of(2028, 2, 29), LocalDate.of(2032, 2, 29));
+    }
+
+    private static List<LocalDate> take(Iterator<LocalDate> it, int max) {
+        List<LocalDate> result = new ArrayList<>();
+        while (it.hasNext() && result.size() < max) result.add(it.next());
+        return result;
+    }
+}
@@ -0,0 +1,165 @@
+package com.cr.notebook.service;
+
+import com.cr.notebook.entity.Folder;
+import com.cr.notebook.entity.Note;
+import com.cr.notebook.entity.Task;
+import com.cr.notebook.entity.TenantStatsTotals;
+import com.cr.notebook.mapper.TenantDailyStatsMapper;
+import com.cr.notebook.mapper.TenantStatsTotalsMapper;
+import com.cr.notebook.tenant.TenantType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StatsRollupServiceTest {
+
+    @Mock
+    private TenantDailyStatsMapper tenantDailyStatsMapper;
+
+    @Mock
+    private TenantStatsTotalsMapper tenantStatsTotalsMapper;
+
+    @InjectMocks
+    private StatsRollupService statsRollupService;
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2026, 3, 1, 10, 30);
+
+    @Test
+    void recordNoteCreated_shouldIncrementCreationDay() {
+        statsRollupService.recordNoteCreated(note());
+
+        verify(tenantDailyStatsMapper).increment(1L, TenantType.PERSONAL, CREATED.toLocalDate(), 1, 0, 0);
+        TenantStatsTotals delta = capturedTotalsDelta();
+        assertThat(delta.getNoteCount()).isEqualTo(1);
+        assertThat(delta.getTaskCount()).isZero();
+    }
+
+    @Test
+    void recordNoteDeleted_shouldDecrementCreationDay() {
+        statsRollupService.recordNoteDeleted(note());
+
+        verify(tenantDailyStatsMapper).increment(1L, TenantType.PERSONAL, CREATED.toLocalDate(), -1, 0, 0);
+    }
+
+    @Test
+    void recordTaskCreated_completed_shouldCountBoth() {
+        statsRollupService.recordTaskCreated(task(true));
+
+        verify(tenantDailyStatsMapper).increment(1L, TenantType.PERSONAL, CREATED.toLocalDate(), 0, 1, 1);
+        TenantStatsTotals delta = capturedTotalsDelta();
+        assertThat(delta.getTaskCount()).isEqualTo(1);
+        assertThat(delta.getTaskCompletedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void recordTaskDeleted_pending_shouldOnlyDecrementTasks() {
+        statsRollupService.recordTaskDeleted(task(false));
+
+        verify(tenantDailyStatsMapper).increment(1L, TenantType.PERSONAL, CREATED.toLocalDate(), 0, -1, 0);
+    }
+
+    @Test
+    void recordTaskCompletionChanged_shouldAdjustCompletedCount() {
+        statsRollupService.recordTaskCompletionChanged(task(true), false);
+        statsRollupService.recordTaskCompletionChanged(task(false), true);
+
+        verify(tenantDailyStatsMapper).increment(1L, TenantType.PERSONAL, CREATED.toLocalDate(), 0, 0, 1);
+        verify(tenantDailyStatsMapper).increment(1L, TenantType.PERSONAL, CREATED.toLocalDate(), 0, 0, -1);
+    }
+
+    @Test
+    void recordTaskCompletionChanged_unchanged_shouldNotWrite() {
+        statsRollupService.recordTaskCompletionChanged(task(true), true);
+
+        verifyNoInteractions(tenantDailyStatsMapper, tenantStatsTotalsMapper);
+    }
+
+    @Test
+    void recordFoldersDeleted_shouldDecrementTotalsOnly() {
+        statsRollupService.recordFoldersDeleted(1L, TenantType.PERSONAL, 3);
+        statsRollupService.recordFoldersDeleted(1L, TenantType.PERSONAL, 0);
+
+        TenantStatsTotals delta = capturedTotalsDelta();
+        assertThat(delta.getTenantId()).isEqualTo(1L);
+        assertThat(delta.getFolderCount()).isEqualTo(-3);
+        verifyNoInteractions(tenantDailyStatsMapper);
+    }
+
+    @Test
+    void recordDailyNotesDeleted_shouldDecrementTotalsOnly() {
+        statsRollupService.recordDailyNotesDeleted(1L, TenantType.PERSONAL, 4);
+        statsRollupService.recordDailyNotesDeleted(1L, TenantType.PERSONAL, 0);
+
+        TenantStatsTotals delta = capturedTotalsDelta();
+        assertThat(delta.getTenantId()).isEqualTo(1L);
+        assertThat(delta.getDailyNoteCount()).isEqualTo(-4);
+        verifyNoInteractions(tenantDailyStatsMapper);
+    }
+
+    @Test
+    void recordFolderCreated_shouldIncrementTotals() {
+        Folder folder = Folder.builder().name("f").build();
+        folder.setTenantId(10L);
+        folder.setTenantType(TenantType.ORGANIZATION);
+
+        statsRollupService.recordFolderCreated(folder);
+
+        TenantStatsTotals delta = capturedTotalsDelta();
+        assertThat(delta.getTenantType()).isEqualTo(TenantType.ORGANIZATION);
+        assertThat(delta.getFolderCount()).isEqualTo(1);
+    }
+
+    @Test
+    void reconcileTenant_shouldLockTotalsRowBeforeRebuildingWindow() {
+        TenantStatsTotals counted = TenantStatsTotals.builder()
+                .tenantId(1L).tenantType(TenantType.PERSONAL).noteCount(3).build();
+        when(tenantStatsTotalsMapper.countFromEntities(1L, TenantType.PERSONAL)).thenReturn(counted);
+
+        statsRollupService.reconcileTenant(1L, TenantType.PERSONAL, 90);
+
+        LocalDate from = LocalDate.now().minusDays(89);
+        LocalDate to = LocalDate.now().plusDays(1);
+        InOrder inOrder = inOrder(tenantStatsTotalsMapper, tenantDailyStatsMapper);
+        // 零增量 upsert 锁住总数行，之后才删除重建，record* 无法插在两者之间
+        inOrder.verify(tenantStatsTotalsMapper).increment(argThat(d -> d.getTenantId().equals(1L)
+                && d.getNoteCount() == 0 && d.getTaskCount() == 0 && d.getFolderCount() == 0));
+        inOrder.verify(tenantDailyStatsMapper).deleteRange(1L, TenantType.PERSONAL, from, to);
+        inOrder.verify(tenantDailyStatsMapper).rebuildRange(1L, TenantType.PERSONAL, from.atStartOfDay(), to.atStartOfDay());
+        inOrder.verify(tenantStatsTotalsMapper).overwrite(counted);
+        verify(tenantDailyStatsMapper, never()).increment(any(), any(), any(), anyInt(), anyInt(), anyInt());
+    }
+
+    private TenantStatsTotals capturedTotalsDelta() {
+        ArgumentCaptor<TenantStatsTotals> captor = ArgumentCaptor.forClass(TenantStatsTotals.class);
+        verify(tenantStatsTotalsMapper).increment(captor.capture());
+        return captor.getValue();
+    }
+
+    private Note note() {
+        Note note = Note.builder().title("n").build();
+        note.setTenantId(1L);
+        note.setTenantType(TenantType.PERSONAL);
+        note.setCreatedAt(CREATED);
+        return note;
+    }
+
+    private Task task(boolean completed) {
+        Task task = Task.builder().content("t").completed(completed).build();
+        task.setTenantId(1L);
+        task.setTenantType(TenantType.PERSONAL);
+        task.setCreatedAt(CREATED);
+        return task;
+    }
+}
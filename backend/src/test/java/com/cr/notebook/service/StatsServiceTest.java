@@ -5,36 +5,38 @@ import com.cr.notebook.dto.StatsDTO;
 import com.cr.notebook.entity.*;
 import com.cr.notebook.mapper.*;
 import com.cr.notebook.security.UserPrincipal;
+import com.cr.notebook.tenant.OrgMembershipResolver;
+import com.cr.notebook.tenant.TenantAwareExecutor;
+import com.cr.notebook.tenant.TenantType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class StatsServiceTest {
 
-    @Mock private NoteMapper noteMapper;
-    @Mock private FolderMapper folderMapper;
-    @Mock private TaskMapper taskMapper;
-    @Mock private DailyNoteMapper dailyNoteMapper;
-    @Mock private CalendarEventMapper calendarEventMapper;
-    @Mock private WhiteboardMapper whiteboardMapper;
+    @Mock private StatsMapper statsMapper;
+    @Mock private StatsRollupService statsRollupService;
     @Mock private OrganizationMapper organizationMapper;
     @Mock private OrgMemberMapper orgMemberMapper;
     @Mock private UserMapper userMapper;
+    @Mock private OrgMembershipResolver membershipResolver;
+    // 测试中子任务在调用线程上直接执行
+    @Spy private TenantAwareExecutor tenantAwareExecutor = new TenantAwareExecutor(Runnable::run, 1000);
 
     @InjectMocks
     private StatsService statsService;
@@ -53,12 +55,7 @@ class StatsServiceTest {
 
     @Test
     void getPersonalStats_shouldReturnAllCounts() {
-        when(noteMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(5L);
-        when(folderMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(3L);
-        when(taskMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(10L, 4L);
-        when(dailyNoteMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(7L);
-        when(calendarEventMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(2L);
-        when(whiteboardMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(1L);
+        when(statsMapper.selectTotals(1L, TenantType.PERSONAL)).thenReturn(totals(5, 3, 10, 4, 7, 2, 1));
 
         StatsDTO stats = statsService.getPersonalStats(7);
 
@@ -70,6 +67,35 @@ class StatsServiceTest {
         assertThat(stats.getCalendarEventCount()).isEqualTo(2);
         assertThat(stats.getWhiteboardCount()).isEqualTo(1);
         assertThat(stats.getOrgId()).isNull();
+        assertThat(stats.getDailyStats()).hasSize(7);
+    }
+
+    @Test
+    void getPersonalStats_shouldReadRollupOnceRegardlessOfWindow() {
+        when(statsMapper.selectTotals(1L, TenantType.PERSONAL)).thenReturn(totals(0, 0, 0, 0, 0, 0, 0));
+
+        StatsDTO stats = statsService.getPersonalStats(90);
+
+        assertThat(stats.getDailyStats()).hasSize(90);
+        verify(statsMapper, times(1)).selectTotals(1L, TenantType.PERSONAL);
+        verify(statsRollupService, times(1)).listRange(
+                1L, TenantType.PERSONAL, LocalDate.now().minusDays(89), LocalDate.now());
+    }
+
+    @Test
+    void assembleDailyStats_shouldFillGapsWithZero() {
+        LocalDate today = LocalDate.of(2026, 3, 10);
+        TenantDailyStats noteDay = rollup(today.minusDays(2), 4, 0, 0);
+        TenantDailyStats taskDay = rollup(today, 0, 3, 1);
+
+        List<StatsDTO.DailyStatsDTO> result = StatsService.assembleDailyStats(
+                today, 5, List.of(noteDay, taskDay));
+
+        assertThat(result).extracting(StatsDTO.DailyStatsDTO::getDate)
+                .containsExactly("2026-03-06", "2026-03-07", "2026-03-08", "2026-03-09", "2026-03-10");
+        assertThat(result).extracting(StatsDTO.DailyStatsDTO::getNoteCount).containsExactly(0L, 0L, 4L, 0L, 0L);
+        assertThat(result).extracting(StatsDTO.DailyStatsDTO::getTaskCount).containsExactly(0L, 0L, 0L, 0L, 3L);
+        assertThat(result.get(4).getTaskCompletedCount()).isEqualTo(1);
     }
 
     @Test
@@ -78,16 +104,9 @@ class StatsServiceTest {
         org.setId(10L);
         when(organizationMapper.selectById(10L)).thenReturn(org);
 
-        OrgMember membership = OrgMember.builder().organizationId(10L).userId(1L).role("OWNER").build();
-        membership.setId(1L);
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(membership);
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn("OWNER");
 
-        when(noteMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(3L);
-        when(folderMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(1L);
-        when(taskMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(5L, 2L);
-        when(dailyNoteMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(0L);
-        when(calendarEventMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(1L);
-        when(whiteboardMapper.selectCount(any(LambdaQueryWrapper.class))).thenReturn(0L);
+        when(statsMapper.selectTotals(10L, TenantType.ORGANIZATION)).thenReturn(totals(3, 1, 5, 2, 0, 1, 0));
 
         OrgMember m1 = OrgMember.builder().organizationId(10L).userId(1L).role("OWNER").build();
         m1.setId(1L);
@@ -99,7 +118,7 @@ class StatsServiceTest {
         u1.setId(1L);
         User u2 = User.builder().username("user2").displayName("User Two").build();
         u2.setId(2L);
-        when(userMapper.selectBatchIds(anyCollection())).thenReturn(List.of(u1, u2));
+        when(userMapper.selectMembersOf(10L)).thenReturn(List.of(u1, u2));
 
         StatsDTO stats = statsService.getOrgStats(10L, 7);
 
@@ -124,10 +143,36 @@ class StatsServiceTest {
         Organization org = Organization.builder().name("Team").ownerId(2L).build();
         org.setId(10L);
         when(organizationMapper.selectById(10L)).thenReturn(org);
-        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(null);
+        when(membershipResolver.currentRole(1L, 10L)).thenReturn(null);
 
         assertThatThrownBy(() -> statsService.getOrgStats(10L, 7))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("您不是该组织的成员");
+        // 非成员不触发统计查询
+        verifyNoInteractions(statsMapper, orgMemberMapper, userMapper);
+    }
+
+    private StatsDTO totals(long notes, long folders, long tasks, long tasksCompleted,
+                            long dailyNotes, long events, long whiteboards) {
+        StatsDTO stats = new StatsDTO();
+        stats.setNoteCount(notes);
+        stats.setFolderCount(folders);
+        stats.setTaskCount(tasks);
+        stats.setTaskCompletedCount(tasksCompleted);
+        stats.setDailyNoteCount(dailyNotes);
+        stats.setCalendarEventCount(events);
+        stats.setWhiteboardCount(whiteboards);
+        return stats;
+    }
+
+    private TenantDailyStats rollup(LocalDate day, long notes, long tasks, long tasksCompleted) {
+        return TenantDailyStats.builder()
+                .tenantId(1L)
+                .tenantType(TenantType.PERSONAL)
+                .statDate(day)
+                .noteCount(notes)
+                .taskCount(tasks)
+                .taskCompletedCount(tasksCompleted)
+                .build();
     }
 }
@@ -1,7 +1,10 @@
 package com.cr.notebook.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cr.notebook.dto.CursorPage;
+import com.cr.notebook.dto.TaskCountsDTO;
 import com.cr.notebook.dto.TaskDTO;
+import com.cr.notebook.dto.TaskQuery;
 import com.cr.notebook.entity.Task;
 import com.cr.notebook.mapper.TaskMapper;
 import com.cr.notebook.tenant.TenantContext;
@@ -20,6 +23,8 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +33,9 @@ class TaskServiceTest {
     @Mock
     private TaskMapper taskMapper;
 
+    @Mock
+    private StatsRollupService statsRollupService;
+
     @InjectMocks
     private TaskService taskService;
 
@@ -46,12 +54,92 @@ class TaskServiceTest {
         Task task = buildTask(1L, "Buy groceries", false);
         when(taskMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(task));
 
-        List<TaskDTO> result = taskService.listTasks();
+        List<TaskDTO> result = taskService.listTasks(new TaskQuery());
 
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getContent()).isEqualTo("Buy groceries");
     }
 
+    @Test
+    void listTasks_invalidFilters_shouldThrow() {
+        TaskQuery badPriority = new TaskQuery();
+        badPriority.setPriority("URGENT");
+        TaskQuery badRange = new TaskQuery();
+        badRange.setDueFrom(LocalDate.of(2026, 3, 2));
+        badRange.setDueTo(LocalDate.of(2026, 3, 1));
+        TaskQuery badSort = new TaskQuery();
+        badSort.setSort("priority");
+
+        assertThatThrownBy(() -> taskService.listTasks(badPriority)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> taskService.listTasks(badRange)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> taskService.listTasks(badSort)).isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(taskMapper);
+    }
+
+    @Test
+    void listTaskPage_shouldReturnCursorAndRejectCursorOfOtherSort() {
+        Task a = buildTask(3L, "a", false);
+        Task b = buildTask(2L, "b", false);
+        Task c = buildTask(1L, "c", false);
+        when(taskMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(a, b, c));
+
+        CursorPage<TaskDTO> page = taskService.listTaskPage(new TaskQuery(), null, 2);
+
+        assertThat(page.getItems()).extracting(TaskDTO::getId).containsExactly(3L, 2L);
+        assertThat(page.getNextCursor()).isNotNull();
+
+        TaskQuery byDue = new TaskQuery();
+        byDue.setSort("due");
+        assertThatThrownBy(() -> taskService.listTaskPage(byDue, page.getNextCursor(), 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void listTaskPage_byDue_shouldFillFromUndatedPhaseAndResumeThere() {
+        Task dated = buildTask(5L, "dated", false);
+        dated.setDueDate(LocalDate.of(2026, 3, 1));
+        Task undated1 = buildTask(1L, "undated 1", false);
+        Task undated2 = buildTask(2L, "undated 2", false);
+        when(taskMapper.selectList(any(LambdaQueryWrapper.class)))
+                .thenReturn(List.of(dated), List.of(undated1, undated2), List.of(undated2));
+        TaskQuery byDue = new TaskQuery();
+        byDue.setSort("due");
+
+        CursorPage<TaskDTO> first = taskService.listTaskPage(byDue, null, 2);
+
+        assertThat(first.getItems()).extracting(TaskDTO::getId).containsExactly(5L, 1L);
+        assertThat(first.getNextCursor()).isNotNull();
+        verify(taskMapper, times(2)).selectList(any(LambdaQueryWrapper.class));
+
+        // 游标停在无截止日期阶段，下一页只查这一段
+        CursorPage<TaskDTO> second = taskService.listTaskPage(byDue, first.getNextCursor(), 2);
+
+        assertThat(second.getItems()).extracting(TaskDTO::getId).containsExactly(2L);
+        assertThat(second.getNextCursor()).isNull();
+        verify(taskMapper, times(3)).selectList(any(LambdaQueryWrapper.class));
+    }
+
+    @Test
+    void countTasks_shouldFoldGroupedRows() {
+        TaskMapper.StatusCountRow pending = new TaskMapper.StatusCountRow();
+        pending.setCompleted(false);
+        pending.setTotal(5);
+        pending.setDueToday(2);
+        pending.setOverdue(1);
+        TaskMapper.StatusCountRow legacy = new TaskMapper.StatusCountRow();
+        legacy.setTotal(1);
+        TaskMapper.StatusCountRow done = new TaskMapper.StatusCountRow();
+        done.setCompleted(true);
+        done.setTotal(3);
+        done.setDueToday(1);
+        when(taskMapper.countByStatus(eq(1L), eq(TenantType.PERSONAL), any(LocalDate.class)))
+                .thenReturn(List.of(pending, legacy, done));
+
+        TaskCountsDTO counts = taskService.countTasks();
+
+        assertThat(counts).isEqualTo(new TaskCountsDTO(9, 6, 3, 2, 1));
+    }
+
     @Test
     void createTask_shouldInsert() {
         when(taskMapper.insert(any(Task.class))).thenAnswer(inv -> {
@@ -83,27 +171,41 @@ class TaskServiceTest {
         TaskDTO update = new TaskDTO();
         update.setCompleted(true);
 
-        TaskDTO result = taskService.updateTask(1L, update);
+        TaskDTO result = taskService.updateTask(1L, update, null);
 
         assertThat(result.getCompleted()).isTrue();
+        verify(statsRollupService).recordTaskCompletionChanged(existing, false);
     }
 
     @Test
     void updateTask_notFound_shouldThrow() {
         when(taskMapper.selectById(999L)).thenReturn(null);
 
-        assertThatThrownBy(() -> taskService.updateTask(999L, new TaskDTO()))
+        assertThatThrownBy(() -> taskService.updateTask(999L, new TaskDTO(), null))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Task not found");
     }
 
     @Test
     void deleteTask_shouldCallMapper() {
+        Task existing = buildTask(1L, "Done", true);
+        when(taskMapper.selectById(1L)).thenReturn(existing);
         when(taskMapper.deleteById(1L)).thenReturn(1);
 
         taskService.deleteTask(1L);
 
         verify(taskMapper).deleteById(1L);
+        verify(statsRollupService).recordTaskDeleted(existing);
+    }
+
+    @Test
+    void deleteTask_notFound_shouldBeNoop() {
+        when(taskMapper.selectById(999L)).thenReturn(null);
+
+        taskService.deleteTask(999L);
+
+        verify(taskMapper, never()).deleteById(anyLong());
+        verifyNoInteractions(statsRollupService);
     }
 
     private Task buildTask(Long id, String content, boolean completed) {
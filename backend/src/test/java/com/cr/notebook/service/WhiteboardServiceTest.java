@@ -1,18 +1,29 @@
 package com.cr.notebook.service;
 
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.cr.notebook.dto.CursorPage;
 import com.cr.notebook.dto.WhiteboardDTO;
+import com.cr.notebook.dto.WhiteboardStrokeDTO;
 import com.cr.notebook.entity.Whiteboard;
+import com.cr.notebook.entity.WhiteboardStroke;
 import com.cr.notebook.mapper.WhiteboardMapper;
+import com.cr.notebook.mapper.WhiteboardStrokeMapper;
 import com.cr.notebook.tenant.TenantContext;
 import com.cr.notebook.tenant.TenantType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -27,9 +38,29 @@ class WhiteboardServiceTest {
     @Mock
     private WhiteboardMapper whiteboardMapper;
 
+    @Mock
+    private WhiteboardStrokeMapper strokeMapper;
+
+    @Mock
+    private StatsRollupService statsRollupService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private WhiteboardSnapshotCache snapshotCache = new WhiteboardSnapshotCache(1_000_000);
+
     @InjectMocks
     private WhiteboardService whiteboardService;
 
+    @BeforeAll
+    static void initTableInfo() {
+        // 列表与笔画查询使用 lambda 列投影，需要表元数据
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, Whiteboard.class);
+        TableInfoHelper.initTableInfo(assistant, WhiteboardStroke.class);
+    }
+
     @BeforeEach
     void setUp() {
         TenantContext.set(1L, TenantType.PERSONAL);
@@ -94,7 +125,7 @@ class WhiteboardServiceTest {
         update.setTitle("Updated Board");
         update.setData("{\"elements\":[]}");
 
-        WhiteboardDTO result = whiteboardService.updateWhiteboard(1L, update);
+        WhiteboardDTO result = whiteboardService.updateWhiteboard(1L, update, null);
 
         assertThat(result.getTitle()).isEqualTo("Updated Board");
         assertThat(result.getData()).isEqualTo("{\"elements\":[]}");
@@ -109,6 +140,161 @@ class WhiteboardServiceTest {
         whiteboardService.deleteWhiteboard(1L);
 
         verify(whiteboardMapper).deleteById(1L);
+        verify(statsRollupService).recordWhiteboardDeleted(existing);
+    }
+
+    @Test
+    void listStrokes_shouldReturnSnapshotThenLog() {
+        Whiteboard wb = buildWhiteboard(1L, "Board");
+        wb.setData("[{\"id\":3,\"data\":{\"c\":\"a\"}},{\"id\":5,\"data\":{\"c\":\"b\"}}]");
+        when(whiteboardMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(wb);
+        when(whiteboardMapper.selectById(1L)).thenReturn(wb);
+        when(strokeMapper.selectList(any(LambdaQueryWrapper.class)))
+                .thenReturn(List.of(stroke(8L, "{\"c\":\"c\"}")));
+
+        CursorPage<WhiteboardStrokeDTO> page = whiteboardService.listStrokes(1L, null, 10);
+
+        assertThat(page.getItems()).extracting(WhiteboardStrokeDTO::getId).containsExactly(3L, 5L, 8L);
+        assertThat(page.getItems().get(1).getData()).isEqualTo("{\"c\":\"b\"}");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void listStrokes_legacySnapshot_shouldAssignPositionalIds() {
+        Whiteboard wb = buildWhiteboard(1L, "Board");
+        wb.setData("[{\"color\":\"red\"},{\"color\":\"blue\"}]");
+        when(whiteboardMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(wb);
+        when(whiteboardMapper.selectById(1L)).thenReturn(wb);
+        when(strokeMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of());
+
+        CursorPage<WhiteboardStrokeDTO> page = whiteboardService.listStrokes(1L, null, 10);
+
+        assertThat(page.getItems()).extracting(WhiteboardStrokeDTO::getId).containsExactly(-1L, -2L);
+        assertThat(page.getItems().get(0).getData()).isEqualTo("{\"color\":\"red\"}");
+    }
+
+    @Test
+    void listStrokes_shouldPageThroughSnapshotWithCursor() {
+        Whiteboard wb = buildWhiteboard(1L, "Board");
+        wb.setData("[{\"id\":1,\"data\":{}},{\"id\":2,\"data\":{}},{\"id\":3,\"data\":{}}]");
+        when(whiteboardMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(wb);
+        when(whiteboardMapper.selectById(1L)).thenReturn(wb);
+
+        CursorPage<WhiteboardStrokeDTO> first = whiteboardService.listStrokes(1L, null, 2);
+        assertThat(first.getItems()).extracting(WhiteboardStrokeDTO::getId).containsExactly(1L, 2L);
+        assertThat(first.getNextCursor()).isNotNull();
+
+        when(strokeMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of());
+        CursorPage<WhiteboardStrokeDTO> second = whiteboardService.listStrokes(1L, first.getNextCursor(), 2);
+        assertThat(second.getItems()).extracting(WhiteboardStrokeDTO::getId).containsExactly(3L);
+        assertThat(second.getNextCursor()).isNull();
+        // 第二页命中按版本缓存的快照，不再加载 data 列
+        verify(whiteboardMapper, times(1)).selectById(1L);
+    }
+
+    @Test
+    void listStrokes_rewrittenBetweenPages_shouldConflict() {
+        Whiteboard wb = buildWhiteboard(1L, "Board");
+        wb.setVersion(2);
+        when(whiteboardMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(wb);
+        String staleCursor = CursorPage.encodeCursor(1, "s", 5);
+
+        assertThatThrownBy(() -> whiteboardService.listStrokes(1L, staleCursor, 10))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void addStroke_shouldOnlyInsertLogRow() throws Exception {
+        when(whiteboardMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(buildWhiteboard(1L, "Board"));
+        when(strokeMapper.insert(any(WhiteboardStroke.class))).thenAnswer(inv -> {
+            inv.<WhiteboardStroke>getArgument(0).setId(42L);
+            return 1;
+        });
+
+        WhiteboardStrokeDTO result = whiteboardService.addStroke(1L, objectMapper.readTree("{\"color\":\"red\"}"));
+
+        assertThat(result.getId()).isEqualTo(42L);
+        assertThat(result.getData()).isEqualTo("{\"color\":\"red\"}");
+        verify(whiteboardMapper, never()).selectById(any());
+        verify(whiteboardMapper, never()).updateById(any(Whiteboard.class));
+    }
+
+    @Test
+    void addStroke_notAnObject_shouldThrow() throws Exception {
+        assertThatThrownBy(() -> whiteboardService.addStroke(1L, objectMapper.readTree("[1,2]")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void removeStroke_inLog_shouldDeleteRowOnly() {
+        when(whiteboardMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(buildWhiteboard(1L, "Board"));
+        when(strokeMapper.delete(any(LambdaQueryWrapper.class))).thenReturn(1);
+
+        whiteboardService.removeStroke(1L, 42L);
+
+        verify(whiteboardMapper, never()).updateById(any(Whiteboard.class));
+    }
+
+    @Test
+    void removeStroke_inSnapshot_shouldRewriteSnapshot() {
+        Whiteboard header = buildWhiteboard(1L, "Board");
+        Whiteboard full = buildWhiteboard(1L, "Board");
+        full.setData("[{\"color\":\"red\"},{\"color\":\"blue\"}]");
+        when(whiteboardMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(header);
+        when(strokeMapper.delete(any(LambdaQueryWrapper.class))).thenReturn(0);
+        when(whiteboardMapper.selectById(1L)).thenReturn(full);
+        when(whiteboardMapper.updateById(any(Whiteboard.class))).thenReturn(1);
+
+        whiteboardService.removeStroke(1L, -1L);
+
+        // 旧格式快照重写后带上 id
+        assertThat(full.getData()).isEqualTo("[{\"id\":-2,\"data\":{\"color\":\"blue\"}}]");
+    }
+
+    @Test
+    void compactStrokes_shouldMergeLogIntoSnapshot() {
+        Whiteboard wb = buildWhiteboard(1L, "Board");
+        wb.setData("[{\"id\":3,\"data\":{\"c\":1}}]");
+        when(whiteboardMapper.selectById(1L)).thenReturn(wb);
+        when(strokeMapper.selectList(any(LambdaQueryWrapper.class)))
+                .thenReturn(List.of(stroke(7L, "{\"c\":2}"), stroke(9L, "{\"c\":3}")));
+        when(whiteboardMapper.updateById(any(Whiteboard.class))).thenReturn(1);
+        when(strokeMapper.delete(any(LambdaQueryWrapper.class))).thenReturn(2);
+
+        int merged = whiteboardService.compactStrokes(1L);
+
+        assertThat(merged).isEqualTo(2);
+        assertThat(wb.getData()).isEqualTo(
+                "[{\"id\":3,\"data\":{\"c\":1}},{\"id\":7,\"data\":{\"c\":2}},{\"id\":9,\"data\":{\"c\":3}}]");
+        verify(strokeMapper).delete(any(LambdaQueryWrapper.class));
+    }
+
+    @Test
+    void compactStrokes_concurrentRewrite_shouldConflictBeforeDeletingLog() {
+        when(whiteboardMapper.selectById(1L)).thenReturn(buildWhiteboard(1L, "Board"));
+        when(strokeMapper.selectList(any(LambdaQueryWrapper.class))).thenReturn(List.of(stroke(7L, "{}")));
+        when(whiteboardMapper.updateById(any(Whiteboard.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> whiteboardService.compactStrokes(1L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(strokeMapper, never()).delete(any(LambdaQueryWrapper.class));
+    }
+
+    @Test
+    void compactStrokes_strokeRemovedConcurrently_shouldRollBack() {
+        when(whiteboardMapper.selectById(1L)).thenReturn(buildWhiteboard(1L, "Board"));
+        when(strokeMapper.selectList(any(LambdaQueryWrapper.class)))
+                .thenReturn(List.of(stroke(7L, "{}"), stroke(9L, "{}")));
+        when(whiteboardMapper.updateById(any(Whiteboard.class))).thenReturn(1);
+        // 读取后 9 号笔画已被撤销
+        when(strokeMapper.delete(any(LambdaQueryWrapper.class))).thenReturn(1);
+
+        assertThatThrownBy(() -> whiteboardService.compactStrokes(1L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    private WhiteboardStroke stroke(Long id, String data) {
+        return WhiteboardStroke.builder().id(id).whiteboardId(1L).data(data).build();
     }
 
     private Whiteboard buildWhiteboard(Long id, String title) {
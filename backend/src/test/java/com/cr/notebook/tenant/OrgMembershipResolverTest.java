@@ -0,0 +1,94 @@
+package com.cr.notebook.tenant;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.cr.notebook.entity.OrgMember;
+import com.cr.notebook.mapper.OrgMemberMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrgMembershipResolverTest {
+
+    @Mock private OrgMemberMapper orgMemberMapper;
+
+    private OrgMembershipResolver resolver;
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), OrgMember.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        resolver = new OrgMembershipResolver(orgMemberMapper, 100, 300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    void resolveRole_shouldCacheMembersAndNonMembers() {
+        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class)))
+                .thenReturn(OrgMember.builder().role("ADMIN").build())
+                .thenReturn(null);
+
+        assertThat(resolver.resolveRole(1L, 10L)).isEqualTo("ADMIN");
+        assertThat(resolver.resolveRole(1L, 10L)).isEqualTo("ADMIN");
+        assertThat(resolver.resolveRole(2L, 10L)).isNull();
+        assertThat(resolver.resolveRole(2L, 10L)).isNull();
+
+        verify(orgMemberMapper, times(2)).selectOne(any(LambdaQueryWrapper.class));
+    }
+
+    @Test
+    void evict_shouldReloadOnNextLookup() {
+        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class)))
+                .thenReturn(OrgMember.builder().role("MEMBER").build())
+                .thenReturn(OrgMember.builder().role("ADMIN").build());
+
+        assertThat(resolver.resolveRole(1L, 10L)).isEqualTo("MEMBER");
+        resolver.evict(1L, 10L);
+        assertThat(resolver.resolveRole(1L, 10L)).isEqualTo("ADMIN");
+    }
+
+    @Test
+    void evictOrganization_shouldDropAllEntriesOfThatOrgOnly() {
+        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class)))
+                .thenReturn(OrgMember.builder().role("OWNER").build());
+        resolver.resolveRole(1L, 10L);
+        resolver.resolveRole(2L, 10L);
+        resolver.resolveRole(1L, 110L);
+
+        resolver.evictOrganization(10L);
+        resolver.resolveRole(1L, 10L);
+        resolver.resolveRole(2L, 10L);
+        resolver.resolveRole(1L, 110L);
+
+        verify(orgMemberMapper, times(5)).selectOne(any(LambdaQueryWrapper.class));
+    }
+
+    @Test
+    void currentRole_shouldUseVerifiedRoleFromTenantContext() {
+        TenantContext.set(10L, TenantType.ORGANIZATION, "OWNER");
+
+        assertThat(resolver.currentRole(1L, 10L)).isEqualTo("OWNER");
+        verifyNoInteractions(orgMemberMapper);
+
+        when(orgMemberMapper.selectOne(any(LambdaQueryWrapper.class))).thenReturn(null);
+        assertThat(resolver.currentRole(1L, 11L)).isNull();
+    }
+}
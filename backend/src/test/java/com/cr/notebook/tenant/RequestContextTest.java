@@ -0,0 +1,113 @@
+package com.cr.notebook.tenant;
+
+import com.cr.notebook.datasource.RoutingContext;
+import com.cr.notebook.security.UserPrincipal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestContextTest {
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+        SecurityContextHolder.clearContext();
+        RoutingContext.clearReadRequest();
+    }
+
+    @Test
+    void wrap_shouldCarryTenantPrincipalAndReadFlagToWorkerThread() throws Exception {
+        Authentication auth = authenticate(7L);
+        TenantContext.set(42L, TenantType.ORGANIZATION, "ADMIN");
+        RoutingContext.markReadRequest();
+        RequestContext ctx = RequestContext.capture();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<Object> seen = executor.submit(ctx.wrap(() -> List.<Object>of(
+                    TenantContext.getTenantId(), TenantContext.getTenantType(), TenantContext.getRole(),
+                    SecurityContextHolder.getContext().getAuthentication(), RoutingContext.isReadRequest()))).get();
+            assertThat(seen).containsExactly(42L, TenantType.ORGANIZATION, "ADMIN", auth, true);
+
+            // 任务结束后工作线程不残留任何上下文
+            List<Object> after = executor.submit(() -> Arrays.<Object>asList(
+                    TenantContext.getTenantId(), SecurityContextHolder.getContext().getAuthentication(),
+                    RoutingContext.isReadRequest())).get();
+            assertThat(after).containsExactly(null, null, false);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void attach_shouldRestorePreviousContextOfTargetThread() {
+        authenticate(1L);
+        TenantContext.set(1L, TenantType.PERSONAL);
+        RequestContext personal = RequestContext.capture();
+
+        Authentication other = authenticate(2L);
+        TenantContext.set(9L, TenantType.ORGANIZATION, "MEMBER");
+
+        try (RequestContext.Scope ignored = personal.attach()) {
+            assertThat(TenantContext.getTenantId()).isEqualTo(1L);
+            assertThat(TenantContext.getRoleIn(9L)).isNull();
+        }
+        assertThat(TenantContext.getTenantId()).isEqualTo(9L);
+        assertThat(TenantContext.getRoleIn(9L)).isEqualTo("MEMBER");
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isSameAs(other);
+    }
+
+    @Test
+    void capture_shouldNotBeAffectedByLaterChangesOnParentThread() throws Exception {
+        TenantContext.set(3L, TenantType.PERSONAL);
+        RequestContext ctx = RequestContext.capture();
+        TenantContext.set(4L, TenantType.PERSONAL);
+        SecurityContextHolder.clearContext();
+
+        assertThat(ctx.wrapSupplier(TenantContext::getTenantId).get()).isEqualTo(3L);
+        assertThat(ctx.getTenantType()).isEqualTo(TenantType.PERSONAL);
+    }
+
+    @Test
+    void sharedSnapshot_shouldIsolateConcurrentSubtasks() throws Exception {
+        TenantContext.set(5L, TenantType.PERSONAL);
+        RequestContext ctx = RequestContext.capture();
+        TenantContext.clear();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                long other = 100 + i;
+                futures.add(executor.submit(ctx.wrap(() -> {
+                    Long inherited = TenantContext.getTenantId();
+                    // 子任务修改自己线程上的上下文不影响快照和其他子任务
+                    TenantContext.set(other, TenantType.PERSONAL);
+                    return inherited;
+                })));
+            }
+            for (Future<Long> f : futures) assertThat(f.get()).isEqualTo(5L);
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(TenantContext.getTenantId()).isNull();
+    }
+
+    private Authentication authenticate(Long userId) {
+        UserPrincipal principal = new UserPrincipal(userId, "u" + userId, "u" + userId + "@example.com", "");
+        Authentication auth = new UsernamePasswordAuthenticationToken(principal, null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(auth);
+        return auth;
+    }
+}
@@ -0,0 +1,126 @@
+package com.cr.notebook.tenant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TenantAwareExecutorTest {
+
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        TenantContext.clear();
+    }
+
+    @Test
+    void join_shouldTakeSlowestSubtaskNotSum() {
+        TenantAwareExecutor executor = new TenantAwareExecutor(pool, 5000);
+        TenantAwareExecutor.Fork fork = executor.fork();
+        TenantAwareExecutor.Subtask<Integer> a = fork.submit(() -> sleepAndReturn(200, 1));
+        TenantAwareExecutor.Subtask<Integer> b = fork.submit(() -> sleepAndReturn(200, 2));
+        TenantAwareExecutor.Subtask<Integer> c = fork.submit(() -> sleepAndReturn(200, 3));
+
+        long start = System.nanoTime();
+        fork.join();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(a.get() + b.get() + c.get()).isEqualTo(6);
+        assertThat(elapsedMs).isLessThan(550);
+    }
+
+    @Test
+    void subtasks_shouldSeeSubmittingTenant() {
+        TenantContext.set(11L, TenantType.ORGANIZATION, "MEMBER");
+        TenantAwareExecutor.Fork fork = new TenantAwareExecutor(pool, 5000).fork();
+        TenantAwareExecutor.Subtask<Long> tenant = fork.submit(TenantContext::getTenantId);
+        TenantAwareExecutor.Subtask<String> role = fork.submit(TenantContext::getRole);
+        fork.join();
+
+        assertThat(tenant.get()).isEqualTo(11L);
+        assertThat(role.get()).isEqualTo("MEMBER");
+    }
+
+    @Test
+    void join_shouldRethrowSubtaskException() {
+        TenantAwareExecutor.Fork fork = new TenantAwareExecutor(pool, 5000).fork();
+        fork.submit(() -> sleepAndReturn(10, 1));
+        fork.submit(() -> {
+            throw new IllegalArgumentException("组织不存在");
+        });
+
+        assertThatThrownBy(fork::join)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("组织不存在");
+    }
+
+    @Test
+    void join_shouldFailAfterDeadline() {
+        CountDownLatch never = new CountDownLatch(1);
+        TenantAwareExecutor.Fork fork = new TenantAwareExecutor(pool, 100).fork();
+        TenantAwareExecutor.Subtask<Boolean> stuck = fork.submit(() -> {
+            try {
+                return never.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+
+        assertThatThrownBy(fork::join).isInstanceOf(QueryTimeoutException.class);
+        assertThatThrownBy(stuck::get).isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void zeroDeadline_shouldRunInlineOnCallingThread() {
+        Thread caller = Thread.currentThread();
+        TenantAwareExecutor.Fork fork = new TenantAwareExecutor(pool, 0).fork();
+        TenantAwareExecutor.Subtask<Thread> ran = fork.submit(Thread::currentThread);
+        fork.join();
+
+        assertThat(ran.get()).isSameAs(caller);
+    }
+
+    @Test
+    void get_beforeJoin_shouldThrow() {
+        CountDownLatch release = new CountDownLatch(1);
+        TenantAwareExecutor.Fork fork = new TenantAwareExecutor(pool, 5000).fork();
+        TenantAwareExecutor.Subtask<Integer> pending = fork.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        });
+
+        assertThatThrownBy(pending::get).isInstanceOf(IllegalStateException.class);
+        release.countDown();
+        fork.join();
+        assertThat(pending.get()).isEqualTo(1);
+    }
+
+    private static int sleepAndReturn(long ms, int value) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return value;
+    }
+}
@@ -4,7 +4,7 @@ CREATE TABLE IF NOT EXISTS sys_user (
     email VARCHAR(100) NOT NULL UNIQUE,
     password_hash VARCHAR(255) NOT NULL,
     display_name VARCHAR(100),
-    avatar_url VARCHAR(500),
+    avatar_url CLOB,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -13,7 +13,8 @@ CREATE TABLE IF NOT EXISTS sys_organization (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(100) NOT NULL,
     owner_id BIGINT NOT NULL,
-    avatar_url VARCHAR(500),
+    avatar_url CLOB,
+    member_count INT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -34,6 +35,8 @@ CREATE TABLE IF NOT EXISTS note_folder (
     name VARCHAR(100) NOT NULL,
     icon VARCHAR(10) DEFAULT '📁',
     parent_id BIGINT,
+    sort_order INT NOT NULL DEFAULT 0,
+    version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -47,6 +50,8 @@ CREATE TABLE IF NOT EXISTS note (
     content CLOB,
     excerpt VARCHAR(500) DEFAULT '',
     is_pinned TINYINT DEFAULT 0,
+    tags CLOB,
+    version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -60,6 +65,7 @@ CREATE TABLE IF NOT EXISTS task (
     completed TINYINT DEFAULT 0,
     priority VARCHAR(10) DEFAULT 'MEDIUM',
     due_date DATE,
+    version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -70,8 +76,13 @@ CREATE TABLE IF NOT EXISTS daily_note (
     tenant_type VARCHAR(20) NOT NULL DEFAULT 'PERSONAL',
     note_date DATE NOT NULL,
     content CLOB,
+    has_content BOOLEAN NOT NULL DEFAULT FALSE,
+    weather VARCHAR(255),
+    mood VARCHAR(50),
+    version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_tenant_date UNIQUE (tenant_id, tenant_type, note_date)
 );
 
 CREATE TABLE IF NOT EXISTS calendar_event (
@@ -81,8 +92,14 @@ CREATE TABLE IF NOT EXISTS calendar_event (
     title VARCHAR(200) NOT NULL,
     event_date DATE NOT NULL,
     event_time TIME,
+    end_date DATE,
+    end_time TIME,
+    recurrence_rule VARCHAR(255),
+    recurrence_end DATE,
+    recurrence_exceptions CLOB,
     description VARCHAR(500),
     color VARCHAR(20) DEFAULT '#6366f1',
+    version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -93,6 +110,74 @@ CREATE TABLE IF NOT EXISTS whiteboard (
     tenant_type VARCHAR(20) NOT NULL DEFAULT 'PERSONAL',
     title VARCHAR(200) NOT NULL DEFAULT '新白板',
     data CLOB,
+    version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
+
+CREATE TABLE IF NOT EXISTS tenant_daily_stats (
+    tenant_id BIGINT NOT NULL,
+    tenant_type VARCHAR(20) NOT NULL,
+    stat_date DATE NOT NULL,
+    note_count INT NOT NULL DEFAULT 0,
+    task_count INT NOT NULL DEFAULT 0,
+    task_completed_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (tenant_id, tenant_type, stat_date)
+);
+
+CREATE TABLE IF NOT EXISTS tenant_stats_totals (
+    tenant_id BIGINT NOT NULL,
+    tenant_type VARCHAR(20) NOT NULL,
+    note_count INT NOT NULL DEFAULT 0,
+    folder_count INT NOT NULL DEFAULT 0,
+    task_count INT NOT NULL DEFAULT 0,
+    task_completed_count INT NOT NULL DEFAULT 0,
+    daily_note_count INT NOT NULL DEFAULT 0,
+    calendar_event_count INT NOT NULL DEFAULT 0,
+    whiteboard_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (tenant_id, tenant_type)
+);
+
+CREATE TABLE IF NOT EXISTS note_link (
+    source_id BIGINT NOT NULL,
+    target_id BIGINT NOT NULL,
+    tenant_id BIGINT NOT NULL,
+    tenant_type VARCHAR(20) NOT NULL,
+    PRIMARY KEY (source_id, target_id)
+);
+
+CREATE TABLE IF NOT EXISTS note_tag (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    tenant_type VARCHAR(20) NOT NULL DEFAULT 'PERSONAL',
+    name VARCHAR(50) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_tenant_tag UNIQUE (tenant_id, tenant_type, name)
+);
+
+CREATE TABLE IF NOT EXISTS note_tag_relation (
+    note_id BIGINT NOT NULL,
+    tag_id BIGINT NOT NULL,
+    PRIMARY KEY (note_id, tag_id)
+);
+
+CREATE TABLE IF NOT EXISTS whiteboard_stroke (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    whiteboard_id BIGINT NOT NULL,
+    data CLOB NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS avatar_image (
+    hash CHAR(64) NOT NULL PRIMARY KEY,
+    content_type VARCHAR(50) NOT NULL,
+    data BLOB NOT NULL,
+    thumbnail BLOB,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id INT NOT NULL PRIMARY KEY,
+    beat_millis BIGINT NOT NULL
+);
+MERGE INTO replication_heartbeat (id, beat_millis) KEY (id) VALUES (1, 0);
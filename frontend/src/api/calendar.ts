@@ -8,6 +8,9 @@ interface CalendarEventResponse {
   eventTime: string | null
   endDate: string | null
   endTime: string | null
+  recurrenceRule: string | null
+  recurrenceExceptions: string[] | null
+  seriesStartDate: string | null
   description: string
   color: string
   createdAt: string
@@ -22,6 +25,8 @@ function mapToEvent(r: CalendarEventResponse): CalendarEvent {
     time: r.eventTime,
     endDate: r.endDate || null,
     endTime: r.endTime || null,
+    recurrenceRule: r.recurrenceRule || null,
+    seriesStartDate: r.seriesStartDate || null,
     description: r.description || '',
     color: r.color || '#6366f1',
   }
@@ -39,6 +44,7 @@ export const calendarApi = {
       eventTime: event.time,
       endDate: event.endDate,
       endTime: event.endTime,
+      recurrenceRule: event.recurrenceRule,
       description: event.description,
       color: event.color,
     })
@@ -47,14 +53,20 @@ export const calendarApi = {
   update: async (id: string, updates: Partial<CalendarEvent>): Promise<CalendarEvent> => {
     const data = await http.put<CalendarEventResponse>(`/calendar-events/${id}`, {
       title: updates.title,
+      // 从展开的发生项编辑时带上 seriesStartDate，服务端保持序列起点，只按 date / endDate 取跨度
       eventDate: updates.date,
       eventTime: updates.time,
       endDate: updates.endDate,
       endTime: updates.endTime,
+      seriesStartDate: updates.seriesStartDate,
+      // undefined / null 表示不修改重复规则，空字符串表示取消重复
+      recurrenceRule: updates.recurrenceRule,
       description: updates.description,
       color: updates.color,
     })
     return mapToEvent(data)
   },
   delete: (id: string) => http.delete(`/calendar-events/${id}`),
+  /** 跳过重复序列中的某一次发生，date 为该次发生的日期 */
+  skipOccurrence: (id: string, date: string) => http.delete(`/calendar-events/${id}/occurrences/${date}`),
 }
@@ -1,23 +1,34 @@
 import { http } from './http'
 import type { DailyNote } from '@/types'
+import type { TextEdit } from '@/utils/textDiff'
 
 interface DailyNoteResponse {
-  id: number
+  /** 当天还没有保存过时为 null（服务端返回未落库的空日记） */
+  id: number | null
   noteDate: string
   content: string
   weather: string | null
   mood: string | null
+  version: number
   createdAt: string
   updatedAt: string
 }
 
+export interface DailyNoteSummary {
+  noteDate: string
+  hasContent: boolean
+  weather: string | null
+  mood: string | null
+}
+
 function mapToDailyNote(r: DailyNoteResponse): DailyNote {
   return {
-    id: String(r.id),
+    id: r.id != null ? String(r.id) : '',
     date: r.noteDate,
     content: r.content || '',
     weather: r.weather || '',
     mood: r.mood || '',
+    version: r.version,
     createdAt: r.createdAt,
     updatedAt: r.updatedAt,
   }
@@ -28,10 +39,20 @@ export const dailyNotesApi = {
     const data = await http.get<DailyNoteResponse>(`/daily-notes/${date}`)
     return mapToDailyNote(data)
   },
-  update: async (date: string, payload: { content?: string; weather?: string; mood?: string }): Promise<DailyNote> => {
-    const data = await http.put<DailyNoteResponse>(`/daily-notes/${date}`, payload)
+  /** 传入 version 时带 If-Match，服务端版本不一致则返回 409 */
+  update: async (date: string, payload: { content?: string; weather?: string; mood?: string }, version?: number): Promise<DailyNote> => {
+    const data = await http.put<DailyNoteResponse>(`/daily-notes/${date}`, payload,
+      version !== undefined ? { 'If-Match': `"${version}"` } : undefined)
+    return mapToDailyNote(data)
+  },
+  /** 增量保存正文，版本冲突时服务端返回 409 */
+  patch: async (date: string, payload: { baseVersion: number; edits: TextEdit[] }): Promise<DailyNote> => {
+    const data = await http.patch<DailyNoteResponse>(`/daily-notes/${date}`, payload)
     return mapToDailyNote(data)
   },
   listDatesWithContent: (from: string, to: string): Promise<string[]> =>
     http.get<string[]>('/daily-notes/dates', { from, to }),
+  /** 月视图概要：有记录的日期及其天气、心情，不含正文 */
+  listSummaries: (from: string, to: string): Promise<DailyNoteSummary[]> =>
+    http.get<DailyNoteSummary[]>('/daily-notes/summary', { from, to }),
 }
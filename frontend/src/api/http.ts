@@ -1,5 +1,15 @@
 const BASE_URL = import.meta.env.VITE_API_BASE_URL || 'http://localhost:8080/api'
 
+/** 携带 HTTP 状态码的请求错误，便于调用方区分 409 冲突等情况 */
+export class HttpError extends Error {
+  readonly status: number
+
+  constructor(message: string, status: number) {
+    super(message)
+    this.status = status
+  }
+}
+
 interface RequestOptions extends RequestInit {
   params?: Record<string, string>
 }
@@ -56,7 +66,7 @@ class HttpClient {
 
     if (!response.ok) {
       const error = await response.json().catch(() => ({ error: 'Request failed' }))
-      throw new Error(error.message || error.error || `HTTP ${response.status}`)
+      throw new HttpError(error.message || error.error || `HTTP ${response.status}`, response.status)
     }
 
     if (response.status === 204) return undefined as T
@@ -71,8 +81,12 @@ class HttpClient {
     return this.request<T>(path, { method: 'POST', body: body ? JSON.stringify(body) : undefined })
   }
 
-  put<T>(path: string, body?: unknown) {
-    return this.request<T>(path, { method: 'PUT', body: body ? JSON.stringify(body) : undefined })
+  put<T>(path: string, body?: unknown, headers?: Record<string, string>) {
+    return this.request<T>(path, { method: 'PUT', body: body ? JSON.stringify(body) : undefined, headers })
+  }
+
+  patch<T>(path: string, body?: unknown) {
+    return this.request<T>(path, { method: 'PATCH', body: body ? JSON.stringify(body) : undefined })
   }
 
   delete<T>(path: string) {
@@ -1,5 +1,6 @@
 import { http } from './http'
 import type { Note } from '@/types'
+import type { TextEdit } from '@/utils/textDiff'
 
 interface NoteResponse {
   id: number
@@ -9,6 +10,7 @@ interface NoteResponse {
   excerpt: string
   isPinned: boolean
   tags: string[]
+  version: number
   createdAt: string
   updatedAt: string
 }
@@ -22,15 +24,18 @@ function mapToNote(r: NoteResponse): Note {
     excerpt: r.excerpt || '',
     isPinned: r.isPinned,
     tags: r.tags || [],
+    version: r.version,
     createdAt: r.createdAt,
     updatedAt: r.updatedAt,
   }
 }
 
 export const notesApi = {
-  list: async (folderId?: string | null): Promise<Note[]> => {
-    const params = folderId ? { folderId } : undefined
-    const data = await http.get<NoteResponse[]>('/notes', params)
+  list: async (folderId?: string | null, tag?: string): Promise<Note[]> => {
+    const params: Record<string, string> = {}
+    if (folderId) params.folderId = folderId
+    if (tag) params.tag = tag
+    const data = await http.get<NoteResponse[]>('/notes', Object.keys(params).length ? params : undefined)
     return data.map(mapToNote)
   },
 
@@ -50,11 +55,18 @@ export const notesApi = {
     return mapToNote(data)
   },
 
-  update: async (id: string, updates: Partial<Note>): Promise<Note> => {
+  /** 传入 version 时带 If-Match，服务端版本不一致则返回 409 */
+  update: async (id: string, updates: Partial<Note>, version?: number): Promise<Note> => {
     const data = await http.put<NoteResponse>(`/notes/${id}`, {
       ...updates,
       folderId: updates.folderId ? Number(updates.folderId) : undefined,
-    })
+    }, version !== undefined ? { 'If-Match': `"${version}"` } : undefined)
+    return mapToNote(data)
+  },
+
+  /** 增量保存：只提交相对 baseVersion 的文本替换，版本冲突时服务端返回 409 */
+  patch: async (id: string, payload: { baseVersion: number; edits: TextEdit[]; title?: string; excerpt?: string }): Promise<Note> => {
+    const data = await http.patch<NoteResponse>(`/notes/${id}`, payload)
     return mapToNote(data)
   },
 
@@ -70,12 +82,23 @@ export const notesApi = {
     return data.map(mapToNote)
   },
 
+  /** 当前空间的标签及其笔记数，按名称排序 */
+  tags: () => http.get<TagCount[]>('/notes/tags'),
+
+  /** 重命名标签；目标标签已存在时合并，返回更新后的标签计数 */
+  renameTag: (from: string, to: string) => http.post<TagCount[]>('/notes/tags/rename', { from, to }),
+
   /** 获取知识图谱数据（所有笔记节点 + 双链关系边） */
   graph: async (): Promise<{ nodes: GraphNode[]; edges: GraphEdge[] }> => {
     return await http.get<{ nodes: GraphNode[]; edges: GraphEdge[] }>('/notes/graph')
   },
 }
 
+export interface TagCount {
+  name: string
+  noteCount: number
+}
+
 /** 知识图谱节点（笔记） */
 export interface GraphNode {
   id: number
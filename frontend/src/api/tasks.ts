@@ -12,6 +12,34 @@ interface TaskResponse {
   updatedAt: string
 }
 
+export interface TaskFilters {
+  completed?: boolean
+  priority?: Task['priority']
+  dueFrom?: string
+  dueTo?: string
+  noteId?: string
+  sort?: 'created' | 'due'
+}
+
+export interface TaskCounts {
+  total: number
+  pending: number
+  completed: number
+  dueToday: number
+  overdue: number
+}
+
+function toParams(filters: TaskFilters): Record<string, string> | undefined {
+  const params: Record<string, string> = {}
+  if (filters.completed !== undefined) params.completed = String(filters.completed)
+  if (filters.priority) params.priority = filters.priority.toUpperCase()
+  if (filters.dueFrom) params.dueFrom = filters.dueFrom
+  if (filters.dueTo) params.dueTo = filters.dueTo
+  if (filters.noteId) params.noteId = filters.noteId
+  if (filters.sort) params.sort = filters.sort
+  return Object.keys(params).length ? params : undefined
+}
+
 function mapToTask(r: TaskResponse): Task {
   return {
     id: String(r.id),
@@ -25,11 +53,13 @@ function mapToTask(r: TaskResponse): Task {
 }
 
 export const tasksApi = {
-  list: async (): Promise<Task[]> => {
-    const data = await http.get<TaskResponse[]>('/tasks')
+  list: async (filters: TaskFilters = {}): Promise<Task[]> => {
+    const data = await http.get<TaskResponse[]>('/tasks', toParams(filters))
     return data.map(mapToTask)
   },
 
+  counts: () => http.get<TaskCounts>('/tasks/counts'),
+
   create: async (content: string, priority = 'MEDIUM', dueDate: string | null = null): Promise<Task> => {
     const data = await http.post<TaskResponse>('/tasks', { content, priority: priority.toUpperCase(), dueDate })
     return mapToTask(data)
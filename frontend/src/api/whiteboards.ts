@@ -1,5 +1,5 @@
 import { http } from './http'
-import type { Whiteboard } from '@/types'
+import type { Whiteboard, WhiteboardStroke, StrokeData } from '@/types'
 
 interface WhiteboardResponse {
   id: number
@@ -9,6 +9,11 @@ interface WhiteboardResponse {
   updatedAt: string
 }
 
+interface StrokePageResponse {
+  items: WhiteboardStroke[]
+  nextCursor: string | null
+}
+
 function mapToWhiteboard(r: WhiteboardResponse): Whiteboard {
   return {
     id: String(r.id),
@@ -33,4 +38,15 @@ export const whiteboardsApi = {
     return mapToWhiteboard(data)
   },
   delete: (id: string) => http.delete(`/whiteboards/${id}`),
+  /** 按游标分页读取笔画（先快照后日志），白板在翻页期间被压缩时服务端返回 409 */
+  listStrokes: (id: string, cursor: string | null, limit = 500) => {
+    const params: Record<string, string> = { limit: String(limit) }
+    if (cursor) params.cursor = cursor
+    return http.get<StrokePageResponse>(`/whiteboards/${id}/strokes`, params)
+  },
+  /** 追加一笔，只写入一行日志 */
+  addStroke: (id: string, stroke: StrokeData) =>
+    http.post<WhiteboardStroke>(`/whiteboards/${id}/strokes`, stroke),
+  removeStroke: (id: string, strokeId: number) => http.delete(`/whiteboards/${id}/strokes/${strokeId}`),
+  clearStrokes: (id: string) => http.delete(`/whiteboards/${id}/strokes`),
 }
@@ -61,9 +61,10 @@ export const useAuthStore = defineStore('auth', () => {
 
   async function updateUserAvatar(avatarUrl: string | null) {
     const { usersApi } = await import('@/api/organizations')
-    await usersApi.updateAvatar(avatarUrl)
+    // 上传的图片由后端存入头像库，以返回的短地址为准
+    const resp = await usersApi.updateAvatar(avatarUrl)
     if (user.value) {
-      user.value = { ...user.value, avatarUrl: avatarUrl || undefined }
+      user.value = { ...user.value, avatarUrl: resp.avatarUrl || undefined }
       localStorage.setItem(USER_KEY, JSON.stringify(user.value))
     }
   }
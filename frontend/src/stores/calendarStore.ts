@@ -6,6 +6,7 @@ import { calendarApi } from '@/api/calendar'
 export const useCalendarStore = defineStore('calendar', () => {
   const events = ref<CalendarEvent[]>([])
   const loading = ref(false)
+  let lastRange: [string, string] | null = null
 
   function eventsByDate(date: string) {
     return computed(() =>
@@ -16,6 +17,7 @@ export const useCalendarStore = defineStore('calendar', () => {
   }
 
   async function fetchEvents(startDate: string, endDate: string) {
+    lastRange = [startDate, endDate]
     loading.value = true
     try {
       events.value = await calendarApi.list(startDate, endDate)
@@ -39,6 +41,11 @@ export const useCalendarStore = defineStore('calendar', () => {
   async function updateEvent(id: string, updates: Partial<Omit<CalendarEvent, 'id'>>) {
     try {
       const updated = await calendarApi.update(id, updates as Partial<CalendarEvent>)
+      // 重复序列在列表中展开为多个发生项，改动后按当前范围重新拉取
+      if ((updated.recurrenceRule || updates.recurrenceRule) && lastRange) {
+        await fetchEvents(...lastRange)
+        return
+      }
       const idx = events.value.findIndex((e) => e.id === id)
       if (idx !== -1) events.value[idx] = updated
     } catch (e) {
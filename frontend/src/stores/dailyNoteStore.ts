@@ -1,11 +1,25 @@
 import { defineStore } from 'pinia'
 import { ref } from 'vue'
 import type { DailyNote } from '@/types'
-import { dailyNotesApi } from '@/api/dailyNotes'
+import { dailyNotesApi, type DailyNoteSummary } from '@/api/dailyNotes'
+import { HttpError } from '@/api/http'
+import { diffText } from '@/utils/textDiff'
 
 export const useDailyNoteStore = defineStore('dailyNote', () => {
   const dailyNotes = ref<Map<string, DailyNote>>(new Map())
   const loading = ref(false)
+  /** 服务端已确认的正文及版本，作为增量保存的基线（缓存对象会被编辑页直接修改） */
+  const savedSnapshots = new Map<string, { content: string; version: number }>()
+  /** 保存正文时发现服务端已被其他会话修改（409）的日期及服务端当前版本，由用户决定保留哪一方 */
+  const conflicts = ref<Map<string, DailyNote>>(new Map())
+  /** 同一天的保存串行执行，后一次以前一次确认的版本为基线 */
+  const saveChains = new Map<string, Promise<unknown>>()
+
+  function rememberSaved(note: DailyNote) {
+    if (note.version !== undefined) {
+      savedSnapshots.set(note.date, { content: note.content, version: note.version })
+    }
+  }
 
   async function getOrCreate(date: string): Promise<DailyNote> {
     const cached = dailyNotes.value.get(date)
@@ -14,6 +28,7 @@ export const useDailyNoteStore = defineStore('dailyNote', () => {
     loading.value = true
     try {
       const note = await dailyNotesApi.get(date)
+      rememberSaved(note)
       dailyNotes.value.set(date, note)
       return note
     } catch (e) {
@@ -33,26 +48,92 @@ export const useDailyNoteStore = defineStore('dailyNote', () => {
     }
   }
 
+  /** 返回保存后的日记；未保存（含存在未解决的冲突）时返回 undefined */
   async function updateDailyNote(date: string, payload: { content?: string; weather?: string; mood?: string }) {
+    if (conflicts.value.has(date) && payload.content !== undefined) return undefined
     try {
-      const updated = await dailyNotesApi.update(date, payload)
+      const updated = await enqueueSave(date, () => saveToServer(date, payload))
+      rememberSaved(updated)
       dailyNotes.value.set(date, updated)
       return updated
     } catch (e) {
-      console.error('Failed to update daily note:', e)
+      if (e instanceof HttpError && e.status === 409) {
+        await recordConflict(date)
+      } else {
+        console.error('Failed to update daily note:', e)
+      }
+    }
+  }
+
+  /**
+   * 仅修改正文且有基线时走 PATCH，其余情况整篇 PUT，涉及正文时带 If-Match。
+   * 版本冲突（409）直接抛出交给用户处理，不会退回无条件覆盖。
+   */
+  async function saveToServer(date: string, payload: { content?: string; weather?: string; mood?: string }): Promise<DailyNote> {
+    const base = savedSnapshots.get(date)
+    const contentOnly = payload.content !== undefined && payload.weather === undefined && payload.mood === undefined
+    if (base && contentOnly) {
+      return dailyNotesApi.patch(date, {
+        baseVersion: base.version,
+        edits: diffText(base.content, payload.content!),
+      })
+    }
+    return dailyNotesApi.update(date, payload, payload.content !== undefined ? base?.version : undefined)
+  }
+
+  function enqueueSave<T>(date: string, task: () => Promise<T>): Promise<T> {
+    const next = (saveChains.get(date) ?? Promise.resolve()).catch(() => undefined).then(task)
+    saveChains.set(date, next)
+    const cleanup = () => {
+      if (saveChains.get(date) === next) saveChains.delete(date)
     }
+    next.then(cleanup, cleanup)
+    return next
+  }
+
+  async function recordConflict(date: string) {
+    try {
+      conflicts.value.set(date, await dailyNotesApi.get(date))
+    } catch (e) {
+      console.error('Failed to load conflicting daily note:', e)
+    }
+  }
+
+  /**
+   * 解决保存冲突。theirs：放弃本地改动，换成服务端版本；
+   * mine：以服务端最新版本为基线重新提交本地正文，期间再次被修改时会重新进入冲突。
+   * 返回当前应显示的日记，未保存时返回 undefined。
+   */
+  async function resolveConflict(date: string, keep: 'mine' | 'theirs', content: string): Promise<DailyNote | undefined> {
+    const server = conflicts.value.get(date)
+    if (!server) return dailyNotes.value.get(date)
+    conflicts.value.delete(date)
+    rememberSaved(server)
+    if (keep === 'theirs') {
+      dailyNotes.value.set(date, server)
+      return server
+    }
+    return updateDailyNote(date, { content })
   }
 
   const datesWithContent = ref<Set<string>>(new Set())
+  /** 月视图中各日期的天气、心情，与 datesWithContent 同一次请求获取 */
+  const daySummaries = ref<Map<string, DailyNoteSummary>>(new Map())
 
   async function fetchDatesWithContent(from: string, to: string) {
     try {
-      const dates = await dailyNotesApi.listDatesWithContent(from, to)
-      dates.forEach(d => datesWithContent.value.add(d))
+      const summaries = await dailyNotesApi.listSummaries(from, to)
+      summaries.forEach(s => {
+        daySummaries.value.set(s.noteDate, s)
+        if (s.hasContent) datesWithContent.value.add(s.noteDate)
+      })
     } catch (e) {
       console.error('Failed to fetch dates with content:', e)
     }
   }
 
-  return { dailyNotes, loading, getOrCreate, updateDailyNote, datesWithContent, fetchDatesWithContent }
+  return {
+    dailyNotes, loading, conflicts, getOrCreate, updateDailyNote, resolveConflict,
+    datesWithContent, daySummaries, fetchDatesWithContent,
+  }
 })
@@ -2,6 +2,8 @@ import { defineStore } from 'pinia'
 import { ref, computed } from 'vue'
 import type { Note } from '@/types'
 import { notesApi } from '@/api/notes'
+import { HttpError } from '@/api/http'
+import { diffText } from '@/utils/textDiff'
 
 export const useNoteStore = defineStore('note', () => {
   const notes = ref<Note[]>([])
@@ -9,6 +11,18 @@ export const useNoteStore = defineStore('note', () => {
   const activeTagFilter = ref<string | null>(null)
   const sortMode = ref<'updatedAt' | 'createdAt' | 'title'>('updatedAt')
   const loading = ref(false)
+  /** 服务端已确认的正文及版本，作为增量保存的基线（notes 中的正文会被乐观更新，不能直接用） */
+  const savedSnapshots = new Map<string, { content: string; version: number }>()
+  /** 保存时发现服务端已被其他会话修改（409）的笔记及其服务端当前版本，由用户决定保留哪一方 */
+  const conflicts = ref<Map<string, Note>>(new Map())
+  /** 同一篇笔记的保存串行执行，后一次以前一次确认的版本为基线，连续自动保存不会自相冲突 */
+  const saveChains = new Map<string, Promise<unknown>>()
+
+  function rememberSaved(note: Note) {
+    if (note.version !== undefined) {
+      savedSnapshots.set(note.id, { content: note.content, version: note.version })
+    }
+  }
 
   const activeNote = computed(() =>
     notes.value.find((n) => n.id === activeNoteId.value) ?? null
@@ -50,6 +64,7 @@ export const useNoteStore = defineStore('note', () => {
     loading.value = true
     try {
       notes.value = await notesApi.list(folderId)
+      notes.value.forEach(rememberSaved)
     } catch (e) {
       console.error('Failed to fetch notes:', e)
     } finally {
@@ -60,6 +75,7 @@ export const useNoteStore = defineStore('note', () => {
   async function addNote(folderId: string | null, title = '无标题') {
     try {
       const note = await notesApi.create({ folderId, title, content: '', excerpt: '', isPinned: false, tags: [] })
+      rememberSaved(note)
       notes.value.unshift(note)
       activeNoteId.value = note.id
       return note
@@ -90,6 +106,7 @@ export const useNoteStore = defineStore('note', () => {
         isPinned: false,
         tags: [],
       })
+      rememberSaved(note)
       notes.value.unshift(note)
       activeNoteId.value = note.id
       return note
@@ -99,20 +116,84 @@ export const useNoteStore = defineStore('note', () => {
     }
   }
 
-  async function updateNote(id: string, updates: Partial<Pick<Note, 'title' | 'content' | 'excerpt' | 'tags' | 'isPinned' | 'folderId'>>) {
+  /** 返回是否已保存；存在未解决的冲突时不再提交正文，本地改动保留在 notes 中 */
+  async function updateNote(id: string, updates: Partial<Pick<Note, 'title' | 'content' | 'excerpt' | 'tags' | 'isPinned' | 'folderId'>>): Promise<boolean> {
     const note = notes.value.find((n) => n.id === id)
     if (note) {
       Object.assign(note, updates, { updatedAt: new Date().toISOString() })
     }
+    if (conflicts.value.has(id) && updates.content !== undefined) return false
     try {
-      const updated = await notesApi.update(id, updates)
+      const updated = await enqueueSave(id, () => saveToServer(id, updates))
+      rememberSaved(updated)
       const idx = notes.value.findIndex((n) => n.id === id)
       if (idx !== -1) {
-        Object.assign(notes.value[idx], { updatedAt: updated.updatedAt })
+        Object.assign(notes.value[idx], { updatedAt: updated.updatedAt, version: updated.version })
       }
+      return true
     } catch (e) {
-      console.error('Failed to update note:', e)
+      if (e instanceof HttpError && e.status === 409) {
+        await recordConflict(id)
+      } else {
+        console.error('Failed to update note:', e)
+      }
+      return false
+    }
+  }
+
+  /**
+   * 只改正文 / 标题 / 摘要且有基线时走 PATCH，只发送变化的片段；其余情况整篇 PUT，涉及正文时带 If-Match。
+   * 版本冲突（409）直接抛出交给用户处理，不会退回无条件覆盖。
+   */
+  async function saveToServer(id: string, updates: Partial<Note>): Promise<Note> {
+    const base = savedSnapshots.get(id)
+    const patchable = Object.keys(updates).every((k) => k === 'content' || k === 'title' || k === 'excerpt')
+    if (base && patchable && updates.content !== undefined) {
+      return notesApi.patch(id, {
+        baseVersion: base.version,
+        edits: diffText(base.content, updates.content),
+        title: updates.title,
+        excerpt: updates.excerpt,
+      })
+    }
+    return notesApi.update(id, updates, updates.content !== undefined ? base?.version : undefined)
+  }
+
+  function enqueueSave<T>(id: string, task: () => Promise<T>): Promise<T> {
+    const next = (saveChains.get(id) ?? Promise.resolve()).catch(() => undefined).then(task)
+    saveChains.set(id, next)
+    const cleanup = () => {
+      if (saveChains.get(id) === next) saveChains.delete(id)
     }
+    next.then(cleanup, cleanup)
+    return next
+  }
+
+  async function recordConflict(id: string) {
+    try {
+      conflicts.value.set(id, await notesApi.get(id))
+    } catch (e) {
+      console.error('Failed to load conflicting note:', e)
+    }
+  }
+
+  /**
+   * 解决保存冲突。theirs：放弃本地改动，换成服务端版本；
+   * mine：以服务端最新版本为基线重新提交本地内容（pending 为编辑器中尚未提交的改动），期间再次被修改时会重新进入冲突。
+   */
+  async function resolveConflict(id: string, keep: 'mine' | 'theirs', pending?: Pick<Note, 'content' | 'excerpt'>): Promise<boolean> {
+    const server = conflicts.value.get(id)
+    if (!server) return true
+    conflicts.value.delete(id)
+    rememberSaved(server)
+    const idx = notes.value.findIndex((n) => n.id === id)
+    if (idx === -1) return true
+    if (keep === 'theirs') {
+      notes.value[idx] = server
+      return true
+    }
+    const local = notes.value[idx]
+    return updateNote(id, { title: local.title, content: local.content, excerpt: local.excerpt, ...pending })
   }
 
   async function deleteNote(id: string) {
@@ -161,5 +242,8 @@ export const useNoteStore = defineStore('note', () => {
     }
   }
 
-  return { notes, activeNoteId, activeTagFilter, sortMode, activeNote, allNotes, loading, notesByFolder, fetchNotes, addNote, importMarkdown, updateNote, deleteNote, deleteNotes, setActive, searchNotes, getBacklinks }
+  return {
+    notes, activeNoteId, activeTagFilter, sortMode, activeNote, allNotes, loading, conflicts, notesByFolder, fetchNotes, addNote,
+    importMarkdown, updateNote, resolveConflict, deleteNote, deleteNotes, setActive, searchNotes, getBacklinks,
+  }
 })
@@ -1,23 +1,26 @@
 import { defineStore } from 'pinia'
-import { ref, computed } from 'vue'
+import { ref } from 'vue'
 import type { Task } from '@/types'
-import { tasksApi } from '@/api/tasks'
+import { tasksApi, type TaskCounts } from '@/api/tasks'
+
+function today() {
+  return new Date().toISOString().slice(0, 10)
+}
 
 export const useTaskStore = defineStore('task', () => {
-  const tasks = ref<Task[]>([])
+  // 各列表由服务端按条件筛选（completed / dueFrom、dueTo），不再拉取全部任务后在前端过滤
+  const pendingTasks = ref<Task[]>([])
+  const completedTasks = ref<Task[]>([])
+  const todayTasks = ref<Task[]>([])
+  const completedLoaded = ref(false)
   const loading = ref(false)
+  // 侧边栏计数由服务端分组统计，无需加载完整任务列表
+  const counts = ref<TaskCounts>({ total: 0, pending: 0, completed: 0, dueToday: 0, overdue: 0 })
 
-  const pendingTasks = computed(() => tasks.value.filter((t) => !t.completed))
-  const completedTasks = computed(() => tasks.value.filter((t) => t.completed))
-  const todayTasks = computed(() => {
-    const today = new Date().toISOString().slice(0, 10)
-    return tasks.value.filter((t) => t.dueDate === today)
-  })
-
-  async function fetchTasks() {
+  async function fetchPending() {
     loading.value = true
     try {
-      tasks.value = await tasksApi.list()
+      pendingTasks.value = await tasksApi.list({ completed: false })
     } catch (e) {
       console.error('Failed to fetch tasks:', e)
     } finally {
@@ -25,34 +28,78 @@ export const useTaskStore = defineStore('task', () => {
     }
   }
 
+  /** 已完成列表默认折叠，展开时才加载 */
+  async function fetchCompleted() {
+    try {
+      completedTasks.value = await tasksApi.list({ completed: true })
+      completedLoaded.value = true
+    } catch (e) {
+      console.error('Failed to fetch completed tasks:', e)
+    }
+  }
+
+  async function fetchToday() {
+    const date = today()
+    try {
+      todayTasks.value = await tasksApi.list({ dueFrom: date, dueTo: date })
+    } catch (e) {
+      console.error('Failed to fetch today tasks:', e)
+    }
+  }
+
+  async function fetchCounts() {
+    try {
+      counts.value = await tasksApi.counts()
+    } catch (e) {
+      console.error('Failed to fetch task counts:', e)
+    }
+  }
+
   async function addTask(content: string, priority: Task['priority'] = 'medium', dueDate: string | null = null) {
     try {
       const task = await tasksApi.create(content, priority, dueDate)
-      tasks.value.unshift(task)
+      pendingTasks.value.unshift(task)
+      if (task.dueDate === today()) todayTasks.value.unshift(task)
+      fetchCounts()
       return task
     } catch (e) {
       console.error('Failed to create task:', e)
     }
   }
 
+  /** 乐观切换：先在待完成 / 已完成两个列表间移动，请求失败再移回 */
   async function toggleTask(id: string) {
-    const task = tasks.value.find((t) => t.id === id)
+    const task = pendingTasks.value.find((t) => t.id === id) ?? completedTasks.value.find((t) => t.id === id)
     if (!task) return
     const newCompleted = !task.completed
-    task.completed = newCompleted
+    move(task, newCompleted)
     try {
       await tasksApi.update(id, { completed: newCompleted })
+      fetchCounts()
     } catch (e) {
-      task.completed = !newCompleted
+      move(task, !newCompleted)
       console.error('Failed to toggle task:', e)
     }
   }
 
+  function move(task: Task, completed: boolean) {
+    task.completed = completed
+    const [from, to] = completed ? [pendingTasks, completedTasks] : [completedTasks, pendingTasks]
+    from.value = from.value.filter((t) => t.id !== task.id)
+    // 已完成列表尚未加载时不插入，展开时会整体拉取
+    if (!completed || completedLoaded.value) to.value.unshift(task)
+    const todayTask = todayTasks.value.find((t) => t.id === task.id)
+    if (todayTask) todayTask.completed = completed
+  }
+
   async function updateTask(id: string, updates: Partial<Pick<Task, 'content' | 'priority' | 'dueDate'>>) {
     try {
       const updated = await tasksApi.update(id, updates)
-      const idx = tasks.value.findIndex((t) => t.id === id)
-      if (idx !== -1) tasks.value[idx] = updated
+      for (const list of [pendingTasks, completedTasks]) {
+        const idx = list.value.findIndex((t) => t.id === id)
+        if (idx !== -1) list.value[idx] = updated
+      }
+      if (updates.dueDate !== undefined) fetchToday()
     } catch (e) {
       console.error('Failed to update task:', e)
     }
@@ -61,11 +108,17 @@ export const useTaskStore = defineStore('task', () => {
   async function deleteTask(id: string) {
     try {
       await tasksApi.delete(id)
-      tasks.value = tasks.value.filter((t) => t.id !== id)
+      for (const list of [pendingTasks, completedTasks, todayTasks]) {
+        list.value = list.value.filter((t) => t.id !== id)
+      }
+      fetchCounts()
     } catch (e) {
       console.error('Failed to delete task:', e)
     }
   }
 
-  return { tasks, loading, pendingTasks, completedTasks, todayTasks, fetchTasks, addTask, toggleTask, updateTask, deleteTask }
+  return {
+    loading, counts, pendingTasks, completedTasks, todayTasks,
+    fetchPending, fetchCompleted, fetchToday, fetchCounts, addTask, toggleTask, updateTask, deleteTask,
+  }
 })
@@ -1,7 +1,8 @@
 import { defineStore } from 'pinia'
 import { ref, computed } from 'vue'
-import type { Whiteboard } from '@/types'
+import type { Whiteboard, WhiteboardStroke, StrokeData } from '@/types'
 import { whiteboardsApi } from '@/api/whiteboards'
+import { HttpError } from '@/api/http'
 
 export const useWhiteboardStore = defineStore('whiteboard', () => {
   const whiteboards = ref<Whiteboard[]>([])
@@ -58,9 +59,70 @@ export const useWhiteboardStore = defineStore('whiteboard', () => {
     }
   }
 
+  /**
+   * 逐页加载笔画，每页到达即回调以便边加载边绘制。
+   * 翻页期间白板被压缩（409）时通过 onRestart 通知调用方清空后从头加载。
+   */
+  async function loadStrokes(id: string, onPage: (strokes: WhiteboardStroke[]) => void, onRestart: () => void) {
+    for (let attempt = 0; attempt < 3; attempt++) {
+      try {
+        let cursor: string | null = null
+        do {
+          const page = await whiteboardsApi.listStrokes(id, cursor)
+          onPage(page.items)
+          cursor = page.nextCursor
+        } while (cursor)
+        return
+      } catch (e) {
+        if (!(e instanceof HttpError && e.status === 409)) {
+          console.error('Failed to load strokes:', e)
+          return
+        }
+        onRestart()
+      }
+    }
+  }
+
+  function touch(id: string) {
+    const wb = whiteboards.value.find((w) => w.id === id)
+    if (wb) wb.updatedAt = new Date().toISOString()
+  }
+
+  async function addStroke(id: string, stroke: StrokeData): Promise<number | undefined> {
+    touch(id)
+    try {
+      const saved = await whiteboardsApi.addStroke(id, stroke)
+      return saved.id
+    } catch (e) {
+      console.error('Failed to save stroke:', e)
+    }
+  }
+
+  async function removeStroke(id: string, strokeId: number) {
+    touch(id)
+    try {
+      await whiteboardsApi.removeStroke(id, strokeId)
+    } catch (e) {
+      console.error('Failed to remove stroke:', e)
+    }
+  }
+
+  async function clearStrokes(id: string) {
+    touch(id)
+    try {
+      await whiteboardsApi.clearStrokes(id)
+    } catch (e) {
+      console.error('Failed to clear whiteboard:', e)
+    }
+  }
+
   function setActive(id: string | null) {
     activeWhiteboardId.value = id
   }
 
-  return { whiteboards, activeWhiteboardId, activeWhiteboard, loading, fetchWhiteboards, addWhiteboard, updateWhiteboard, deleteWhiteboard, setActive }
+  return {
+    whiteboards, activeWhiteboardId, activeWhiteboard, loading,
+    fetchWhiteboards, addWhiteboard, updateWhiteboard, deleteWhiteboard, setActive,
+    loadStrokes, addStroke, removeStroke, clearStrokes,
+  }
 })
@@ -16,6 +16,8 @@ export interface Note {
   excerpt: string
   tags: string[]
   isPinned: boolean
+  /** 服务端内容修订号，增量保存时作为基线版本 */
+  version?: number
   createdAt: string
   updatedAt: string
 }
@@ -36,6 +38,7 @@ export interface DailyNote {
   content: string
   weather: string
   mood: string
+  version?: number
   createdAt: string
   updatedAt: string
 }
@@ -47,6 +50,10 @@ export interface CalendarEvent {
   time: string | null
   endDate: string | null
   endTime: string | null
+  /** RRULE，如 FREQ=WEEKLY;BYDAY=MO,WE；null 表示不重复 */
+  recurrenceRule?: string | null
+  /** 展开后的发生项才有：序列本身的起始日期，编辑序列时应以它为 date */
+  seriesStartDate?: string | null
   description: string
   color: string
 }
@@ -59,5 +66,16 @@ export interface Whiteboard {
   updatedAt: string
 }
 
+export interface StrokeData {
+  color: string
+  width: number
+  points: { x: number; y: number }[]
+}
+
+export interface WhiteboardStroke {
+  id: number
+  data: StrokeData
+}
+
 export type ThemeMode = 'light' | 'dark'
 export type SidebarSection = 'notes' | 'tasks' | 'calendar' | 'daily' | 'whiteboard'
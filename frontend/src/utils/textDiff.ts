@@ -0,0 +1,25 @@
+/** 相对基线文本的一段替换：把 [from, to) 替换为 text，下标为 UTF-16 单元 */
+export interface TextEdit {
+  from: number
+  to: number
+  text: string
+}
+
+/**
+ * 计算把 base 变为 next 的替换列表：去掉公共前缀和公共后缀，剩余部分作为一段替换。
+ * 自动保存时通常只改动光标附近，请求体因此与文档长度无关。
+ */
+export function diffText(base: string, next: string): TextEdit[] {
+  if (base === next) return []
+  const min = Math.min(base.length, next.length)
+  let start = 0
+  while (start < min && base.charCodeAt(start) === next.charCodeAt(start)) start++
+
+  let endBase = base.length
+  let endNext = next.length
+  while (endBase > start && endNext > start && base.charCodeAt(endBase - 1) === next.charCodeAt(endNext - 1)) {
+    endBase--
+    endNext--
+  }
+  return [{ from: start, to: endBase, text: next.slice(start, endNext) }]
+}